@@ -19,19 +19,17 @@
  */
 package org.inria.myriads.snoozenode.bootstrap;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
 import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
-import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.bootstrap.hierarchy.HierarchySnapshotService;
+import org.inria.myriads.snoozenode.bootstrap.hierarchy.HierarchySource;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.database.DatabaseFactory;
@@ -50,13 +48,13 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class BootstrapBackend 
-    implements HeartbeatListener
+    implements HeartbeatListener, HierarchySource
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(BootstrapBackend.class);
     
     /** The group leader description. */
-    private GroupManagerDescription groupLeaderDescription_;
+    private volatile GroupManagerDescription groupLeaderDescription_;
     
     /** The node configuration.*/
     private NodeConfiguration nodeConfiguration_;
@@ -67,6 +65,9 @@ public final class BootstrapBackend
     /** Track backend activity.*/
     private boolean isActive_;
     
+    /** The hierarchy snapshot service. */
+    private HierarchySnapshotService hierarchyService_;
+    
     /**
      * Bootstrap backend constructor.
      * 
@@ -79,6 +80,7 @@ public final class BootstrapBackend
         Guard.check(nodeParameters);
         log_.debug("Starting bootstrap backend");
         nodeConfiguration_ = nodeParameters;
+        hierarchyService_ = new HierarchySnapshotService(this, nodeParameters.getBootstrap());
         NetworkAddress address = nodeParameters.getNetworking().getMulticast().getGroupLeaderHeartbeatAddress();
         int heartbeatTimeout = nodeParameters.getFaultTolerance().getHeartbeat().getTimeout();
         new Thread(HeartbeatFactory.newHeartbeatMulticastListener(address, 
@@ -131,6 +133,7 @@ public final class BootstrapBackend
         {
             log_.debug("Updating group leader information");        
             groupLeaderDescription_ = ManagementUtils.createGroupLeaderDescriptionFromHeartbeat(heartbeatMessage);
+            hierarchyService_.invalidate();
         }
     }
 
@@ -144,6 +147,7 @@ public final class BootstrapBackend
         if (groupLeaderDescription_ != null)
         {
             groupLeaderDescription_ = null;
+            hierarchyService_.invalidate();
         }
     }
 
@@ -156,32 +160,15 @@ public final class BootstrapBackend
      */
     public GroupLeaderRepositoryInformation getCompleteHierarchy()
     {
-
-        log_.debug("Starting the hierarchy building");
-        
-        NetworkAddress groupLeaderAddress = groupLeaderDescription_.getListenSettings().getControlDataAddress();
-        
-        GroupLeaderRepositoryInformation groupLeaderInformation = 
-                getGroupLeaderRepositoryInformation(groupLeaderAddress, 0);
-
-        GroupLeaderRepositoryInformation hierarchy = new GroupLeaderRepositoryInformation();
-        ArrayList<GroupManagerDescription> groupManagers = groupLeaderInformation.getGroupManagerDescriptions();
-        hierarchy.setGroupManagerDescriptions(groupManagers);
-        int i = 0;
-        for (GroupManagerDescription groupManager : groupManagers) 
+        GroupManagerDescription groupLeader = groupLeaderDescription_;
+        if (groupLeader == null)
         {
-            NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerRepositoryInformation information = getGroupManagerRepositoryInformations(address, 0);
-            HashMap<String, LocalControllerDescription> localControllers =
-                    new HashMap<String, LocalControllerDescription>();
-            for (LocalControllerDescription localController : information.getLocalControllerDescriptions())
-            {
-                localControllers.put(localController.getId(), localController);
-            }
-            hierarchy.getGroupManagerDescriptions().get(i).setLocalControllers(localControllers);  
-            i++;
-        }   
-        return hierarchy;
+            log_.debug("No group leader available");
+            return null;
+        }
+        
+        NetworkAddress groupLeaderAddress = groupLeader.getListenSettings().getControlDataAddress();
+        return hierarchyService_.getHierarchy(groupLeaderAddress);
     }
     
     /**
@@ -0,0 +1,389 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.bootstrap.hierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchy snapshot service.
+ * 
+ * Builds the complete hierarchy by querying the group managers in parallel, each one
+ * bounded by a timeout. Concurrent requests share a single in-flight build and the
+ * resulting snapshot is served until its time to live expires.
+ * 
+ * @author Eugen Feller
+ */
+public final class HierarchySnapshotService 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(HierarchySnapshotService.class);
+    
+    /** The hierarchy source. */
+    private final HierarchySource source_;
+    
+    /** Snapshot time to live (ms). */
+    private final long timeToLive_;
+    
+    /** Per group manager timeout (ms). */
+    private final long timeout_;
+    
+    /** Number of group managers queried in parallel. */
+    private final int numberOfThreads_;
+    
+    /** Group manager queries. */
+    private final ExecutorService pool_;
+    
+    /** Snapshot lock. */
+    private final Object lock_;
+    
+    /** The latest snapshot. */
+    private GroupLeaderRepositoryInformation snapshot_;
+    
+    /** The latest snapshot time stamp (ms). */
+    private long snapshotTimeStamp_;
+    
+    /** The in-flight build. */
+    private FutureTask<GroupLeaderRepositoryInformation> build_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param source        The hierarchy source
+     * @param settings      The bootstrap settings
+     */
+    public HierarchySnapshotService(HierarchySource source, BootstrapSettings settings)
+    {
+        Guard.check(source, settings);
+        log_.debug(String.format("Starting the hierarchy snapshot service (ttl: %d sec, threads: %d, timeout: %d sec)",
+                                 settings.getHierarchyCacheTtl(), 
+                                 settings.getNumberOfHierarchyThreads(),
+                                 settings.getHierarchyTimeout()));
+        source_ = source;
+        timeToLive_ = TimeUnit.SECONDS.toMillis(settings.getHierarchyCacheTtl());
+        timeout_ = TimeUnit.SECONDS.toMillis(settings.getHierarchyTimeout());
+        numberOfThreads_ = Math.max(1, settings.getNumberOfHierarchyThreads());
+        pool_ = Executors.newFixedThreadPool(numberOfThreads_);
+        lock_ = new Object();
+    }
+    
+    /**
+     * Returns the hierarchy.
+     * 
+     * @param groupLeaderAddress    The group leader address
+     * @return                      The hierarchy, null if unavailable
+     */
+    public GroupLeaderRepositoryInformation getHierarchy(final NetworkAddress groupLeaderAddress)
+    {
+        Guard.check(groupLeaderAddress);
+        FutureTask<GroupLeaderRepositoryInformation> build;
+        boolean isOwner = false;
+        synchronized (lock_)
+        {
+            if (snapshot_ != null && System.currentTimeMillis() - snapshotTimeStamp_ < timeToLive_)
+            {
+                log_.debug("Returning the cached hierarchy snapshot");
+                return snapshot_;
+            }
+            
+            build = build_;
+            if (build == null)
+            {
+                build = new FutureTask<GroupLeaderRepositoryInformation>(
+                        new Callable<GroupLeaderRepositoryInformation>()
+                {
+                    @Override
+                    public GroupLeaderRepositoryInformation call()
+                    {
+                        return buildHierarchy(groupLeaderAddress);
+                    }
+                });
+                build_ = build;
+                isOwner = true;
+            }
+        }
+        
+        if (isOwner)
+        {
+            build.run();
+            onBuildFinished(build);
+        }
+        else
+        {
+            log_.debug("Joining the in-flight hierarchy build");
+        }
+        
+        try
+        {
+            return build.get();
+        }
+        catch (ExecutionException exception)
+        {
+            log_.error("Failed to build the hierarchy", exception.getCause());
+        }
+        catch (InterruptedException exception)
+        {
+            log_.error("Interrupted while waiting for the hierarchy", exception);
+            Thread.currentThread().interrupt();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Publishes the snapshot of a finished build.
+     * 
+     * @param build     The build
+     */
+    private void onBuildFinished(FutureTask<GroupLeaderRepositoryInformation> build)
+    {
+        synchronized (lock_)
+        {
+            if (build_ != build)
+            {
+                log_.debug("Hierarchy snapshot invalidated during the build");
+                return;
+            }
+            
+            build_ = null;
+            try
+            {
+                GroupLeaderRepositoryInformation hierarchy = build.get();
+                if (hierarchy != null)
+                {
+                    snapshot_ = hierarchy;
+                    snapshotTimeStamp_ = System.currentTimeMillis();
+                }
+            }
+            catch (ExecutionException exception)
+            {
+                log_.debug("No hierarchy snapshot to publish");
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Drops the snapshot (e.g. on group leader change).
+     */
+    public void invalidate()
+    {
+        synchronized (lock_)
+        {
+            log_.debug("Invalidating the hierarchy snapshot");
+            snapshot_ = null;
+            build_ = null;
+        }
+    }
+    
+    /**
+     * Builds the hierarchy.
+     * 
+     * @param groupLeaderAddress    The group leader address
+     * @return                      The hierarchy, null if the group leader did not answer
+     */
+    private GroupLeaderRepositoryInformation buildHierarchy(NetworkAddress groupLeaderAddress)
+    {
+        log_.debug("Starting the hierarchy building");
+        GroupLeaderRepositoryInformation groupLeaderInformation = 
+                source_.getGroupLeaderRepositoryInformation(groupLeaderAddress, 0);
+        if (groupLeaderInformation == null)
+        {
+            log_.debug("Unable to get the group leader repository information");
+            return null;
+        }
+        
+        ArrayList<GroupManagerDescription> groupManagers = groupLeaderInformation.getGroupManagerDescriptions();
+        List<GroupManagerQuery> queries = new ArrayList<GroupManagerQuery>();
+        List<Future<GroupManagerRepositoryInformation>> futures = 
+                new ArrayList<Future<GroupManagerRepositoryInformation>>();
+        for (GroupManagerDescription groupManager : groupManagers) 
+        {
+            GroupManagerQuery query = new GroupManagerQuery(groupManager);
+            queries.add(query);
+            futures.add(pool_.submit(query));
+        }
+        
+        long numberOfRounds = (queries.size() + numberOfThreads_ - 1) / numberOfThreads_;
+        long deadline = System.currentTimeMillis() + numberOfRounds * timeout_;
+        for (int i = 0; i < queries.size(); i++)
+        {
+            GroupManagerRepositoryInformation information = awaitQuery(queries.get(i), futures.get(i), deadline);
+            HashMap<String, LocalControllerDescription> localControllers =
+                    new HashMap<String, LocalControllerDescription>();
+            if (information != null)
+            {
+                for (LocalControllerDescription localController : information.getLocalControllerDescriptions())
+                {
+                    localControllers.put(localController.getId(), localController);
+                }
+            }
+            
+            groupManagers.get(i).setLocalControllers(localControllers);
+        }
+        
+        GroupLeaderRepositoryInformation hierarchy = new GroupLeaderRepositoryInformation();
+        hierarchy.setGroupManagerDescriptions(groupManagers);
+        log_.debug(String.format("Hierarchy built with %d group managers", groupManagers.size()));
+        return hierarchy;
+    }
+    
+    /**
+     * Waits for a group manager query, bounded by the timeout once the query started
+     * and by the build deadline while still queued.
+     * 
+     * @param query     The query
+     * @param future    The query future
+     * @param deadline  The build deadline (ms)
+     * @return          The group manager repository, null on timeout or failure
+     */
+    private GroupManagerRepositoryInformation awaitQuery(GroupManagerQuery query,
+                                                         Future<GroupManagerRepositoryInformation> future,
+                                                         long deadline)
+    {
+        String groupManagerId = query.getGroupManager().getId();
+        try
+        {
+            while (true)
+            {
+                long startTime = query.getStartTime();
+                long remaining = deadline - System.currentTimeMillis();
+                if (startTime > 0)
+                {
+                    remaining = Math.min(remaining, startTime + timeout_ - System.currentTimeMillis());
+                }
+                
+                if (remaining <= 0 && !future.isDone())
+                {
+                    log_.error(String.format("Timeout while querying group manager: %s", groupManagerId));
+                    future.cancel(true);
+                    return null;
+                }
+                
+                try
+                {
+                    return future.get(remaining, TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException exception)
+                {
+                    log_.debug(String.format("Still waiting for group manager: %s", groupManagerId));
+                }
+            }
+        }
+        catch (ExecutionException exception)
+        {
+            log_.error(String.format("Failed to query group manager: %s", groupManagerId), exception.getCause());
+        }
+        catch (InterruptedException exception)
+        {
+            log_.error("Interrupted while querying the group managers", exception);
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Stops the service.
+     */
+    public void shutdown()
+    {
+        pool_.shutdownNow();
+    }
+    
+    /**
+     * Group manager repository query.
+     */
+    private final class GroupManagerQuery
+        implements Callable<GroupManagerRepositoryInformation>
+    {
+        /** The group manager. */
+        private final GroupManagerDescription groupManager_;
+        
+        /** Start time (ms, 0 = not started). */
+        private volatile long startTime_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param groupManager  The group manager
+         */
+        private GroupManagerQuery(GroupManagerDescription groupManager)
+        {
+            groupManager_ = groupManager;
+        }
+        
+        /**
+         * Queries the group manager.
+         * 
+         * @return  The group manager repository
+         */
+        @Override
+        public GroupManagerRepositoryInformation call()
+        {
+            startTime_ = System.currentTimeMillis();
+            NetworkAddress address = groupManager_.getListenSettings().getControlDataAddress();
+            return source_.getGroupManagerRepositoryInformations(address, 0);
+        }
+        
+        /**
+         * Returns the group manager.
+         * 
+         * @return  The group manager
+         */
+        private GroupManagerDescription getGroupManager()
+        {
+            return groupManager_;
+        }
+        
+        /**
+         * Returns the start time.
+         * 
+         * @return  The start time (ms, 0 = not started)
+         */
+        private long getStartTime()
+        {
+            return startTime_;
+        }
+    }
+}
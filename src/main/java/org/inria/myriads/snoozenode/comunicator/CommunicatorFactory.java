@@ -8,6 +8,7 @@ import org.inria.myriads.snoozenode.comunicator.api.impl.GroupManagerCassandraCo
 import org.inria.myriads.snoozenode.comunicator.api.impl.MemoryCommunicator;
 import org.inria.myriads.snoozenode.comunicator.api.impl.VirtualMachineCassandraCommunicator;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.database.enums.DatabaseType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,23 +38,25 @@ public final class CommunicatorFactory
      * 
      * @param groupLeader       node address
      * @param databaseSettings  data base settings 
+     * @param transportSettings monitoring transport settings
      * @return  DataSender      data sender  
      * @throws IOException  Exception
      */
     public static Communicator newGroupManagerCommunicator(
             NetworkAddress groupLeader,
-            DatabaseSettings databaseSettings
+            DatabaseSettings databaseSettings,
+            MonitoringTransportSettings transportSettings
             ) throws IOException
     {
         DatabaseType database = databaseSettings.getType();
         switch(database)
         {
             case memory:
-                return new MemoryCommunicator(groupLeader);
+                return new MemoryCommunicator(groupLeader, transportSettings);
             case cassandra:
-                return new GroupManagerCassandraCommunicator(groupLeader, databaseSettings);
+                return new GroupManagerCassandraCommunicator(groupLeader, databaseSettings, transportSettings);
             default:
-                return new MemoryCommunicator(groupLeader);
+                return new MemoryCommunicator(groupLeader, transportSettings);
         }
         
     }
@@ -64,21 +67,23 @@ public final class CommunicatorFactory
      * 
      * @param groupManagerAddress   The groupManager address.
      * @param databaseSettings      The database Settings
+     * @param transportSettings     The monitoring transport settings
      * @return  a data sender
      * @throws IOException          Exception
      */
     public static Communicator newVirtualMachineCommunicator(NetworkAddress groupManagerAddress,
-            DatabaseSettings databaseSettings) throws IOException
+            DatabaseSettings databaseSettings, MonitoringTransportSettings transportSettings) throws IOException
     {
         DatabaseType database = databaseSettings.getType();
         switch(database)
         {
             case memory:
-                return new MemoryCommunicator(groupManagerAddress);
+                return new MemoryCommunicator(groupManagerAddress, transportSettings);
             case cassandra:
-                return new VirtualMachineCassandraCommunicator(groupManagerAddress, databaseSettings);
+                return new VirtualMachineCassandraCommunicator(groupManagerAddress, databaseSettings, 
+                                                               transportSettings);
             default:
-                return new MemoryCommunicator(groupManagerAddress);
+                return new MemoryCommunicator(groupManagerAddress, transportSettings);
         }
     }
 }
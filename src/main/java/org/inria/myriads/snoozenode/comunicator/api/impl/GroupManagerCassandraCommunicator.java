@@ -5,6 +5,7 @@ import java.io.IOException;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozenode.comunicator.api.Communicator;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.DataSender;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.impl.CassandraGroupManagerDataSender;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.impl.TCPDataSender;
@@ -35,12 +36,15 @@ public class GroupManagerCassandraCommunicator implements Communicator
      * 
      * @param groupLeaderAddress    The groupLeader address.
      * @param databaseSettings      The database settings.
+     * @param transportSettings     The monitoring transport settings.
      * @throws IOException          Connection Exception.
      */
-    public GroupManagerCassandraCommunicator(NetworkAddress groupLeaderAddress, DatabaseSettings databaseSettings)
+    public GroupManagerCassandraCommunicator(NetworkAddress groupLeaderAddress, 
+                                             DatabaseSettings databaseSettings,
+                                             MonitoringTransportSettings transportSettings)
             throws IOException
     {
-        heartbeatSender_ = new TCPDataSender(groupLeaderAddress);
+        heartbeatSender_ = new TCPDataSender(groupLeaderAddress, transportSettings);
         monitoringSender_ = new CassandraGroupManagerDataSender(databaseSettings);
         log_.debug("GroupManagerCassandraCommunicator initialized");
     }
@@ -4,6 +4,7 @@ import java.io.IOException;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozenode.comunicator.api.Communicator;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.impl.TCPDataSender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,11 +29,13 @@ public class MemoryCommunicator implements Communicator
      * Constructor.
      * 
      * @param groupLeaderAddress        The group Leader address.  
+     * @param transportSettings         The monitoring transport settings.
      * @throws IOException              Exception.
      */
-    public MemoryCommunicator(NetworkAddress groupLeaderAddress) throws IOException
+    public MemoryCommunicator(NetworkAddress groupLeaderAddress, MonitoringTransportSettings transportSettings) 
+        throws IOException
     {
-        sender_ = new TCPDataSender(groupLeaderAddress);
+        sender_ = new TCPDataSender(groupLeaderAddress, transportSettings);
         log_.debug("Memory Communicator initialized");
     }
 
@@ -5,6 +5,7 @@ import java.io.IOException;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozenode.comunicator.api.Communicator;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.DataSender;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.impl.CassandraVirtualMachineDataSender;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.impl.TCPDataSender;
@@ -38,12 +39,15 @@ public class VirtualMachineCassandraCommunicator implements Communicator
      * 
      * @param groupLeaderAddress        Group leader address.
      * @param databaseSettings          Database settings.
+     * @param transportSettings         The monitoring transport settings.
      * @throws IOException              Exception
      */
-    public VirtualMachineCassandraCommunicator(NetworkAddress groupLeaderAddress, DatabaseSettings databaseSettings)
+    public VirtualMachineCassandraCommunicator(NetworkAddress groupLeaderAddress, 
+                                               DatabaseSettings databaseSettings,
+                                               MonitoringTransportSettings transportSettings)
             throws IOException
     {
-        heartbeatSender_ = new TCPDataSender(groupLeaderAddress);
+        heartbeatSender_ = new TCPDataSender(groupLeaderAddress, transportSettings);
         monitoringSender_ = new CassandraVirtualMachineDataSender(databaseSettings);
         log_.debug("GroupManagerCassandraCommunicator initialized");
     }
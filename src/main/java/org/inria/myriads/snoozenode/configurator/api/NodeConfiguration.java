@@ -22,6 +22,7 @@ package org.inria.myriads.snoozenode.configurator.api;
 import java.io.Serializable;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.hypervisor.HypervisorSettings;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
@@ -93,6 +94,9 @@ public class NodeConfiguration
     /** Provisioner settings.*/
     private ProvisionerSettings provisionerSettings_;
     
+    /** Bootstrap settings. */
+    private BootstrapSettings bootstrap_;
+    
     /** Empty constructor. */
     public NodeConfiguration()
     {
@@ -111,6 +115,7 @@ public class NodeConfiguration
         networking_ = new NetworkingSettings();
         imageRepositorySettings_ = new ImageRepositorySettings();
         provisionerSettings_ = new ProvisionerSettings();
+        bootstrap_ = new BootstrapSettings();
     }
 
     /**
@@ -249,6 +254,16 @@ public class NodeConfiguration
         return imageRepositorySettings_;
     }
 
+    /**
+     * Returns the bootstrap settings.
+     * 
+     * @return  The bootstrap settings
+     */
+    public BootstrapSettings getBootstrap() 
+    {
+        return bootstrap_;
+    }
+
     /**
      * @return the provisionerSettings
      */
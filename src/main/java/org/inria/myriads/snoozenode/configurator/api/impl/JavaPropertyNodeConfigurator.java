@@ -38,8 +38,10 @@ import org.inria.myriads.snoozecommon.util.NetworkUtils;
 import org.inria.myriads.snoozecommon.util.StringUtils;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfigurator;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
+import org.inria.myriads.snoozenode.configurator.energymanagement.PredictionSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.PowerSavingAction;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.ShutdownDriver;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.SuspendDriver;
@@ -50,7 +52,9 @@ import org.inria.myriads.snoozenode.configurator.imagerepository.DiskHostingType
 import org.inria.myriads.snoozenode.configurator.imagerepository.ImageRepositorySettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.external.ExternalNotifierSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.external.enums.OverflowPolicy;
 import org.inria.myriads.snoozenode.configurator.networking.NetworkingSettings;
 import org.inria.myriads.snoozenode.configurator.node.NodeSettings;
 import org.inria.myriads.snoozenode.configurator.provisioner.ImageDiskSettings;
@@ -67,7 +71,10 @@ import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.enums.Dispatchin
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Reconfiguration;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Relocation;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.SamplerType;
 import org.inria.myriads.snoozenode.monitoring.TransportProtocol;
+import org.inria.myriads.snoozenode.monitoring.codec.CodecType;
+import org.inria.myriads.snoozenode.tcpip.ReceiverType;
 
 /**
  * Node configurator.
@@ -115,6 +122,7 @@ public final class JavaPropertyNodeConfigurator
         setEnergyManagementSettings();
         setImageRepositorySettings();
         setProvisionerSettings();
+        setBootstrapSettings();
         
         fileInput.close();
     }
@@ -172,6 +180,22 @@ public final class JavaPropertyNodeConfigurator
 
 
 
+    /**
+     * Sets the bootstrap settings.
+     */
+    private void setBootstrapSettings() 
+    {
+        BootstrapSettings bootstrapSettings = nodeConfiguration_.getBootstrap();
+        String cacheTtl = getProperty("bootstrap.hierarchy.cacheTtl", "0");
+        bootstrapSettings.setHierarchyCacheTtl(Integer.valueOf(cacheTtl));
+        
+        String numberOfThreads = getProperty("bootstrap.hierarchy.numberOfThreads", "1");
+        bootstrapSettings.setNumberOfHierarchyThreads(Integer.valueOf(numberOfThreads));
+        
+        String timeout = getProperty("bootstrap.hierarchy.timeout", "30");
+        bootstrapSettings.setHierarchyTimeout(Integer.valueOf(timeout));
+    }
+    
     /**
      * Sets the general settings.
      * 
@@ -271,6 +295,12 @@ public final class JavaPropertyNodeConfigurator
         String networkPackingDensity = getProperty("submission.packingDensity.network");
         double networkDensity = Double.valueOf(networkPackingDensity);    
         submissionSettings.getPackingDensity().setNetwork(networkDensity);
+        
+        String enforcementThreads = getProperty("submission.enforcement.numberOfThreads", "1");
+        submissionSettings.getEnforcement().setNumberOfThreads(Integer.valueOf(enforcementThreads));
+        
+        String enforcementTimeout = getProperty("submission.enforcement.timeout", "600");
+        submissionSettings.getEnforcement().setTimeout(Integer.valueOf(enforcementTimeout));
     }
 
     /**
@@ -352,6 +382,18 @@ public final class JavaPropertyNodeConfigurator
         
         String cassandraHosts = getProperty("database.cassandra.hosts");        
         databaseSettings.getCassandraSettings().setHosts(cassandraHosts);
+        
+        String batchSize = getProperty("database.cassandra.batch.size", "500");
+        databaseSettings.getCassandraSettings().setBatchSize(Integer.valueOf(batchSize));
+        
+        String batchFlushInterval = getProperty("database.cassandra.batch.flushInterval", "200");
+        databaseSettings.getCassandraSettings().setBatchFlushInterval(Integer.valueOf(batchFlushInterval));
+        
+        String batchQueueCapacity = getProperty("database.cassandra.batch.queueCapacity", "20000");
+        databaseSettings.getCassandraSettings().setBatchQueueCapacity(Integer.valueOf(batchQueueCapacity));
+        
+        String isSmile = getProperty("database.cassandra.smile", "false");
+        databaseSettings.getCassandraSettings().setSmile(Boolean.valueOf(isSmile));
     }
 
     /**
@@ -412,6 +454,28 @@ public final class JavaPropertyNodeConfigurator
                                                                                  memoryUtilizationThresholds,
                                                                                  networkUtilizationThresholds);
             monitoringSettings.setThresholds(monitoringThresholds);
+            
+            String samplerType = getProperty("monitoring.sampler", SamplerType.thread.toString());
+            monitoringSettings.setSamplerType(SamplerType.valueOf(samplerType));
+            
+            String numberOfSamplerThreads = getProperty("monitoring.numberOfSamplerThreads", "2");
+            monitoringSettings.setNumberOfSamplerThreads(Integer.valueOf(numberOfSamplerThreads));
+            
+            String fullSnapshotInterval = getProperty("monitoring.summary.fullSnapshotInterval", "1");
+            monitoringSettings.setSummaryFullSnapshotInterval(Integer.valueOf(fullSnapshotInterval));
+            
+            MonitoringTransportSettings transportSettings = monitoringSettings.getTransport();
+            String receiverType = getProperty("monitoring.transport.receiver", ReceiverType.blocking.toString());
+            transportSettings.setReceiverType(ReceiverType.valueOf(receiverType));
+            
+            String numberOfReceiverThreads = getProperty("monitoring.transport.numberOfReceiverThreads", "2");
+            transportSettings.setNumberOfReceiverThreads(Integer.valueOf(numberOfReceiverThreads));
+            
+            String isFramed = getProperty("monitoring.transport.framed", "false");
+            transportSettings.setFramed(Boolean.valueOf(isFramed));
+            
+            String codec = getProperty("monitoring.transport.codec", CodecType.serialization.toString());
+            transportSettings.setCodec(CodecType.valueOf(codec));
         }    
     /**
      * Sets the utilization settings.
@@ -440,6 +504,15 @@ public final class JavaPropertyNodeConfigurator
         monitoringExternalSettings.setVhost(vhost);
         monitoringExternalSettings.setNumberOfRetries(numberOfRetries);
         monitoringExternalSettings.setRetryInterval(retryInterval);
+        
+        String queueCapacity = getProperty("external.notifier.queue.capacity", "10000");
+        monitoringExternalSettings.setQueueCapacity(Integer.valueOf(queueCapacity));
+        String overflowPolicy = getProperty("external.notifier.queue.overflowPolicy", "DROP");
+        monitoringExternalSettings.setOverflowPolicy(OverflowPolicy.valueOf(overflowPolicy));
+        String confirmBatchSize = getProperty("external.notifier.confirm.batchSize", "100");
+        monitoringExternalSettings.setConfirmBatchSize(Integer.valueOf(confirmBatchSize));
+        String confirmTimeout = getProperty("external.notifier.confirm.timeout", "5000");
+        monitoringExternalSettings.setConfirmTimeout(Integer.valueOf(confirmTimeout));
     }
     
     
@@ -469,6 +542,12 @@ public final class JavaPropertyNodeConfigurator
         
         String networkDemandEstimator = getProperty("estimator.policy.network");
         estimatorSettings.getPolicy().setNetwork(Estimator.valueOf(networkDemandEstimator));
+        
+        String migrationBandwidth = getProperty("estimator.migration.bandwidth", "100000");
+        estimatorSettings.setMigrationBandwidth(Double.valueOf(migrationBandwidth));
+        
+        String maxDirtyRatio = getProperty("estimator.migration.maxDirtyRatio", "0.5");
+        estimatorSettings.setMaxDirtyRatio(Double.valueOf(maxDirtyRatio));
     }
     
     /**
@@ -485,6 +564,9 @@ public final class JavaPropertyNodeConfigurator
         
         String dispatchingPolicy = getProperty("groupLeaderScheduler.dispatchingPolicy");
         groupLeader.setDispatchingPolicy(Dispatching.valueOf(dispatchingPolicy));
+        
+        String numberOfSubmissions = getProperty("groupLeaderScheduler.numberOfConcurrentSubmissions", "1");
+        groupLeader.setNumberOfConcurrentSubmissions(Integer.valueOf(numberOfSubmissions));
     }
 
     /**
@@ -516,6 +598,17 @@ public final class JavaPropertyNodeConfigurator
         
         String interval = getProperty("groupManagerScheduler.reconfiguration.interval");
         groupManager.getReconfigurationSettings().setInterval(interval);
+        
+        String operationTimeout = getProperty("groupManagerScheduler.operationTimeout", "30");
+        groupManager.setOperationTimeout(Integer.valueOf(operationTimeout));
+        
+        String maxConcurrentMigrations = getProperty("groupManagerScheduler.migration.maxConcurrent", "8");
+        groupManager.getMigrationSettings().setMaxConcurrentMigrations(Integer.valueOf(maxConcurrentMigrations));
+        
+        String maxConcurrentMigrationsPerHost = 
+            getProperty("groupManagerScheduler.migration.maxConcurrentPerHost", "2");
+        groupManager.getMigrationSettings()
+            .setMaxConcurrentMigrationsPerHost(Integer.valueOf(maxConcurrentMigrationsPerHost));
     }
     
     /**
@@ -542,6 +635,22 @@ public final class JavaPropertyNodeConfigurator
         String wakeupTimeThreshold = getProperty("energyManagement.thresholds.wakeupTime");  
         energyManagement.getThresholds().setWakeupTime(Integer.valueOf(wakeupTimeThreshold));    
         
+        PredictionSettings prediction = energyManagement.getPrediction();
+        String isPredictionEnabled = getProperty("energyManagement.prediction.enabled", "false");
+        prediction.setEnabled(Boolean.valueOf(isPredictionEnabled));
+        
+        String predictionInterval = getProperty("energyManagement.prediction.interval", "30");
+        prediction.setInterval(Integer.valueOf(predictionInterval));
+        
+        String predictionHorizon = getProperty("energyManagement.prediction.horizon", wakeupTimeThreshold);
+        prediction.setHorizon(Integer.valueOf(predictionHorizon));
+        
+        String headroom = getProperty("energyManagement.prediction.headroom", "0.2");
+        prediction.setHeadroom(Double.valueOf(headroom));
+        
+        String historySize = getProperty("energyManagement.prediction.historySize", "20");
+        prediction.setHistorySize(Integer.valueOf(historySize));
+        
         String powerSavingAction = getProperty("energyManagement.powerSavingAction"); 
         energyManagement.setPowerSavingAction(PowerSavingAction.valueOf(powerSavingAction));
                 
@@ -613,4 +722,22 @@ public final class JavaPropertyNodeConfigurator
         content = content.trim();
         return content;             
     }
+    
+    /**
+     * Returns the content of an optional property.
+     * 
+     * @param tag               The tag
+     * @param defaultContent    The content to use if the tag is missing
+     * @return                  The content string
+     */
+    private String getProperty(String tag, String defaultContent) 
+    {
+        String content = properties_.getProperty(tag);
+        if (content == null) 
+        {
+            return defaultContent;
+        }
+        
+        return content.trim();             
+    }
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.bootstrap;
+
+/**
+ * Bootstrap settings.
+ * 
+ * @author Eugen Feller
+ */
+public final class BootstrapSettings 
+{
+    /** Hierarchy snapshot time to live (sec, 0 = no caching). */
+    private int hierarchyCacheTtl_;
+    
+    /** Number of group managers queried in parallel. */
+    private int numberOfHierarchyThreads_;
+    
+    /** Per group manager hierarchy timeout (sec). */
+    private int hierarchyTimeout_;
+
+    /**
+     * Sets the hierarchy snapshot time to live.
+     * 
+     * @param hierarchyCacheTtl     The time to live (sec)
+     */
+    public void setHierarchyCacheTtl(int hierarchyCacheTtl) 
+    {
+        hierarchyCacheTtl_ = hierarchyCacheTtl;
+    }
+
+    /**
+     * Returns the hierarchy snapshot time to live.
+     * 
+     * @return  The time to live (sec)
+     */
+    public int getHierarchyCacheTtl() 
+    {
+        return hierarchyCacheTtl_;
+    }
+
+    /**
+     * Sets the number of hierarchy threads.
+     * 
+     * @param numberOfHierarchyThreads  The number of threads
+     */
+    public void setNumberOfHierarchyThreads(int numberOfHierarchyThreads) 
+    {
+        numberOfHierarchyThreads_ = numberOfHierarchyThreads;
+    }
+
+    /**
+     * Returns the number of hierarchy threads.
+     * 
+     * @return  The number of threads
+     */
+    public int getNumberOfHierarchyThreads() 
+    {
+        return numberOfHierarchyThreads_;
+    }
+
+    /**
+     * Sets the per group manager hierarchy timeout.
+     * 
+     * @param hierarchyTimeout  The timeout (sec)
+     */
+    public void setHierarchyTimeout(int hierarchyTimeout) 
+    {
+        hierarchyTimeout_ = hierarchyTimeout;
+    }
+
+    /**
+     * Returns the per group manager hierarchy timeout.
+     * 
+     * @return  The timeout (sec)
+     */
+    public int getHierarchyTimeout() 
+    {
+        return hierarchyTimeout_;
+    }
+}
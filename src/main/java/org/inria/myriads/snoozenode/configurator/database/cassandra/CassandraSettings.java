@@ -12,6 +12,18 @@ public class CassandraSettings
 
     /** Coma separated list of hosts.*/
     private String hosts_;
+    
+    /** Number of monitoring columns per batch mutation.*/
+    private int batchSize_;
+    
+    /** Monitoring write-behind flush interval (ms).*/
+    private int batchFlushInterval_;
+    
+    /** Maximum number of buffered monitoring columns.*/
+    private int batchQueueCapacity_;
+    
+    /** Signals Smile (binary JSON) encoding of the monitoring columns.*/
+    private boolean isSmile_;
 
     /**
      * Constructor. 
@@ -47,7 +59,68 @@ public class CassandraSettings
     {
         hosts_ = hosts;
     }
-    
-    
-    
+
+    /**
+     * @return the batch size
+     */
+    public int getBatchSize()
+    {
+        return batchSize_;
+    }
+
+    /**
+     * @param batchSize the batch size to set
+     */
+    public void setBatchSize(int batchSize)
+    {
+        batchSize_ = batchSize;
+    }
+
+    /**
+     * @return the batch flush interval
+     */
+    public int getBatchFlushInterval()
+    {
+        return batchFlushInterval_;
+    }
+
+    /**
+     * @param batchFlushInterval the batch flush interval to set
+     */
+    public void setBatchFlushInterval(int batchFlushInterval)
+    {
+        batchFlushInterval_ = batchFlushInterval;
+    }
+
+    /**
+     * @return the batch queue capacity
+     */
+    public int getBatchQueueCapacity()
+    {
+        return batchQueueCapacity_;
+    }
+
+    /**
+     * @param batchQueueCapacity the batch queue capacity to set
+     */
+    public void setBatchQueueCapacity(int batchQueueCapacity)
+    {
+        batchQueueCapacity_ = batchQueueCapacity;
+    }
+
+    /**
+     * @return true if the monitoring columns are Smile encoded
+     */
+    public boolean isSmile()
+    {
+        return isSmile_;
+    }
+
+    /**
+     * @param isSmile the Smile encoding flag to set
+     */
+    public void setSmile(boolean isSmile)
+    {
+        isSmile_ = isSmile;
+    }
 }
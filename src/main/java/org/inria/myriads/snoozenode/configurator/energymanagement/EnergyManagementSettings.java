@@ -46,11 +46,15 @@ public final class EnergyManagementSettings
     /** Command execution timeout. */
     private int commandExecutionTimeOut_;
     
+    /** Prediction settings. */
+    private PredictionSettings prediction_;
+    
     /** Constructor. */
     public EnergyManagementSettings() 
     {   
         drivers_ = new DriverSettings();
         thresholds_ = new ThresholdSettings();
+        prediction_ = new PredictionSettings();
     }
     
     /**
@@ -93,6 +97,16 @@ public final class EnergyManagementSettings
         return thresholds_;
     }
     
+    /** 
+     * Returns the prediction settings.
+     * 
+     * @return  The prediction settings
+     */
+    public PredictionSettings getPrediction()
+    {
+        return prediction_;
+    }
+    
     /**
      * Sets the power saving action.
      * 
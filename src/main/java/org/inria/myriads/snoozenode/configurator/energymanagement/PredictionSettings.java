@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.energymanagement;
+
+/**
+ * Demand prediction settings.
+ * 
+ * @author Eugen Feller
+ */
+public class PredictionSettings
+{
+    /** Prediction enable flag. */
+    private boolean isEnabled_;
+    
+    /** Sampling interval (sec). */
+    private int interval_;
+    
+    /** Forecast horizon (sec). */
+    private int horizon_;
+    
+    /** Capacity headroom (fraction of the forecast demand). */
+    private double headroom_;
+    
+    /** Number of samples to fit the forecast on. */
+    private int historySize_;
+    
+    /** Empty. */
+    public PredictionSettings()
+    {    
+    }
+    
+    /**
+     * Enables/disables the demand prediction.
+     * 
+     * @param isEnabled     true if prediction must be enabled, false otherwise
+     */
+    public void setEnabled(boolean isEnabled) 
+    {
+        isEnabled_ = isEnabled;
+    }
+
+    /**
+     * Returns the prediction flag.
+     * 
+     * @return  true if prediction enabled, false otherwise
+     */
+    public boolean isEnabled() 
+    {
+        return isEnabled_;
+    }
+    
+    /**
+     * Sets the sampling interval.
+     * 
+     * @param interval     The sampling interval
+     */
+    public void setInterval(int interval) 
+    {
+        interval_ = interval;
+    }
+
+    /**
+     * Returns the sampling interval.
+     * 
+     * @return  The sampling interval
+     */
+    public int getInterval() 
+    {
+        return interval_;
+    }
+    
+    /**
+     * Sets the forecast horizon.
+     * 
+     * @param horizon     The forecast horizon
+     */
+    public void setHorizon(int horizon) 
+    {
+        horizon_ = horizon;
+    }
+
+    /**
+     * Returns the forecast horizon.
+     * 
+     * @return  The forecast horizon
+     */
+    public int getHorizon() 
+    {
+        return horizon_;
+    }
+    
+    /**
+     * Sets the capacity headroom.
+     * 
+     * @param headroom     The capacity headroom
+     */
+    public void setHeadroom(double headroom) 
+    {
+        headroom_ = headroom;
+    }
+
+    /**
+     * Returns the capacity headroom.
+     * 
+     * @return  The capacity headroom
+     */
+    public double getHeadroom() 
+    {
+        return headroom_;
+    }
+    
+    /**
+     * Sets the history size.
+     * 
+     * @param historySize     The history size
+     */
+    public void setHistorySize(int historySize) 
+    {
+        historySize_ = historySize;
+    }
+
+    /**
+     * Returns the history size.
+     * 
+     * @return  The history size
+     */
+    public int getHistorySize() 
+    {
+        return historySize_;
+    }
+}
@@ -40,6 +40,12 @@ public final class EstimatorSettings
     /** Static estimations. */
     private boolean isStatic_;
     
+    /** Initial migration bandwidth (memory units per second). */
+    private double migrationBandwidth_;
+    
+    /** Maximum share of the memory dirtied during one pre-copy round. */
+    private double maxDirtyRatio_;
+    
     /** Constructor. */
     public EstimatorSettings()
     {
@@ -115,4 +121,44 @@ public final class EstimatorSettings
     {
         return policy_;
     }
+
+    /**
+     * Sets the initial migration bandwidth.
+     * 
+     * @param migrationBandwidth    The migration bandwidth
+     */
+    public void setMigrationBandwidth(double migrationBandwidth) 
+    {
+        migrationBandwidth_ = migrationBandwidth;
+    }
+
+    /**
+     * Returns the initial migration bandwidth.
+     * 
+     * @return  The migration bandwidth
+     */
+    public double getMigrationBandwidth() 
+    {
+        return migrationBandwidth_;
+    }
+    
+    /**
+     * Sets the maximum dirty ratio.
+     * 
+     * @param maxDirtyRatio     The maximum dirty ratio
+     */
+    public void setMaxDirtyRatio(double maxDirtyRatio) 
+    {
+        maxDirtyRatio_ = maxDirtyRatio;
+    }
+
+    /**
+     * Returns the maximum dirty ratio.
+     * 
+     * @return  The maximum dirty ratio
+     */
+    public double getMaxDirtyRatio() 
+    {
+        return maxDirtyRatio_;
+    }
 }
@@ -19,6 +19,8 @@
  */
 package org.inria.myriads.snoozenode.configurator.monitoring;
 
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.SamplerType;
+
 /**
  * Monitoring settings.
  * 
@@ -37,6 +39,26 @@ public final class MonitoringSettings
     
     /** Monitoring thresholds. */
     private MonitoringThresholds thresholds_;
+    
+    /** Monitoring transport. */
+    private MonitoringTransportSettings transport_;
+    
+    /** Virtual machine sampler type. */
+    private SamplerType samplerType_;
+    
+    /** Number of sampling threads (scheduled sampler only). */
+    private int numberOfSamplerThreads_;
+    
+    /** Number of summaries between two full group manager summaries. */
+    private int summaryFullSnapshotInterval_;
+    
+    /** Constructor. */
+    public MonitoringSettings()
+    {
+        transport_ = new MonitoringTransportSettings();
+        samplerType_ = SamplerType.thread;
+        numberOfSamplerThreads_ = 2;
+    }
      
     /**
      * Sets the number of monitoring entries.
@@ -117,4 +139,74 @@ public final class MonitoringSettings
     {
         return thresholds_;
     }
+    
+    /**
+     * Returns the monitoring transport settings.
+     * 
+     * @return      The monitoring transport settings
+     */
+    public MonitoringTransportSettings getTransport()
+    {
+        return transport_;
+    }
+    
+    /**
+     * Sets the virtual machine sampler type.
+     * 
+     * @param samplerType   The sampler type
+     */
+    public void setSamplerType(SamplerType samplerType)
+    {
+        samplerType_ = samplerType;
+    }
+    
+    /**
+     * Returns the virtual machine sampler type.
+     * 
+     * @return      The sampler type
+     */
+    public SamplerType getSamplerType()
+    {
+        return samplerType_;
+    }
+    
+    /**
+     * Sets the number of sampling threads.
+     * 
+     * @param numberOfSamplerThreads    The number of sampling threads
+     */
+    public void setNumberOfSamplerThreads(int numberOfSamplerThreads)
+    {
+        numberOfSamplerThreads_ = numberOfSamplerThreads;
+    }
+    
+    /**
+     * Returns the number of sampling threads.
+     * 
+     * @return      The number of sampling threads
+     */
+    public int getNumberOfSamplerThreads()
+    {
+        return numberOfSamplerThreads_;
+    }
+    
+    /**
+     * Sets the full summary interval.
+     * 
+     * @param summaryFullSnapshotInterval   The number of summaries between two full summaries
+     */
+    public void setSummaryFullSnapshotInterval(int summaryFullSnapshotInterval)
+    {
+        summaryFullSnapshotInterval_ = summaryFullSnapshotInterval;
+    }
+    
+    /**
+     * Returns the full summary interval.
+     * 
+     * @return      The number of summaries between two full summaries
+     */
+    public int getSummaryFullSnapshotInterval()
+    {
+        return summaryFullSnapshotInterval_;
+    }
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.monitoring;
+
+import org.inria.myriads.snoozenode.monitoring.codec.CodecType;
+import org.inria.myriads.snoozenode.tcpip.ReceiverType;
+
+/**
+ * Monitoring transport settings.
+ * 
+ * @author Eugen Feller
+ */
+public final class MonitoringTransportSettings 
+{
+    /** Receiver type. */
+    private ReceiverType receiverType_;
+    
+    /** Number of receiver threads (selector only). */
+    private int numberOfReceiverThreads_;
+    
+    /** Framed transport. */
+    private boolean isFramed_;
+    
+    /** Payload codec (framed only). */
+    private CodecType codec_;
+    
+    /** Constructor. */
+    public MonitoringTransportSettings()
+    {
+        receiverType_ = ReceiverType.blocking;
+        numberOfReceiverThreads_ = 2;
+        isFramed_ = false;
+        codec_ = CodecType.serialization;
+    }
+    
+    /**
+     * Sets the receiver type.
+     * 
+     * @param receiverType  The receiver type
+     */
+    public void setReceiverType(ReceiverType receiverType) 
+    {
+        receiverType_ = receiverType;
+    }
+    
+    /**
+     * Returns the receiver type.
+     * 
+     * @return  The receiver type
+     */
+    public ReceiverType getReceiverType() 
+    {
+        return receiverType_;
+    }
+    
+    /**
+     * Sets the number of receiver threads.
+     * 
+     * @param numberOfReceiverThreads   The number of receiver threads
+     */
+    public void setNumberOfReceiverThreads(int numberOfReceiverThreads) 
+    {
+        numberOfReceiverThreads_ = numberOfReceiverThreads;
+    }
+    
+    /**
+     * Returns the number of receiver threads.
+     * 
+     * @return  The number of receiver threads
+     */
+    public int getNumberOfReceiverThreads() 
+    {
+        return numberOfReceiverThreads_;
+    }
+    
+    /**
+     * Enables/disables the framed transport.
+     * 
+     * @param isFramed  true if framed, false otherwise
+     */
+    public void setFramed(boolean isFramed) 
+    {
+        isFramed_ = isFramed;
+    }
+    
+    /**
+     * Checks if the framed transport is enabled.
+     * 
+     * @return  true if framed, false otherwise
+     */
+    public boolean isFramed() 
+    {
+        return isFramed_;
+    }
+    
+    /**
+     * Sets the payload codec.
+     * 
+     * @param codec     The codec type
+     */
+    public void setCodec(CodecType codec) 
+    {
+        codec_ = codec;
+    }
+    
+    /**
+     * Returns the payload codec.
+     * 
+     * @return  The codec type
+     */
+    public CodecType getCodec() 
+    {
+        return codec_;
+    }
+}
@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.configurator.monitoring.external;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozenode.configurator.monitoring.external.enums.OverflowPolicy;
 import org.inria.myriads.snoozenode.monitoring.TransportProtocol;
 
 /**
@@ -47,9 +48,21 @@ public final class ExternalNotifierSettings
     /** number of retries. */
     private int numberOfRetries_;
     
-    /** retry interval (ms). */
+    /** retry interval (sec). */
     private int retryInterval_;
     
+    /** Maximum number of pending notifications. */
+    private int queueCapacity_;
+    
+    /** Policy applied when the pending notifications reach the capacity. */
+    private OverflowPolicy overflowPolicy_;
+    
+    /** Number of notifications published per confirm round. */
+    private int confirmBatchSize_;
+    
+    /** Publisher confirms timeout (ms). */
+    private int confirmTimeout_;
+    
     /**
      * @return the transportProtocol
      */
@@ -161,7 +174,68 @@ public final class ExternalNotifierSettings
     {
         retryInterval_ = retryInterval;
     }
-    
-    
-    
+
+    /**
+     * @return the queueCapacity
+     */
+    public int getQueueCapacity()
+    {
+        return queueCapacity_;
+    }
+
+    /**
+     * @param queueCapacity the queueCapacity to set
+     */
+    public void setQueueCapacity(int queueCapacity)
+    {
+        queueCapacity_ = queueCapacity;
+    }
+
+    /**
+     * @return the overflowPolicy
+     */
+    public OverflowPolicy getOverflowPolicy()
+    {
+        return overflowPolicy_;
+    }
+
+    /**
+     * @param overflowPolicy the overflowPolicy to set
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy)
+    {
+        overflowPolicy_ = overflowPolicy;
+    }
+
+    /**
+     * @return the confirmBatchSize
+     */
+    public int getConfirmBatchSize()
+    {
+        return confirmBatchSize_;
+    }
+
+    /**
+     * @param confirmBatchSize the confirmBatchSize to set
+     */
+    public void setConfirmBatchSize(int confirmBatchSize)
+    {
+        confirmBatchSize_ = confirmBatchSize;
+    }
+
+    /**
+     * @return the confirmTimeout
+     */
+    public int getConfirmTimeout()
+    {
+        return confirmTimeout_;
+    }
+
+    /**
+     * @param confirmTimeout the confirmTimeout to set
+     */
+    public void setConfirmTimeout(int confirmTimeout)
+    {
+        confirmTimeout_ = confirmTimeout;
+    }
 }
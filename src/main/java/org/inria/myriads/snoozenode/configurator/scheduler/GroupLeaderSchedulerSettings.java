@@ -34,6 +34,9 @@ public final class GroupLeaderSchedulerSettings
 
     /** Virtual cluster dispatching policy. */
     private Dispatching dispatchingPolicy_;
+    
+    /** Number of concurrent virtual cluster submissions. */
+    private int numberOfConcurrentSubmissions_;
 
     /**
      * Sets the virtual cluster dispatching policy.
@@ -74,4 +77,24 @@ public final class GroupLeaderSchedulerSettings
     {
         assignmentPolicy_ = assignmentPolicy;
     }
+    
+    /**
+     * Returns the number of concurrent virtual cluster submissions.
+     * 
+     * @return  The number of concurrent submissions
+     */
+    public int getNumberOfConcurrentSubmissions() 
+    {
+        return numberOfConcurrentSubmissions_;
+    }
+    
+    /**
+     * Sets the number of concurrent virtual cluster submissions.
+     * 
+     * @param numberOfConcurrentSubmissions   The number of concurrent submissions
+     */
+    public void setNumberOfConcurrentSubmissions(int numberOfConcurrentSubmissions) 
+    {
+        numberOfConcurrentSubmissions_ = numberOfConcurrentSubmissions;
+    }
 }
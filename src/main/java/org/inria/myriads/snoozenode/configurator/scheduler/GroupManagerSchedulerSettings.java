@@ -38,6 +38,12 @@ public final class GroupManagerSchedulerSettings
     
     /** Reconfiguration settings. */
     private ReconfigurationSettings reconfiguration_;
+    
+    /** Migration settings. */
+    private MigrationSettings migration_;
+    
+    /** Maximum time to wait for conflicting operations (sec). */
+    private int operationTimeout_;
 
     
     /** Empty constructor. */
@@ -45,6 +51,7 @@ public final class GroupManagerSchedulerSettings
     {
         relocation_ = new RelocationSettings();
         reconfiguration_ = new ReconfigurationSettings();
+        migration_ = new MigrationSettings();
     }
     
     /**
@@ -67,6 +74,16 @@ public final class GroupManagerSchedulerSettings
         return reconfiguration_;
     }
     
+    /**
+     * Returns the migration settings.
+     * 
+     * @return  The migration settings
+     */
+    public MigrationSettings getMigrationSettings()
+    {
+        return migration_;
+    }
+    
     /**
      * Sets the placement policy.
      * 
@@ -105,4 +122,24 @@ public final class GroupManagerSchedulerSettings
     {
         pluginsDirectory_ = pluginsDirectory;
     }
+
+    /**
+     * Returns the operation timeout.
+     * 
+     * @return  The operation timeout (sec)
+     */
+    public int getOperationTimeout()
+    {
+        return operationTimeout_;
+    }
+
+    /**
+     * Sets the operation timeout.
+     * 
+     * @param operationTimeout  The operation timeout (sec)
+     */
+    public void setOperationTimeout(int operationTimeout)
+    {
+        operationTimeout_ = operationTimeout;
+    }
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.scheduler;
+
+/**
+ * Migration settings.
+ * 
+ * @author Eugen Feller
+ */
+public class MigrationSettings 
+{
+    /** Maximum number of concurrent migrations in the group (<= 0 = unlimited). */
+    private int maxConcurrentMigrations_;
+    
+    /** Maximum number of concurrent migrations per local controller (<= 0 = unlimited). */
+    private int maxConcurrentMigrationsPerHost_;
+    
+    /**
+     * Sets the maximum number of concurrent migrations.
+     * 
+     * @param maxConcurrentMigrations    The maximum number of concurrent migrations
+     */
+    public void setMaxConcurrentMigrations(int maxConcurrentMigrations) 
+    {
+        maxConcurrentMigrations_ = maxConcurrentMigrations;
+    }
+
+    /**
+     * Returns the maximum number of concurrent migrations.
+     * 
+     * @return  The maximum number of concurrent migrations
+     */
+    public int getMaxConcurrentMigrations() 
+    {
+        return maxConcurrentMigrations_;
+    }
+    
+    /**
+     * Sets the maximum number of concurrent migrations per local controller.
+     * 
+     * @param maxConcurrentMigrationsPerHost    The maximum number of concurrent migrations per host
+     */
+    public void setMaxConcurrentMigrationsPerHost(int maxConcurrentMigrationsPerHost) 
+    {
+        maxConcurrentMigrationsPerHost_ = maxConcurrentMigrationsPerHost;
+    }
+
+    /**
+     * Returns the maximum number of concurrent migrations per local controller.
+     * 
+     * @return  The maximum number of concurrent migrations per host
+     */
+    public int getMaxConcurrentMigrationsPerHost() 
+    {
+        return maxConcurrentMigrationsPerHost_;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.submission;
+
+/**
+ * Placement plan enforcement settings.
+ * 
+ * @author Eugen Feller
+ */
+public class EnforcementSettings 
+{
+    /** Number of local controllers started in parallel (1 = sequential). */
+    private int numberOfThreads_;
+    
+    /** Per local controller timeout (sec). */
+    private int timeout_;
+
+    /**
+     * Sets the number of threads.
+     * 
+     * @param numberOfThreads   The number of threads
+     */
+    public void setNumberOfThreads(int numberOfThreads) 
+    {
+        numberOfThreads_ = numberOfThreads;
+    }
+
+    /**
+     * Returns the number of threads.
+     * 
+     * @return      The number of threads
+     */
+    public int getNumberOfThreads() 
+    {
+        return numberOfThreads_;
+    }
+
+    /**
+     * Sets the timeout.
+     * 
+     * @param timeout     The timeout (sec)
+     */
+    public void setTimeout(int timeout)
+    {
+        timeout_ = timeout;
+    }
+
+    /**
+     * Returns the timeout.
+     * 
+     * @return  The timeout (sec)
+     */
+    public int getTimeout() 
+    {
+        return timeout_;
+    }
+}
@@ -35,12 +35,16 @@ public class SubmissionSettings
     /** Packing density. */
     private PackingDensity packingDensity_;
     
+    /** Placement plan enforcement. */
+    private EnforcementSettings enforcement_;
+    
     /** Constructor. */
     public SubmissionSettings()
     {
         dispatching_ = new PollingSettings();
         collection_ = new PollingSettings();
         packingDensity_ = new PackingDensity();
+        enforcement_ = new EnforcementSettings();
     }
     
     /**
@@ -82,4 +86,14 @@ public class SubmissionSettings
     {
         return collection_;
     }
+
+    /**
+     * Returns the placement plan enforcement parameters.
+     * 
+     * @return  The enforcement parameters
+     */
+    public EnforcementSettings getEnforcement() 
+    {
+        return enforcement_;
+    }
 }
@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.database.api;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
@@ -67,6 +68,18 @@ public interface GroupLeaderRepository
      * @param summary                   The group manager summary information
      */
     void addGroupManagerSummaryInformation(String groupManagerId, GroupManagerSummaryInformation summary);
+    
+    /** 
+     * Adds a delta group manager summary.
+     * (only carries the changed local controllers, the others are kept)
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param summary                   The group manager summary information
+     * @param removedLocalControllers   The removed local controller identifiers
+     */
+    void addGroupManagerSummaryDelta(String groupManagerId, 
+                                     GroupManagerSummaryInformation summary, 
+                                     List<String> removedLocalControllers);
             
     /** 
      * Drops a group manager. 
@@ -98,6 +111,14 @@ public interface GroupLeaderRepository
      * @return     The next free ip address
      */
     String getFreeIpAddress();
+    
+    /**
+     * Allocates free IP addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The allocated addresses (fewer if the pool runs out)
+     */
+    List<String> allocateIpAddresses(int numberOfAddresses);
 
 
     /**
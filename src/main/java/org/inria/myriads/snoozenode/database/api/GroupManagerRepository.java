@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.database.api;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
@@ -148,6 +149,32 @@ public interface GroupManagerRepository
     VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location, 
                                                      int numberOfMonitoringEntries);
     
+    /** 
+     * Returns the average used capacity of a virtual machine over its latest monitoring entries.
+     * The history is read in place, i.e. without copying it.
+     * 
+     * @param location                      The virtual machine location
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param dimension                     The capacity dimension
+     * @return                              The average, Double.NaN if no history is available
+     */
+    double getAverageUsedCapacity(VirtualMachineLocation location, int numberOfMonitoringEntries, int dimension);
+    
+    /**
+     * Checks whether the history can be read in place.
+     * 
+     * @return  true if getAverageUsedCapacity is supported, false otherwise
+     */
+    boolean hasInPlaceHistory();
+    
+    /**
+     * Returns the local controller versions.
+     * (a version changes whenever the local controller description changes)
+     * 
+     * @return  The versions (local controller identifier : version), null if not tracked
+     */
+    Map<String, Long> getLocalControllerVersions();
+    
     /** 
      * Changes virtual machine status. 
      * 
@@ -243,6 +270,7 @@ public interface GroupManagerRepository
     /**
      * 
      * Returns the list of local controllers to transmit to the group leader.
+     * (virtual machines only carry their location)
      * 
      * @return the list of local controllers to transmit.
      */
@@ -2,8 +2,13 @@ package org.inria.myriads.snoozenode.database.api.impl.cassandra;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import me.prettyprint.cassandra.serializers.BooleanSerializer;
 import me.prettyprint.cassandra.serializers.LongSerializer;
@@ -16,9 +21,11 @@ import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.beans.Rows;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.MutationResult;
 import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.MultigetSliceQuery;
 import me.prettyprint.hector.api.query.QueryResult;
 import me.prettyprint.hector.api.query.SliceQuery;
 
@@ -38,6 +45,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.status.Virtua
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.virtualmachineimage.VirtualMachineImage;
+import org.inria.myriads.snoozenode.database.api.impl.cassandra.utils.CassandraBatchWriter;
 import org.inria.myriads.snoozenode.database.api.impl.cassandra.utils.CassandraUtils;
 import org.inria.myriads.snoozenode.database.api.impl.cassandra.utils.JsonSerializer;
 import org.inria.myriads.snoozenode.database.api.impl.cassandra.utils.RowIterator;
@@ -57,6 +65,9 @@ public class CassandraRepository
     /** Logger. */
     protected static final Logger log_ = LoggerFactory.getLogger(CassandraRepository.class);
     
+    /** Maximum number of rows per multiget query. */
+    protected static final int MULTIGET_SIZE = 100;
+    
     /** Cassandra Keyspace.*/
     private Keyspace keyspace_;
     
@@ -69,6 +80,12 @@ public class CassandraRepository
     /** ttl for virtualmachines monitoring.*/
     private int ttlVirtualMachine_;
     
+    /** Monitoring write-behind (null = monitoring data is written synchronously).*/
+    private CassandraBatchWriter batchWriter_;
+    
+    /** Local controllers known to exist (write-behind only).*/
+    private Set<String> knownLocalControllers_;
+    
     /**
      * Constructor.
      * 
@@ -96,6 +113,43 @@ public class CassandraRepository
         this(hosts, 123456789, 654321);
     }
     
+    /**
+     * Writes the monitoring data behind, as batch mutations.
+     * 
+     * @param batchSize         The number of columns per batch mutation
+     * @param flushInterval     The flush interval (ms)
+     * @param queueCapacity     The maximum number of buffered columns
+     */
+    protected void startBatchWriter(int batchSize, int flushInterval, int queueCapacity)
+    {
+        knownLocalControllers_ = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        batchWriter_ = new CassandraBatchWriter(keyspace_, batchSize, flushInterval, queueCapacity);
+        batchWriter_.start();
+    }
+    
+    /**
+     * Flushes the buffered monitoring data and stops the write-behind.
+     * 
+     * @param timeout   The maximum time to wait for the last flush (ms)
+     */
+    protected void stopBatchWriter(long timeout)
+    {
+        if (batchWriter_ != null)
+        {
+            batchWriter_.terminate(timeout);
+        }
+    }
+    
+    /**
+     * Returns the monitoring write-behind.
+     * 
+     * @return  The batch writer, null if monitoring data is written synchronously
+     */
+    public CassandraBatchWriter getBatchWriter()
+    {
+        return batchWriter_;
+    }
+    
     /**
      * 
      * Gets the groupManager description.
@@ -648,6 +702,67 @@ public class CassandraRepository
             log_.debug("gets monitoring data for timestamp " + monitoring.getTimeStamp());
         }
     }
+    
+    /**
+     * 
+     * Fills the virtual machine meta datas with monitoring datas.
+     * (one multiget query per chunk of virtual machines instead of one query per virtual machine)
+     * 
+     * @param virtualMachines               The virtual machine meta datas to fill
+     * @param numberOfMonitoringEntries     the number of monitoring entries to fecth.
+     */
+    protected void fillVirtualMachineMonitoringData(
+            Collection<VirtualMachineMetaData> virtualMachines,
+            int numberOfMonitoringEntries)
+    {
+        log_.debug(String.format("Gets the monitoring datas of %d virtual machines from the cassandra cluster", 
+                                 virtualMachines.size()));
+        Map<String, VirtualMachineMetaData> chunk = new HashMap<String, VirtualMachineMetaData>();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            chunk.put(virtualMachine.getVirtualMachineLocation().getVirtualMachineId(), virtualMachine);
+            if (chunk.size() == MULTIGET_SIZE)
+            {
+                fillVirtualMachineMonitoringData(chunk, numberOfMonitoringEntries);
+                chunk.clear();
+            }
+        }
+        
+        if (!chunk.isEmpty())
+        {
+            fillVirtualMachineMonitoringData(chunk, numberOfMonitoringEntries);
+        }
+    }
+    
+    /**
+     * 
+     * Fills a chunk of virtual machine meta datas with monitoring datas.
+     * 
+     * @param virtualMachines               The virtual machine meta datas (virtual machine id : meta data)
+     * @param numberOfMonitoringEntries     the number of monitoring entries to fecth.
+     */
+    private void fillVirtualMachineMonitoringData(
+            Map<String, VirtualMachineMetaData> virtualMachines,
+            int numberOfMonitoringEntries)
+    {
+        MultigetSliceQuery<String, Long, Object> query = HFactory.createMultigetSliceQuery(keyspace_, 
+                StringSerializer.get(), LongSerializer.get(), new JsonSerializer(VirtualMachineMonitoringData.class))
+                .setKeys(virtualMachines.keySet())
+                .setColumnFamily(CassandraUtils.VIRTUALMACHINES_MONITORING_CF)
+                .setRange(null, null , true, numberOfMonitoringEntries);
+        
+        QueryResult<Rows<String, Long, Object>> rows = query.execute();
+        
+        for (Row<String, Long, Object> row : rows.get())
+        {
+            VirtualMachineMetaData virtualMachine = virtualMachines.get(row.getKey());
+            for (HColumn<Long, Object> col : row.getColumnSlice().getColumns())
+            {
+                VirtualMachineMonitoringData monitoring = (VirtualMachineMonitoringData) col.getValue();
+                virtualMachine.getUsedCapacity().put(monitoring.getTimeStamp(), monitoring);
+            }
+        }
+    }
     /**
      * 
      * Gets the virtual machine meta data from a cassandra row.
@@ -708,6 +823,11 @@ public class CassandraRepository
      */
     protected boolean dropGroupManager(String groupManagerId, boolean withLocalControllers, boolean withVirtualMachines)
     {
+        if (withLocalControllers)
+        {
+            forgetLocalController(null);
+        }
+        
         GroupManagerDescription groupManager = getGroupManagerDescriptionCassandra(
                 groupManagerId,
                 0,
@@ -864,8 +984,7 @@ public class CassandraRepository
         log_.debug(String.format("Adding aggregated virtual machine monitoring data to the database for %d VMs", 
                                  aggregatedData.size()));
         
-        LocalControllerDescription description = getLocalControllerDescriptionOnly(localControllerId,0);
-        if (description == null)
+        if (!isKnownLocalController(localControllerId))
         {
             log_.error("Description not found in the cache");
             return;
@@ -895,17 +1014,28 @@ public class CassandraRepository
                     log_.debug(String.format("Adding history data %s for virtual machine: %s",
                                              virtualMachineData.getUsedCapacity(),   
                                              virtualMachineId));
-                    mutator.addInsertion(virtualMachineId, CassandraUtils.VIRTUALMACHINES_MONITORING_CF, 
-                            HFactory.createColumn(
+                    HColumn<Long, Object> column = HFactory.createColumn(
                                     virtualMachineData.getTimeStamp(),
                                     virtualMachineData,
                                     ttlVirtualMachine_,
                                     new LongSerializer(),
-                                    new JsonSerializer(VirtualMachineMonitoringData.class)
-                                    ));
+                                    new JsonSerializer(VirtualMachineMonitoringData.class, true)
+                                    );
+                    if (batchWriter_ != null)
+                    {
+                        batchWriter_.addInsertion(virtualMachineId, 
+                                                  CassandraUtils.VIRTUALMACHINES_MONITORING_CF, 
+                                                  column);
+                        continue;
+                    }
+                    
+                    mutator.addInsertion(virtualMachineId, CassandraUtils.VIRTUALMACHINES_MONITORING_CF, column);
+                }
+                
+                if (batchWriter_ == null)
+                {
+                    mutator.execute();
                 }
-                mutator.execute();
-               
             }
             catch (Exception exception)
             {
@@ -914,6 +1044,56 @@ public class CassandraRepository
         }
     }
     
+    /**
+     * Checks if a local controller is stored.
+     * (with the write-behind, positive answers are remembered to keep reads off the monitoring path)
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if stored, false otherwise
+     */
+    private boolean isKnownLocalController(String localControllerId)
+    {
+        if (knownLocalControllers_ != null && knownLocalControllers_.contains(localControllerId))
+        {
+            return true;
+        }
+        
+        LocalControllerDescription description = getLocalControllerDescriptionOnly(localControllerId, 0);
+        if (description == null)
+        {
+            return false;
+        }
+        
+        if (knownLocalControllers_ != null)
+        {
+            knownLocalControllers_.add(localControllerId);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Forgets a remembered local controller.
+     * (to be called when it is removed or changes its status)
+     * 
+     * @param localControllerId     The local controller identifier, null for all
+     */
+    protected void forgetLocalController(String localControllerId)
+    {
+        if (knownLocalControllers_ == null)
+        {
+            return;
+        }
+        
+        if (localControllerId == null)
+        {
+            knownLocalControllers_.clear();
+            return;
+        }
+        
+        knownLocalControllers_.remove(localControllerId);
+    }
+    
     /**
      * 
      * Add (serialize) a local controller to cassandra.
@@ -1064,12 +1244,19 @@ public class CassandraRepository
         Mutator<String> mutator = HFactory.createMutator(getKeyspace(), stringSerializer);
         try
         {            
-            mutator.addInsertion(groupManagerId, CassandraUtils.GROUPMANAGERS_MONITORING_CF, HFactory.createColumn(
+            HColumn<Long, Object> column = HFactory.createColumn(
                     summary.getTimeStamp(), 
                     summary,
                     ttlGroupManager_,
                     new LongSerializer(), 
-                    new JsonSerializer(GroupManagerSummaryInformation.class)));
+                    new JsonSerializer(GroupManagerSummaryInformation.class, true));
+            if (batchWriter_ != null)
+            {
+                batchWriter_.addInsertion(groupManagerId, CassandraUtils.GROUPMANAGERS_MONITORING_CF, column);
+                return;
+            }
+            
+            mutator.addInsertion(groupManagerId, CassandraUtils.GROUPMANAGERS_MONITORING_CF, column);
             MutationResult result = mutator.execute();
             log_.debug(String.format("Insertion done in %d", result.getExecutionTimeMicro()));
         }
@@ -1184,11 +1371,6 @@ public class CassandraRepository
             return null;
         }
         
-        if (numberOfMonitoringEntries > 0)
-        {
-            fillVirtualMachineMonitoringData(virtualMachine, numberOfMonitoringEntries);
-        }
-        
         return virtualMachine;
     }
     
@@ -1253,13 +1435,14 @@ public class CassandraRepository
             {
                 continue;
             }
-            if (numberOfMonitoringEntries > 0)
-            {
-                fillVirtualMachineMonitoringData(virtualMachine, numberOfMonitoringEntries);
-            }
             virtualMachines.add(virtualMachine);
             
         }
+        
+        if (numberOfMonitoringEntries > 0)
+        {
+            fillVirtualMachineMonitoringData(virtualMachines, numberOfMonitoringEntries);
+        }
 
         return virtualMachines;  
     }
@@ -1300,6 +1483,7 @@ public class CassandraRepository
     */
    protected void clear()
    {
+       forgetLocalController(null);
        cluster_.truncate(keyspace_.getKeyspaceName(), CassandraUtils.GROUPMANAGERS_CF);
        cluster_.truncate(keyspace_.getKeyspaceName(), CassandraUtils.LOCALCONTROLLERS_CF);
        cluster_.truncate(keyspace_.getKeyspaceName(), CassandraUtils.LOCALCONTROLLERS_MAPPING_CF);
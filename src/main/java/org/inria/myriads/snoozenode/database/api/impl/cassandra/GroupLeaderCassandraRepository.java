@@ -191,6 +191,22 @@ public class GroupLeaderCassandraRepository extends CassandraRepository implemen
         
         
     }
+    
+    /** 
+     * Adds a delta group manager summary.
+     * (stored like a full summary, local controllers are not kept by this repository)
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param summary                   The group manager summary information
+     * @param removedLocalControllers   The removed local controller identifiers
+     */
+    @Override
+    public void addGroupManagerSummaryDelta(String groupManagerId, 
+                                            GroupManagerSummaryInformation summary,
+                                            List<String> removedLocalControllers)
+    {
+        addGroupManagerSummaryInformation(groupManagerId, summary);
+    }
 
     
 
@@ -280,6 +296,29 @@ public class GroupLeaderCassandraRepository extends CassandraRepository implemen
         }
         return null;
     }
+    
+    /**
+     * Allocates free IP addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The allocated addresses (fewer if the pool runs out)
+     */
+    public synchronized List<String> allocateIpAddresses(int numberOfAddresses) 
+    {
+        List<String> ipAddresses = new ArrayList<String>(numberOfAddresses);
+        for (int i = 0; i < numberOfAddresses; i++)
+        {
+            String ipAddress = getFreeIpAddress();
+            if (ipAddress == null || !removeIpAddress(ipAddress))
+            {
+                break;
+            }
+            
+            ipAddresses.add(ipAddress);
+        }
+        
+        return ipAddresses;
+    }
 
     
     /**
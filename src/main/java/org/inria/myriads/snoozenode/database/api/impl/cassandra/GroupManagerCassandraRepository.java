@@ -83,17 +83,7 @@ public class GroupManagerCassandraRepository extends CassandraRepository impleme
                 numberOfMonitoringEntries, 
                 isActiveOnly,
                 withVirtualMachines);
-        
-        if (numberOfMonitoringEntries > 0)
-        {
-            for (LocalControllerDescription localController : localControllers)
-            {
-                for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
-                {
-                    fillVirtualMachineMonitoringData(virtualMachine, numberOfMonitoringEntries);
-                }
-            }
-        }
+        // the virtual machines come with their monitoring data (multiget)
         return localControllers;   
     }
     
@@ -172,6 +162,7 @@ public class GroupManagerCassandraRepository extends CassandraRepository impleme
     {
         Guard.check(localControllerId);
         log_.debug(String.format("Removing local controller: %s, force: %s", localControllerId, forceDelete));
+        forgetLocalController(localControllerId);
         
         // drop local controller and its associated virtualMachines.
         boolean isDropped = dropLocalController(localControllerId, forceDelete, true);
@@ -363,6 +354,37 @@ public class GroupManagerCassandraRepository extends CassandraRepository impleme
         String virtualMachineId = location.getVirtualMachineId();
         return getVirtualMachineMetaDataCassandra(virtualMachineId, numberOfMonitoringEntries);
     }
+
+    /**
+     * Monitoring data is not kept as in-memory time series here, the history has to be copied.
+     * 
+     * @param location                      The virtual machine location
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param dimension                     The capacity dimension
+     * @return                              Double.NaN
+     */
+    @Override
+    public double getAverageUsedCapacity(VirtualMachineLocation location, int numberOfMonitoringEntries, int dimension)
+    {
+        return Double.NaN;
+    }
+    
+    @Override
+    public boolean hasInPlaceHistory()
+    {
+        return false;
+    }
+    
+    /**
+     * Returns the local controller versions.
+     * 
+     * @return  null (not tracked)
+     */
+    @Override
+    public Map<String, Long> getLocalControllerVersions()
+    {
+        return null;
+    }
     
     
     
@@ -489,6 +511,7 @@ public class GroupManagerCassandraRepository extends CassandraRepository impleme
         localControllerDescription.setStatus(status);
         
         addLocalControllerDescription(localControllerDescription);
+        forgetLocalController(localControllerId);
         
         // update cache.
         groupManagerCache_.changeLocalControllerStatus(localControllerId, status);
@@ -547,10 +570,8 @@ public class GroupManagerCassandraRepository extends CassandraRepository impleme
         // cassandra request.
         if (withVirtualMachines && numberOfMonitoringEntries > 0)
         {
-            for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
-            {
-                fillVirtualMachineMonitoringData(virtualMachine, numberOfMonitoringEntries);
-            }
+            fillVirtualMachineMonitoringData(localController.getVirtualMachineMetaData().values(), 
+                                             numberOfMonitoringEntries);
         }
         
         return localController;
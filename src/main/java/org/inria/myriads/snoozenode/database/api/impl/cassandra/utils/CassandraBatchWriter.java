@@ -0,0 +1,479 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.api.impl.cassandra.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cassandra write-behind batch writer.
+ * 
+ * Insertions are buffered per column family and row key (a column written twice before
+ * the flush is only sent once) and flushed as batch mutations once the batch size is 
+ * reached or the oldest buffered insertion exceeds the flush interval. Writers block 
+ * while the buffer is full.
+ * 
+ * @author Eugen Feller
+ */
+public final class CassandraBatchWriter 
+    implements Runnable
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(CassandraBatchWriter.class);
+    
+    /** Keyspace. */
+    private final Keyspace keyspace_;
+    
+    /** Number of columns per batch mutation. */
+    private final int batchSize_;
+    
+    /** Flush interval (ms). */
+    private final int flushInterval_;
+    
+    /** Maximum number of buffered columns. */
+    private final int queueCapacity_;
+    
+    /** Lock object. */
+    private final Object lockObject_;
+    
+    /** Buffered columns (row : column name : column). */
+    private Map<RowKey, Map<Object, HColumn<?, ?>>> pending_;
+    
+    /** Number of buffered columns. */
+    private int numberOfPendingColumns_;
+    
+    /** Time of the oldest buffered insertion. */
+    private long oldestInsertionTime_;
+    
+    /** Terminated. */
+    private boolean isTerminated_;
+    
+    /** Flusher thread. */
+    private Thread thread_;
+    
+    /** Number of flushes. */
+    private volatile long numberOfFlushes_;
+    
+    /** Number of written columns. */
+    private volatile long numberOfWrittenColumns_;
+    
+    /** Number of columns overwritten in the buffer. */
+    private volatile long numberOfCoalescedColumns_;
+    
+    /** Number of columns lost on failed mutations. */
+    private volatile long numberOfFailedColumns_;
+    
+    /** Latest flush latency (ms). */
+    private volatile long lastFlushLatency_;
+    
+    /** Total flush latency (ms). */
+    private volatile long totalFlushLatency_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param keyspace          The keyspace
+     * @param batchSize         The number of columns per batch mutation
+     * @param flushInterval     The flush interval (ms)
+     * @param queueCapacity     The maximum number of buffered columns
+     */
+    public CassandraBatchWriter(Keyspace keyspace, int batchSize, int flushInterval, int queueCapacity)
+    {
+        Guard.check(keyspace);
+        keyspace_ = keyspace;
+        batchSize_ = Math.max(1, batchSize);
+        flushInterval_ = Math.max(1, flushInterval);
+        queueCapacity_ = Math.max(batchSize_, queueCapacity);
+        lockObject_ = new Object();
+        pending_ = new LinkedHashMap<RowKey, Map<Object, HColumn<?, ?>>>();
+    }
+    
+    /**
+     * Starts the flusher thread.
+     */
+    public void start()
+    {
+        log_.debug(String.format("Starting the cassandra batch writer (batch size: %d, flush interval: %d, " +
+                                 "queue capacity: %d)", batchSize_, flushInterval_, queueCapacity_));
+        thread_ = new Thread(this, "CassandraBatchWriter");
+        thread_.setDaemon(true);
+        thread_.start();
+    }
+    
+    /**
+     * Buffers an insertion.
+     * (blocks while the buffer is full)
+     * 
+     * @param key               The row key
+     * @param columnFamily      The column family
+     * @param column            The column
+     * @return                  true if buffered, false if the writer is terminated or interrupted
+     */
+    public boolean addInsertion(String key, String columnFamily, HColumn<?, ?> column)
+    {
+        Guard.check(key, columnFamily, column);
+        synchronized (lockObject_)
+        {
+            while (!isTerminated_ && numberOfPendingColumns_ >= queueCapacity_)
+            {
+                try
+                {
+                    lockObject_.wait();
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                    log_.error("Interrupted while waiting for the cassandra batch writer");
+                    return false;
+                }
+            }
+            
+            if (isTerminated_)
+            {
+                log_.error("Cassandra batch writer is terminated! Dropping insertion");
+                return false;
+            }
+            
+            RowKey rowKey = new RowKey(key, columnFamily);
+            Map<Object, HColumn<?, ?>> columns = pending_.get(rowKey);
+            if (columns == null)
+            {
+                columns = new LinkedHashMap<Object, HColumn<?, ?>>();
+                pending_.put(rowKey, columns);
+            }
+            
+            if (columns.put(column.getName(), column) != null)
+            {
+                numberOfCoalescedColumns_++;
+                return true;
+            }
+            
+            if (numberOfPendingColumns_ == 0)
+            {
+                oldestInsertionTime_ = System.currentTimeMillis();
+                lockObject_.notifyAll();
+            }
+            
+            numberOfPendingColumns_++;
+            if (numberOfPendingColumns_ == batchSize_)
+            {
+                lockObject_.notifyAll();
+            }
+        }
+        
+        return true;
+    }
+    
+    /** Run method. */
+    public void run()
+    {
+        try
+        {
+            while (true)
+            {
+                Map<RowKey, Map<Object, HColumn<?, ?>>> batch;
+                synchronized (lockObject_)
+                {
+                    long remaining = getRemainingFlushTime();
+                    while (!isTerminated_ && remaining > 0)
+                    {
+                        lockObject_.wait(remaining == Long.MAX_VALUE ? 0 : remaining);
+                        remaining = getRemainingFlushTime();
+                    }
+                    
+                    if (numberOfPendingColumns_ == 0)
+                    {
+                        break;
+                    }
+                    
+                    batch = pending_;
+                    pending_ = new LinkedHashMap<RowKey, Map<Object, HColumn<?, ?>>>();
+                    numberOfPendingColumns_ = 0;
+                    lockObject_.notifyAll();
+                }
+                
+                flush(batch);
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            log_.debug(exception.getMessage());
+        }
+        
+        log_.debug("Cassandra batch writer is stopped!");
+    }
+    
+    /**
+     * Returns the time left until the next flush.
+     * 
+     * @return  The remaining time (ms), Long.MAX_VALUE if nothing is buffered
+     */
+    private long getRemainingFlushTime()
+    {
+        if (numberOfPendingColumns_ == 0)
+        {
+            return Long.MAX_VALUE;
+        }
+        
+        if (numberOfPendingColumns_ >= batchSize_)
+        {
+            return 0;
+        }
+        
+        return oldestInsertionTime_ + flushInterval_ - System.currentTimeMillis();
+    }
+    
+    /**
+     * Writes a batch as mutations of at most batch size columns.
+     * 
+     * @param batch     The batch
+     */
+    private void flush(Map<RowKey, Map<Object, HColumn<?, ?>>> batch)
+    {
+        long startTime = System.currentTimeMillis();
+        Mutator<String> mutator = HFactory.createMutator(keyspace_, StringSerializer.get());
+        int numberOfColumns = 0;
+        for (Map.Entry<RowKey, Map<Object, HColumn<?, ?>>> row : batch.entrySet())
+        {
+            for (HColumn<?, ?> column : row.getValue().values())
+            {
+                mutator.addInsertion(row.getKey().getKey(), row.getKey().getColumnFamily(), column);
+                numberOfColumns++;
+                if (numberOfColumns % batchSize_ == 0)
+                {
+                    execute(mutator, batchSize_);
+                }
+            }
+        }
+        
+        if (numberOfColumns % batchSize_ != 0)
+        {
+            execute(mutator, numberOfColumns % batchSize_);
+        }
+        
+        lastFlushLatency_ = System.currentTimeMillis() - startTime;
+        totalFlushLatency_ += lastFlushLatency_;
+        numberOfFlushes_++;
+        log_.debug(String.format("Flushed %d columns of %d rows in %d ms (queue depth: %d)", 
+                                 numberOfColumns, batch.size(), lastFlushLatency_, getQueueDepth()));
+    }
+    
+    /**
+     * Executes the mutator.
+     * 
+     * @param mutator           The mutator
+     * @param numberOfColumns   The number of columns
+     */
+    private void execute(Mutator<String> mutator, int numberOfColumns)
+    {
+        try
+        {
+            mutator.execute();
+            numberOfWrittenColumns_ += numberOfColumns;
+        }
+        catch (Exception exception)
+        {
+            numberOfFailedColumns_ += numberOfColumns;
+            log_.error(String.format("Unable to write %d columns to the repository: %s", 
+                                     numberOfColumns, exception.getMessage()));
+            mutator.discardPendingMutations();
+        }
+    }
+    
+    /**
+     * Flushes the buffered insertions and stops the flusher thread.
+     * 
+     * @param timeout   The maximum time to wait for the last flush (ms)
+     */
+    public void terminate(long timeout)
+    {
+        log_.debug("Terminating the cassandra batch writer");
+        synchronized (lockObject_)
+        {
+            isTerminated_ = true;
+            lockObject_.notifyAll();
+        }
+        
+        if (thread_ == null)
+        {
+            return;
+        }
+        
+        try
+        {
+            thread_.join(timeout);
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Returns the number of buffered columns.
+     * 
+     * @return  The queue depth
+     */
+    public int getQueueDepth()
+    {
+        synchronized (lockObject_)
+        {
+            return numberOfPendingColumns_;
+        }
+    }
+    
+    /**
+     * Returns the latest flush latency.
+     * 
+     * @return  The latency (ms)
+     */
+    public long getLastFlushLatency()
+    {
+        return lastFlushLatency_;
+    }
+    
+    /**
+     * Returns the average flush latency.
+     * 
+     * @return  The latency (ms)
+     */
+    public double getAverageFlushLatency()
+    {
+        long numberOfFlushes = numberOfFlushes_;
+        if (numberOfFlushes == 0)
+        {
+            return 0;
+        }
+        
+        return (double) totalFlushLatency_ / numberOfFlushes;
+    }
+    
+    /**
+     * Returns the number of flushes.
+     * 
+     * @return  The number of flushes
+     */
+    public long getNumberOfFlushes()
+    {
+        return numberOfFlushes_;
+    }
+    
+    /**
+     * Returns the number of written columns.
+     * 
+     * @return  The number of columns
+     */
+    public long getNumberOfWrittenColumns()
+    {
+        return numberOfWrittenColumns_;
+    }
+    
+    /**
+     * Returns the number of columns overwritten before being flushed.
+     * 
+     * @return  The number of columns
+     */
+    public long getNumberOfCoalescedColumns()
+    {
+        return numberOfCoalescedColumns_;
+    }
+    
+    /**
+     * Returns the number of columns lost on failed mutations.
+     * 
+     * @return  The number of columns
+     */
+    public long getNumberOfFailedColumns()
+    {
+        return numberOfFailedColumns_;
+    }
+    
+    /**
+     * Row key (column family and key).
+     */
+    private static final class RowKey
+    {
+        /** Key. */
+        private final String key_;
+        
+        /** Column family. */
+        private final String columnFamily_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param key           The key
+         * @param columnFamily  The column family
+         */
+        private RowKey(String key, String columnFamily)
+        {
+            key_ = key;
+            columnFamily_ = columnFamily;
+        }
+        
+        /**
+         * Returns the key.
+         * 
+         * @return  The key
+         */
+        private String getKey()
+        {
+            return key_;
+        }
+        
+        /**
+         * Returns the column family.
+         * 
+         * @return  The column family
+         */
+        private String getColumnFamily()
+        {
+            return columnFamily_;
+        }
+        
+        @Override
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof RowKey))
+            {
+                return false;
+            }
+            
+            RowKey rowKey = (RowKey) object;
+            return key_.equals(rowKey.key_) && columnFamily_.equals(rowKey.columnFamily_);
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return 31 * key_.hashCode() + columnFamily_.hashCode();
+        }
+    }
+}
@@ -1,32 +1,29 @@
 package org.inria.myriads.snoozenode.database.api.impl.cassandra.utils;
 
-import java.io.StringWriter;
-import java.io.Writer;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
 
 import me.prettyprint.cassandra.serializers.AbstractSerializer;
 
-import org.codehaus.jackson.map.ObjectMapper;
+import org.inria.myriads.snoozenode.util.CodecRegistry;
 
 /**
  * 
  * Json serializer.
  * 
+ * Delegates to the shared codec registry. Values are written in JSON, binary values 
+ * in the configured format (JSON or Smile), and read in both formats.
+ * 
  * @author msimonin
  *
  */
 public class JsonSerializer extends AbstractSerializer<Object> 
 {
-    /** UTF8.*/
-    private static final String UTF_8 = "UTF-8";
-    
-    /** Charset.*/
-    private static final Charset charset = Charset.forName(UTF_8);
-    
     /** class. */
     private Class<?> class_;
     
+    /** Binary value (never read as string). */
+    private boolean isBinary_;
+    
     /**
      * 
      * Constructeur.
@@ -34,8 +31,21 @@ public class JsonSerializer extends AbstractSerializer<Object>
      * @param clazz     the class.
      */
     public JsonSerializer(Class<?> clazz)
+    {
+        this(clazz, false);
+    }
+    
+    /**
+     * 
+     * Constructeur.
+     * 
+     * @param clazz     the class.
+     * @param isBinary  true if the value is never read back as string.
+     */
+    public JsonSerializer(Class<?> clazz, boolean isBinary)
     {
         class_ = clazz;
+        isBinary_ = isBinary;
     }
 
     @Override
@@ -46,14 +56,10 @@ public class JsonSerializer extends AbstractSerializer<Object>
             return null;
         }
         
-        ObjectMapper mapper = new ObjectMapper();
-        Writer strWriter = new StringWriter();
-        
         try 
         {
-            mapper.writeValue(strWriter, obj);
-            String json = strWriter.toString();
-            return ByteBuffer.wrap(json.getBytes(charset));
+            byte[] bytes = isBinary_ ? CodecRegistry.toBytes(obj) : CodecRegistry.toJsonBytes(obj);
+            return ByteBuffer.wrap(bytes);
         } 
         catch (Exception e) 
         {
@@ -70,12 +76,9 @@ public class JsonSerializer extends AbstractSerializer<Object>
             return null;
         }
         
-        String json = charset.decode(byteBuffer).toString();
-        ObjectMapper mapper = new ObjectMapper();  
         try 
         {
-            Object o = mapper.readValue(json, class_);
-            return o;
+            return CodecRegistry.fromBytes(byteBuffer, class_);
         } 
         catch (Exception exception)
         {
@@ -97,14 +100,9 @@ public class JsonSerializer extends AbstractSerializer<Object>
             return null;
         }
         
-        ObjectMapper mapper = new ObjectMapper();
-        Writer strWriter = new StringWriter();
-        
         try 
         {
-            mapper.writeValue(strWriter, obj);
-            String json = strWriter.toString();
-            return json;
+            return CodecRegistry.toJson(obj);
         }
         catch (Exception exception)
         {
@@ -126,11 +124,9 @@ public class JsonSerializer extends AbstractSerializer<Object>
             return null;
         }
         
-        ObjectMapper mapper = new ObjectMapper();
         try
         {
-            Object o = mapper.readValue(string, class_);
-            return o;
+            return CodecRegistry.fromJson(string, class_);
         }
         catch (Exception exception)
         {
@@ -21,13 +21,10 @@ package org.inria.myriads.snoozenode.database.api.impl.memory;
 
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.net.util.SubnetUtils;
-import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
@@ -52,10 +49,6 @@ public final class GroupLeaderMemoryRepository
     /** Logger. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupLeaderMemoryRepository.class);
 
-    /** Start index for the IP address pool. */
-    private static final int IP_ADDRESS_START_IDEX = 1;
-
-    
     /** 
      * History data of the group managers.
      * 
@@ -64,8 +57,8 @@ public final class GroupLeaderMemoryRepository
      */
     private Map<String, GroupManagerDescription> groupManagerDescriptions_;
     
-    /** List of available addresses. */
-    private List<String> ipAddressPool_;
+    /** The IP address pool. */
+    private IpAddressPool ipAddressPool_;
     
     /** Maximum number of group manager entries. */
     private int maxCapacity_;
@@ -82,35 +75,12 @@ public final class GroupLeaderMemoryRepository
     {
         log_.debug("Initializing the group leader memory repository");
         
-        ipAddressPool_ = generateAddressPool(virtualMachineSubnets);
+        ipAddressPool_ = new IpAddressPool(virtualMachineSubnets);
         maxCapacity_ = maxCapacity;
         groupManagerDescriptions_ = new HashMap<String, GroupManagerDescription>();
         
     }
 
-    /**
-     * Generates the address pool.
-     * 
-     * @param virtualMachineSubnets     The virtual machine subnet
-     * @return                          The list of IP addresses
-     */
-    protected List<String> generateAddressPool(String[] virtualMachineSubnets)
-    {
-        log_.debug("Generating address pool");
-        List<String> addressPool = new ArrayList<String>();
-        for (String virtualMachineSubnet : virtualMachineSubnets)
-        {
-            if (!virtualMachineSubnet.equals(""))
-            {
-                SubnetUtils subnetUtils = new SubnetUtils(virtualMachineSubnet);
-                SubnetInfo subnetInfo = subnetUtils.getInfo(); 
-                addressPool.addAll(Arrays.asList(subnetInfo.getAllAddresses()));
-            }
-        }
-        
-        return addressPool;
-    }
-    
     /**
      * Adds an IP address based on a string.
      * 
@@ -123,13 +93,12 @@ public final class GroupLeaderMemoryRepository
         Guard.check(ipAddress);
         log_.debug(String.format("Adding IP %s back to the address pool", ipAddress));
         
-        if (ipAddressPool_.contains(ipAddress))
+        if (!ipAddressPool_.release(ipAddress))
         {
-            log_.debug("This IP is already in the address pool!");
+            log_.debug("This IP is already in the address pool or not part of it!");
             return false;
         }
         
-        ipAddressPool_.add(ipAddress);
         return true;
     }
     
@@ -145,13 +114,12 @@ public final class GroupLeaderMemoryRepository
         Guard.check(ipAddress);
         log_.debug(String.format("Removing IP address %s from the pool", ipAddress));
         
-        if (!ipAddressPool_.contains(ipAddress))
+        if (!ipAddressPool_.reserve(ipAddress))
         {
             log_.debug("This IP is not in the address pool!");
             return false;
         }
         
-        ipAddressPool_.remove(ipAddress);
         return true;
     }
     
@@ -164,16 +132,33 @@ public final class GroupLeaderMemoryRepository
     public synchronized String getFreeIpAddress()
     {
         log_.debug("Returning free IP address from pool");
-        if (ipAddressPool_.size() <= 1)
+        String ipAddress = ipAddressPool_.peek();
+        if (ipAddress == null)
         {
             log_.debug("IP address pool is empty!");
-            return null;
         }
         
-        String ipAddress = ipAddressPool_.get(IP_ADDRESS_START_IDEX);
         return ipAddress;
     }
     
+    /**
+     * Allocates free IP addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The allocated addresses (fewer if the pool runs out)
+     */
+    @Override
+    public synchronized List<String> allocateIpAddresses(int numberOfAddresses)
+    {
+        List<String> ipAddresses = ipAddressPool_.allocate(numberOfAddresses);
+        log_.debug(String.format("Allocated %d of %d IP addresses, pool occupancy: %.2f (%d free)", 
+                                 ipAddresses.size(), 
+                                 numberOfAddresses,
+                                 ipAddressPool_.getOccupancy(),
+                                 ipAddressPool_.getNumberOfFreeAddresses()));
+        return ipAddresses;
+    }
+    
     /**
      * Adds a group manager description.
      * 
@@ -285,6 +270,36 @@ public final class GroupLeaderMemoryRepository
                                                                GroupManagerSummaryInformation summary)
     {
         Guard.check(groupManagerId, summary);
+        addGroupManagerSummary(groupManagerId, summary, null);
+    }
+    
+    /**
+     * Adds a delta group manager summary.
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param summary                   The group manager summary (changed local controllers)
+     * @param removedLocalControllers   The removed local controller identifiers
+     */
+    @Override
+    public synchronized void addGroupManagerSummaryDelta(String groupManagerId, 
+                                                         GroupManagerSummaryInformation summary,
+                                                         List<String> removedLocalControllers)
+    {
+        Guard.check(groupManagerId, summary, removedLocalControllers);
+        addGroupManagerSummary(groupManagerId, summary, removedLocalControllers);
+    }
+    
+    /**
+     * Adds a full or delta group manager summary.
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param summary                   The group manager summary
+     * @param removedLocalControllers   The removed local controller identifiers (null for full summaries)
+     */
+    private void addGroupManagerSummary(String groupManagerId, 
+                                        GroupManagerSummaryInformation summary,
+                                        List<String> removedLocalControllers)
+    {
         log_.debug(String.format("Updating history data for group manager: %s", groupManagerId));
        
         GroupManagerDescription groupManagerDescription = groupManagerDescriptions_.get(groupManagerId);
@@ -294,7 +309,7 @@ public final class GroupLeaderMemoryRepository
             return;
         }
         
-        updateLocalControllerInformation(groupManagerId, summary);
+        updateLocalControllerInformation(groupManagerDescription, summary, removedLocalControllers);
         updateNetworkingInformation(summary);
         updateHistoryData(groupManagerId, summary);
     }
@@ -319,22 +334,36 @@ public final class GroupLeaderMemoryRepository
     /**
      * 
      * Updates the mapping local controllers - group manager.
+     * (replaced by full summaries, updated in place by delta summaries)
      * 
-     * @param summary           The summary information
-     * @param groupManagerId    The group manager id
+     * @param groupManagerDescription   The group manager description
+     * @param summary                   The summary information
+     * @param removedLocalControllers   The removed local controller identifiers (null for full summaries)
      */
-    private void updateLocalControllerInformation(String groupManagerId, GroupManagerSummaryInformation summary)
+    private void updateLocalControllerInformation(GroupManagerDescription groupManagerDescription, 
+                                                  GroupManagerSummaryInformation summary,
+                                                  List<String> removedLocalControllers)
     {
         log_.debug("Updating the local controllers settings");
-        GroupManagerDescription groupManagerDescription = groupManagerDescriptions_.get(groupManagerId);
-        HashMap<String, LocalControllerDescription> localControllers = 
-                new HashMap<String, LocalControllerDescription>();
+        HashMap<String, LocalControllerDescription> localControllers = groupManagerDescription.getLocalControllers();
+        if (removedLocalControllers == null || localControllers == null)
+        {
+            localControllers = new HashMap<String, LocalControllerDescription>();
+            groupManagerDescription.setLocalControllers(localControllers);
+        } else
+        {
+            for (String localControllerId : removedLocalControllers)
+            {
+                log_.debug(String.format("Removing localController %s from the mapping", localControllerId));
+                localControllers.remove(localControllerId);
+            }
+        }
+        
         for (LocalControllerDescription localController : summary.getLocalControllers())
         {
             log_.debug(String.format("Adding localController %s to the mapping", localController.getId()));
             localControllers.put(localController.getId(), localController);
         }
-        groupManagerDescription.setLocalControllers(localControllers);
     }
 
     /**
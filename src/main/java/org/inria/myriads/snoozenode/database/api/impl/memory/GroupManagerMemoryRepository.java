@@ -23,6 +23,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
@@ -35,6 +41,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.datastructure.LRUCache;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.datastructure.TimeSeriesRingBuffer;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +49,16 @@ import org.slf4j.LoggerFactory;
 /**
  * Group manager in-memory repository.
  * 
+ * The virtual machine monitoring history is kept in primitive ring buffers 
+ * (one per virtual machine) instead of the meta data used capacity maps. 
+ * Copies handed out by the repository get the requested history window.
+ * 
+ * Operations on a single local controller (monitoring data, virtual machine updates, lookups)
+ * hold the shared structure lock and the lock stripe of the local controller, so they run
+ * in parallel for different local controllers. Joins, removals, migrations and cleaning
+ * hold the exclusive structure lock. Snapshots hold the shared structure lock and copy
+ * every local controller under its stripe.
+ *
  * @author Eugen Feller
  */
 public final class GroupManagerMemoryRepository 
@@ -49,6 +66,9 @@ public final class GroupManagerMemoryRepository
 {    
     /** Logger.*/
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerMemoryRepository.class);
+
+    /** Number of local controller lock stripes. */
+    private static final int NUMBER_OF_LOCK_STRIPES = 64;
     
     /** GroupManagerDescription. */
     private GroupManagerDescription groupManager_;
@@ -59,16 +79,38 @@ public final class GroupManagerMemoryRepository
      * Key: Local controller identifier
      * Value: Local controller description
      */
-    private HashMap<String, LocalControllerDescription> localControllerDescriptions_;
+    private ConcurrentHashMap<String, LocalControllerDescription> localControllerDescriptions_;
         
     /** List for the legacy IP addresses. */
     private List<String> legacyIpAddresses_;
 
     /** The maximum capacity. */
     private int maxCapacity_;
+    
+    /**
+     * Virtual machine monitoring history.
+     * 
+     * Key: Virtual machine identifier
+     * Value: Monitoring history
+     */
+    private ConcurrentHashMap<String, TimeSeriesRingBuffer> histories_;
+    
+    /**
+     * Local controller versions.
+     * 
+     * Key: Local controller identifier
+     * Value: Version (changes with the local controller description)
+     */
+    private ConcurrentHashMap<String, Long> localControllerVersions_;
+    
+    /** Last assigned version. */
+    private AtomicLong lastVersion_;
             
+    /** Structure lock (shared for local controller operations, exclusive for structural changes). */
+    private ReadWriteLock structureLock_;
 
-    
+    /** Local controller lock stripes. */
+    private Lock[] localControllerLocks_;
     
     /**
      * 
@@ -85,8 +127,70 @@ public final class GroupManagerMemoryRepository
         
         groupManager_ = groupManager;
         maxCapacity_ = maxCapacity;
-        localControllerDescriptions_ = new HashMap<String, LocalControllerDescription>();
+        localControllerDescriptions_ = new ConcurrentHashMap<String, LocalControllerDescription>();
         legacyIpAddresses_ = new ArrayList<String>();
+        histories_ = new ConcurrentHashMap<String, TimeSeriesRingBuffer>();
+        localControllerVersions_ = new ConcurrentHashMap<String, Long>();
+        lastVersion_ = new AtomicLong();
+        structureLock_ = new ReentrantReadWriteLock();
+        localControllerLocks_ = new Lock[NUMBER_OF_LOCK_STRIPES];
+        for (int i = 0; i < localControllerLocks_.length; i++)
+        {
+            localControllerLocks_[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the lock stripe of a local controller.
+     *
+     * @param localControllerId     The local controller identifier
+     * @return                      The lock stripe
+     */
+    private Lock getLocalControllerLock(String localControllerId)
+    {
+        int hash = localControllerId == null ? 0 : localControllerId.hashCode();
+        return localControllerLocks_[(hash & Integer.MAX_VALUE) % localControllerLocks_.length];
+    }
+
+    /**
+     * Acquires the shared structure lock and the lock stripe of a local controller.
+     *
+     * @param localControllerId     The local controller identifier
+     * @return                      The acquired lock stripe
+     */
+    private Lock lockLocalController(String localControllerId)
+    {
+        structureLock_.readLock().lock();
+        Lock lock = getLocalControllerLock(localControllerId);
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Releases a lock stripe and the shared structure lock.
+     *
+     * @param lock      The acquired lock stripe
+     */
+    private void unlockLocalController(Lock lock)
+    {
+        lock.unlock();
+        structureLock_.readLock().unlock();
+    }
+
+    /**
+     * Returns the stored local controller description.
+     *
+     * @param localControllerId     The local controller identifier
+     * @return                      The local controller description, null otherwise
+     */
+    private LocalControllerDescription getStoredLocalController(String localControllerId)
+    {
+        if (localControllerId == null)
+        {
+            return null;
+        }
+
+        return localControllerDescriptions_.get(localControllerId);
     }
     
     /**
@@ -98,7 +202,7 @@ public final class GroupManagerMemoryRepository
      * @return                              The local controller descriptions
      */
     @Override
-    public synchronized ArrayList<LocalControllerDescription> 
+    public ArrayList<LocalControllerDescription>
         getLocalControllerDescriptions(int numberOfMonitoringEntries, boolean isActiveOnly, boolean withVirtualMachines)
     {
         Guard.check(numberOfMonitoringEntries);
@@ -106,41 +210,96 @@ public final class GroupManagerMemoryRepository
                                   numberOfMonitoringEntries));
         
         ArrayList<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();       
-        for (LocalControllerDescription localController : localControllerDescriptions_.values())
+        structureLock_.readLock().lock();
+        try
         {   
-            LocalControllerStatus status = localController.getStatus();
-            if (status.equals(LocalControllerStatus.WOKENUP))
-            {
-                log_.debug(String.format("Skipping WOKENUP local controller", status));
-                continue;
-            }
-            
-            if (isActiveOnly && status.equals(LocalControllerStatus.PASSIVE))
+            for (LocalControllerDescription localController : localControllerDescriptions_.values())
             {
-                log_.debug(String.format("Skipping PASSIVE local controller", status));
-                continue;
+                Lock lock = getLocalControllerLock(localController.getId());
+                lock.lock();
+                try
+                {
+                    LocalControllerDescription copy = copyLocalController(localController,
+                                                                          numberOfMonitoringEntries,
+                                                                          isActiveOnly,
+                                                                          withVirtualMachines);
+                    if (copy != null)
+                    {
+                        localControllers.add(copy);
+                    }
+                }
+                finally
+                {
+                    lock.unlock();
+                }
             }
-            
-            log_.debug(String.format("Gettung local controller description for %s", localController.getId()));
-            LocalControllerDescription copy = new LocalControllerDescription(localController, 
-                                                                             numberOfMonitoringEntries,
-                                                                             withVirtualMachines
-                                                                              );
-            localControllers.add(copy);
+        }
+        finally
+        {
+            structureLock_.readLock().unlock();
         }
         
         return localControllers;
     }
     
+    /**
+     * Copies a local controller (caller holds its lock stripe).
+     *
+     * @param localController               The local controller description
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param isActiveOnly                  true if active only controllers are required
+     * @param withVirtualMachines           true if virtual machines are needed
+     * @return                              The local controller copy, null if skipped
+     */
+    private LocalControllerDescription copyLocalController(LocalControllerDescription localController,
+                                                           int numberOfMonitoringEntries,
+                                                           boolean isActiveOnly,
+                                                           boolean withVirtualMachines)
+    {
+        LocalControllerStatus status = localController.getStatus();
+        if (status.equals(LocalControllerStatus.WOKENUP))
+        {
+            log_.debug(String.format("Skipping WOKENUP local controller", status));
+            return null;
+        }
+
+        if (isActiveOnly && status.equals(LocalControllerStatus.PASSIVE))
+        {
+            log_.debug(String.format("Skipping PASSIVE local controller", status));
+            return null;
+        }
+
+        log_.debug(String.format("Gettung local controller description for %s", localController.getId()));
+        LocalControllerDescription copy = new LocalControllerDescription(localController,
+                                                                         numberOfMonitoringEntries,
+                                                                         withVirtualMachines
+                                                                          );
+        fillUsedCapacity(copy, numberOfMonitoringEntries);
+        return copy;
+    }
+
     /**
      * Cleans the repository.
      */
     @Override
-    public synchronized void clean()
+    public void clean()
     {
         log_.debug("Cleaning repository");
-        localControllerDescriptions_.clear();
-        legacyIpAddresses_.clear();
+        structureLock_.writeLock().lock();
+        try
+        {
+            localControllerDescriptions_.clear();
+            histories_.clear();
+            localControllerVersions_.clear();
+            synchronized (legacyIpAddresses_)
+            {
+                legacyIpAddresses_.clear();
+            }
+        }
+        finally
+        {
+            structureLock_.writeLock().unlock();
+        }
     }
         
     /**
@@ -153,7 +312,7 @@ public final class GroupManagerMemoryRepository
     {
         log_.debug(String.format("Returning local controller virtual machine meta data for: %s", localControllerId));
         
-        LocalControllerDescription description = localControllerDescriptions_.get(localControllerId);
+        LocalControllerDescription description = getStoredLocalController(localControllerId);
         if (description == null)
         {
             log_.debug("The local controller description is NULL");
@@ -168,17 +327,115 @@ public final class GroupManagerMemoryRepository
      * 
      * @param groupManager      The group manager description
      */
-    @SuppressWarnings("unchecked")
     @Override
-    public synchronized void fillGroupManagerDescription(GroupManagerDescription groupManager) 
+    public void fillGroupManagerDescription(GroupManagerDescription groupManager)
     {   
         Guard.check(groupManager);
         log_.debug("Adding possible virtual machine meta data to group manager description");
-        //it should be a copy ?  
-        groupManager.setLocalControllers(
-                (HashMap<String, LocalControllerDescription>) localControllerDescriptions_.clone());   
+        
+        // Copies carry the full history as it is only kept in the ring buffers
+        HashMap<String, LocalControllerDescription> localControllers = 
+            new HashMap<String, LocalControllerDescription>();
+        structureLock_.readLock().lock();
+        try
+        {
+            for (LocalControllerDescription localController : localControllerDescriptions_.values())
+            {
+                Lock lock = getLocalControllerLock(localController.getId());
+                lock.lock();
+                try
+                {
+                    LocalControllerDescription copy = new LocalControllerDescription(localController, 
+                                                                                     maxCapacity_, 
+                                                                                     true);
+                    fillUsedCapacity(copy, maxCapacity_);
+                    localControllers.put(copy.getId(), copy);
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            structureLock_.readLock().unlock();
+        }
+        
+        groupManager.setLocalControllers(localControllers);
+    }
+    
+    /**
+     * Fills the used capacity of the virtual machine copies of a local controller copy.
+     * 
+     * @param localController               The local controller copy
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     */
+    private void fillUsedCapacity(LocalControllerDescription localController, int numberOfMonitoringEntries)
+    {
+        Map<String, VirtualMachineMetaData> virtualMachines = localController.getVirtualMachineMetaData();
+        if (virtualMachines == null)
+        {
+            return;
+        }
+        
+        for (VirtualMachineMetaData virtualMachine : virtualMachines.values())
+        {
+            fillUsedCapacity(virtualMachine, numberOfMonitoringEntries);
+        }
     }
     
+    /**
+     * Fills the used capacity of a virtual machine copy with the latest history entries.
+     * 
+     * @param virtualMachine                The virtual machine copy
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     */
+    private void fillUsedCapacity(VirtualMachineMetaData virtualMachine, int numberOfMonitoringEntries)
+    {
+        String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+        TimeSeriesRingBuffer history = getHistory(virtualMachineId);
+        if (history == null || numberOfMonitoringEntries <= 0)
+        {
+            return;
+        }
+        
+        LRUCache<Long, VirtualMachineMonitoringData> usedCapacity = 
+            new LRUCache<Long, VirtualMachineMonitoringData>(numberOfMonitoringEntries);
+        int dimension = history.getDimension();
+        for (int i = history.getWindowStart(numberOfMonitoringEntries); i < history.size(); i++)
+        {
+            ArrayList<Double> values = new ArrayList<Double>(dimension);
+            for (int j = 0; j < dimension; j++)
+            {
+                values.add(history.getValue(i, j));
+            }
+            
+            VirtualMachineMonitoringData monitoringData = new VirtualMachineMonitoringData();
+            monitoringData.setTimeStamp(history.getTimeStamp(i));
+            monitoringData.setUsedCapacity(values);
+            usedCapacity.put(monitoringData.getTimeStamp(), monitoringData);
+        }
+        
+        virtualMachine.setUsedCapacity(usedCapacity);
+    }
+    
+    /**
+     * Returns the monitoring history of a virtual machine.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The monitoring history, null otherwise
+     */
+    private TimeSeriesRingBuffer getHistory(String virtualMachineId)
+    {
+        if (virtualMachineId == null)
+        {
+            return null;
+        }
+
+        return histories_.get(virtualMachineId);
+    }
+
     /**
      * Add local controller description.
      * 
@@ -186,19 +443,28 @@ public final class GroupManagerMemoryRepository
      * @return                              true if everything ok, false otherwise
      */
     @Override
-    public synchronized boolean addLocalControllerDescription(LocalControllerDescription localController) 
+    public boolean addLocalControllerDescription(LocalControllerDescription localController)
     {
         Guard.check(localController);
         String localControllerId = localController.getId();
         log_.debug(String.format("Adding description for local controller: %s", localControllerId));
         
-        localController.setIsAssigned(true);
-        localControllerDescriptions_.put(localControllerId, localController);
-        boolean isUpdated = updateVirtualMachineAssignmens(localController);
-        if (!isUpdated)
+        structureLock_.writeLock().lock();
+        try
         {
-            log_.debug("Failed to update the virtual machine assignment set!");
-            return false;
+            localController.setIsAssigned(true);
+            localControllerDescriptions_.put(localControllerId, localController);
+            touchLocalController(localControllerId);
+            boolean isUpdated = updateVirtualMachineAssignmens(localController);
+            if (!isUpdated)
+            {
+                log_.debug("Failed to update the virtual machine assignment set!");
+                return false;
+            }
+        }
+        finally
+        {
+            structureLock_.writeLock().unlock();
         }
                      
         log_.debug("Local controller description added successfully!");
@@ -229,7 +495,7 @@ public final class GroupManagerMemoryRepository
         for (VirtualMachineMetaData entry : metaData.values())
         {
             entry.getVirtualMachineLocation().setLocalControllerId(localController.getId());
-            boolean isAdded = addVirtualMachine(entry);
+            boolean isAdded = putVirtualMachine(entry);
             if (!isAdded)
             {
                 log_.debug("Failed to add virtual machine meta data!");
@@ -247,7 +513,7 @@ public final class GroupManagerMemoryRepository
      * @return              The local controller control data address
      */
     @Override
-    public synchronized NetworkAddress getLocalControllerControlDataAddress(VirtualMachineLocation location)
+    public NetworkAddress getLocalControllerControlDataAddress(VirtualMachineLocation location)
     {
         Guard.check(location);
         
@@ -255,23 +521,30 @@ public final class GroupManagerMemoryRepository
         String localControllerId = location.getLocalControllerId();
         log_.debug(String.format("Getting local controller description for virtual machine: %s", virtualMachineId));
         
-      
-        LocalControllerDescription localController = localControllerDescriptions_.get(localControllerId);
-        if (localController == null)
+        Lock lock = lockLocalController(localControllerId);
+        try
         {
-            log_.debug("The local controller description is NULL");
-            return null;
+            LocalControllerDescription localController = getStoredLocalController(localControllerId);
+            if (localController == null)
+            {
+                log_.debug("The local controller description is NULL");
+                return null;
+            }
+      
+            VirtualMachineMetaData metaData = localController.getVirtualMachineMetaData().get(virtualMachineId);
+            if (metaData == null)
+            {
+                log_.debug(String.format("No virtual machine %s meta data exists on this local controller!",
+                                         virtualMachineId));
+                return null;
+            }
+
+            return localController.getControlDataAddress();
         }
-        
-        VirtualMachineMetaData metaData = localController.getVirtualMachineMetaData().get(virtualMachineId);
-        if (metaData == null)
+        finally
         {
-            log_.debug(String.format("No virtual machine %s meta data exists on this local controller!",
-                                     virtualMachineId));
-            return null;
+            unlockLocalController(lock);
         }
-        
-        return localController.getControlDataAddress();
     }
         
     /**
@@ -283,26 +556,35 @@ public final class GroupManagerMemoryRepository
      * @return                          The local controller description
      */
     @Override
-    public synchronized LocalControllerDescription getLocalControllerDescription(String localControllerId,
-                                                                                 int numberOfMonitoringEntries,
-                                                                                 boolean withVirtualMachines
+    public LocalControllerDescription getLocalControllerDescription(String localControllerId,
+                                                                    int numberOfMonitoringEntries,
+                                                                    boolean withVirtualMachines
             )
     {
         Guard.check(localControllerId, numberOfMonitoringEntries);       
         log_.debug(String.format("Getting local controller description for %s", localControllerId));
         
-        LocalControllerDescription localController = localControllerDescriptions_.get(localControllerId);
-        if (localController == null)
+        Lock lock = lockLocalController(localControllerId);
+        try
         {
-            log_.debug("No such local controller available!");
-            return null;
+            LocalControllerDescription localController = getStoredLocalController(localControllerId);
+            if (localController == null)
+            {
+                log_.debug("No such local controller available!");
+                return null;
+            }
+
+            LocalControllerDescription localControllerCopy = new LocalControllerDescription(localController,
+                                                                                  numberOfMonitoringEntries,
+                                                                                  withVirtualMachines
+                                                                                  );
+            fillUsedCapacity(localControllerCopy, numberOfMonitoringEntries);
+            return localControllerCopy;
+        }
+        finally
+        {
+            unlockLocalController(lock);
         }
-        
-        LocalControllerDescription localControllerCopy = new LocalControllerDescription(localController,
-                                                                                        numberOfMonitoringEntries,
-                                                                                        withVirtualMachines
-                                                                                        );
-        return localControllerCopy;
     }
     
     /**
@@ -324,6 +606,7 @@ public final class GroupManagerMemoryRepository
         }
         
         metaData.remove(location.getVirtualMachineId());
+        touchLocalController(location.getLocalControllerId());
         return true;
     }
     
@@ -334,25 +617,38 @@ public final class GroupManagerMemoryRepository
      * @return              true if everything ok, false otherwise
      */
     @Override
-    public synchronized boolean dropVirtualMachineData(VirtualMachineLocation location)
+    public boolean dropVirtualMachineData(VirtualMachineLocation location)
     {
         Guard.check(location);
         log_.debug(String.format("Removing virtual machine data for: %s", location.getVirtualMachineId()));
         
-        boolean isReleased = releaseVirtualMachineNetworkInformation(location);
-        if (!isReleased)
+        Lock lock = lockLocalController(location.getLocalControllerId());
+        try
         {
-            log_.debug("Failed to release virtual machine networking information!");
-            return false;
+            boolean isReleased = releaseVirtualMachineNetworkInformation(location);
+            if (!isReleased)
+            {
+                log_.debug("Failed to release virtual machine networking information!");
+                return false;
+            }
+
+            boolean isRemoved = removeVirtualMachineMetaDataMapping(location);
+            if (!isRemoved)
+            {
+                return false;
+            }
+
+            if (location.getVirtualMachineId() != null)
+            {
+                histories_.remove(location.getVirtualMachineId());
+            }
+
+            return true;
         }
-        
-        boolean isRemoved = removeVirtualMachineMetaDataMapping(location);
-        if (!isRemoved)
+        finally
         {
-            return false;
+            unlockLocalController(lock);
         }
-        
-        return true;
     }
     
     /**
@@ -362,23 +658,44 @@ public final class GroupManagerMemoryRepository
      * @return                    true if everything ok, false otherwise
      */
     @Override
-    public synchronized boolean addVirtualMachine(VirtualMachineMetaData virtualMachine)
+    public boolean addVirtualMachine(VirtualMachineMetaData virtualMachine)
     {
         Guard.check(virtualMachine);
+        Lock lock = lockLocalController(virtualMachine.getVirtualMachineLocation().getLocalControllerId());
+        try
+        {
+            return putVirtualMachine(virtualMachine);
+        }
+        finally
+        {
+            unlockLocalController(lock);
+        }
+    }
+
+    /**
+     * Stores virtual machine meta data (caller holds the local controller lock stripe).
+     *
+     * @param virtualMachine      The virtual machine meta data
+     * @return                    true if everything ok, false otherwise
+     */
+    private boolean putVirtualMachine(VirtualMachineMetaData virtualMachine)
+    {
         String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
         String localControllerId = virtualMachine.getVirtualMachineLocation().getLocalControllerId();
         log_.debug(String.format("Adding virtual machine %s to local controller %s", 
                                  virtualMachineId, localControllerId));
                        
         Map<String, VirtualMachineMetaData> metaData = getLocalControllerVirtualMachineMetaData(localControllerId);  
-        if (metaData == null)
+        if (metaData == null || virtualMachineId == null)
         {
             log_.debug("Virtual machine meta data is NULL!");
             return false;
         }
         
         virtualMachine.setUsedCapacity(new LRUCache<Long, VirtualMachineMonitoringData>(maxCapacity_));
+        histories_.put(virtualMachineId, new TimeSeriesRingBuffer(maxCapacity_));
         metaData.put(virtualMachineId, virtualMachine); 
+        touchLocalController(localControllerId);
         
         return true;
     }
@@ -390,42 +707,55 @@ public final class GroupManagerMemoryRepository
      * @param aggregatedData      The aggregated virtual machine data
      */
     @Override
-    public synchronized void addAggregatedMonitoringData(String localControllerId, 
-                                                         List<AggregatedVirtualMachineData> aggregatedData)
+    public void addAggregatedMonitoringData(String localControllerId,
+                                            List<AggregatedVirtualMachineData> aggregatedData)
     {
         Guard.check(aggregatedData);   
         log_.debug(String.format("Adding aggregated virtual machine monitoring data to the database for %d VMs", 
                                  aggregatedData.size()));
         
-        for (AggregatedVirtualMachineData aggregatedVirtualMachineData : aggregatedData) 
+        Lock lock = lockLocalController(localControllerId);
+        try
         {
-            String virtualMachineId = aggregatedVirtualMachineData.getVirtualMachineId();                        
-            List<VirtualMachineMonitoringData> dataList = aggregatedVirtualMachineData.getMonitoringData();
-            if (dataList.isEmpty())
-            {
-                log_.debug("The virtual machine monitoring data list is empty");
-                continue;
-            }
-           
-            VirtualMachineLocation location = new VirtualMachineLocation();
-            location.setLocalControllerId(localControllerId);
-            location.setVirtualMachineId(virtualMachineId);
-            VirtualMachineMetaData metaData = getVirtualMachineMetaData(location);
-            if (metaData == null)
+            for (AggregatedVirtualMachineData aggregatedVirtualMachineData : aggregatedData)
             {
-                log_.debug("No meta data exist for this virtual machine!");
-                continue;
-            }
-            
-            Map<Long, VirtualMachineMonitoringData> monitoringData = metaData.getUsedCapacity();             
-            for (VirtualMachineMonitoringData virtualMachineData : dataList) 
-            {
-                log_.debug(String.format("Adding history data %s for virtual machine: %s",
-                                         virtualMachineData.getUsedCapacity(),   
-                                         virtualMachineId));
-                monitoringData.put(virtualMachineData.getTimeStamp(), virtualMachineData);
+                String virtualMachineId = aggregatedVirtualMachineData.getVirtualMachineId();
+                List<VirtualMachineMonitoringData> dataList = aggregatedVirtualMachineData.getMonitoringData();
+                if (dataList.isEmpty())
+                {
+                    log_.debug("The virtual machine monitoring data list is empty");
+                    continue;
+                }
+                
+                VirtualMachineLocation location = new VirtualMachineLocation();
+                location.setLocalControllerId(localControllerId);
+                location.setVirtualMachineId(virtualMachineId);
+                VirtualMachineMetaData metaData = getVirtualMachineMetaData(location);
+                TimeSeriesRingBuffer history = getHistory(virtualMachineId);
+                if (metaData == null || history == null)
+                {
+                    log_.debug("No meta data exist for this virtual machine!");
+                    continue;
+                }
+
+                for (VirtualMachineMonitoringData virtualMachineData : dataList)
+                {
+                    log_.debug(String.format("Adding history data %s for virtual machine: %s",
+                                             virtualMachineData.getUsedCapacity(),
+                                             virtualMachineId));
+                    if (virtualMachineData.getUsedCapacity() == null)
+                    {
+                        continue;
+                    }
+
+                    history.add(virtualMachineData.getTimeStamp(), virtualMachineData.getUsedCapacity());
+                }
             }
         }
+        finally
+        {
+            unlockLocalController(lock);
+        }
     }
         
     /**
@@ -434,13 +764,16 @@ public final class GroupManagerMemoryRepository
      * @return  The list of legacy IP addresses
      */
     @Override
-    public synchronized ArrayList<String> getLegacyIpAddresses()
+    public ArrayList<String> getLegacyIpAddresses()
     {
-        log_.debug(String.format("Returning the current list of legacy IP addresses: %s", 
-                                 legacyIpAddresses_.toString()));
-        ArrayList<String> newList = new ArrayList<String>(legacyIpAddresses_);
-        legacyIpAddresses_.clear();
-        return newList;
+        synchronized (legacyIpAddresses_)
+        {
+            log_.debug(String.format("Returning the current list of legacy IP addresses: %s",
+                                     legacyIpAddresses_.toString()));
+            ArrayList<String> newList = new ArrayList<String>(legacyIpAddresses_);
+            legacyIpAddresses_.clear();
+            return newList;
+        }
     }
  
     /**
@@ -453,15 +786,18 @@ public final class GroupManagerMemoryRepository
     {
         Guard.check(ipAddress);
         
-        if (legacyIpAddresses_.contains(ipAddress))
+        synchronized (legacyIpAddresses_)
         {
-            log_.debug(String.format("IP address %s already exists!", ipAddress));
-            return false;
+            if (legacyIpAddresses_.contains(ipAddress))
+            {
+                log_.debug(String.format("IP address %s already exists!", ipAddress));
+                return false;
+            }
+
+            log_.debug(String.format("Legacy IP address %s added", ipAddress));
+            legacyIpAddresses_.add(ipAddress);
+            return true;
         }
-        
-        log_.debug(String.format("Legacy IP address %s added", ipAddress));
-        legacyIpAddresses_.add(ipAddress);
-        return true;
     }
                   
     /**
@@ -472,40 +808,118 @@ public final class GroupManagerMemoryRepository
      * @return                              The virtual machine meta data
      */
     @Override
-    public synchronized VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location,
-                                                                         int numberOfMonitoringEntries) 
+    public VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location,
+                                                            int numberOfMonitoringEntries)
     {
         Guard.check(location); 
         log_.debug(String.format("Generating virtual machine information for: %s", location.getVirtualMachineId()));
         
-        VirtualMachineMetaData virtualMachine = getVirtualMachineMetaData(location);
-        if (virtualMachine == null)
+        Lock lock = lockLocalController(location.getLocalControllerId());
+        try
         {
-            log_.debug("No virtual machine meta data available!");
-            return null;
+            VirtualMachineMetaData virtualMachine = getVirtualMachineMetaData(location);
+            if (virtualMachine == null)
+            {
+                log_.debug("No virtual machine meta data available!");
+                return null;
+            }
+
+            VirtualMachineMetaData copy = new VirtualMachineMetaData(virtualMachine, numberOfMonitoringEntries);
+            fillUsedCapacity(copy, numberOfMonitoringEntries);
+            log_.debug(String.format("Returning virtual machine %s meta data, monitoring data size: %d",
+                                     copy.getVirtualMachineLocation().getVirtualMachineId(),
+                                     copy.getUsedCapacity().size()));
+            return copy;
+        }
+        finally
+        {
+            unlockLocalController(lock);
         }
+    }
+    
+    /**
+     * Returns the average used capacity of a virtual machine over its latest monitoring entries.
+     * 
+     * @param location                      The virtual machine location
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param dimension                     The capacity dimension
+     * @return                              The average, Double.NaN if no history is available
+     */
+    @Override
+    public double getAverageUsedCapacity(VirtualMachineLocation location, int numberOfMonitoringEntries, int dimension)
+    {
+        Guard.check(location);
         
-        VirtualMachineMetaData copy = new VirtualMachineMetaData(virtualMachine, numberOfMonitoringEntries);
-        log_.debug(String.format("Returning virtual machine %s meta data, monitoring data size: %d", 
-                                 copy.getVirtualMachineLocation().getVirtualMachineId(),
-                                 copy.getUsedCapacity().size()));
-        return copy; 
+        Lock lock = lockLocalController(location.getLocalControllerId());
+        try
+        {
+            LocalControllerDescription localController = getStoredLocalController(location.getLocalControllerId());
+            if (localController == null || 
+                !localController.getVirtualMachineMetaData().containsKey(location.getVirtualMachineId()))
+            {
+                return Double.NaN;
+            }
+            
+            TimeSeriesRingBuffer history = getHistory(location.getVirtualMachineId());
+            if (history == null || history.size() == 0 || dimension >= history.getDimension())
+            {
+                return Double.NaN;
+            }
+            
+            return history.getAverage(dimension, numberOfMonitoringEntries);
+        }
+        finally
+        {
+            unlockLocalController(lock);
+        }
     }
     
     /**
-     * Returns the virtual machine meta data.
+     * Checks whether the history can be read in place.
+     * 
+     * @return  true
+     */
+    @Override
+    public boolean hasInPlaceHistory()
+    {
+        return true;
+    }
+    
+    /**
+     * Returns the local controller versions.
+     * 
+     * @return  The versions (local controller identifier : version)
+     */
+    @Override
+    public Map<String, Long> getLocalControllerVersions()
+    {
+        return new HashMap<String, Long>(localControllerVersions_);
+    }
+    
+    /**
+     * Assigns a new version to a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    private void touchLocalController(String localControllerId)
+    {
+        localControllerVersions_.put(localControllerId, lastVersion_.incrementAndGet());
+    }
+    
+    /**
+     * Returns the virtual machine meta data (caller holds the local controller lock stripe).
      * 
      * @param location      The virtual machine location
      * @return              The virtual machine meta data
      */
-    private synchronized VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location) 
+    private VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location)
     {        
         String virtualMachineId = location.getVirtualMachineId();
         String localControllerId = location.getLocalControllerId();
         log_.debug(String.format("Getting meta data for virtual machine %s on local controller %s", 
                                  virtualMachineId, localControllerId));
         
-        LocalControllerDescription localControllerDescription = localControllerDescriptions_.get(localControllerId);
+        LocalControllerDescription localControllerDescription = getStoredLocalController(localControllerId);
         if (localControllerDescription == null)
         {
             log_.debug("Local controller description is NULL!");
@@ -536,16 +950,24 @@ public final class GroupManagerMemoryRepository
      * @return              true if exists, false otherwise
      */
     @Override
-    public synchronized boolean hasVirtualMachine(VirtualMachineLocation location)
+    public boolean hasVirtualMachine(VirtualMachineLocation location)
     {
         Guard.check(location);
         log_.debug(String.format("Performing virtual machine lookup for: %s on %s", 
                                  location.getVirtualMachineId(), location.getLocalControllerId()));
                  
-        if (getVirtualMachineMetaData(location) != null)
+        Lock lock = lockLocalController(location.getLocalControllerId());
+        try
         {
-            log_.debug("Such virtual machine exists!");
-            return true;
+            if (getVirtualMachineMetaData(location) != null)
+            {
+                log_.debug("Such virtual machine exists!");
+                return true;
+            }
+        }
+        finally
+        {
+            unlockLocalController(lock);
         }
         
         log_.debug("No such virtual machine exists!");
@@ -560,25 +982,34 @@ public final class GroupManagerMemoryRepository
      * @return            true if match, false otherwise
      */
     @Override
-    public synchronized boolean checkVirtualMachineStatus(VirtualMachineLocation location, 
-                                                          VirtualMachineStatus status)
+    public boolean checkVirtualMachineStatus(VirtualMachineLocation location,
+                                             VirtualMachineStatus status)
     {
         Guard.check(location, status);
-        VirtualMachineMetaData virtualMachineMetaData = getVirtualMachineMetaData(location);
-        if (virtualMachineMetaData == null)
+        Lock lock = lockLocalController(location.getLocalControllerId());
+        try
         {
-            log_.debug("Unable to get virtual machine meta data!");
-            return false;
-        }
+            VirtualMachineMetaData virtualMachineMetaData = getVirtualMachineMetaData(location);
+            if (virtualMachineMetaData == null)
+            {
+                log_.debug("Unable to get virtual machine meta data!");
+                return false;
+            }
+
+            VirtualMachineStatus state = virtualMachineMetaData.getStatus();
+            if (!state.equals(status))
+            {
+                log_.debug(String.format("This virtual machine is not in the correct state! Current state: %s",
+                                         state));
+                return false;
+            }
 
-        VirtualMachineStatus state = virtualMachineMetaData.getStatus();
-        if (!state.equals(status))
+            return true;
+        }
+        finally
         {
-            log_.debug(String.format("This virtual machine is not in the correct state! Current state: %s", state));
-            return false;
+            unlockLocalController(lock);
         }
-        
-        return true;        
     }
     
     /**
@@ -589,21 +1020,29 @@ public final class GroupManagerMemoryRepository
      * @return              true if everything ok, false otherwise
      */
     @Override
-    public synchronized boolean changeVirtualMachineStatus(VirtualMachineLocation location,
-                                                           VirtualMachineStatus status)
+    public boolean changeVirtualMachineStatus(VirtualMachineLocation location,
+                                              VirtualMachineStatus status)
     {
         Guard.check(location, status);        
         log_.debug(String.format("Changing virtual machine %s status to %s", 
                                  location.getVirtualMachineId(), status));
         
-        VirtualMachineMetaData virtualMachineMetaData = getVirtualMachineMetaData(location);
-        if (virtualMachineMetaData == null)
+        Lock lock = lockLocalController(location.getLocalControllerId());
+        try
         {
-            log_.debug("No meta data exists for this virtual machine!");
-            return false;
+            VirtualMachineMetaData virtualMachineMetaData = getVirtualMachineMetaData(location);
+            if (virtualMachineMetaData == null)
+            {
+                log_.debug("No meta data exists for this virtual machine!");
+                return false;
+            }
+
+            virtualMachineMetaData.setStatus(status);
+        }
+        finally
+        {
+            unlockLocalController(lock);
         }
-        
-        virtualMachineMetaData.setStatus(status);
         
         return true;
     }
@@ -614,7 +1053,7 @@ public final class GroupManagerMemoryRepository
      * @return  The group manager identifier
      */
     @Override
-    public synchronized String getGroupManagerId() 
+    public String getGroupManagerId()
     {
         return groupManager_.getId();
     }
@@ -632,15 +1071,25 @@ public final class GroupManagerMemoryRepository
         Guard.check(localControllerId, status);
         log_.debug(String.format("Changing local controller %s status to %s", localControllerId, status));
         
-        LocalControllerDescription localControllerDescription = localControllerDescriptions_.get(localControllerId);
-        if (localControllerDescription == null)
+        Lock lock = lockLocalController(localControllerId);
+        try
         {
-            log_.debug("No local controller description exists");
-            return false;
+            LocalControllerDescription localControllerDescription = getStoredLocalController(localControllerId);
+            if (localControllerDescription == null)
+            {
+                log_.debug("No local controller description exists");
+                return false;
+            }
+
+            log_.debug(String.format("Local controller %s status changed to %s", localControllerId, status));
+            localControllerDescription.setStatus(status);
+            touchLocalController(localControllerId);
+        }
+        finally
+        {
+            unlockLocalController(lock);
         }
         
-        log_.debug(String.format("Local controller %s status changed to %s", localControllerId, status));
-        localControllerDescription.setStatus(status);
         return true;        
     }
         
@@ -653,7 +1102,7 @@ public final class GroupManagerMemoryRepository
      */
     private boolean checkLocalControllerStatus(String localControllerId, LocalControllerStatus status)
     {
-        LocalControllerDescription localControllerDescription = localControllerDescriptions_.get(localControllerId);
+        LocalControllerDescription localControllerDescription = getStoredLocalController(localControllerId);
         if (localControllerDescription == null)
         {
             log_.debug("No local controller description available for this identifier!");
@@ -678,29 +1127,42 @@ public final class GroupManagerMemoryRepository
      * @return                      true if everything ok, false otherwise
      */
     @Override
-    public synchronized boolean dropLocalController(String localControllerId, boolean forceDelete)
+    public boolean dropLocalController(String localControllerId, boolean forceDelete)
     {
         Guard.check(localControllerId);
         log_.debug(String.format("Removing local controller: %s, force: %s", localControllerId, forceDelete));
         
-        LocalControllerDescription localController = localControllerDescriptions_.get(localControllerId);
-        if (localController == null)
+        structureLock_.writeLock().lock();
+        try
         {
-            log_.debug("No such local controller available!");
-            return false;
-        }
-        
-        if (checkLocalControllerStatus(localControllerId, LocalControllerStatus.PASSIVE) && !forceDelete)
-        {
-            log_.debug("This local controller is in PASSIVE mode! Will not delete!");
-            return false;
+            LocalControllerDescription localController = getStoredLocalController(localControllerId);
+            if (localController == null)
+            {
+                log_.debug("No such local controller available!");
+                return false;
+            }
+
+            if (checkLocalControllerStatus(localControllerId, LocalControllerStatus.PASSIVE) && !forceDelete)
+            {
+                log_.debug("This local controller is in PASSIVE mode! Will not delete!");
+                return false;
+            }
+
+            boolean isReleased = releaseLocalControllerNetworkingInformation(localControllerId);
+            if (isReleased)
+            {
+                log_.debug("Networking information released successfully!");
+                for (String virtualMachineId : localController.getVirtualMachineMetaData().keySet())
+                {
+                    histories_.remove(virtualMachineId);
+                }
+                localControllerDescriptions_.remove(localControllerId);
+                localControllerVersions_.remove(localControllerId);
+            }
         }
-        
-        boolean isReleased = releaseLocalControllerNetworkingInformation(localControllerId);
-        if (isReleased)
+        finally
         {
-            log_.debug("Networking information released successfully!");
-            localControllerDescriptions_.remove(localControllerId);        
+            structureLock_.writeLock().unlock();
         }
                 
         return true;
@@ -712,7 +1174,7 @@ public final class GroupManagerMemoryRepository
      * @param localControllerId     The local controller identifier
      * @return                      true if everything ok, false otherwise
      */
-    private synchronized boolean releaseLocalControllerNetworkingInformation(String localControllerId)
+    private boolean releaseLocalControllerNetworkingInformation(String localControllerId)
     {
         log_.debug("Releasing the local controller networking information");
                 
@@ -774,18 +1236,35 @@ public final class GroupManagerMemoryRepository
      * @return                      The local controller identifier
      */
     @Override
-    public synchronized String searchVirtualMachine(String virtualMachineId) 
+    public String searchVirtualMachine(String virtualMachineId)
     {
         Guard.check(virtualMachineId);
         log_.debug(String.format("Searching the repository for virtual machine: %s", virtualMachineId));
         
-        for (LocalControllerDescription localController : localControllerDescriptions_.values()) 
+        structureLock_.readLock().lock();
+        try
         {
-            if (localController.getVirtualMachineMetaData().containsKey(virtualMachineId))
+            for (LocalControllerDescription localController : localControllerDescriptions_.values())
             {
-                return localController.getId();
+                Lock lock = getLocalControllerLock(localController.getId());
+                lock.lock();
+                try
+                {
+                    if (localController.getVirtualMachineMetaData().containsKey(virtualMachineId))
+                    {
+                        return localController.getId();
+                    }
+                }
+                finally
+                {
+                    lock.unlock();
+                }
             }
         }
+        finally
+        {
+            structureLock_.readLock().unlock();
+        }
         
         return null;
     }
@@ -798,8 +1277,8 @@ public final class GroupManagerMemoryRepository
      * @return                true if everything ok, false otherwise
      */
     @Override
-    public synchronized boolean updateVirtualMachineLocation(VirtualMachineLocation oldLocation, 
-                                                             VirtualMachineLocation newLocation) 
+    public boolean updateVirtualMachineLocation(VirtualMachineLocation oldLocation,
+                                                VirtualMachineLocation newLocation)
     {
         Guard.check(oldLocation, newLocation);
         log_.debug(String.format("Updating virtual machine location for: %s (host : %s) to %s ( host : %s)", 
@@ -809,35 +1288,41 @@ public final class GroupManagerMemoryRepository
                                  newLocation.getGroupManagerControlDataAddress().getAddress()
                 ));
         
-        
-        
-        VirtualMachineMetaData metaData = getVirtualMachineMetaData(oldLocation);
-        if (metaData == null)
+        structureLock_.writeLock().lock();
+        try
         {
-            log_.error("No meta data exists for this virtual machine!");
-            return false;
-        }
+            VirtualMachineMetaData metaData = getVirtualMachineMetaData(oldLocation);
+            if (metaData == null)
+            {
+                log_.error("No meta data exists for this virtual machine!");
+                return false;
+            }
         
-        metaData.setVirtualMachineLocation(newLocation);
-        boolean isAdded = addVirtualMachine(metaData);
-        if (!isAdded)
-        {
-            log_.error("Failed to move virtual machine meta data moved to new local controller!");
-            return false;
-        }
+            metaData.setVirtualMachineLocation(newLocation);
+            boolean isAdded = putVirtualMachine(metaData);
+            if (!isAdded)
+            {
+                log_.error("Failed to move virtual machine meta data moved to new local controller!");
+                return false;
+            }
         
-        boolean isRemoved = removeVirtualMachineMetaDataMapping(oldLocation);
-        if (!isRemoved)
+            boolean isRemoved = removeVirtualMachineMetaDataMapping(oldLocation);
+            if (!isRemoved)
+            {
+                log_.error("Failed to remove virtual machine meta data mapping");
+                return false;
+            }
+        }
+        finally
         {
-            log_.error("Failed to remove virtual machine meta data mapping");
-            return false;
+            structureLock_.writeLock().unlock();
         }
         //send to external here : management/groupmanager.gmid.vm.vmid.migration(Metadata)
         return true;
     }
 
     /**
-     * Returns local controller description.
+     * Returns local controller description (caller holds the structure lock).
      * 
      * @param networkAddress    The network address
      * @return                  The local controller description, null otherwise
@@ -867,11 +1352,21 @@ public final class GroupManagerMemoryRepository
      * @return                           The previous identifier, null otherwise
      */
     @Override
-    public synchronized String hasLocalController(NetworkAddress localControllerAddress) 
+    public String hasLocalController(NetworkAddress localControllerAddress)
     {
         log_.debug("Checking for local controller existance");
 
-        LocalControllerDescription localController = getLocalControllerDescription(localControllerAddress);
+        LocalControllerDescription localController;
+        structureLock_.readLock().lock();
+        try
+        {
+            localController = getLocalControllerDescription(localControllerAddress);
+        }
+        finally
+        {
+            structureLock_.readLock().unlock();
+        }
+
         if (localController == null)
         {
             log_.debug("No local controller detected!");
@@ -894,32 +1389,47 @@ public final class GroupManagerMemoryRepository
         String virtualMachineId = location.getVirtualMachineId();
         String localControllerId = location.getLocalControllerId();
         
-        
-        LocalControllerDescription localControllerDescription = localControllerDescriptions_.get(localControllerId);
-        if (localControllerDescription == null)
+        Lock lock = lockLocalController(localControllerId);
+        try
         {
-            log_.debug("Local controller description is NULL!");
-            return false;
-        }
+            LocalControllerDescription localControllerDescription = getStoredLocalController(localControllerId);
+            if (localControllerDescription == null)
+            {
+                log_.debug("Local controller description is NULL!");
+                return false;
+            }
         
-        Map<String, VirtualMachineMetaData> metaData = localControllerDescription.getVirtualMachineMetaData();
-        if (metaData == null)
+            Map<String, VirtualMachineMetaData> metaData = localControllerDescription.getVirtualMachineMetaData();
+            if (metaData == null)
+            {
+                log_.debug("No meta data available on this local controller!");
+                return false;
+            }
+            metaData.put(virtualMachineId, virtualMachine);
+        }
+        finally
         {
-            log_.debug("No meta data available on this local controller!");
-            return false;
+            unlockLocalController(lock);
         }
-        metaData.put(virtualMachineId, virtualMachine);
 
         return true;   
       
     }
 
     /**
-     * @return the localControllerDescriptions
+     * @return a snapshot of the localControllerDescriptions
      */
     public HashMap<String, LocalControllerDescription> getLocalControllerDescriptions()
     {
-        return localControllerDescriptions_;
+        structureLock_.readLock().lock();
+        try
+        {
+            return new HashMap<String, LocalControllerDescription>(localControllerDescriptions_);
+        }
+        finally
+        {
+            structureLock_.readLock().unlock();
+        }
     }
 
     /**
@@ -927,7 +1437,21 @@ public final class GroupManagerMemoryRepository
      */
     public void setLocalControllerDescriptions(HashMap<String, LocalControllerDescription> localControllerDescriptions)
     {
-        localControllerDescriptions_ = localControllerDescriptions;
+        structureLock_.writeLock().lock();
+        try
+        {
+            localControllerDescriptions_.clear();
+            localControllerDescriptions_.putAll(localControllerDescriptions);
+            localControllerVersions_.clear();
+            for (String localControllerId : localControllerDescriptions.keySet())
+            {
+                touchLocalController(localControllerId);
+            }
+        }
+        finally
+        {
+            structureLock_.writeLock().unlock();
+        }
     }
 
     @Override
@@ -936,10 +1460,65 @@ public final class GroupManagerMemoryRepository
         return groupManager_;
     }
 
+    /**
+     * Returns the local controllers to transmit to the group leader.
+     * (virtual machines only carry their location and IP address)
+     * 
+     * @return  The local controller descriptions
+     */
     @Override
     public ArrayList<LocalControllerDescription> getLocalControllerDescriptionForDataTransporter()
     {
-        return getLocalControllerDescriptions(0, false, false);
+        ArrayList<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();       
+        structureLock_.readLock().lock();
+        try
+        {   
+            for (LocalControllerDescription localController : localControllerDescriptions_.values())
+            {
+                Lock lock = getLocalControllerLock(localController.getId());
+                lock.lock();
+                try
+                {
+                    LocalControllerDescription copy = copyLocalController(localController, 0, false, false);
+                    if (copy != null)
+                    {
+                        addVirtualMachineLocations(localController, copy);
+                        localControllers.add(copy);
+                    }
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            structureLock_.readLock().unlock();
+        }
+        
+        return localControllers;
+    }
+    
+    /**
+     * Adds the virtual machine locations to a local controller copy (caller holds its lock stripe).
+     * 
+     * @param localController   The local controller description
+     * @param copy              The local controller copy
+     */
+    private void addVirtualMachineLocations(LocalControllerDescription localController, 
+                                            LocalControllerDescription copy)
+    {
+        HashMap<String, VirtualMachineMetaData> virtualMachines = new HashMap<String, VirtualMachineMetaData>();
+        for (Map.Entry<String, VirtualMachineMetaData> entry : localController.getVirtualMachineMetaData().entrySet())
+        {
+            VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+            virtualMachine.setVirtualMachineLocation(entry.getValue().getVirtualMachineLocation());
+            virtualMachine.setIpAddress(entry.getValue().getIpAddress());
+            virtualMachines.put(entry.getKey(), virtualMachine);
+        }
+        
+        copy.setVirtualMachineMetaData(virtualMachines);
     }
 
 }
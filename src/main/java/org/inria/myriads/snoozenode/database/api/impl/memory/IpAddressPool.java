@@ -0,0 +1,364 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.api.impl.memory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.net.util.SubnetUtils;
+import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * IP address pool.
+ * 
+ * The subnets are laid out one after the other over a single bitmap (one bit per address, 
+ * set = allocated). Allocations continue from a next-free cursor which wraps around, so
+ * released addresses are not handed out again right away. The first address of the pool 
+ * is never handed out. Not thread-safe.
+ * 
+ * @author Eugen Feller
+ */
+public final class IpAddressPool 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(IpAddressPool.class);
+    
+    /** Start index of the allocations. */
+    private static final int START_INDEX = 1;
+    
+    /** Number of address bytes. */
+    private static final int NUMBER_OF_BYTES = 4;
+    
+    /** Byte mask. */
+    private static final long BYTE_MASK = 0xFF;
+    
+    /** Subnet first addresses. */
+    private final long[] lowAddresses_;
+    
+    /** Subnet start indexes in the bitmap. */
+    private final int[] startIndexes_;
+    
+    /** Pool size. */
+    private final int size_;
+    
+    /** Allocated addresses. */
+    private final BitSet allocated_;
+    
+    /** Next-free cursor. */
+    private int cursor_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param subnets   The subnets (CIDR notation, empty ones are skipped)
+     */
+    public IpAddressPool(String[] subnets)
+    {
+        List<SubnetInfo> subnetInfos = new ArrayList<SubnetInfo>();
+        for (String subnet : subnets)
+        {
+            if (!subnet.equals(""))
+            {
+                SubnetInfo subnetInfo = new SubnetUtils(subnet).getInfo();
+                if (subnetInfo.getAddressCount() > 0)
+                {
+                    subnetInfos.add(subnetInfo);
+                }
+            }
+        }
+        
+        lowAddresses_ = new long[subnetInfos.size()];
+        startIndexes_ = new int[subnetInfos.size()];
+        int size = 0;
+        for (int i = 0; i < subnetInfos.size(); i++)
+        {
+            lowAddresses_[i] = toLong(subnetInfos.get(i).getLowAddress());
+            startIndexes_[i] = size;
+            size += subnetInfos.get(i).getAddressCount();
+        }
+        
+        size_ = size;
+        allocated_ = new BitSet(size_);
+        cursor_ = START_INDEX;
+        log_.debug(String.format("IP address pool of %d addresses over %d subnets", size_, lowAddresses_.length));
+    }
+    
+    /**
+     * Returns the next free address without allocating it.
+     * 
+     * @return  The address, null if none
+     */
+    public String peek()
+    {
+        int index = nextFreeIndex();
+        if (index < 0)
+        {
+            return null;
+        }
+        
+        return toAddress(index);
+    }
+    
+    /**
+     * Allocates the next free address.
+     * 
+     * @return  The address, null if none
+     */
+    public String allocate()
+    {
+        int index = nextFreeIndex();
+        if (index < 0)
+        {
+            return null;
+        }
+        
+        allocated_.set(index);
+        cursor_ = index + 1;
+        return toAddress(index);
+    }
+    
+    /**
+     * Allocates free addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The addresses (fewer if the pool runs out)
+     */
+    public List<String> allocate(int numberOfAddresses)
+    {
+        List<String> addresses = new ArrayList<String>(numberOfAddresses);
+        for (int i = 0; i < numberOfAddresses; i++)
+        {
+            String address = allocate();
+            if (address == null)
+            {
+                log_.debug(String.format("IP address pool exhausted after %d addresses", i));
+                break;
+            }
+            
+            addresses.add(address);
+        }
+        
+        return addresses;
+    }
+    
+    /**
+     * Marks an address as allocated.
+     * 
+     * @param address   The address
+     * @return          true if it was free, false otherwise
+     */
+    public boolean reserve(String address)
+    {
+        int index = toIndex(address);
+        if (index < 0 || allocated_.get(index))
+        {
+            return false;
+        }
+        
+        allocated_.set(index);
+        return true;
+    }
+    
+    /**
+     * Releases an address.
+     * 
+     * @param address   The address
+     * @return          true if it was allocated, false otherwise
+     */
+    public boolean release(String address)
+    {
+        int index = toIndex(address);
+        if (index < 0 || !allocated_.get(index))
+        {
+            return false;
+        }
+        
+        allocated_.clear(index);
+        return true;
+    }
+    
+    /**
+     * Checks if an address is free.
+     * 
+     * @param address   The address
+     * @return          true if part of the pool and free, false otherwise
+     */
+    public boolean isFree(String address)
+    {
+        int index = toIndex(address);
+        return index >= 0 && !allocated_.get(index);
+    }
+    
+    /**
+     * Returns the number of addresses which can still be allocated.
+     * 
+     * @return  The number of free addresses
+     */
+    public int getNumberOfFreeAddresses()
+    {
+        if (size_ <= START_INDEX)
+        {
+            return 0;
+        }
+        
+        return size_ - START_INDEX - allocated_.get(START_INDEX, size_).cardinality();
+    }
+    
+    /**
+     * Returns the pool size.
+     * 
+     * @return  The number of addresses
+     */
+    public int getSize()
+    {
+        return size_;
+    }
+    
+    /**
+     * Returns the pool occupancy.
+     * 
+     * @return  The allocated fraction (0..1)
+     */
+    public double getOccupancy()
+    {
+        int capacity = size_ - START_INDEX;
+        if (capacity <= 0)
+        {
+            return 1.0;
+        }
+        
+        return (capacity - getNumberOfFreeAddresses()) / (double) capacity;
+    }
+    
+    /**
+     * Finds the next free index, wrapping around once.
+     * 
+     * @return  The index, -1 if none
+     */
+    private int nextFreeIndex()
+    {
+        int index = allocated_.nextClearBit(cursor_);
+        if (index >= size_)
+        {
+            index = allocated_.nextClearBit(START_INDEX);
+        }
+        
+        if (index >= size_)
+        {
+            return -1;
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Maps an address to its index.
+     * 
+     * @param address   The address
+     * @return          The index, -1 if not part of the pool
+     */
+    private int toIndex(String address)
+    {
+        long value = toLong(address);
+        if (value < 0)
+        {
+            return -1;
+        }
+        
+        for (int i = 0; i < lowAddresses_.length; i++)
+        {
+            int end = i + 1 < startIndexes_.length ? startIndexes_[i + 1] : size_;
+            long offset = value - lowAddresses_[i];
+            if (offset >= 0 && offset < end - startIndexes_[i])
+            {
+                return startIndexes_[i] + (int) offset;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Maps an index to its address.
+     * 
+     * @param index     The index
+     * @return          The address
+     */
+    private String toAddress(int index)
+    {
+        int subnet = lowAddresses_.length - 1;
+        while (startIndexes_[subnet] > index)
+        {
+            subnet--;
+        }
+        
+        long value = lowAddresses_[subnet] + index - startIndexes_[subnet];
+        StringBuilder address = new StringBuilder();
+        for (int i = NUMBER_OF_BYTES - 1; i >= 0; i--)
+        {
+            address.append((value >> (i * Byte.SIZE)) & BYTE_MASK);
+            if (i > 0)
+            {
+                address.append('.');
+            }
+        }
+        
+        return address.toString();
+    }
+    
+    /**
+     * Converts a dotted address.
+     * 
+     * @param address   The address
+     * @return          The value, -1 if malformed
+     */
+    private static long toLong(String address)
+    {
+        String[] parts = address.split("\\.");
+        if (parts.length != NUMBER_OF_BYTES)
+        {
+            return -1;
+        }
+        
+        long value = 0;
+        try
+        {
+            for (String part : parts)
+            {
+                long octet = Long.parseLong(part);
+                if (octet < 0 || octet > BYTE_MASK)
+                {
+                    return -1;
+                }
+                
+                value = (value << Byte.SIZE) | octet;
+            }
+        }
+        catch (NumberFormatException exception)
+        {
+            return -1;
+        }
+        
+        return value;
+    }
+}
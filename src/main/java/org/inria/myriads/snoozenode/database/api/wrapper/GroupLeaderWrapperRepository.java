@@ -1,6 +1,7 @@
 package org.inria.myriads.snoozenode.database.api.wrapper;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
@@ -106,6 +107,14 @@ public class GroupLeaderWrapperRepository implements GroupLeaderRepository
         repository_.addGroupManagerSummaryInformation(groupManagerId, summary);    
     }
 
+    @Override
+    public void addGroupManagerSummaryDelta(String groupManagerId, 
+                                            GroupManagerSummaryInformation summary,
+                                            List<String> removedLocalControllers)
+    {
+        repository_.addGroupManagerSummaryDelta(groupManagerId, summary, removedLocalControllers);
+    }
+
     @Override
     public boolean dropGroupManager(String groupManagerId)
     {
@@ -142,6 +151,12 @@ public class GroupLeaderWrapperRepository implements GroupLeaderRepository
         return repository_.getFreeIpAddress();
     }
 
+    @Override
+    public List<String> allocateIpAddresses(int numberOfAddresses)
+    {
+        return repository_.allocateIpAddresses(numberOfAddresses);
+    }
+
     @Override
     public ArrayList<LocalControllerDescription> getLocalControllerList()
     {
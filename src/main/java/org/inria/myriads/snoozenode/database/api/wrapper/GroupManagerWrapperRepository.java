@@ -2,6 +2,7 @@ package org.inria.myriads.snoozenode.database.api.wrapper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
@@ -162,6 +163,24 @@ public class GroupManagerWrapperRepository implements GroupManagerRepository
         return repository_.getVirtualMachineMetaData(location, numberOfMonitoringEntries);
     }
 
+    @Override
+    public double getAverageUsedCapacity(VirtualMachineLocation location, int numberOfMonitoringEntries, int dimension)
+    {
+        return repository_.getAverageUsedCapacity(location, numberOfMonitoringEntries, dimension);
+    }
+
+    @Override
+    public boolean hasInPlaceHistory()
+    {
+        return repository_.hasInPlaceHistory();
+    }
+
+    @Override
+    public Map<String, Long> getLocalControllerVersions()
+    {
+        return repository_.getLocalControllerVersions();
+    }
+
     @Override
     public boolean changeVirtualMachineStatus(VirtualMachineLocation location, VirtualMachineStatus status)
     {
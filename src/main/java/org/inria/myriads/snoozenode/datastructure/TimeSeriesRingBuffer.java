@@ -0,0 +1,377 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.datastructure;
+
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+
+/**
+ * Fixed capacity time series ring buffer.
+ * 
+ * Keeps the most recent entries of a multi-dimensional time series in one 
+ * long[] of time stamps and one double[] column per dimension. Once full, the
+ * oldest entry is overwritten. Entries are addressed from 0 (oldest) to 
+ * size() - 1 (newest); reads do not allocate. Running sums per dimension are
+ * kept over all entries and over the last requested window, so that the
+ * averages of both are available in constant time.
+ * 
+ * Not thread-safe.
+ * 
+ * @author Eugen Feller
+ */
+public final class TimeSeriesRingBuffer 
+{
+    /** Time stamps. */
+    private long[] timeStamps_;
+    
+    /** Value columns (dimension x capacity). */
+    private double[][] values_;
+    
+    /** Position of the oldest entry. */
+    private int head_;
+    
+    /** Number of entries. */
+    private int size_;
+    
+    /** Running sums over all entries (one per dimension). */
+    private double[] sums_;
+    
+    /** Window size of the window sums (0 = none). */
+    private int windowSize_;
+    
+    /** Running sums over the last windowSize_ entries (one per dimension). */
+    private double[] windowSums_;
+    
+    /** Number of overwrites since the sums were last recomputed. */
+    private int numberOfOverwrites_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacity  The maximum number of entries
+     */
+    public TimeSeriesRingBuffer(int capacity)
+    {
+        Guard.check(capacity);
+        timeStamps_ = new long[Math.max(0, capacity)];
+        values_ = new double[0][];
+        sums_ = new double[0];
+        windowSums_ = new double[0];
+    }
+    
+    /**
+     * Adds an entry.
+     * 
+     * An entry with the same time stamp as the newest one replaces it.
+     * Missing dimensions are stored as 0.
+     * 
+     * @param timeStamp     The time stamp
+     * @param values        The values
+     */
+    public void add(long timeStamp, List<Double> values)
+    {
+        Guard.check(values);
+        int capacity = timeStamps_.length;
+        if (capacity == 0)
+        {
+            return;
+        }
+        
+        ensureDimension(values.size());
+        
+        int leavingPosition = -1;
+        boolean isReplace = size_ > 0 && timeStamps_[toPosition(size_ - 1)] == timeStamp;
+        if (!isReplace && windowSize_ > 0 && size_ >= windowSize_)
+        {
+            leavingPosition = toPosition(size_ - windowSize_);
+        }
+        
+        int position;
+        boolean isOverwrite = true;
+        if (isReplace)
+        {
+            position = toPosition(size_ - 1);
+        } else if (size_ < capacity)
+        {
+            position = toPosition(size_);
+            size_++;
+            isOverwrite = false;
+        } else
+        {
+            position = head_;
+            head_ = (head_ + 1) % capacity;
+        }
+        
+        timeStamps_[position] = timeStamp;
+        for (int dimension = 0; dimension < values_.length; dimension++)
+        {
+            Double value = dimension < values.size() ? values.get(dimension) : null;
+            double newValue = value == null ? 0 : value;
+            double oldValue = isOverwrite ? values_[dimension][position] : 0;
+            double leavingValue = leavingPosition < 0 ? 0 : values_[dimension][leavingPosition];
+            values_[dimension][position] = newValue;
+            sums_[dimension] += newValue - oldValue;
+            if (windowSize_ > 0)
+            {
+                windowSums_[dimension] += newValue - (isReplace ? oldValue : leavingValue);
+            }
+        }
+        
+        if (isOverwrite && ++numberOfOverwrites_ >= capacity)
+        {
+            recomputeSums();
+        }
+    }
+    
+    /**
+     * Returns the sum of a dimension over all entries.
+     * 
+     * @param dimension     The dimension
+     * @return              The sum
+     */
+    public double getSum(int dimension)
+    {
+        return sums_[dimension];
+    }
+    
+    /**
+     * Returns the average of a dimension over all entries.
+     * 
+     * @param dimension     The dimension
+     * @return              The average (0 if empty)
+     */
+    public double getAverage(int dimension)
+    {
+        if (size_ == 0)
+        {
+            return 0;
+        }
+        
+        return sums_[dimension] / size_;
+    }
+    
+    /**
+     * Returns the average of a dimension over a window ending with the newest entry.
+     * 
+     * Constant time if the window covers all entries or has the size of the previous window, 
+     * one pass over the window to set up the window sums otherwise.
+     * 
+     * @param dimension         The dimension
+     * @param numberOfEntries   The window size
+     * @return                  The average (0 if empty)
+     */
+    public double getAverage(int dimension, int numberOfEntries)
+    {
+        int windowStart = getWindowStart(numberOfEntries);
+        if (windowStart == 0)
+        {
+            return getAverage(dimension);
+        }
+        
+        if (windowStart == size_)
+        {
+            return 0;
+        }
+    
+        if (numberOfEntries != windowSize_)
+        {
+            windowSize_ = numberOfEntries;
+            recomputeWindowSums();
+        }
+    
+        return windowSums_[dimension] / (size_ - windowStart);
+    }
+
+    /**
+     * Returns the time stamp of an entry.
+     * 
+     * @param index     The entry index (0 = oldest)
+     * @return          The time stamp
+     */
+    public long getTimeStamp(int index)
+    {
+        return timeStamps_[toPosition(checkIndex(index))];
+    }
+    
+    /**
+     * Returns a value of an entry.
+     * 
+     * @param index         The entry index (0 = oldest)
+     * @param dimension     The dimension
+     * @return              The value
+     */
+    public double getValue(int index, int dimension)
+    {
+        return values_[dimension][toPosition(checkIndex(index))];
+    }
+    
+    /**
+     * Returns the index of the first entry of a window ending with the newest entry.
+     * 
+     * @param numberOfEntries   The window size
+     * @return                  The first index
+     */
+    public int getWindowStart(int numberOfEntries)
+    {
+        return size_ - Math.max(0, Math.min(numberOfEntries, size_));
+    }
+    
+    /**
+     * Returns the number of entries.
+     * 
+     * @return  The number of entries
+     */
+    public int size()
+    {
+        return size_;
+    }
+    
+    /**
+     * Returns the capacity.
+     * 
+     * @return  The capacity
+     */
+    public int getCapacity()
+    {
+        return timeStamps_.length;
+    }
+    
+    /**
+     * Returns the number of dimensions.
+     * 
+     * @return  The number of dimensions
+     */
+    public int getDimension()
+    {
+        return values_.length;
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void clear()
+    {
+        head_ = 0;
+        size_ = 0;
+        numberOfOverwrites_ = 0;
+        for (int dimension = 0; dimension < sums_.length; dimension++)
+        {
+            sums_[dimension] = 0;
+            windowSums_[dimension] = 0;
+        }
+    }
+    
+    /**
+     * Recomputes the running sums to bound floating point drift.
+     */
+    private void recomputeSums()
+    {
+        for (int dimension = 0; dimension < values_.length; dimension++)
+        {
+            double sum = 0;
+            for (int index = 0; index < size_; index++)
+            {
+                sum += values_[dimension][toPosition(index)];
+            }
+            sums_[dimension] = sum;
+        }
+        numberOfOverwrites_ = 0;
+        recomputeWindowSums();
+    }
+    
+    /**
+     * Recomputes the window sums.
+     */
+    private void recomputeWindowSums()
+    {
+        if (windowSize_ <= 0)
+        {
+            return;
+        }
+        
+        int windowStart = getWindowStart(windowSize_);
+        for (int dimension = 0; dimension < values_.length; dimension++)
+        {
+            double sum = 0;
+            for (int index = windowStart; index < size_; index++)
+            {
+                sum += values_[dimension][toPosition(index)];
+            }
+            windowSums_[dimension] = sum;
+        }
+    }
+    
+    /**
+     * Grows the value columns.
+     * 
+     * @param dimension     The required number of dimensions
+     */
+    private void ensureDimension(int dimension)
+    {
+        if (dimension <= values_.length)
+        {
+            return;
+        }
+        
+        double[][] values = new double[dimension][];
+        System.arraycopy(values_, 0, values, 0, values_.length);
+        for (int i = values_.length; i < dimension; i++)
+        {
+            values[i] = new double[timeStamps_.length];
+        }
+        values_ = values;
+        
+        double[] sums = new double[dimension];
+        System.arraycopy(sums_, 0, sums, 0, sums_.length);
+        sums_ = sums;
+        
+        double[] windowSums = new double[dimension];
+        System.arraycopy(windowSums_, 0, windowSums, 0, windowSums_.length);
+        windowSums_ = windowSums;
+    }
+    
+    /**
+     * Converts an entry index into a buffer position.
+     * 
+     * @param index     The entry index
+     * @return          The position
+     */
+    private int toPosition(int index)
+    {
+        return (head_ + index) % timeStamps_.length;
+    }
+    
+    /**
+     * Checks an entry index.
+     * 
+     * @param index     The entry index
+     * @return          The entry index
+     */
+    private int checkIndex(int index)
+    {
+        if (index < 0 || index >= size_)
+        {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, size: %d", index, size_));
+        }
+        
+        return index;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.executor;
+
+/**
+ * Shell command result.
+ * 
+ * @author Eugen Feller
+ */
+public final class CommandResult 
+{
+    /** Exit code reported when the process did not exit. */
+    public static final int UNKNOWN_EXIT_CODE = -1;
+    
+    /** Exit code. */
+    private final int exitCode_;
+    
+    /** Standard output. */
+    private final String output_;
+    
+    /** Standard error. */
+    private final String error_;
+    
+    /** Signals the process was destroyed on timeout. */
+    private final boolean isTimedOut_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param exitCode      The exit code
+     * @param output        The standard output
+     * @param error         The standard error
+     * @param isTimedOut    true if destroyed on timeout
+     */
+    public CommandResult(int exitCode, String output, String error, boolean isTimedOut)
+    {
+        exitCode_ = exitCode;
+        output_ = output;
+        error_ = error;
+        isTimedOut_ = isTimedOut;
+    }
+    
+    /**
+     * Checks if the command succeeded.
+     * 
+     * @return  true if exited with 0 before the timeout, false otherwise
+     */
+    public boolean isSuccessful()
+    {
+        return !isTimedOut_ && exitCode_ == 0;
+    }
+    
+    /**
+     * Returns the exit code.
+     * 
+     * @return  The exit code
+     */
+    public int getExitCode()
+    {
+        return exitCode_;
+    }
+    
+    /**
+     * Returns the standard output.
+     * 
+     * @return  The standard output
+     */
+    public String getOutput()
+    {
+        return output_;
+    }
+    
+    /**
+     * Returns the standard error.
+     * 
+     * @return  The standard error
+     */
+    public String getError()
+    {
+        return error_;
+    }
+    
+    /**
+     * Checks if the process was destroyed on timeout.
+     * 
+     * @return  true if timed out, false otherwise
+     */
+    public boolean isTimedOut()
+    {
+        return isTimedOut_;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.format("exit code: %d, timed out: %s", exitCode_, isTimedOut_);
+    }
+}
@@ -19,6 +19,9 @@
  */
 package org.inria.myriads.snoozenode.executor;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.executor.listener.ExecutorListener;
@@ -29,19 +32,18 @@ import org.slf4j.LoggerFactory;
 /**
  * Shell command executer.
  * 
+ * Returns as soon as the command exits and destroys it on timeout. Commands are
+ * independent of each other and may be executed concurrently.
+ * 
  * @author Eugen Feller
  */
 public final class ShellCommandExecuter 
-    implements ExecutorListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(ShellCommandExecuter.class);
     
     /** Timeout value. */
     private int timeout_;
-
-    /** The result. */
-    private boolean result_;
     
     /**
      * Shell command executir.
@@ -61,35 +63,96 @@ public final class ShellCommandExecuter
      * @param command   The command to execute
      * @return          true if everything ok, false otherwise
      */
-    public synchronized boolean execute(String command)
+    public boolean execute(String command)
     {
-        ExecutorThread executor = new ExecutorThread(command, this);
+        CommandResult result = executeCommand(command);
+        if (!result.isSuccessful())
+        {
+            log_.debug(String.format("Command %s failed: %s", command, result.getError()));
+        }
+        
+        return result.isSuccessful();
+    }
+    
+    /**
+     * Execute shell command and captures its result.
+     * 
+     * @param command   The command to execute
+     * @return          The command result
+     */
+    public CommandResult executeCommand(String command)
+    {
+        Guard.check(command);
+        Completion completion = new Completion();
+        ExecutorThread executor = new ExecutorThread(command, completion);
         String name = ShellCommandExecuter.class.getName() + " : " + command;
         Thread executorThread = new Thread(executor, name);
+        executorThread.setDaemon(true);
         executorThread.start();
         
+        CommandResult result;
         try 
         {
-            Thread.sleep(TimeUtils.convertSecondsToMilliseconds(timeout_));
-            executorThread.interrupt();
+            result = completion.await(TimeUtils.convertSecondsToMilliseconds(timeout_));
+            if (result == null)
+            {
+                log_.debug(String.format("Command %s timed out after %d seconds! Destroying it", command, timeout_));
+                executor.destroy();
+                result = new CommandResult(CommandResult.UNKNOWN_EXIT_CODE, "", "", true);
+            }
         }
         catch (InterruptedException exception) 
         {
             log_.debug(String.format("Shell command executor was interrupted: %s", exception.getMessage()));
+            Thread.currentThread().interrupt();
+            executor.destroy();
+            result = new CommandResult(CommandResult.UNKNOWN_EXIT_CODE, "", exception.getMessage(), false);
         }
         
-        log_.debug(String.format("Command finished with response: %s!", result_));
-        return result_;
+        log_.debug(String.format("Command finished with response: %s!", result));
+        return result;
     }
-
+    
     /**
-     * Called upon command execution.
-     * 
-     * @param result    The result
+     * Completion of one command.
      */
-    @Override
-    public void onCommandExecuted(boolean result) 
+    private static final class Completion 
+        implements ExecutorListener
     {
-        result_ = result;
+        /** Signals the command exited. */
+        private final CountDownLatch latch_ = new CountDownLatch(1);
+        
+        /** The result. */
+        private volatile CommandResult result_;
+        
+        /**
+         * Waits for the command to exit.
+         * 
+         * @param timeout                   The timeout (ms)
+         * @return                          The result, null on timeout
+         * @throws InterruptedException     The interrupted exception
+         */
+        private CommandResult await(long timeout) 
+            throws InterruptedException
+        {
+            if (!latch_.await(timeout, TimeUnit.MILLISECONDS))
+            {
+                return null;
+            }
+            
+            return result_;
+        }
+        
+        /**
+         * Called upon command execution.
+         * 
+         * @param result    The result
+         */
+        @Override
+        public void onCommandExecuted(CommandResult result) 
+        {
+            result_ = result;
+            latch_.countDown();
+        }
     }
 }
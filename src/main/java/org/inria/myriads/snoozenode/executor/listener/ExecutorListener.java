@@ -19,6 +19,8 @@
  */
 package org.inria.myriads.snoozenode.executor.listener;
 
+import org.inria.myriads.snoozenode.executor.CommandResult;
+
 /** 
  * Execution listener. 
  * 
@@ -30,7 +32,7 @@ public interface ExecutorListener
     /**
      * Called on command execution.
      * 
-     * @param result     true if everything ok, false otherwise
+     * @param result     The command result
      */
-    void onCommandExecuted(boolean result);
+    void onCommandExecuted(CommandResult result);
 }
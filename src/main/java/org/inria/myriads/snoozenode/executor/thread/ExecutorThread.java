@@ -20,9 +20,13 @@
 package org.inria.myriads.snoozenode.executor.thread;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 
 import org.apache.commons.io.IOUtils;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.executor.CommandResult;
 import org.inria.myriads.snoozenode.executor.listener.ExecutorListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +34,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Executor thread.
  * 
+ * Runs the command, captures its output and reports the result once the process exits.
+ * 
  * @author Eugen Feller
  */
 public final class ExecutorThread 
@@ -37,6 +43,12 @@ public final class ExecutorThread
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(ExecutorThread.class);
+    
+    /** Maximum number of captured characters per stream. */
+    private static final int MAXIMUM_OUTPUT_SIZE = 64 * 1024;
+    
+    /** Read buffer size. */
+    private static final int BUFFER_SIZE = 1024;
         
     /** Command. */
     private String command_;
@@ -44,6 +56,12 @@ public final class ExecutorThread
     /** Execution listener. */
     private ExecutorListener executor_;
     
+    /** Process (null until started). */
+    private Process process_;
+    
+    /** Signals the process is destroyed. */
+    private boolean isDestroyed_;
+    
     /**
      * Wakeup watchdog.
      * 
@@ -65,36 +83,98 @@ public final class ExecutorThread
     {
         log_.debug(String.format("Executing command on shell: %s", command_));
        
-        int exitCode = 1;
         Process process = null;
         try 
         {
             process = Runtime.getRuntime().exec(command_);
-            exitCode = process.waitFor();
         }
         catch (IOException exception) 
         {
             log_.error(String.format("Failed to execute the shell command: %s", exception.getMessage()));
+            executor_.onCommandExecuted(new CommandResult(CommandResult.UNKNOWN_EXIT_CODE, "", 
+                                                          exception.getMessage(), false));
+            return;
+        }
+        
+        synchronized (this)
+        {
+            process_ = process;
+            if (isDestroyed_)
+            {
+                process.destroy();
+            }
+        }
+        
+        IOUtils.closeQuietly(process.getOutputStream());
+        StreamReader errorReader = new StreamReader(process.getErrorStream());
+        Thread errorThread = new Thread(errorReader, "ExecutorThread-stderr : " + command_);
+        errorThread.setDaemon(true);
+        errorThread.start();
+        String output = readStream(process.getInputStream());
+        
+        int exitCode = CommandResult.UNKNOWN_EXIT_CODE;
+        try 
+        {
+            exitCode = process.waitFor();
+            errorThread.join();
         }
         catch (InterruptedException exception) 
         {
             log_.debug(String.format("Interrupted while waiting for process to finish"));
             process.destroy();
-            return;
+            Thread.currentThread().interrupt();
         }
         
-        if (process != null) 
+        closeStreams(process);
+        
+        boolean isDestroyed;
+        synchronized (this)
         {
-            closeStreams(process);
+            isDestroyed = isDestroyed_;
         }
-
-        if (exitCode == 0)
+        
+        executor_.onCommandExecuted(new CommandResult(exitCode, output, errorReader.getContent(), isDestroyed));
+    }
+    
+    /**
+     * Destroys the process.
+     * (the process is destroyed as soon as it starts if not started yet)
+     */
+    public synchronized void destroy()
+    {
+        isDestroyed_ = true;
+        if (process_ != null)
         {
-            executor_.onCommandExecuted(true);
-        } else
+            process_.destroy();
+        }
+    }
+    
+    /**
+     * Reads a stream until its end, keeps its beginning only.
+     * 
+     * @param stream    The stream
+     * @return          The content
+     */
+    private static String readStream(InputStream stream)
+    {
+        StringBuilder content = new StringBuilder();
+        Reader reader = new InputStreamReader(stream);
+        char[] buffer = new char[BUFFER_SIZE];
+        try
         {
-            executor_.onCommandExecuted(false);
+            int length;
+            while ((length = reader.read(buffer)) != -1)
+            {
+                int remaining = MAXIMUM_OUTPUT_SIZE - content.length();
+                content.append(buffer, 0, Math.min(length, remaining));
+            }
         }
+        catch (IOException exception)
+        {
+            log_.debug(String.format("Failed to read the command output: %s", exception.getMessage()));
+        }
+        
+        return content.toString();
     }
     
     /**
@@ -110,4 +190,44 @@ public final class ExecutorThread
         IOUtils.closeQuietly(process.getErrorStream()); 
         log_.debug("Streams closed!");
     }
+    
+    /**
+     * Stream reader.
+     */
+    private static final class StreamReader 
+        implements Runnable
+    {
+        /** Stream. */
+        private InputStream stream_;
+        
+        /** Content. */
+        private volatile String content_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param stream    The stream
+         */
+        private StreamReader(InputStream stream)
+        {
+            stream_ = stream;
+            content_ = "";
+        }
+        
+        @Override
+        public void run()
+        {
+            content_ = readStream(stream_);
+        }
+        
+        /**
+         * Returns the content.
+         * 
+         * @return  The content
+         */
+        private String getContent()
+        {
+            return content_;
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.groupmanager;
 
 import java.net.BindException;
+import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.NodeRole;
@@ -255,6 +256,24 @@ public final class GroupManagerBackend
         return false;
     }
     
+    /**
+     * Forwards a group leader request for a full summary.
+     * 
+     * @param heartbeat    Heartbeat message
+     */
+    private void onSummaryResyncRequest(HeartbeatMessage heartbeat)
+    {
+        List<String> resyncRequests = heartbeat.getResyncRequests();
+        if (groupManagerInit_ == null || resyncRequests == null || 
+            !resyncRequests.contains(groupManagerDescription_.getId()))
+        {
+            return;
+        }
+        
+        log_.debug("Group leader requested a full summary");
+        groupManagerInit_.requestSummaryResync();
+    }
+    
     /**
      * Heartbeat event arrival event.
      * 
@@ -274,6 +293,7 @@ public final class GroupManagerBackend
         }
         else if (groupManagerDescription_.getIsAssigned())
         {
+            onSummaryResyncRequest(heartbeat);
             log_.debug("Ignoring heartbeat message! Already assigned to working group leader!");
             return;
         }
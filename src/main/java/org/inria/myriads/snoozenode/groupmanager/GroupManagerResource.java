@@ -97,7 +97,8 @@ public final class GroupManagerResource extends ServerResource
         
         String taskIdentifier = backend_.getGroupLeaderInit().
                                          getVirtualClusterManager().
-                                         startVirtualClusterSubmission(virtualClusterDescription);  
+                                         startVirtualClusterSubmission(getClientInfo().getAddress(),
+                                                                       virtualClusterDescription);  
         log_.debug(String.format("Returning task identifier: %s", taskIdentifier));
         return taskIdentifier;  
     }
@@ -268,6 +269,11 @@ public final class GroupManagerResource extends ServerResource
         boolean isAdded = backend_.getGroupManagerInit()
                                   .getRepository()
                                   .addLocalControllerDescription(localController);
+        if (isAdded)
+        {
+            backend_.getGroupManagerInit().getStateMachine().onLocalControllerReady(localController.getId());
+        }
+        
         return isAdded;
     }
     
@@ -36,6 +36,7 @@ import org.inria.myriads.snoozenode.groupmanager.managerpolicies.GroupManagerPol
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.VirtualMachineRelocation;
 import org.inria.myriads.snoozenode.groupmanager.migration.MigrationPlanEnforcer;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.MigrationScheduler;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationPlanListener;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
@@ -53,7 +54,6 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class AnomalyResolver 
-    implements MigrationPlanListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(AnomalyResolver.class);
@@ -66,9 +66,6 @@ public final class AnomalyResolver
     
     /** The group manager repository. */
     private GroupManagerRepository groupManagerRepository_;
-
-    /** Anomaly local controller. */
-    private LocalControllerDescription anomalyLocalController_;
     
     /** State machine. */
     private StateMachine stateMachine_;
@@ -79,6 +76,9 @@ public final class AnomalyResolver
     /** External Notifier.*/
     private ExternalNotifier externalNotifier_;
     
+    /** Migration scheduler. */
+    private MigrationScheduler migrationScheduler_;
+    
     /**
      * Constructor.
      * 
@@ -87,12 +87,14 @@ public final class AnomalyResolver
      * @param groupManagerRepository     The group manager repository
      * @param stateMachine               The state machine
      * @param externalNotifier           The external notifier
+     * @param migrationScheduler         The migration scheduler
      */
     public AnomalyResolver(RelocationSettings relocationPolicies,
                            ResourceDemandEstimator resourceDemandEstimator,
                            GroupManagerRepository groupManagerRepository,
                            StateMachine stateMachine,
-                           ExternalNotifier externalNotifier
+                           ExternalNotifier externalNotifier,
+                           MigrationScheduler migrationScheduler
                             )
     {
         Guard.check(relocationPolicies, resourceDemandEstimator, groupManagerRepository, stateMachine);
@@ -104,10 +106,11 @@ public final class AnomalyResolver
         underloadRelocationPolicy_ = 
             GroupManagerPolicyFactory.newVirtualMachineRelocation(relocationPolicies.getUnderloadPolicy(),
                                                                   resourceDemandEstimator);      
-        numberOfMonitoringEntries_ = resourceDemandEstimator.getNumberOfMonitoringEntries();
+        numberOfMonitoringEntries_ = resourceDemandEstimator.getNumberOfCopiedMonitoringEntries();
         groupManagerRepository_ = groupManagerRepository;
         stateMachine_ = stateMachine;
         externalNotifier_ = externalNotifier;
+        migrationScheduler_ = migrationScheduler;
     }
     /**
      * Computes the relocation plan.
@@ -175,14 +178,17 @@ public final class AnomalyResolver
     /**
      * Called to resolve anomaly.
      * 
+     * @param operationId           The relocation operation identifier
      * @param localControllerId     The anomaly local controller identifier
      * @param state                 The local controller state
      * @throws Exception            The exception
      */
-    public synchronized void resolveAnomaly(String localControllerId, LocalControllerState state)
+    public synchronized void resolveAnomaly(final String operationId, 
+                                            String localControllerId, 
+                                            LocalControllerState state)
         throws Exception
     {
-        Guard.check(localControllerId, state);
+        Guard.check(operationId, localControllerId, state);
         log_.debug("Starting anomaly resolution");
                
         LocalControllerDescription anomalyLocalController = 
@@ -219,6 +225,12 @@ public final class AnomalyResolver
             log_.debug(String.format("%s relocation started!", state));
         }
         
+        List<String> destinationIds = getDestinationLocalControllerIds(migrationPlan);
+        if (!stateMachine_.reserveLocalControllers(operationId, destinationIds))
+        {
+            throw new AnomalyResolverException("Destination local controllers are busy!");
+        }
+        
         List<LocalControllerDescription> passiveLocalControllers = getPassiveLocalControllers(migrationPlan);
         if (passiveLocalControllers.size() > 0)
         {
@@ -230,23 +242,44 @@ public final class AnomalyResolver
             }
         }
         
-        if (state.equals(LocalControllerState.UNDERLOADED))
+        final LocalControllerDescription releasedLocalController = 
+            state.equals(LocalControllerState.UNDERLOADED) ? anomalyLocalController : null;
+        MigrationPlanListener listener = new MigrationPlanListener()
         {
-            anomalyLocalController_ = anomalyLocalController;
-        }
+            @Override
+            public void onMigrationPlanEnforced()
+            {
+                log_.debug("Entering on migration plan enforced!");
+                stateMachine_.onAnomalyResolved(operationId, releasedLocalController);
+            }
+        };
         
         MigrationPlanEnforcer migrationPlanExecutor = 
-                new MigrationPlanEnforcer(groupManagerRepository_, this, externalNotifier_);
+                new MigrationPlanEnforcer(groupManagerRepository_, 
+                                          listener, 
+                                          externalNotifier_, 
+                                          migrationScheduler_);
         migrationPlanExecutor.enforceMigrationPlan(migrationPlan);
     }
     
     /**
-     * Called when migration plan was enforced.
+     * Returns the destination local controller identifiers of a migration plan.
+     * 
+     * @param migrationPlan     The migration plan
+     * @return                  The local controller identifiers
      */
-    public void onMigrationPlanEnforced()
+    private List<String> getDestinationLocalControllerIds(ReconfigurationPlan migrationPlan)
     {
-        log_.debug("Entering on migration plan enforced!");
-        stateMachine_.onAnomalyResolved(anomalyLocalController_);
+        List<String> localControllerIds = new ArrayList<String>();
+        for (LocalControllerDescription localController : migrationPlan.getMapping().values())
+        {
+            if (!localControllerIds.contains(localController.getId()))
+            {
+                localControllerIds.add(localController.getId());
+            }
+        }
+        
+        return localControllerIds;
     }
     
     /**
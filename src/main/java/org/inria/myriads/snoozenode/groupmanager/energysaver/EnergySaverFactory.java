@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.groupmanager.energysaver;
 
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.groupmanager.energysaver.predictor.PredictiveWakeup;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.saver.EnergySaver;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup.WakeupResources;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
@@ -53,6 +54,19 @@ public final class EnergySaverFactory
         return new EnergySaver(energySettings, repository, stateMachine);
     }
     
+    /**
+     * Creates a new predictive wakeup.
+     * 
+     * @param energySettings    The energy settings
+     * @param stateMachine      The state machine
+     * @return                  The predictive wakeup object
+     */
+    public static PredictiveWakeup newPredictiveWakeup(EnergyManagementSettings energySettings, 
+                                                       StateMachine stateMachine)
+    {
+        return new PredictiveWakeup(energySettings.getPrediction(), stateMachine);
+    }
+    
     /**
      * Creates a new resource wakeuper.
      * 
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.energysaver.predictor;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+
+/**
+ * Short-term capacity demand forecaster.
+ * 
+ * Fits a linear trend (least squares) per dimension on the latest demand samples
+ * and extrapolates it. The forecast never drops below the latest sample, i.e. a 
+ * decreasing trend does not release capacity before the demand actually went down.
+ * 
+ * @author Eugen Feller
+ */
+public final class DemandForecaster 
+{
+    /** Demand samples (oldest first). */
+    private final LinkedList<List<Double>> history_;
+    
+    /** Maximum number of samples. */
+    private final int historySize_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param historySize   The number of samples to fit the trend on
+     */
+    public DemandForecaster(int historySize)
+    {
+        history_ = new LinkedList<List<Double>>();
+        historySize_ = Math.max(1, historySize);
+    }
+    
+    /**
+     * Adds a demand sample.
+     * 
+     * @param demand    The demand
+     */
+    public synchronized void addSample(List<Double> demand)
+    {
+        Guard.check(demand);
+        history_.addLast(new ArrayList<Double>(demand));
+        if (history_.size() > historySize_)
+        {
+            history_.removeFirst();
+        }
+    }
+    
+    /**
+     * Forecasts the demand.
+     * 
+     * @param numberOfSteps     The number of sampling intervals ahead
+     * @return                  The forecast demand (empty vector without samples)
+     */
+    public synchronized ArrayList<Double> predict(int numberOfSteps)
+    {
+        int numberOfSamples = history_.size();
+        if (numberOfSamples == 0)
+        {
+            return MathUtils.createEmptyVector();
+        }
+        
+        List<Double> latest = history_.getLast();
+        ArrayList<Double> forecast = new ArrayList<Double>(latest);
+        double meanX = (numberOfSamples - 1) / 2.0;
+        double varianceX = 0;
+        for (int x = 0; x < numberOfSamples; x++)
+        {
+            varianceX += (x - meanX) * (x - meanX);
+        }
+        
+        for (int i = 0; i < forecast.size(); i++)
+        {
+            double meanY = 0;
+            for (List<Double> sample : history_)
+            {
+                meanY += sample.get(i);
+            }
+            meanY /= numberOfSamples;
+            
+            double covariance = 0;
+            int x = 0;
+            for (List<Double> sample : history_)
+            {
+                covariance += (x - meanX) * (sample.get(i) - meanY);
+                x++;
+            }
+            
+            double slope = varianceX == 0 ? 0 : covariance / varianceX;
+            double value = meanY + slope * (numberOfSamples - 1 + numberOfSteps - meanX);
+            forecast.set(i, Math.max(latest.get(i), value));
+        }
+        
+        return forecast;
+    }
+    
+    /**
+     * Returns the capacity required to serve the forecast demand with some headroom.
+     * 
+     * @param numberOfSteps     The number of sampling intervals ahead
+     * @param headroom          The headroom (fraction of the demand)
+     * @return                  The required capacity
+     */
+    public ArrayList<Double> getRequiredCapacity(int numberOfSteps, double headroom)
+    {
+        ArrayList<Double> required = predict(numberOfSteps);
+        for (int i = 0; i < required.size(); i++)
+        {
+            required.set(i, required.get(i) * (1 + headroom));
+        }
+        
+        return required;
+    }
+    
+    /**
+     * Returns the number of samples.
+     * 
+     * @return  The number of samples
+     */
+    public synchronized int getNumberOfSamples()
+    {
+        return history_.size();
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.energysaver.predictor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
+import org.inria.myriads.snoozenode.configurator.energymanagement.PredictionSettings;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.listener.GroupManagerSummaryListener;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wakes up passive local controllers ahead of the forecast demand.
+ * 
+ * Samples the latest group manager summary every interval, forecasts the requested capacity 
+ * over the horizon and wakes up enough passive local controllers to keep the forecast 
+ * demand plus the headroom online. The required capacity is also used by the energy 
+ * saver to keep that capacity from being powered down. Summaries are taken from the
+ * summary producer, intervals without a new summary are skipped.
+ * 
+ * @author Eugen Feller
+ */
+public final class PredictiveWakeup 
+    implements Runnable, GroupManagerSummaryListener
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(PredictiveWakeup.class);
+    
+    /** Prediction settings. */
+    private PredictionSettings settings_;
+    
+    /** State machine. */
+    private StateMachine stateMachine_;
+    
+    /** Demand forecaster. */
+    private DemandForecaster forecaster_;
+    
+    /** Number of intervals ahead. */
+    private int numberOfSteps_;
+    
+    /** Latest required capacity (null = no forecast yet). */
+    private volatile List<Double> requiredCapacity_;
+    
+    /** Latest summary not sampled yet (null = none). */
+    private AtomicReference<Sample> latestSample_;
+    
+    /** Lock object. */
+    private Object lockObject_;
+    
+    /** Terminated. */
+    private volatile boolean isTerminated_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param settings          The prediction settings
+     * @param stateMachine      The state machine
+     */
+    public PredictiveWakeup(PredictionSettings settings, StateMachine stateMachine)
+    {
+        log_.debug("Initializing the predictive wakeup");
+        
+        settings_ = settings;
+        stateMachine_ = stateMachine;
+        forecaster_ = new DemandForecaster(settings.getHistorySize());
+        int interval = Math.max(1, settings.getInterval());
+        numberOfSteps_ = (settings.getHorizon() + interval - 1) / interval;
+        latestSample_ = new AtomicReference<Sample>();
+        lockObject_ = new Object();
+    }
+    
+    /**
+     * Called on each produced group manager summary.
+     * 
+     * @param summary           The group manager summary
+     * @param localControllers  The local controllers the summary was computed from
+     */
+    @Override
+    public void onGroupManagerSummary(GroupManagerSummaryInformation summary, 
+                                      List<LocalControllerDescription> localControllers)
+    {
+        latestSample_.set(new Sample(summary, localControllers));
+    }
+    
+    /** Run. */
+    public void run() 
+    {
+        long interval = TimeUtils.convertSecondsToMilliseconds(Math.max(1, settings_.getInterval()));
+        try
+        {
+            while (true)
+            {
+                synchronized (lockObject_)
+                {
+                    lockObject_.wait(interval);
+                }
+                
+                if (isTerminated_)
+                {
+                    break;
+                }
+                
+                Sample sample = latestSample_.getAndSet(null);
+                if (sample == null)
+                {
+                    log_.debug("No new group manager summary to sample!");
+                    continue;
+                }
+                
+                predict(sample.getSummary(), sample.getLocalControllers());
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            log_.error("Predictive wakeup was interrupted", exception);
+        }
+        
+        log_.debug("Predictive wakeup is stopped!");
+    }
+    
+    /**
+     * Samples the demand and wakes up local controllers if the active capacity falls short.
+     * 
+     * @param summary           The group manager summary
+     * @param localControllers  The local controllers the summary was computed from
+     */
+    private void predict(GroupManagerSummaryInformation summary, List<LocalControllerDescription> localControllers)
+    {
+        forecaster_.addSample(summary.getRequestedCapacity());
+        List<Double> requiredCapacity = forecaster_.getRequiredCapacity(numberOfSteps_, settings_.getHeadroom());
+        requiredCapacity_ = requiredCapacity;
+        
+        List<Double> activeCapacity = summary.getActiveCapacity();
+        log_.debug(String.format("Required capacity: %s, active capacity: %s", requiredCapacity, activeCapacity));
+        if (MathUtils.vectorCompareIsLess(requiredCapacity, activeCapacity))
+        {
+            return;
+        }
+        
+        List<LocalControllerDescription> wakeupCandidates = 
+            selectLocalControllers(localControllers, activeCapacity, requiredCapacity);
+        if (wakeupCandidates.isEmpty())
+        {
+            log_.debug("No passive local controllers left to cover the forecast demand!");
+            return;
+        }
+        
+        log_.info(String.format("Waking up %d local controllers ahead of the forecast demand", 
+                                wakeupCandidates.size()));
+        if (!stateMachine_.onWakeupLocalControllers(wakeupCandidates))
+        {
+            log_.error("Failed to wake up local controllers ahead of the forecast demand!");
+        }
+    }
+    
+    /**
+     * Selects the passive local controllers covering the capacity shortage.
+     * 
+     * @param localControllers      The local controllers
+     * @param activeCapacity        The active capacity
+     * @param requiredCapacity      The required capacity
+     * @return                      The local controllers to wake up
+     */
+    private List<LocalControllerDescription> selectLocalControllers(List<LocalControllerDescription> localControllers,
+                                                                    List<Double> activeCapacity,
+                                                                    List<Double> requiredCapacity)
+    {
+        List<LocalControllerDescription> wakeupCandidates = new ArrayList<LocalControllerDescription>();
+        List<Double> capacity = activeCapacity;
+        for (LocalControllerDescription localController : localControllers)
+        {
+            if (MathUtils.vectorCompareIsLess(requiredCapacity, capacity))
+            {
+                break;
+            }
+            
+            if (!LocalControllerStatus.PASSIVE.equals(localController.getStatus()))
+            {
+                continue;
+            }
+            
+            wakeupCandidates.add(localController);
+            capacity = MathUtils.addVectors(capacity, localController.getTotalCapacity());
+        }
+        
+        return wakeupCandidates;
+    }
+    
+    /**
+     * Returns the capacity to keep online.
+     * 
+     * @return  The required capacity, null if no forecast yet
+     */
+    public List<Double> getRequiredCapacity()
+    {
+        return requiredCapacity_;
+    }
+    
+    /**
+     * Summary sample (immutable).
+     */
+    private static final class Sample
+    {
+        /** Group manager summary. */
+        private final GroupManagerSummaryInformation summary_;
+        
+        /** Local controllers the summary was computed from. */
+        private final List<LocalControllerDescription> localControllers_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param summary           The group manager summary
+         * @param localControllers  The local controllers
+         */
+        private Sample(GroupManagerSummaryInformation summary, List<LocalControllerDescription> localControllers)
+        {
+            summary_ = summary;
+            localControllers_ = localControllers;
+        }
+        
+        /**
+         * @return the summary
+         */
+        private GroupManagerSummaryInformation getSummary()
+        {
+            return summary_;
+        }
+        
+        /**
+         * @return the local controllers
+         */
+        private List<LocalControllerDescription> getLocalControllers()
+        {
+            return localControllers_;
+        }
+    }
+    
+    /**
+     * Terminate routine.
+     */
+    public void terminate()
+    {
+        log_.debug("Terminating the predictive wakeup");
+        isTerminated_ = true; 
+        synchronized (lockObject_)
+        {
+            lockObject_.notify();
+        }
+    }
+}
@@ -20,12 +20,15 @@
 package org.inria.myriads.snoozenode.groupmanager.energysaver.saver;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.groupmanager.energysaver.predictor.PredictiveWakeup;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +65,9 @@ public final class EnergySaver
     /** Terminated. */
     private boolean isTerminated_;
     
+    /** Predictive wakeup (null = disabled). */
+    private PredictiveWakeup predictiveWakeup_;
+    
     /**
      * Energy saver constructor.
      * 
@@ -106,12 +112,6 @@ public final class EnergySaver
          
                 suspend();
                 
-                if (stateMachine_.isBusy())
-                {
-                    log_.debug("System is BUSY! Skipping energy savings!");
-                    continue;
-                }
-                
                 int numberOfReservedNodes = energySettings_.getNumberOfReservedNodes();
                 List<LocalControllerDescription> idleResources = getIdleLocalControllers(localControllers,
                                                                                          numberOfReservedNodes);
@@ -124,7 +124,10 @@ public final class EnergySaver
                     continue;
                 }
                  
-                stateMachine_.onEnergySavingsEnabled(idleResources);
+                if (!stateMachine_.onEnergySavingsEnabled(idleResources))
+                {
+                    log_.debug("Idle local controllers are BUSY! Skipping energy savings!");
+                }
             }            
         }
         catch (Exception exception)
@@ -148,6 +151,16 @@ public final class EnergySaver
         }
     }
     
+    /**
+     * Sets the predictive wakeup whose required capacity is kept online.
+     * 
+     * @param predictiveWakeup     The predictive wakeup
+     */
+    public void setPredictiveWakeup(PredictiveWakeup predictiveWakeup)
+    {
+        predictiveWakeup_ = predictiveWakeup;
+    }
+    
     /**
      * Can be used to suspend the saver.
      */
@@ -244,7 +257,7 @@ public final class EnergySaver
         boolean isAllowed = numberOfActiveLocalControllers >= numberOfReservedNodes;
         if (isAllowed)
         {
-            return idleLocalControllers;
+            return keepRequiredCapacity(localControllers, idleLocalControllers);
         }
         
         /*
@@ -261,6 +274,48 @@ public final class EnergySaver
             idleLocalControllers.remove(0);
         }
         
+        return keepRequiredCapacity(localControllers, idleLocalControllers);
+    }
+    
+    /**
+     * Removes the idle local controllers needed to serve the forecast demand.
+     * 
+     * @param localControllers        The active local controllers
+     * @param idleLocalControllers    The idle local controllers
+     * @return                        The idle local controllers allowed to sleep
+     */
+    private List<LocalControllerDescription> 
+        keepRequiredCapacity(List<LocalControllerDescription> localControllers, 
+                             List<LocalControllerDescription> idleLocalControllers)
+    {
+        List<Double> requiredCapacity = predictiveWakeup_ == null ? null : predictiveWakeup_.getRequiredCapacity();
+        if (requiredCapacity == null)
+        {
+            return idleLocalControllers;
+        }
+        
+        List<Double> activeCapacity = MathUtils.createEmptyVector();
+        for (LocalControllerDescription localController : localControllers)
+        {
+            activeCapacity = MathUtils.addVectors(activeCapacity, localController.getTotalCapacity());
+        }
+        
+        for (Iterator<LocalControllerDescription> iterator = idleLocalControllers.iterator(); iterator.hasNext();)
+        {
+            LocalControllerDescription localController = iterator.next();
+            List<Double> remainingCapacity = MathUtils.substractVector(activeCapacity, 
+                                                                       localController.getTotalCapacity());
+            if (!MathUtils.vectorCompareIsLess(requiredCapacity, remainingCapacity))
+            {
+                log_.debug(String.format("Keeping idle local controller %s on for the forecast demand", 
+                                         localController.getId()));
+                iterator.remove();
+                continue;
+            }
+            
+            activeCapacity = remainingCapacity;
+        }
+        
         return idleLocalControllers;
     }
     
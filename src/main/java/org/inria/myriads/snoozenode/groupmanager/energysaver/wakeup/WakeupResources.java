@@ -19,6 +19,7 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
@@ -50,6 +51,9 @@ public final class WakeupResources
     
     /** Wakeup timeout. */
     private int wakeupTimeout_;
+    
+    /** Pending wakeups. */
+    private WakeupTracker tracker_;
 
     /** 
      * Constructor. 
@@ -61,6 +65,7 @@ public final class WakeupResources
     public WakeupResources(int wakeupTimeout, int commandExecutionTimeout, GroupManagerRepository repository)
     {
         wakeupTimeout_ = wakeupTimeout;
+        tracker_ = new WakeupTracker(TimeUtils.convertSecondsToMilliseconds(wakeupTimeout));
         repository_ = repository;
         commandExecutor_ = new ShellCommandExecuter(commandExecutionTimeout);
     }
@@ -97,25 +102,43 @@ public final class WakeupResources
     }
     
     /** 
-     * Causes the resolver module to sleep.
+     * Waits until the woken up local controllers are back.
+     * (at most the wakeup time)
      * 
-     * @return  true if everything ok, false otherwise
+     * @param localControllers  The local controllers
+     * @return                  true if everything ok, false otherwise
      */
-    public boolean sleep() 
+    public boolean awaitLocalControllers(List<LocalControllerDescription> localControllers) 
     {
+        List<String> localControllerIds = new ArrayList<String>(localControllers.size());
+        for (LocalControllerDescription localController : localControllers)
+        {
+            localControllerIds.add(localController.getId());
+        }
+        
         try 
         {
-            log_.debug(String.format("Waiting %s seconds for local controller to boot!!", wakeupTimeout_));
-            Thread.sleep(TimeUtils.convertSecondsToMilliseconds(wakeupTimeout_));
+            log_.debug(String.format("Waiting at most %s seconds for local controllers to boot!!", wakeupTimeout_));
+            boolean isReady = tracker_.await(localControllerIds);
             log_.debug("Finished waiting!");
+            return isReady;
         } 
         catch (InterruptedException exception) 
         {
             log_.error("Interrupted exception", exception);
+            Thread.currentThread().interrupt();
             return false;
         }   
-        
-        return true;
+    }
+    
+    /**
+     * Called when a local controller joins or reports to the group manager.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void onLocalControllerReady(String localControllerId)
+    {
+        tracker_.onLocalControllerReady(localControllerId);
     }
     
     /**
@@ -136,10 +159,12 @@ public final class WakeupResources
             return false;
         }
         
+        tracker_.register(localController.getId());
         boolean isWokenUp = wakeupLogic.wakeUp(settings.getOptions());
         if (!isWokenUp)
         {
             log_.error("Unable to wakeup the local controller");
+            tracker_.cancel(localController.getId());
             return false;
         }
         
@@ -148,6 +173,7 @@ public final class WakeupResources
         if (!isChanged)
         {
             log_.error("Failed to change local controller status!");
+            tracker_.cancel(localController.getId());
             return false;
         }
         
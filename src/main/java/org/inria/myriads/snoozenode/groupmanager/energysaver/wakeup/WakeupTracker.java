@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the local controllers being woken up.
+ * 
+ * A pending wakeup completes as soon as the local controller is back (i.e. joins or 
+ * reports to the group manager) and fails once its deadline expires.
+ * 
+ * @author Eugen Feller
+ */
+public final class WakeupTracker 
+{
+    /** Logging instance. */
+    private static final Logger log_ = LoggerFactory.getLogger(WakeupTracker.class);
+    
+    /** Pending wakeups (local controller identifier : wakeup). */
+    private final ConcurrentMap<String, PendingWakeup> pending_;
+    
+    /** Wakeup deadline (ms). */
+    private final long wakeupTimeout_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param wakeupTimeout     The maximum wakeup time (ms)
+     */
+    public WakeupTracker(long wakeupTimeout)
+    {
+        pending_ = new ConcurrentHashMap<String, PendingWakeup>();
+        wakeupTimeout_ = wakeupTimeout;
+    }
+    
+    /**
+     * Registers a local controller being woken up.
+     * (concurrent registrations share the pending wakeup)
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void register(String localControllerId)
+    {
+        Guard.check(localControllerId);
+        PendingWakeup wakeup = new PendingWakeup(System.currentTimeMillis() + wakeupTimeout_);
+        if (pending_.putIfAbsent(localControllerId, wakeup) == null)
+        {
+            log_.debug(String.format("Waiting at most %d ms for local controller %s to be back", 
+                                     wakeupTimeout_, localControllerId));
+        }
+    }
+    
+    /**
+     * Cancels a pending wakeup.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void cancel(String localControllerId)
+    {
+        Guard.check(localControllerId);
+        PendingWakeup wakeup = pending_.remove(localControllerId);
+        if (wakeup != null)
+        {
+            wakeup.complete(false);
+        }
+    }
+    
+    /**
+     * Called when a local controller is back.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void onLocalControllerReady(String localControllerId)
+    {
+        if (localControllerId == null || pending_.isEmpty())
+        {
+            return;
+        }
+        
+        PendingWakeup wakeup = pending_.remove(localControllerId);
+        if (wakeup != null)
+        {
+            log_.debug(String.format("Local controller %s is back", localControllerId));
+            wakeup.complete(true);
+        }
+    }
+    
+    /**
+     * Waits for local controllers to be back.
+     * 
+     * @param localControllerIds        The local controller identifiers
+     * @return                          true if all are back, false if a deadline expired
+     * @throws InterruptedException     The interrupted exception
+     */
+    public boolean await(Collection<String> localControllerIds) 
+        throws InterruptedException
+    {
+        Guard.check(localControllerIds);
+        boolean isReady = true;
+        for (String localControllerId : localControllerIds)
+        {
+            PendingWakeup wakeup = pending_.get(localControllerId);
+            if (wakeup == null)
+            {
+                continue;
+            }
+            
+            if (!wakeup.await())
+            {
+                log_.error(String.format("Local controller %s is not back before its wakeup deadline!", 
+                                         localControllerId));
+                pending_.remove(localControllerId, wakeup);
+                isReady = false;
+            }
+        }
+        
+        return isReady;
+    }
+    
+    /**
+     * Checks if a local controller is being woken up.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if pending, false otherwise
+     */
+    public boolean isPending(String localControllerId)
+    {
+        return pending_.containsKey(localControllerId);
+    }
+    
+    /**
+     * Pending wakeup of one local controller.
+     */
+    private static final class PendingWakeup 
+    {
+        /** Signals completion. */
+        private final CountDownLatch latch_ = new CountDownLatch(1);
+        
+        /** Deadline (ms). */
+        private final long deadline_;
+        
+        /** Signals the local controller is back. */
+        private volatile boolean isReady_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param deadline  The deadline (ms)
+         */
+        private PendingWakeup(long deadline)
+        {
+            deadline_ = deadline;
+        }
+        
+        /**
+         * Completes the wakeup.
+         * 
+         * @param isReady   true if back, false if cancelled
+         */
+        private void complete(boolean isReady)
+        {
+            isReady_ = isReady;
+            latch_.countDown();
+        }
+        
+        /**
+         * Waits until completion or deadline.
+         * 
+         * @return                          true if back, false otherwise
+         * @throws InterruptedException     The interrupted exception
+         */
+        private boolean await() 
+            throws InterruptedException
+        {
+            long timeout = deadline_ - System.currentTimeMillis();
+            if (!latch_.await(Math.max(0, timeout), TimeUnit.MILLISECONDS))
+            {
+                return false;
+            }
+            
+            return isReady_;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+
+/**
+ * Estimate cache scoped to a single placement, relocation or consolidation run.
+ * 
+ * Each virtual machine demand and local controller capacity is computed once
+ * and then served from the cache. Tentative assignments done through assign() 
+ * and unassign() update the cached local controller capacity incrementally.
+ * Returned vectors are shared and must not be modified.
+ * 
+ * Not thread-safe.
+ * 
+ * @author Eugen Feller
+ */
+public final class EstimateCache 
+{
+    /** Resource demand estimator. */
+    private ResourceDemandEstimator estimator_;
+    
+    /** Estimated virtual machine demands. */
+    private Map<String, ArrayList<Double>> demands_;
+    
+    /** Virtual machine capacities (estimated or requested). */
+    private Map<String, List<Double>> virtualMachineCapacities_;
+    
+    /** Local controller capacities. */
+    private Map<String, ArrayList<Double>> localControllerCapacities_;
+    
+    /** Estimated virtual machine migration times. */
+    private Map<String, Double> migrationTimes_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param estimator     The resource demand estimator
+     */
+    public EstimateCache(ResourceDemandEstimator estimator)
+    {
+        Guard.check(estimator);
+        estimator_ = estimator;
+        demands_ = new HashMap<String, ArrayList<Double>>();
+        virtualMachineCapacities_ = new HashMap<String, List<Double>>();
+        localControllerCapacities_ = new HashMap<String, ArrayList<Double>>();
+        migrationTimes_ = new HashMap<String, Double>();
+    }
+    
+    /**
+     * Returns the resource demand estimator.
+     * 
+     * @return  The resource demand estimator
+     */
+    public ResourceDemandEstimator getEstimator()
+    {
+        return estimator_;
+    }
+    
+    /**
+     * Estimates the virtual machine resource demand.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The estimated resource demand
+     */
+    public ArrayList<Double> estimateVirtualMachineResourceDemand(VirtualMachineMetaData virtualMachine)
+    {
+        String virtualMachineId = getVirtualMachineId(virtualMachine);
+        ArrayList<Double> demand = demands_.get(virtualMachineId);
+        if (demand == null)
+        {
+            demand = estimator_.estimateVirtualMachineResourceDemand(virtualMachine);
+            demands_.put(virtualMachineId, demand);
+        }
+        
+        return demand;
+    }
+    
+    /**
+     * Estimates the virtual machine live migration time.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The estimated migration time (sec)
+     */
+    public double estimateMigrationTime(VirtualMachineMetaData virtualMachine)
+    {
+        String virtualMachineId = getVirtualMachineId(virtualMachine);
+        Double migrationTime = migrationTimes_.get(virtualMachineId);
+        if (migrationTime == null)
+        {
+            migrationTime = estimator_.getMigrationCostEstimator()
+                .estimateMigrationTime(virtualMachine, estimateVirtualMachineResourceDemand(virtualMachine));
+            migrationTimes_.put(virtualMachineId, migrationTime);
+        }
+        
+        return migrationTime;
+    }
+    
+    /**
+     * Estimates the total live migration time of virtual machines.
+     * 
+     * @param virtualMachines   The virtual machines
+     * @return                  The estimated migration time (sec)
+     */
+    public double estimateMigrationTime(Collection<VirtualMachineMetaData> virtualMachines)
+    {
+        Guard.check(virtualMachines);
+        double migrationTime = 0;
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            migrationTime += estimateMigrationTime(virtualMachine);
+        }
+        
+        return migrationTime;
+    }
+    
+    /**
+     * Computes the local controller capacity.
+     * 
+     * @param localController   The local controller description
+     * @return                  The local controller capacity
+     */
+    public ArrayList<Double> computeLocalControllerCapacity(LocalControllerDescription localController)
+    {
+        Guard.check(localController);
+        ArrayList<Double> capacity = localControllerCapacities_.get(localController.getId());
+        if (capacity == null)
+        {
+            capacity = MathUtils.createEmptyVector();
+            for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+            {
+                capacity = MathUtils.addVectors(computeVirtualMachineCapacity(virtualMachine), capacity);
+            }
+            localControllerCapacities_.put(localController.getId(), capacity);
+        }
+        
+        return capacity;
+    }
+    
+    /**
+     * Checks whether a local controller has enough capacity to host a virtual machine.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param localController   The local controller description
+     * @return                  true if enough capacity available, false otherwise
+     */
+    public boolean hasEnoughLocalControllerCapacity(VirtualMachineMetaData virtualMachine, 
+                                                    LocalControllerDescription localController)
+    {
+        List<Double> newCapacity = MathUtils.addVectors(computeVirtualMachineCapacity(virtualMachine), 
+                                                        computeLocalControllerCapacity(localController));
+        return estimator_.checkCapacityConstraints(newCapacity, localController.getTotalCapacity());
+    }
+    
+    /**
+     * Tentatively assigns a virtual machine to a local controller.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param localController   The local controller description
+     */
+    public void assign(VirtualMachineMetaData virtualMachine, LocalControllerDescription localController)
+    {
+        Guard.check(virtualMachine, localController);
+        ArrayList<Double> capacity = computeLocalControllerCapacity(localController);
+        VirtualMachineMetaData previous = 
+            localController.getVirtualMachineMetaData().put(getVirtualMachineId(virtualMachine), virtualMachine);
+        if (previous != null)
+        {
+            capacity = MathUtils.substractVector(capacity, computeVirtualMachineCapacity(previous));
+        }
+        
+        capacity = MathUtils.addVectors(capacity, computeVirtualMachineCapacity(virtualMachine));
+        localControllerCapacities_.put(localController.getId(), capacity);
+    }
+    
+    /**
+     * Reverts a tentative assignment.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param localController   The local controller description
+     */
+    public void unassign(VirtualMachineMetaData virtualMachine, LocalControllerDescription localController)
+    {
+        Guard.check(virtualMachine, localController);
+        ArrayList<Double> capacity = computeLocalControllerCapacity(localController);
+        VirtualMachineMetaData previous = 
+            localController.getVirtualMachineMetaData().remove(getVirtualMachineId(virtualMachine));
+        if (previous == null)
+        {
+            return;
+        }
+        
+        capacity = MathUtils.substractVector(capacity, computeVirtualMachineCapacity(previous));
+        localControllerCapacities_.put(localController.getId(), capacity);
+    }
+    
+    /**
+     * Computes the virtual machine capacity.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The virtual machine capacity
+     */
+    private List<Double> computeVirtualMachineCapacity(VirtualMachineMetaData virtualMachine)
+    {
+        String virtualMachineId = getVirtualMachineId(virtualMachine);
+        List<Double> capacity = virtualMachineCapacities_.get(virtualMachineId);
+        if (capacity == null)
+        {
+            capacity = estimator_.computeVirtualMachineCapacity(virtualMachine);
+            virtualMachineCapacities_.put(virtualMachineId, capacity);
+        }
+        
+        return capacity;
+    }
+    
+    /**
+     * Returns the virtual machine identifier.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The virtual machine identifier
+     */
+    private static String getVirtualMachineId(VirtualMachineMetaData virtualMachine)
+    {
+        return virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.util.UtilizationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Live migration cost estimator.
+ * 
+ * Models the pre-copy live migration: the first round copies the memory in use, every
+ * further round copies the memory dirtied during the previous one. The dirty ratio grows 
+ * with the estimated CPU activity of the virtual machine. The migration time is the 
+ * transferred memory divided by the migration bandwidth, which is refined from the 
+ * observed migration durations. Virtual machines migrated before also take their last
+ * observed migration duration into account.
+ * 
+ * @author Eugen Feller
+ */
+public final class MigrationCostEstimator 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MigrationCostEstimator.class);
+    
+    /** Number of pre-copy rounds accounted for. */
+    private static final int NUMBER_OF_ROUNDS = 5;
+    
+    /** Weight of a new bandwidth observation. */
+    private static final double SMOOTHING_FACTOR = 0.3;
+    
+    /** Maximum number of tracked virtual machines. */
+    private static final int MAX_TRACKED_VIRTUAL_MACHINES = 4096;
+    
+    /** Maximum dirty ratio. */
+    private final double maxDirtyRatio_;
+    
+    /** Migration bandwidth (memory units per second). */
+    private double bandwidth_;
+    
+    /** Last estimated transferred memory (virtual machine identifier : memory). */
+    private final Map<String, Double> estimatedMemory_;
+    
+    /** Last observed migration duration (virtual machine identifier : sec). */
+    private final Map<String, Double> observedDurations_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param bandwidth         The initial migration bandwidth
+     * @param maxDirtyRatio     The maximum dirty ratio
+     */
+    public MigrationCostEstimator(double bandwidth, double maxDirtyRatio)
+    {
+        bandwidth_ = Math.max(bandwidth, 1);
+        maxDirtyRatio_ = Math.max(0, Math.min(maxDirtyRatio, 0.99));
+        estimatedMemory_ = newBoundedMap();
+        observedDurations_ = newBoundedMap();
+    }
+    
+    /**
+     * Creates a map dropping the least recently used entries.
+     * 
+     * @return  The map
+     */
+    private static Map<String, Double> newBoundedMap()
+    {
+        return new LinkedHashMap<String, Double>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Double> eldest)
+            {
+                return size() > MAX_TRACKED_VIRTUAL_MACHINES;
+            }
+        };
+    }
+    
+    /**
+     * Estimates the memory transferred by the live migration of a virtual machine.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param estimatedDemand   The estimated virtual machine resource demand
+     * @return                  The transferred memory
+     */
+    public double estimateTransferredMemory(VirtualMachineMetaData virtualMachine, List<Double> estimatedDemand)
+    {
+        Guard.check(virtualMachine, estimatedDemand);
+        List<Double> requestedCapacity = virtualMachine.getRequestedCapacity();
+        double requestedMemory = UtilizationUtils.getMemoryUtilization(requestedCapacity);
+        double usedMemory = UtilizationUtils.getMemoryUtilization(estimatedDemand);
+        double memory = usedMemory > 0 ? Math.min(usedMemory, requestedMemory) : requestedMemory;
+        
+        double requestedCpu = UtilizationUtils.getCpuUtilization(requestedCapacity);
+        double activity = 1;
+        if (requestedCpu > 0)
+        {
+            activity = Math.min(1, UtilizationUtils.getCpuUtilization(estimatedDemand) / requestedCpu);
+        }
+        
+        double dirtyRatio = maxDirtyRatio_ * Math.max(0, activity);
+        double transferred = memory * (1 - Math.pow(dirtyRatio, NUMBER_OF_ROUNDS)) / (1 - dirtyRatio);
+        synchronized (this)
+        {
+            estimatedMemory_.put(virtualMachine.getVirtualMachineLocation().getVirtualMachineId(), transferred);
+        }
+        
+        return transferred;
+    }
+    
+    /**
+     * Estimates the live migration time of a virtual machine.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param estimatedDemand   The estimated virtual machine resource demand
+     * @return                  The migration time (sec)
+     */
+    public double estimateMigrationTime(VirtualMachineMetaData virtualMachine, List<Double> estimatedDemand)
+    {
+        double transferred = estimateTransferredMemory(virtualMachine, estimatedDemand);
+        synchronized (this)
+        {
+            double migrationTime = transferred / bandwidth_;
+            Double observedDuration = 
+                observedDurations_.get(virtualMachine.getVirtualMachineLocation().getVirtualMachineId());
+            if (observedDuration != null)
+            {
+                migrationTime = (migrationTime + observedDuration) / 2;
+            }
+            
+            return migrationTime;
+        }
+    }
+    
+    /**
+     * Refines the model with an observed migration.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @param duration          The migration duration (ms)
+     */
+    public synchronized void onMigrationFinished(String virtualMachineId, long duration)
+    {
+        Guard.check(virtualMachineId);
+        if (duration <= 0)
+        {
+            return;
+        }
+        
+        double seconds = duration / 1000.0;
+        observedDurations_.put(virtualMachineId, seconds);
+        Double transferred = estimatedMemory_.get(virtualMachineId);
+        if (transferred == null || transferred <= 0)
+        {
+            return;
+        }
+        
+        bandwidth_ = (1 - SMOOTHING_FACTOR) * bandwidth_ + SMOOTHING_FACTOR * (transferred / seconds);
+        log_.debug(String.format("Virtual machine %s migrated in %.1f sec, migration bandwidth is now %.1f", 
+                                 virtualMachineId, seconds, bandwidth_));
+    }
+    
+    /**
+     * Returns the migration bandwidth.
+     * 
+     * @return  The migration bandwidth
+     */
+    public synchronized double getBandwidth()
+    {
+        return bandwidth_;
+    }
+}
@@ -29,21 +29,25 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.globals.Globals;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozecommon.util.MonitoringUtils;
 import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
 import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.CPUDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.MemoryDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.NetworkDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageCPUDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageMemoryDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageNetworkDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.RunningCPUDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.RunningMemoryDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.RunningNetworkDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
 import org.inria.myriads.snoozenode.util.ThresholdUtils;
@@ -86,6 +90,15 @@ public class ResourceDemandEstimator
     /** Consider static capacity. */
     private boolean isStatic_;
     
+    /** Group manager repository (null if unavailable). */
+    private GroupManagerRepository repository_;
+    
+    /** All estimators read the repository history in place. */
+    private boolean isReadInPlace_;
+    
+    /** Migration cost estimator. */
+    private MigrationCostEstimator migrationCostEstimator_;
+    
     /**
      * Constructor.
      * 
@@ -96,10 +109,27 @@ public class ResourceDemandEstimator
     public ResourceDemandEstimator(EstimatorSettings estimatorSettings, 
                                    MonitoringThresholds monitoringThresholds,
                                    PackingDensity packingDensity)
+    {
+        this(estimatorSettings, monitoringThresholds, packingDensity, null);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param estimatorSettings         The estimator settings
+     * @param monitoringThresholds      The monitoring thresholds
+     * @param packingDensity            The packing density
+     * @param repository                The group manager repository (read in place by the running estimators)
+     */
+    public ResourceDemandEstimator(EstimatorSettings estimatorSettings, 
+                                   MonitoringThresholds monitoringThresholds,
+                                   PackingDensity packingDensity,
+                                   GroupManagerRepository repository)
     {
         Guard.check(estimatorSettings, monitoringThresholds, packingDensity);
         log_.debug("Initializing the resource demand estimator");
         
+        repository_ = repository;
         monitoringThresholds_ = monitoringThresholds;
         packingDensity_ = packingDensity;
         sortNorm_ = estimatorSettings.getSortNorm();
@@ -108,6 +138,12 @@ public class ResourceDemandEstimator
         cpuDemandEstimator_ = newVirtualMachineCpuDemandEstimator(estimatorSettings.getPolicy().getCPU());     
         memoryDemandEstimator_ = newVirtualMachineMemoryDemandEstimator(estimatorSettings.getPolicy().getMemory());
         networkDemandEstimator_ = newVirtualMachineNetworkDemandEstimator(estimatorSettings.getPolicy().getNetwork());
+        migrationCostEstimator_ = new MigrationCostEstimator(estimatorSettings.getMigrationBandwidth(),
+                                                             estimatorSettings.getMaxDirtyRatio());
+        isReadInPlace_ = repository_ != null && repository_.hasInPlaceHistory() &&
+                         Estimator.running.equals(estimatorSettings.getPolicy().getCPU()) &&
+                         Estimator.running.equals(estimatorSettings.getPolicy().getMemory()) &&
+                         Estimator.running.equals(estimatorSettings.getPolicy().getNetwork());
     }
     
     /** 
@@ -128,6 +164,11 @@ public class ResourceDemandEstimator
                 cpuDemandEstimator = new AverageCPUDemandEstimator();
                 break;
                 
+            case running :
+                log_.debug("Selecting running average CPU demand estimator");
+                cpuDemandEstimator = new RunningCPUDemandEstimator(repository_, numberOfMonitoringEntries_);
+                break;
+                
             default : 
                 log_.equals(String.format("Unknown CPU demand estimator selected: %s", demandEstimator));
                 break;
@@ -233,6 +274,11 @@ public class ResourceDemandEstimator
                 networkDemandEstimator = new AverageNetworkDemandEstimator();
                 break;
                 
+            case running :
+                log_.debug("Selecting running average network demand estimator");
+                networkDemandEstimator = new RunningNetworkDemandEstimator(repository_, numberOfMonitoringEntries_);
+                break;
+                
             default : 
                 log_.equals(String.format("Unknown network demand estimator selected: %s", demandEstimator));
                 break;
@@ -259,6 +305,11 @@ public class ResourceDemandEstimator
                 memoryDemandEstimator = new AverageMemoryDemandEstimator();
                 break;
                 
+            case running :
+                log_.debug("Selecting running average memory demand estimator");
+                memoryDemandEstimator = new RunningMemoryDemandEstimator(repository_, numberOfMonitoringEntries_);
+                break;
+                
             default : 
                 log_.equals(String.format("Unknown memory demand estimator selected: %s", demandEstimator));
                 break;
@@ -305,10 +356,9 @@ public class ResourceDemandEstimator
      * @param virtualMachine    The virtual machine meta data
      * @return                  The virtual machine capacity
      */
-    private List<Double> computeVirtualMachineCapacity(VirtualMachineMetaData virtualMachine)
+    List<Double> computeVirtualMachineCapacity(VirtualMachineMetaData virtualMachine)
     {        
-        Map<Long, VirtualMachineMonitoringData> capacity = virtualMachine.getUsedCapacity();  
-        if (capacity.size() == 0 || isStatic_)
+        if (!hasMonitoringData(virtualMachine) || isStatic_)
         {
             log_.debug("No virtual machine used capacity information available or static mode enabled! " +
                     "Taking requested!");
@@ -360,11 +410,14 @@ public class ResourceDemandEstimator
      * @param localControllerTotalCapacity      The total capacity
      * @return                                  true if everyting ok, false otherwise
      */
-    private boolean checkCapacityConstraints(List<Double> localControllerUsedCapacity, 
-                                             List<Double> localControllerTotalCapacity)
+    boolean checkCapacityConstraints(List<Double> localControllerUsedCapacity, 
+                                     List<Double> localControllerTotalCapacity)
     {
-        log_.debug(String.format("Checking capacity constraints for local controller used and total capacity: " +
-                                 "%s / %s", localControllerUsedCapacity, localControllerTotalCapacity)); 
+        if (log_.isDebugEnabled())
+        {
+            log_.debug(String.format("Checking capacity constraints for local controller used and total " +
+                                     "capacity: %s / %s", localControllerUsedCapacity, localControllerTotalCapacity)); 
+        }
                 
         double cpuMid = ThresholdUtils.getMidThreshold(monitoringThresholds_.getCPU());
         double memoryMid = ThresholdUtils.getMidThreshold(monitoringThresholds_.getMemory());
@@ -416,8 +469,7 @@ public class ResourceDemandEstimator
        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
        {
            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
-           Map<Long, VirtualMachineMonitoringData> monitoringData = virtualMachine.getUsedCapacity();
-           if (monitoringData.size() == 0 || isStatic_)
+           if (!hasMonitoringData(virtualMachine) || isStatic_)
            {
                capacity = MathUtils.addVectors(computeRequestedVirtualMachineCapacity(virtualMachine), capacity);
                continue;
@@ -434,6 +486,30 @@ public class ResourceDemandEstimator
        return capacity;
     }
     
+    /**
+     * Checks whether monitoring data is available for a virtual machine.
+     * 
+     * @param virtualMachine     The virtual machine meta data
+     * @return                   true if available, false otherwise
+     */
+    private boolean hasMonitoringData(VirtualMachineMetaData virtualMachine)
+    {
+        if (virtualMachine.getUsedCapacity().size() > 0)
+        {
+            return true;
+        }
+        
+        if (!isReadInPlace_)
+        {
+            return false;
+        }
+        
+        double cpuUtilization = repository_.getAverageUsedCapacity(virtualMachine.getVirtualMachineLocation(), 
+                                                                   numberOfMonitoringEntries_,
+                                                                   Globals.CPU_UTILIZATION_INDEX);
+        return !Double.isNaN(cpuUtilization);
+    }
+    
     /**
      * Estimates virtual machine resource demands.
      * 
@@ -447,10 +523,10 @@ public class ResourceDemandEstimator
             return virtualMachine.getRequestedCapacity();
         }
         
-        Map<Long, VirtualMachineMonitoringData> virtualMachineHistory = virtualMachine.getUsedCapacity();
-        double cpuUtilization = cpuDemandEstimator_.estimate(virtualMachineHistory);
-        double memoryUtilization = memoryDemandEstimator_.estimate(virtualMachineHistory);
-        NetworkDemand networkUtilization = networkDemandEstimator_.estimate(virtualMachineHistory);       
+        double cpuUtilization = cpuDemandEstimator_.estimate(virtualMachine);
+        double memoryUtilization = memoryDemandEstimator_.estimate(virtualMachine);
+        NetworkDemand networkUtilization = networkDemandEstimator_.estimate(virtualMachine);
+        
         ArrayList<Double> estimates = MathUtils.createCustomVector(cpuUtilization, 
                                                                    memoryUtilization, 
                                                                    networkUtilization);
@@ -599,6 +675,31 @@ public class ResourceDemandEstimator
         return numberOfMonitoringEntries_;
     }
     
+    /** 
+     * Number of monitoring entries to copy for estimation.
+     * 
+     * @return      0 if all estimators read the history in place, the number of monitoring entries otherwise
+     */
+    public int getNumberOfCopiedMonitoringEntries() 
+    {
+        if (isReadInPlace_)
+        {
+            return 0;
+        }
+        
+        return numberOfMonitoringEntries_;
+    }
+    
+    /** 
+     * Returns the migration cost estimator.
+     * 
+     * @return      The migration cost estimator
+     */
+    public MigrationCostEstimator getMigrationCostEstimator() 
+    {
+        return migrationCostEstimator_;
+    }
+    
     /**
      * Returns the sort norm.
      * 
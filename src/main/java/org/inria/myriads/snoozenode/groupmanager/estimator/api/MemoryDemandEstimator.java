@@ -19,9 +19,7 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.estimator.api;
 
-import java.util.Map;
-
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 
 /**
  * Memory demand estimator interface.
@@ -33,8 +31,8 @@ public interface MemoryDemandEstimator
     /**
      * Estimates the memory demand.
      * 
-     * @param history     The virtual machine history data
-     * @return            The estimated value
+     * @param virtualMachine    The virtual machine
+     * @return                  The estimated value
      */
-    double estimate(Map<Long, VirtualMachineMonitoringData> history);
+    double estimate(VirtualMachineMetaData virtualMachine);
 }
@@ -19,10 +19,8 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.estimator.api;
 
-import java.util.Map;
-
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 
 /**
  * Network demand estimator interface.
@@ -34,8 +32,8 @@ public interface NetworkDemandEstimator
     /**
      * Estimates the network demand.
      * 
-     * @param history     The virtual machine history
-     * @return            The estimated network demand
+     * @param virtualMachine    The virtual machine
+     * @return                  The estimated network demand
      */
-    NetworkDemand estimate(Map<Long, VirtualMachineMonitoringData> history);
+    NetworkDemand estimate(VirtualMachineMetaData virtualMachine);
 }
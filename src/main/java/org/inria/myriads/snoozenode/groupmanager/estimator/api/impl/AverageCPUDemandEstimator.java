@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.groupmanager.estimator.api.impl;
 
 import java.util.Map;
 
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.CPUDemandEstimator;
@@ -37,12 +38,13 @@ public final class AverageCPUDemandEstimator
     /**
      * Estimates the CPU demand.
      * 
-     * @param virtualMachineHistory     The virtual machine history data
+     * @param virtualMachine            The virtual machine
      * @return                          The CPU demand estimate
      */
-    public double estimate(Map<Long, VirtualMachineMonitoringData> virtualMachineHistory) 
+    public double estimate(VirtualMachineMetaData virtualMachine) 
     {
-        Guard.check(virtualMachineHistory);     
+        Guard.check(virtualMachine);
+        Map<Long, VirtualMachineMonitoringData> virtualMachineHistory = virtualMachine.getUsedCapacity();
         
         double cpuUtilization = 0;
         for (VirtualMachineMonitoringData monitoringData : virtualMachineHistory.values())
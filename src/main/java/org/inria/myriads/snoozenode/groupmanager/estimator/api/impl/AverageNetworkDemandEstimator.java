@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.groupmanager.estimator.api.impl;
 
 import java.util.Map;
 
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 import org.inria.myriads.snoozecommon.guard.Guard;
@@ -38,12 +39,13 @@ public final class AverageNetworkDemandEstimator
     /**
      * Estimates the network demand.
      * 
-     * @param virtualMachineHistory     The virtual machine history data
+     * @param virtualMachine            The virtual machine
      * @return                          The network demand estimate
      */
-    public NetworkDemand estimate(Map<Long, VirtualMachineMonitoringData> virtualMachineHistory) 
+    public NetworkDemand estimate(VirtualMachineMetaData virtualMachine) 
     {
-        Guard.check(virtualMachineHistory);      
+        Guard.check(virtualMachine);
+        Map<Long, VirtualMachineMonitoringData> virtualMachineHistory = virtualMachine.getUsedCapacity();
         double rxUtilization = 0;
         double txUtilization = 0;
         
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.api.impl;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.globals.Globals;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.MemoryDemandEstimator;
+
+/**
+ * Running average memory demand estimator.
+ * 
+ * Reads the average over the repository history in place instead of 
+ * the copied virtual machine history. Falls back to the average 
+ * estimator if the repository keeps no in-place history.
+ * 
+ * @author Eugen Feller
+ */
+public final class RunningMemoryDemandEstimator 
+    implements MemoryDemandEstimator 
+{    
+    /** Group manager repository (null if unavailable). */
+    private GroupManagerRepository repository_;
+    
+    /** Number of monitoring entries. */
+    private int numberOfMonitoringEntries_;
+    
+    /** Fallback estimator. */
+    private MemoryDemandEstimator fallbackEstimator_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param repository                    The group manager repository
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     */
+    public RunningMemoryDemandEstimator(GroupManagerRepository repository, int numberOfMonitoringEntries)
+    {
+        repository_ = repository;
+        numberOfMonitoringEntries_ = numberOfMonitoringEntries;
+        fallbackEstimator_ = new AverageMemoryDemandEstimator();
+    }
+    
+    /**
+     * Estimates the memory demand.
+     * 
+     * @param virtualMachine            The virtual machine
+     * @return                          The memory demand estimate
+     */
+    public double estimate(VirtualMachineMetaData virtualMachine) 
+    {
+        Guard.check(virtualMachine);
+        
+        double memoryUtilization = Double.NaN;
+        if (repository_ != null)
+        {
+            memoryUtilization = repository_.getAverageUsedCapacity(virtualMachine.getVirtualMachineLocation(), 
+                                                                   numberOfMonitoringEntries_,
+                                                                   Globals.MEMORY_UTILIZATION_INDEX);
+        }
+        
+        if (Double.isNaN(memoryUtilization))
+        {
+            return fallbackEstimator_.estimate(virtualMachine);
+        }
+        
+        return memoryUtilization;
+    }
+}
@@ -28,4 +28,6 @@ public enum Estimator
 {
     /** Average estimator. */
     average,
+    /** Running average estimator (incrementally maintained). */
+    running,
 }
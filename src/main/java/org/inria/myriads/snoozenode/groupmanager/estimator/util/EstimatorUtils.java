@@ -24,6 +24,7 @@ import java.util.List;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,7 +60,23 @@ public final class EstimatorUtils
                                     List<LocalControllerDescription> localControllers,
                                     ResourceDemandEstimator estimator) 
     {
-        Guard.check(virtualMachine, localControllers);
+        return findSuitableLocalController(virtualMachine, localControllers, new EstimateCache(estimator));
+    }
+    
+    /**
+     * Finds a suitable local controller.
+     * 
+     * @param virtualMachine     The virtual machine meta data
+     * @param localControllers   The local controller descriptions
+     * @param cache              The estimate cache
+     * @return                   The local controller description
+     */
+    public static LocalControllerDescription 
+        findSuitableLocalController(VirtualMachineMetaData virtualMachine, 
+                                    List<LocalControllerDescription> localControllers,
+                                    EstimateCache cache) 
+    {
+        Guard.check(virtualMachine, localControllers, cache);
         
         String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
         log_.debug(String.format("Starting to find a suitable local controller for virtual machine: %s", 
@@ -74,7 +91,7 @@ public final class EstimatorUtils
                 continue;
             }
                         
-            if (estimator.hasEnoughLocalControllerCapacity(virtualMachine, localController))
+            if (cache.hasEnoughLocalControllerCapacity(virtualMachine, localController))
             {
                 log_.debug(String.format("Virtual machine: %s fits into the local controller: %s", 
                                          virtualMachineId, 
@@ -82,9 +99,12 @@ public final class EstimatorUtils
                 return localController;
             }
             
-            log_.debug(String.format("Virtual machine: %s does not fit into the local controller: %s", 
-                                     virtualMachineId, 
-                                     localController.getControlDataAddress().getAddress())); 
+            if (log_.isDebugEnabled())
+            {
+                log_.debug(String.format("Virtual machine: %s does not fit into the local controller: %s", 
+                                         virtualMachineId, 
+                                         localController.getControlDataAddress().getAddress())); 
+            }
         }
         
         return null;
@@ -76,6 +76,9 @@ public final class GroupLeaderInit
 
     /** External notifier.*/
     private ExternalNotifier externalNotifier_;
+    
+    /** Heartbeat message (carries the summary resync requests). */
+    private HeartbeatMessage heartbeatMessage_;
 
     /**
      * Constructor.
@@ -118,6 +121,8 @@ public final class GroupLeaderInit
         initializeResourceDemandEstimator();
         initializeVirtualClusterManager();
         initializeVirtualMachineDiscovery();
+        heartbeatMessage_ = ManagementUtils.createHeartbeatMessage(groupLeaderDescription.getListenSettings(), 
+                                                                   groupLeaderDescription.getId());
         startGroupManagerMonitoringDataReceiver(); 
         //everyting is setup we can send heartbeat.
         startHeartbeatSender(groupLeaderDescription);       
@@ -165,7 +170,8 @@ public final class GroupLeaderInit
      */
     private void initializeVirtualMachineDiscovery() 
     {
-        virtualMachineDiscovery_ = new VirtualMachineDiscovery(groupLeaderRepository_);
+        virtualMachineDiscovery_ = 
+            new VirtualMachineDiscovery(groupLeaderRepository_, virtualClusterManager_.getVirtualMachineLocationIndex());
     }
 
     /**
@@ -200,7 +206,11 @@ public final class GroupLeaderInit
         int monitoringTimeout = nodeConfiguration_.getMonitoring().getTimeout(); 
         MonitoringFactory.newGroupManagerSummaryReceiver(monitoringAddress,
                                                          monitoringTimeout,
-                                                         groupLeaderRepository_);
+                                                         nodeConfiguration_.getMonitoring().getTransport(),
+                                                         groupLeaderRepository_,
+                                                         virtualClusterManager_.getSubmissionResponseCollector(),
+                                                         virtualClusterManager_.getVirtualMachineLocationIndex(),
+                                                         heartbeatMessage_);
     }
     
     /**
@@ -311,11 +321,9 @@ public final class GroupLeaderInit
                                                                   .getMulticast()
                                                                   .getGroupLeaderHeartbeatAddress();
         int heartbeatInterval = nodeConfiguration_.getFaultTolerance().getHeartbeat().getInterval();
-        HeartbeatMessage heartbeatMessage = ManagementUtils.createHeartbeatMessage(groupLeader.getListenSettings(), 
-                                                                                   groupLeader.getId());
         new Thread(HeartbeatFactory.newHeartbeatMulticastSender(heartbeatAddress, 
                                                                 heartbeatInterval,
-                                                                heartbeatMessage),
+                                                                heartbeatMessage_),
                   "HeartbeatSender"
                 ).start();
     }
@@ -33,6 +33,7 @@ import org.inria.myriads.snoozenode.configurator.scheduler.ReconfigurationSettin
 import org.inria.myriads.snoozenode.database.DatabaseFactory;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.EnergySaverFactory;
+import org.inria.myriads.snoozenode.groupmanager.energysaver.predictor.PredictiveWakeup;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.saver.EnergySaver;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.MonitoringFactory;
@@ -68,6 +69,9 @@ public final class GroupManagerInit
     
     /** Energy saver. */
     private EnergySaver energySaver_;
+    
+    /** Predictive wakeup. */
+    private PredictiveWakeup predictiveWakeup_;
 
     /** Heartbeat multicast sender. */
     private HeartbeatMulticastSender heartbeatSender_;
@@ -148,6 +152,11 @@ public final class GroupManagerInit
             energySaver_.terminate();
         }
         
+        if (predictiveWakeup_ != null)
+        {
+            predictiveWakeup_.terminate();
+        }
+        
         if (heartbeatSender_ != null)
         {
             heartbeatSender_.terminate();
@@ -167,8 +176,24 @@ public final class GroupManagerInit
         {
             reconfigurationScheduler_.shutdown();
         }
+        
+        if (stateMachine_ != null)
+        {
+            stateMachine_.terminate();
+        }
     }
             
+    /**
+     * Requests the next group manager summary to be full.
+     */
+    public void requestSummaryResync()
+    {
+        if (monitoringService_ != null)
+        {
+            monitoringService_.requestSummaryResync();
+        }
+    }
+    
     /**
      * Initializes the repository.
      */
@@ -194,7 +219,8 @@ public final class GroupManagerInit
     {
         estimator_ = new ResourceDemandEstimator(nodeConfiguration_.getEstimator(),
                                                  nodeConfiguration_.getMonitoring().getThresholds(),
-                                                 nodeConfiguration_.getSubmission().getPackingDensity());      
+                                                 nodeConfiguration_.getSubmission().getPackingDensity(),
+                                                 repository_);      
     }
     
     /**
@@ -243,6 +269,15 @@ public final class GroupManagerInit
             energySaver_ = EnergySaverFactory.newEnergySaver(nodeConfiguration_.getEnergyManagement(), 
                                                              repository_,
                                                              stateMachine_);
+            if (nodeConfiguration_.getEnergyManagement().getPrediction().isEnabled())
+            {
+                log_.debug("Starting the predictive wakeup");
+                predictiveWakeup_ = EnergySaverFactory.newPredictiveWakeup(nodeConfiguration_.getEnergyManagement(),
+                                                                           stateMachine_);
+                energySaver_.setPredictiveWakeup(predictiveWakeup_);
+                new Thread(predictiveWakeup_, "PredictiveWakeup").start();
+            }
+            
             new Thread(energySaver_, "EnergySaver").start();
         }  
     }
@@ -289,6 +324,8 @@ public final class GroupManagerInit
                     nodeConfiguration_.getMonitoring(), 
                     nodeConfiguration_.getExternalNotifier()
                     );
+            stateMachine_.setSubmissionListener(monitoringService_);
+            monitoringService_.setSummaryListener(predictiveWakeup_);
         }
         
         monitoringService_.startServices(groupLeader.getListenSettings().getMonitoringDataAddress());
@@ -26,7 +26,7 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
-import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 
 /**
  * L1 norm based local controller sorting in increasing order.
@@ -36,18 +36,18 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public class LocalControllerL1Increasing
     implements Comparator<LocalControllerDescription> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Estimate cache. */
+    private EstimateCache cache_;
     
     /**
      * Constructor.
      * 
-     * @param estimator     The resource demand estimator
+     * @param cache         The estimate cache
      */
-    public LocalControllerL1Increasing(ResourceDemandEstimator estimator)
+    public LocalControllerL1Increasing(EstimateCache cache)
     {
-        Guard.check(estimator);
-        estimator_ = estimator;
+        Guard.check(cache);
+        cache_ = cache;
     }
     
     /**
@@ -62,8 +62,8 @@ public class LocalControllerL1Increasing
     {
         Guard.check(localController1, localController2);
         
-        ArrayList<Double>utilization1 = estimator_.computeLocalControllerCapacity(localController1);                
-        ArrayList<Double> utilization2 = estimator_.computeLocalControllerCapacity(localController2);  
+        ArrayList<Double>utilization1 = cache_.computeLocalControllerCapacity(localController1);                
+        ArrayList<Double> utilization2 = cache_.computeLocalControllerCapacity(localController2);  
         
         double value1 = MathUtils.computeL1Norm(utilization1);
         double value2 = MathUtils.computeL1Norm(utilization2);
@@ -25,7 +25,7 @@ import java.util.Comparator;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
-import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 
 /**
  * Euclid norm based virtual machine sorting in decreasing order.
@@ -35,18 +35,18 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineEuclidDecreasing
     implements Comparator<VirtualMachineMetaData> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Estimate cache. */
+    private EstimateCache cache_;
 
     /**
      * Constructor.
      * 
-     * @param resourceDemandEstimator     The resource demand estimator
+     * @param cache                       The estimate cache
      */
-    public VirtualMachineEuclidDecreasing(ResourceDemandEstimator resourceDemandEstimator) 
+    public VirtualMachineEuclidDecreasing(EstimateCache cache) 
     {
-        Guard.check(resourceDemandEstimator);
-        estimator_ = resourceDemandEstimator;
+        Guard.check(cache);
+        cache_ = cache;
     }
 
     /**
@@ -60,8 +60,8 @@ public final class VirtualMachineEuclidDecreasing
                        VirtualMachineMetaData secondVirtualMachine)
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);
-        ArrayList<Double> estimatedDemand1 = estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);
-        ArrayList<Double> estimatedDemand2 = estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
+        ArrayList<Double> estimatedDemand1 = cache_.estimateVirtualMachineResourceDemand(firstVirtualMachine);
+        ArrayList<Double> estimatedDemand2 = cache_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
         
         double utilization1 = MathUtils.computeEuclidNorm(estimatedDemand1);
         double utilization2 = MathUtils.computeEuclidNorm(estimatedDemand2);
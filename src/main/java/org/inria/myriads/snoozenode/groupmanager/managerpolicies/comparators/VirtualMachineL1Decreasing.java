@@ -25,7 +25,7 @@ import java.util.Comparator;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
-import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 
 /**
  * L1 norm based virtual machine sorting in decreasing order.
@@ -35,18 +35,18 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineL1Decreasing
     implements Comparator<VirtualMachineMetaData> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Estimate cache. */
+    private EstimateCache cache_;
 
     /**
      * Consturctor.
      * 
-     * @param estimator     The resource demand estimator
+     * @param cache         The estimate cache
      */
-    public VirtualMachineL1Decreasing(ResourceDemandEstimator estimator) 
+    public VirtualMachineL1Decreasing(EstimateCache cache) 
     {
-        Guard.check(estimator);
-        estimator_ = estimator;
+        Guard.check(cache);
+        cache_ = cache;
     }
 
     /**
@@ -60,9 +60,9 @@ public final class VirtualMachineL1Decreasing
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);
         ArrayList<Double> estunatedDemand1 = 
-                estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);       
+                cache_.estimateVirtualMachineResourceDemand(firstVirtualMachine);       
         ArrayList<Double> estunatedDemand2 = 
-                estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
+                cache_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
         
         double utilization1 = MathUtils.computeL1Norm(estunatedDemand1);
         double utilization2 = MathUtils.computeL1Norm(estunatedDemand2);
@@ -25,7 +25,7 @@ import java.util.Comparator;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
-import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 
 /**
  * L1 norm based virtual machine sorting in increasing order.
@@ -35,18 +35,18 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineL1Increasing
     implements Comparator<VirtualMachineMetaData> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Estimate cache. */
+    private EstimateCache cache_;
 
     /**
      * Consturctor.
      * 
-     * @param estimator     The resource demand estimator
+     * @param cache         The estimate cache
      */
-    public VirtualMachineL1Increasing(ResourceDemandEstimator estimator) 
+    public VirtualMachineL1Increasing(EstimateCache cache) 
     {
-        Guard.check(estimator);
-        estimator_ = estimator;
+        Guard.check(cache);
+        cache_ = cache;
     }
 
     /**
@@ -60,11 +60,11 @@ public final class VirtualMachineL1Increasing
                        VirtualMachineMetaData secondVirtualMachine)
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);
-        ArrayList<Double> estunatedDemand1 = estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);
+        ArrayList<Double> estunatedDemand1 = cache_.estimateVirtualMachineResourceDemand(firstVirtualMachine);
         double utilization1 = MathUtils.computeL1Norm(estunatedDemand1);
 
         ArrayList<Double> estunatedDemand2 = 
-                estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);        
+                cache_.estimateVirtualMachineResourceDemand(secondVirtualMachine);        
         double utilization2 = MathUtils.computeL1Norm(estunatedDemand2);
         
         if (utilization1 < utilization2) 
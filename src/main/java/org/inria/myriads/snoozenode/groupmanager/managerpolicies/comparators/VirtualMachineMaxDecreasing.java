@@ -25,7 +25,7 @@ import java.util.Comparator;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
-import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 
 /**
  * Max norm based virtual machine sorting in decreasing order.
@@ -35,18 +35,18 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineMaxDecreasing
     implements Comparator<VirtualMachineMetaData> 
 {    
-    /** The resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Estimate cache. */
+    private EstimateCache cache_;
 
     /**
      * Constructor.
      * 
-     * @param resourceDemandEstimator     The resource demand estimator
+     * @param cache                       The estimate cache
      */
-    public VirtualMachineMaxDecreasing(ResourceDemandEstimator resourceDemandEstimator) 
+    public VirtualMachineMaxDecreasing(EstimateCache cache) 
     {
-        Guard.check(resourceDemandEstimator);
-        estimator_ = resourceDemandEstimator;
+        Guard.check(cache);
+        cache_ = cache;
     }
 
     /**
@@ -61,9 +61,9 @@ public final class VirtualMachineMaxDecreasing
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);    
         ArrayList<Double> estunatedDemand1 = 
-                estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);        
+                cache_.estimateVirtualMachineResourceDemand(firstVirtualMachine);        
         ArrayList<Double> estunatedDemand2 = 
-                estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
+                cache_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
         
         double utilization1 = MathUtils.computeMaxNorm(estunatedDemand1);
         double utilization2 = MathUtils.computeMaxNorm(estunatedDemand2);
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.managerpolicies.comparators;
+
+import java.util.Comparator;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
+
+/**
+ * Estimated migration time based virtual machine sorting in increasing order.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineMigrationTimeIncreasing
+    implements Comparator<VirtualMachineMetaData> 
+{
+    /** Estimate cache. */
+    private EstimateCache cache_;
+
+    /**
+     * Constructor.
+     * 
+     * @param cache         The estimate cache
+     */
+    public VirtualMachineMigrationTimeIncreasing(EstimateCache cache) 
+    {
+        Guard.check(cache);
+        cache_ = cache;
+    }
+
+    /**
+     * Compares two virtual machines.
+     *  
+     * @param firstVirtualMachine       First virtual machine
+     * @param secondVirtualMachine      Second virtual machine
+     * @return                         -1, 0, 1
+     */
+    public int compare(VirtualMachineMetaData firstVirtualMachine, 
+                       VirtualMachineMetaData secondVirtualMachine)
+    {
+        Guard.check(firstVirtualMachine, secondVirtualMachine);
+        return Double.compare(cache_.estimateMigrationTime(firstVirtualMachine), 
+                              cache_.estimateMigrationTime(secondVirtualMachine));
+    }
+}
@@ -29,6 +29,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
@@ -79,7 +80,8 @@ public final class FirstFit
         Guard.check(virtualMachines, localControllers);    
         log_.debug(String.format("Placing %d virtual machine", virtualMachines.size()));
                
-        SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);
+        EstimateCache cache = new EstimateCache(estimator_);
+        SortUtils.sortLocalControllersDecreasing(localControllers, cache);
         OutputUtils.printLocalControllers(localControllers);
                 
         Map<String, LocalControllerDescription> targetLocalControllers =  
@@ -90,7 +92,7 @@ public final class FirstFit
             String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
             LocalControllerDescription localController = EstimatorUtils.findSuitableLocalController(virtualMachine, 
                                                                                                     localControllers,
-                                                                                                    estimator_);
+                                                                                                    cache);
             if (localController == null)                                                       
             {
                 log_.debug(String.format("No suitable local controller to host the virtual machine: %s", 
@@ -106,7 +108,7 @@ public final class FirstFit
             
             log_.debug(String.format("Local controller %s has enough capacity to host virtual machine %s!", 
                                      localController.getId(), virtualMachineId));
-            localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+            cache.assign(virtualMachine, localController);
             localController.getAssignedVirtualMachines().add(virtualMachine);
          
             if (!targetLocalControllers.containsKey(localController.getId()))
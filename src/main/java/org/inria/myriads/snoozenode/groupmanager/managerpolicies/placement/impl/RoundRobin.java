@@ -29,6 +29,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPolicy;
@@ -82,7 +83,8 @@ public final class RoundRobin implements PlacementPolicy
         Map<String, LocalControllerDescription> targetLocalControllers = 
                 new HashMap<String, LocalControllerDescription>();
         List<VirtualMachineMetaData> unassignedVirtualMachines = new ArrayList<VirtualMachineMetaData>();      
-        SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);
+        EstimateCache cache = new EstimateCache(estimator_);
+        SortUtils.sortLocalControllersDecreasing(localControllers, cache);
 
         for (VirtualMachineMetaData virtualMachine : virtualMachines)
         {
@@ -95,13 +97,13 @@ public final class RoundRobin implements PlacementPolicy
                 LocalControllerDescription nextLocalController = localControllers.get(nextLocalControllerIndex);
                 runningIndex_++;
 
-                if (estimator_.hasEnoughLocalControllerCapacity(virtualMachine, nextLocalController))
+                if (cache.hasEnoughLocalControllerCapacity(virtualMachine, nextLocalController))
                 {
                     log_.debug(String.format("Local controller %s has enough capacity for virtual machine: %s!",
                                              nextLocalController.getId(), 
                                              virtualMachineId));
                     
-                    nextLocalController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+                    cache.assign(virtualMachine, nextLocalController);
                     nextLocalController.getAssignedVirtualMachines().add(virtualMachine);
                     String localControllerId = nextLocalController.getId();
                     if (!targetLocalControllers.containsKey(localControllerId))
@@ -40,6 +40,9 @@ public final class ReconfigurationPlan
     /** New mapping of VMs to local controllers. */
     private Map<VirtualMachineMetaData, LocalControllerDescription> mapping_;
     
+    /** Estimated total migration time (sec). */
+    private double estimatedMigrationTime_;
+    
     /**
      * Constructor.
      * 
@@ -95,4 +98,24 @@ public final class ReconfigurationPlan
     {
         return mapping_;
     }
+
+    /**
+     * Sets the estimated total migration time.
+     * 
+     * @param estimatedMigrationTime    The estimated migration time (sec)
+     */
+    public void setEstimatedMigrationTime(double estimatedMigrationTime) 
+    {
+        estimatedMigrationTime_ = estimatedMigrationTime;
+    }
+    
+    /**
+     * Returns the estimated total migration time.
+     * 
+     * @return  The estimated migration time (sec)
+     */
+    public double getEstimatedMigrationTime() 
+    {
+        return estimatedMigrationTime_;
+    }
 }
@@ -21,12 +21,15 @@ package org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguratio
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
@@ -84,52 +87,69 @@ public final class SerconVirtualMachineConsolidation
                      
         Map<VirtualMachineMetaData, LocalControllerDescription> mapping = 
             new HashMap<VirtualMachineMetaData, LocalControllerDescription>();
-        
+        EstimateCache cache = new EstimateCache(estimator_);
         
         int runningIndex = localControllers.size();
-        int leastLoadedController;
+        int candidateController;
+        Set<String> visitedLocalControllers = new HashSet<String>();
         while (runningIndex != 0 && localControllers.size() > 0)
         {
-            leastLoadedController = localControllers.size() - 1;
-            log_.debug(String.format("There are still %d localControllers", leastLoadedController));
+            log_.debug(String.format("There are still %d localControllers", localControllers.size() - 1));
             try
             {          
-                SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);                
-                LocalControllerDescription localController = localControllers.get(leastLoadedController);
+                SortUtils.sortLocalControllersDecreasing(localControllers, cache);                
+                candidateController = selectLocalController(localControllers, visitedLocalControllers, cache);
+                if (candidateController == -1)
+                {
+                    log_.debug("All local controllers were considered!");
+                    break;
+                }
+                
+                LocalControllerDescription localController = localControllers.get(candidateController);
+                visitedLocalControllers.add(localController.getId());
                 log_.debug(String.format("Getting local controller %s description", localController.getId()));
                 
                 List<VirtualMachineMetaData> virtualMachines = getVirtualMachineMetaData(localController);
                 if (virtualMachines.size() == 0)
                 {
                     log_.debug("No virtual machines available on this local controller!");
-                    localControllers.remove(leastLoadedController);
+                    localControllers.remove(candidateController);
                     runningIndex--;
                     continue;
                 }
                 
                 OutputUtils.printVirtualMachines(virtualMachines);
-                SortUtils.sortVirtualMachinesDecreasing(virtualMachines, estimator_);    
-                int numberOfPlacedVirtualMachines = placeVirtualMachines(virtualMachines, localControllers, mapping);
+                SortUtils.sortVirtualMachinesDecreasing(virtualMachines, cache);    
+                List<LocalControllerDescription> destinationLocalControllers = 
+                    new ArrayList<LocalControllerDescription>(localControllers);
+                destinationLocalControllers.remove(candidateController);
+                int numberOfPlacedVirtualMachines = placeVirtualMachines(virtualMachines, 
+                                                                         destinationLocalControllers, 
+                                                                         mapping,
+                                                                         cache);
                 log_.debug(String.format("Total virtual machines count %d, assigned: %d", 
                                          virtualMachines.size(), numberOfPlacedVirtualMachines));
                 
-                for (VirtualMachineMetaData virtualMachine : mapping.keySet())
+                if (log_.isDebugEnabled())
                 {
-                    log_.debug(String.format("virtual machine %s on localController %s ", 
-                            virtualMachine.getVirtualMachineLocation().getVirtualMachineId(),
-                            mapping.get(virtualMachine).getControlDataAddress().getAddress()
-                            )); 
+                    for (VirtualMachineMetaData virtualMachine : mapping.keySet())
+                    {
+                        log_.debug(String.format("virtual machine %s on localController %s ", 
+                                virtualMachine.getVirtualMachineLocation().getVirtualMachineId(),
+                                mapping.get(virtualMachine).getControlDataAddress().getAddress()
+                                )); 
+                    }
                 }
                 
                 boolean isEqual = numberOfPlacedVirtualMachines == virtualMachines.size();
                 if (isEqual)
                 {
                     numberOfReleasedNodes++; 
-                    localControllers.remove(leastLoadedController);
+                    localControllers.remove(candidateController);
                     
                 } else
                 {
-                    removeVirtualMachines(virtualMachines, mapping, localController);
+                    removeVirtualMachines(virtualMachines, mapping, localController, cache);
                     
                 }
                 runningIndex--; 
@@ -148,20 +168,63 @@ public final class SerconVirtualMachineConsolidation
         ReconfigurationPlan reconfigurationPlan = new ReconfigurationPlan(mapping, 
                                                                           numberOfUsedNodes, 
                                                                           numberOfReleasedNodes);
+        reconfigurationPlan.setEstimatedMigrationTime(cache.estimateMigrationTime(mapping.keySet()));
         return reconfigurationPlan;
     }
     
+    /**
+     * Selects the next local controller to release: the one with the lowest estimated 
+     * migration time of its virtual machines, the least loaded one among equals.
+     * 
+     * @param localControllers      The local controllers (decreasing load)
+     * @param visitedControllers    The identifiers of the local controllers already considered
+     * @param cache                 The estimate cache
+     * @return                      The local controller index, -1 if none left
+     */
+    private int selectLocalController(List<LocalControllerDescription> localControllers,
+                                      Set<String> visitedControllers,
+                                      EstimateCache cache)
+    {
+        int selectedIndex = -1;
+        double selectedMigrationTime = Double.MAX_VALUE;
+        for (int i = localControllers.size() - 1; i >= 0; i--)
+        {
+            LocalControllerDescription localController = localControllers.get(i);
+            if (visitedControllers.contains(localController.getId()))
+            {
+                continue;
+            }
+            
+            double migrationTime = cache.estimateMigrationTime(localController.getVirtualMachineMetaData().values());
+            if (migrationTime < selectedMigrationTime)
+            {
+                selectedIndex = i;
+                selectedMigrationTime = migrationTime;
+            }
+        }
+        
+        if (selectedIndex != -1)
+        {
+            log_.debug(String.format("Local controller %s selected, estimated migration time: %.1f sec", 
+                                     localControllers.get(selectedIndex).getId(), selectedMigrationTime));
+        }
+        
+        return selectedIndex;
+    }
+    
     /**
      * Places virtual machines.
      * 
      * @param virtualMachines       The virtual machines
      * @param localControllers      The local controllers
      * @param mapping               The mapping
+     * @param cache                 The estimate cache
      * @return                      The number of successfully placed virtual machines
      */
     private int placeVirtualMachines(List<VirtualMachineMetaData> virtualMachines,
                                      List<LocalControllerDescription> localControllers,
-                                     Map<VirtualMachineMetaData, LocalControllerDescription> mapping)
+                                     Map<VirtualMachineMetaData, LocalControllerDescription> mapping,
+                                     EstimateCache cache)
     {
         log_.debug("Starting to place virtual machines");
         
@@ -170,7 +233,7 @@ public final class SerconVirtualMachineConsolidation
         {
             LocalControllerDescription localController = EstimatorUtils.findSuitableLocalController(virtualMachine, 
                                                                                                     localControllers,
-                                                                                                    estimator_);
+                                                                                                    cache);
             if (localController == null)
             {
                 log_.debug("No suitable local controller found!");
@@ -184,8 +247,7 @@ public final class SerconVirtualMachineConsolidation
             }
             
             numberOfVirtualMachines++;
-            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
-            localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+            cache.assign(virtualMachine, localController);
             mapping.put(virtualMachine, localController);
         }
         
@@ -198,11 +260,12 @@ public final class SerconVirtualMachineConsolidation
      * @param virtualMachines           The virtual machines
      * @param mapping                   The current mapping
      * @param currentLocalController    The current localController
+     * @param cache                     The estimate cache
      */
     private void removeVirtualMachines(List<VirtualMachineMetaData> virtualMachines, 
                                        Map<VirtualMachineMetaData, LocalControllerDescription> mapping,
-                                       LocalControllerDescription currentLocalController
-                                       ) 
+                                       LocalControllerDescription currentLocalController,
+                                       EstimateCache cache) 
     {
         log_.debug("Starting to remove virtual machines");
         for (VirtualMachineMetaData metaData : virtualMachines)
@@ -218,7 +281,7 @@ public final class SerconVirtualMachineConsolidation
                 LocalControllerDescription localController = mapping.remove(metaData);
                 if (localController != null)
                 {
-                    localController.getVirtualMachineMetaData().remove(virtualMachineId);
+                    cache.unassign(metaData, localController);
                 }
             }
             else
@@ -20,13 +20,16 @@
 package org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.comparators.VirtualMachineMigrationTimeIncreasing;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.VirtualMachineRelocation;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.utility.RelocationUtility;
@@ -65,38 +68,49 @@ public final class GreedyOverloadRelocation
     /**
      * Compute migration candidates.
      * 
+     * Either the cheapest single virtual machine covering the overload or the virtual
+     * machines covering it in increasing migration time, whichever migrates faster.
+     * 
      * @param virtualMachines       The virtual machines
      * @param overloadCapacity      The overload capacity
+     * @param cache                 The estimate cache
      * @return                      The migration candidates
      */
     private List<VirtualMachineMetaData> getMigrationCandidates(List<VirtualMachineMetaData> virtualMachines,
-                                                                List<Double> overloadCapacity)
+                                                                List<Double> overloadCapacity,
+                                                                EstimateCache cache)
     {
         log_.debug("Computing list of migration candidates");
         
-        List<VirtualMachineMetaData> migrationCandidates = new ArrayList<VirtualMachineMetaData>();       
+        VirtualMachineMetaData cheapestCandidate = null;
         for (VirtualMachineMetaData metaData : virtualMachines)
         {            
             String virtualMachineId = metaData.getVirtualMachineLocation().getVirtualMachineId();
-            List<Double> virtualMachineUsage = estimator_.estimateVirtualMachineResourceDemand(metaData);
-            log_.debug(String.format("Estimated virtual machine %s resource demand: %s. Overload capacity: %s", 
+            List<Double> virtualMachineUsage = cache.estimateVirtualMachineResourceDemand(metaData);
+            log_.debug(String.format("Estimated virtual machine %s resource demand: %s, migration time: %.1f sec. " +
+                                     "Overload capacity: %s", 
                                       virtualMachineId,
                                       virtualMachineUsage, 
+                                      cache.estimateMigrationTime(metaData),
                                       overloadCapacity));
             
-            if (MathUtils.vectorCompareIsGreater(virtualMachineUsage, overloadCapacity))
+            if (MathUtils.vectorCompareIsGreater(virtualMachineUsage, overloadCapacity) &&
+                (cheapestCandidate == null || 
+                 cache.estimateMigrationTime(metaData) < cache.estimateMigrationTime(cheapestCandidate)))
             {
-                log_.debug(String.format("Virtual machine %s added to the list of candidates!", virtualMachineId));
-                migrationCandidates.add(metaData);
-                return migrationCandidates;
+                cheapestCandidate = metaData;
             }
         }
         
+        List<VirtualMachineMetaData> sortedVirtualMachines = new ArrayList<VirtualMachineMetaData>(virtualMachines);
+        Collections.sort(sortedVirtualMachines, new VirtualMachineMigrationTimeIncreasing(cache));
+        List<VirtualMachineMetaData> migrationCandidates = new ArrayList<VirtualMachineMetaData>();       
         List<Double> tmpUsage = MathUtils.createEmptyVector();
-        for (VirtualMachineMetaData metaData : virtualMachines)
+        boolean isCovered = false;
+        for (VirtualMachineMetaData metaData : sortedVirtualMachines)
         {
             migrationCandidates.add(metaData);         
-            List<Double> virtualMachineUsage = estimator_.estimateVirtualMachineResourceDemand(metaData);            
+            List<Double> virtualMachineUsage = cache.estimateVirtualMachineResourceDemand(metaData);            
             tmpUsage = MathUtils.addVectors(tmpUsage, virtualMachineUsage);
             log_.debug(String.format("Estimated virtual machine %s resource demand: %s. Total demand: %s", 
                                      metaData.getVirtualMachineLocation().getVirtualMachineId(),
@@ -104,13 +118,58 @@ public final class GreedyOverloadRelocation
                                      tmpUsage));          
             if (MathUtils.vectorCompareIsGreater(tmpUsage, overloadCapacity))
             {
+                isCovered = true;
                 break;
             }
         }
         
+        if (isCovered)
+        {
+            removeRedundantCandidates(migrationCandidates, tmpUsage, overloadCapacity, cache);
+        }
+        
+        if (cheapestCandidate != null && 
+            (!isCovered || 
+             cache.estimateMigrationTime(cheapestCandidate) <= cache.estimateMigrationTime(migrationCandidates)))
+        {
+            log_.debug(String.format("Virtual machine %s added to the list of candidates!", 
+                                     cheapestCandidate.getVirtualMachineLocation().getVirtualMachineId()));
+            migrationCandidates.clear();
+            migrationCandidates.add(cheapestCandidate);
+        }
+        
         return migrationCandidates;
     }
     
+    /**
+     * Drops the most expensive candidates not needed to cover the overload.
+     * 
+     * @param migrationCandidates   The migration candidates (increasing migration time)
+     * @param usage                 The total candidates demand
+     * @param overloadCapacity      The overload capacity
+     * @param cache                 The estimate cache
+     */
+    private void removeRedundantCandidates(List<VirtualMachineMetaData> migrationCandidates,
+                                           List<Double> usage,
+                                           List<Double> overloadCapacity,
+                                           EstimateCache cache)
+    {
+        List<Double> tmpUsage = usage;
+        for (int i = migrationCandidates.size() - 1; i >= 0; i--)
+        {
+            VirtualMachineMetaData metaData = migrationCandidates.get(i);
+            List<Double> remainingUsage = 
+                MathUtils.substractVector(tmpUsage, cache.estimateVirtualMachineResourceDemand(metaData));
+            if (MathUtils.vectorCompareIsGreater(remainingUsage, overloadCapacity))
+            {
+                log_.debug(String.format("Virtual machine %s is not needed to resolve the overload!", 
+                                         metaData.getVirtualMachineLocation().getVirtualMachineId()));
+                migrationCandidates.remove(i);
+                tmpUsage = remainingUsage;
+            }
+        }
+    }
+    
     /**
      * Computes a migration plan to relocates virtual machines.
      * 
@@ -123,7 +182,8 @@ public final class GreedyOverloadRelocation
     {
         log_.debug("Starting to compute the moderate loaded migration plan");
 
-        List<Double> capacity = estimator_.computeLocalControllerCapacity(sourceLocalController);    
+        EstimateCache cache = new EstimateCache(estimator_);
+        List<Double> capacity = cache.computeLocalControllerCapacity(sourceLocalController);    
         log_.debug(String.format("Local controller capacity: %s", capacity));
         
         List<Double> maxAllowedCapacity = estimator_.computeMaxAllowedCapacity(sourceLocalController);
@@ -134,16 +194,17 @@ public final class GreedyOverloadRelocation
         
         List<VirtualMachineMetaData> virtualMachines = 
             new ArrayList<VirtualMachineMetaData>(sourceLocalController.getVirtualMachineMetaData().values());
-        SortUtils.sortVirtualMachinesIncreasing(virtualMachines, estimator_);
+        SortUtils.sortVirtualMachinesIncreasing(virtualMachines, cache);
         OutputUtils.printVirtualMachines(virtualMachines);
                             
         List<VirtualMachineMetaData> migrationCandidates = getMigrationCandidates(virtualMachines,
-                                                                                  overloadCapacity);        
-        SortUtils.sortLocalControllersIncreasing(destinationLocalControllers, estimator_);
+                                                                                  overloadCapacity,
+                                                                                  cache);        
+        SortUtils.sortLocalControllersIncreasing(destinationLocalControllers, cache);
         ReconfigurationPlan reconfigurationPlan = 
                 RelocationUtility.computeReconfigurationPlan(migrationCandidates,  
                                                              destinationLocalControllers, 
-                                                             estimator_,
+                                                             cache,
                                                              LocalControllerState.OVERLOADED);
         return reconfigurationPlan;
     }
@@ -25,6 +25,7 @@ import java.util.List;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.VirtualMachineRelocation;
@@ -75,12 +76,13 @@ public final class GreedyUnderloadRelocation
                 
         List<VirtualMachineMetaData> candidatevirtualMachines = 
             new ArrayList<VirtualMachineMetaData>(sourceLocalController.getVirtualMachineMetaData().values());
-        SortUtils.sortVirtualMachinesDecreasing(candidatevirtualMachines, estimator_);
-        SortUtils.sortLocalControllersDecreasing(destinationLocalControllers, estimator_);
+        EstimateCache cache = new EstimateCache(estimator_);
+        SortUtils.sortVirtualMachinesDecreasing(candidatevirtualMachines, cache);
+        SortUtils.sortLocalControllersDecreasing(destinationLocalControllers, cache);
         ReconfigurationPlan reconfigurationPlan = 
                 RelocationUtility.computeReconfigurationPlan(candidatevirtualMachines,
                                                              destinationLocalControllers, 
-                                                             estimator_,
+                                                             cache,
                                                              LocalControllerState.UNDERLOADED);
         return reconfigurationPlan;
     }
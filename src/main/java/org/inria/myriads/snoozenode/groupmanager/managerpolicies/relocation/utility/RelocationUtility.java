@@ -26,7 +26,7 @@ import java.util.Map;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
-import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
@@ -59,17 +59,17 @@ public final class RelocationUtility
      * 
      * @param migrationCandidates           The migration candidates
      * @param destinationLocalControllers   The destination local controllers
-     * @param estimator                     The resource demand estimator
+     * @param cache                         The estimate cache
      * @param state                         The local controller state
      * @return                              The migration plan
      */
     public static ReconfigurationPlan 
         computeReconfigurationPlan(List<VirtualMachineMetaData> migrationCandidates,
                                    List<LocalControllerDescription> destinationLocalControllers,
-                                   ResourceDemandEstimator estimator,
+                                   EstimateCache cache,
                                    LocalControllerState state) 
     {
-        Guard.check(migrationCandidates, destinationLocalControllers, estimator);
+        Guard.check(migrationCandidates, destinationLocalControllers, cache);
         log_.debug(String.format("Computing migration plan for %d virtual machines", migrationCandidates.size()));
         
         if (migrationCandidates.size() == 0)
@@ -92,7 +92,7 @@ public final class RelocationUtility
                 case OVERLOADED :
                    localController = EstimatorUtils.findSuitableLocalController(candidateVirtualMachine, 
                                                                                 destinationLocalControllers,
-                                                                                estimator);
+                                                                                cache);
                     if (localController == null)
                     {
                         log_.debug("No local controller with enough capacity could be detected!");
@@ -103,7 +103,7 @@ public final class RelocationUtility
                 case UNDERLOADED :
                     localController = EstimatorUtils.findSuitableLocalController(candidateVirtualMachine, 
                                                                                  destinationLocalControllers,
-                                                                                 estimator);
+                                                                                 cache);
                     if (localController == null)
                     {
                         log_.debug("No local controller with enough capacity could be detected!");
@@ -118,7 +118,7 @@ public final class RelocationUtility
             
             log_.debug(String.format("Local controller %s has enough capacity to host virtual machine %s! Adding!",
                                      localController.getId(), virtualMachineId));
-            localController.getVirtualMachineMetaData().put(virtualMachineId, candidateVirtualMachine);
+            cache.assign(candidateVirtualMachine, localController);
             mapping.put(candidateVirtualMachine, localController);
         }       
         
@@ -131,6 +131,7 @@ public final class RelocationUtility
         int numberOfUsedNodes = destinationLocalControllers.size() - 1;
         ReconfigurationPlan migrationPlan = 
                 new ReconfigurationPlan(mapping, numberOfUsedNodes, NUMBER_OF_RELEASED_NODES);      
+        migrationPlan.setEstimatedMigrationTime(cache.estimateMigrationTime(mapping.keySet()));
         return migrationPlan;
     }
 }
@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDes
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.EstimateCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.comparators.GroupManagerL1Decreasing;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.comparators.LocalControllerL1Decreasing;
@@ -61,16 +62,28 @@ public final class SortUtils
      * @param estimator            The resource estimator
      */
     public static void sortVirtualMachinesIncreasing(List<VirtualMachineMetaData> virtualMachines,
-                                                     ResourceDemandEstimator estimator) 
+                                                     ResourceDemandEstimator estimator)
+    {
+        sortVirtualMachinesIncreasing(virtualMachines, new EstimateCache(estimator));
+    }
+    
+    /**
+     * Sorts virtual machines in increasing order.
+     * 
+     * @param virtualMachines      The virtual machines
+     * @param cache                The estimate cache
+     */
+    public static void sortVirtualMachinesIncreasing(List<VirtualMachineMetaData> virtualMachines,
+                                                     EstimateCache cache)
     {
-        Guard.check(virtualMachines, estimator);
+        Guard.check(virtualMachines, cache);
         log_.debug(String.format("Sorting virtual machines in increasing order according to %s norm!", 
-                                 estimator.getSortNorm()));
+                                 cache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (cache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(virtualMachines, new VirtualMachineL1Increasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineL1Increasing(cache));
                 break;
                         
             default:
@@ -108,25 +121,37 @@ public final class SortUtils
      * @param virtualMachines    The virtual machine descriptions
      * @param estimator          The estimator
      */
-    public static void sortVirtualMachinesDecreasing(List<VirtualMachineMetaData> virtualMachines,  
+    public static void sortVirtualMachinesDecreasing(List<VirtualMachineMetaData> virtualMachines,
                                                      ResourceDemandEstimator estimator)
     {
-        Guard.check(virtualMachines, estimator);
+        sortVirtualMachinesDecreasing(virtualMachines, new EstimateCache(estimator));
+    }
+    
+    /**
+     * Sort the given VM list in decreasing order according to the specified demand measure.
+     *  
+     * @param virtualMachines    The virtual machine descriptions
+     * @param cache              The estimate cache
+     */
+    public static void sortVirtualMachinesDecreasing(List<VirtualMachineMetaData> virtualMachines,
+                                                     EstimateCache cache)
+    {
+        Guard.check(virtualMachines, cache);
         log_.debug(String.format("Sorting virtual machines in decreasing order according to %s norm!", 
-                                 estimator.getSortNorm()));
+                                 cache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (cache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(virtualMachines, new VirtualMachineL1Decreasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineL1Decreasing(cache));
                 break;
             
             case Euclid :
-                Collections.sort(virtualMachines, new VirtualMachineEuclidDecreasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineEuclidDecreasing(cache));
                 break;
             
             case Max :
-                Collections.sort(virtualMachines, new VirtualMachineMaxDecreasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineMaxDecreasing(cache));
                 break;
             
             default:
@@ -144,14 +169,26 @@ public final class SortUtils
     public static void sortLocalControllersIncreasing(List<LocalControllerDescription> localControllers,
                                                       ResourceDemandEstimator estimator)
     {
-        Guard.check(localControllers, estimator);
+        sortLocalControllersIncreasing(localControllers, new EstimateCache(estimator));
+    }
+    
+    /**
+     * Sort the local controlelrs in decreasing order according to the specified demand measure.
+     *  
+     * @param localControllers      The local controller descriptions
+     * @param cache                 The estimate cache
+     */
+    public static void sortLocalControllersIncreasing(List<LocalControllerDescription> localControllers,
+                                                      EstimateCache cache)
+    {
+        Guard.check(localControllers, cache);
         log_.debug(String.format("Sorting local controllers in increasing order according to %s norm!", 
-                                  estimator.getSortNorm()));
+                                  cache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (cache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(localControllers, new LocalControllerL1Increasing(estimator));
+                Collections.sort(localControllers, new LocalControllerL1Increasing(cache));
                 break;
             
             default:
@@ -169,14 +206,26 @@ public final class SortUtils
     public static void sortLocalControllersDecreasing(List<LocalControllerDescription> localControllers,
                                                       ResourceDemandEstimator estimator)
     {
-        Guard.check(localControllers, estimator);
+        sortLocalControllersDecreasing(localControllers, new EstimateCache(estimator));
+    }
+    
+    /**
+     * Sort the local controlelrs in decreasing order according to the specified demand measure.
+     *  
+     * @param localControllers      The local controller descriptions
+     * @param cache                 The estimate cache
+     */
+    public static void sortLocalControllersDecreasing(List<LocalControllerDescription> localControllers,
+                                                      EstimateCache cache)
+    {
+        Guard.check(localControllers, cache);
         log_.debug(String.format("Sorting local controllers in decreasing order according to %s norm!", 
-                                  estimator.getSortNorm()));
+                                  cache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (cache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(localControllers, new LocalControllerL1Decreasing(estimator));
+                Collections.sort(localControllers, new LocalControllerL1Decreasing(cache));
                 break;
             
             default:
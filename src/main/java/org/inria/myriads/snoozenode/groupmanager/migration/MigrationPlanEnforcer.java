@@ -38,6 +38,8 @@ import org.inria.myriads.snoozenode.exception.MigrationPlanEnforcerException;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationPlanListener;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationSchedulerListener;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.MigrationScheduler;
 import org.inria.myriads.snoozenode.groupmanager.migration.watchdog.MigrationWatchdog;
 import org.inria.myriads.snoozenode.groupmanager.migration.worker.MigrationWorker;
 import org.inria.myriads.snoozenode.message.ManagementMessage;
@@ -53,10 +55,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Migration plan enforcer.
  * 
+ * Migrations are queued on the (shared) migration scheduler, which starts them within
+ * the global and per local controller concurrency limits.
+ * 
  * @author Eugen Feller
  */
 public final class MigrationPlanEnforcer 
-    implements MigrationListener
+    implements MigrationListener, MigrationSchedulerListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(MigrationPlanEnforcer.class);
@@ -80,22 +85,28 @@ public final class MigrationPlanEnforcer
     /** External Sender. */
     private ExternalNotifier externalNotifier_;
     
+    /** Migration scheduler. */
+    private MigrationScheduler migrationScheduler_;
+    
     /**
      * Constructor.
      * 
      * @param groupManagerRepository     The group manager repository.
      * @param listener                   Migration plan listener.
      * @param externalNotifier           External notifier.
+     * @param migrationScheduler         The migration scheduler.
      */
     public MigrationPlanEnforcer(
                                 GroupManagerRepository groupManagerRepository, 
                                 MigrationPlanListener listener,
-                                ExternalNotifier externalNotifier
+                                ExternalNotifier externalNotifier,
+                                MigrationScheduler migrationScheduler
                                  )
     {
-        Guard.check(groupManagerRepository);
+        Guard.check(groupManagerRepository, migrationScheduler);
         log_.debug("Initializing the migration plan enforcer");
         externalNotifier_ = externalNotifier;
+        migrationScheduler_ = migrationScheduler;
         groupManagerRepository_ = groupManagerRepository;
         listener_ = listener;
         finishedMigrations_ = new ArrayList<MigrationRequest>();
@@ -222,6 +233,13 @@ public final class MigrationPlanEnforcer
     @Override
     public synchronized void onMigrationEnded(MigrationRequest migrationRequest) 
     {                     
+        if (!migrationScheduler_.onMigrationEnded(migrationRequest))
+        {
+            log_.debug(String.format("Virtual machine %s migration already ended", 
+                                     migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId()));
+            return;
+        }
+        
         log_.debug(String.format("Adding virtual machine %s to finished migrations list", 
                                  migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId()));
         
@@ -312,19 +330,15 @@ public final class MigrationPlanEnforcer
     }
 
     /**
-     * Migrates a virtual machine to the specified group manager.
+     * Queues the migration of a virtual machine to the specified group manager.
      *  
      * @param migrationRequest      The migration request
      */
     public void startMigration(MigrationRequest migrationRequest) 
     {    
-        log_.debug(String.format("Starting to migrate virtual machine %s from local controller %s:%d to %s:%d",
-            migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId(),
-            migrationRequest.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress().getAddress(), 
-            migrationRequest.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress().getPort(), 
-            migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerControlDataAddress().getAddress(),
-            migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerControlDataAddress().getPort()));
-                
+        log_.debug(String.format("Queueing virtual machine %s migration", 
+                                 migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId()));
+        
         ExternalNotifierUtils.send(
                 externalNotifier_,
                 ExternalNotificationType.MANAGEMENT,
@@ -335,6 +349,24 @@ public final class MigrationPlanEnforcer
                 "MIGRATION"
                 );
         
+        migrationScheduler_.submit(migrationRequest, this);
+    }
+    
+    /**
+     * Starts the migration of a virtual machine once scheduled.
+     *  
+     * @param migrationRequest      The migration request
+     */
+    @Override
+    public void onMigrationScheduled(MigrationRequest migrationRequest) 
+    {    
+        log_.debug(String.format("Starting to migrate virtual machine %s from local controller %s:%d to %s:%d",
+            migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId(),
+            migrationRequest.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress().getAddress(), 
+            migrationRequest.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress().getPort(), 
+            migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerControlDataAddress().getAddress(),
+            migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerControlDataAddress().getPort()));
+        
         MigrationWorker migrationThread = new MigrationWorker(migrationRequest);
         MigrationWatchdog watchdogThread = new MigrationWatchdog(migrationRequest, this);      
         migrationThread.addMigrationListener(watchdogThread);
@@ -376,7 +408,8 @@ public final class MigrationPlanEnforcer
                                  migrationPlan.getNumberOfUsedNodes(), 
                                  migrationPlan.getNumberOfReleasedNodes()));
         
-        log_.debug(String.format("Number of migrations: %s", numberOfMigrations_));
+        log_.debug(String.format("Number of migrations: %s, estimated migration time: %.1f sec", 
+                                 numberOfMigrations_, migrationPlan.getEstimatedMigrationTime()));
         
         ExternalNotifierUtils.send(
                 externalNotifier_,
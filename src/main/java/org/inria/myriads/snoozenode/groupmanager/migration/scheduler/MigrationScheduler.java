@@ -0,0 +1,363 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.estimator.MigrationCostEstimator;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationSchedulerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Migration scheduler.
+ * 
+ * Queues the migrations and starts them in submission order as long as the global limit
+ * and the limits of the source and destination local controllers allow. A migration whose 
+ * hosts are saturated does not hold back later migrations between other hosts. Every 
+ * finished migration releases its slots and starts the next eligible ones.
+ * 
+ * @author Eugen Feller
+ */
+public final class MigrationScheduler 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MigrationScheduler.class);
+    
+    /** Maximum number of concurrent migrations (<= 0 = unlimited). */
+    private final int maxMigrations_;
+    
+    /** Maximum number of concurrent migrations per local controller (<= 0 = unlimited). */
+    private final int maxMigrationsPerHost_;
+    
+    /** Pending migrations (submission order). */
+    private final LinkedList<ScheduledMigration> pending_;
+    
+    /** Running migrations. */
+    private final Map<MigrationRequest, ScheduledMigration> running_;
+    
+    /** Running migrations per local controller. */
+    private final Map<String, Integer> hostLoad_;
+    
+    /** Migration cost estimator fed with the observed migrations (null = none). */
+    private final MigrationCostEstimator costEstimator_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param maxMigrations         The maximum number of concurrent migrations
+     * @param maxMigrationsPerHost  The maximum number of concurrent migrations per local controller
+     * @param costEstimator         The migration cost estimator (null = none)
+     */
+    public MigrationScheduler(int maxMigrations, int maxMigrationsPerHost, MigrationCostEstimator costEstimator)
+    {
+        log_.debug(String.format("Initializing the migration scheduler (limits: %d / %d per host)", 
+                                 maxMigrations, maxMigrationsPerHost));
+        maxMigrations_ = maxMigrations;
+        maxMigrationsPerHost_ = maxMigrationsPerHost;
+        pending_ = new LinkedList<ScheduledMigration>();
+        running_ = new IdentityHashMap<MigrationRequest, ScheduledMigration>();
+        hostLoad_ = new HashMap<String, Integer>();
+        costEstimator_ = costEstimator;
+    }
+    
+    /**
+     * Queues a migration.
+     * 
+     * @param migrationRequest      The migration request
+     * @param listener              The listener starting the migration
+     */
+    public void submit(MigrationRequest migrationRequest, MigrationSchedulerListener listener)
+    {
+        Guard.check(migrationRequest, listener);
+        synchronized (this)
+        {
+            pending_.addLast(new ScheduledMigration(migrationRequest, listener));
+        }
+        
+        dispatch();
+    }
+    
+    /**
+     * Releases the slots of a finished migration and starts the next ones.
+     * 
+     * @param migrationRequest      The migration request
+     * @return                      true if the migration was running, false otherwise (e.g. already ended)
+     */
+    public boolean onMigrationEnded(MigrationRequest migrationRequest)
+    {
+        Guard.check(migrationRequest);
+        ScheduledMigration migration;
+        synchronized (this)
+        {
+            migration = running_.remove(migrationRequest);
+            if (migration == null)
+            {
+                return false;
+            }
+            
+            release(migration.getSourceId());
+            release(migration.getDestinationId());
+        }
+        
+        long now = System.currentTimeMillis();
+        log_.info(String.format("Virtual machine %s migration from %s to %s %s: queued %d ms, transferred %d ms",
+                                migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId(),
+                                migration.getSourceId(),
+                                migration.getDestinationId(),
+                                migrationRequest.isMigrated() ? "finished" : "failed",
+                                migration.getStartTime() - migration.getSubmitTime(),
+                                now - migration.getStartTime()));
+        if (costEstimator_ != null && migrationRequest.isMigrated())
+        {
+            costEstimator_.onMigrationFinished(migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId(),
+                                               now - migration.getStartTime());
+        }
+        
+        dispatch();
+        return true;
+    }
+    
+    /**
+     * Starts the pending migrations the limits allow.
+     */
+    private void dispatch()
+    {
+        List<ScheduledMigration> started = new ArrayList<ScheduledMigration>();
+        synchronized (this)
+        {
+            for (Iterator<ScheduledMigration> iterator = pending_.iterator(); iterator.hasNext();)
+            {
+                if (maxMigrations_ > 0 && running_.size() >= maxMigrations_)
+                {
+                    break;
+                }
+                
+                ScheduledMigration migration = iterator.next();
+                if (!hasCapacity(migration.getSourceId()) || !hasCapacity(migration.getDestinationId()))
+                {
+                    continue;
+                }
+                
+                iterator.remove();
+                acquire(migration.getSourceId());
+                acquire(migration.getDestinationId());
+                migration.start();
+                running_.put(migration.getMigrationRequest(), migration);
+                started.add(migration);
+            }
+            
+            log_.debug(String.format("Migrations running: %d, pending: %d", running_.size(), pending_.size()));
+        }
+        
+        for (ScheduledMigration migration : started)
+        {
+            migration.getListener().onMigrationScheduled(migration.getMigrationRequest());
+        }
+    }
+    
+    /**
+     * Checks if a local controller can take one more migration.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if possible, false otherwise
+     */
+    private boolean hasCapacity(String localControllerId)
+    {
+        if (maxMigrationsPerHost_ <= 0 || localControllerId == null)
+        {
+            return true;
+        }
+        
+        Integer load = hostLoad_.get(localControllerId);
+        return load == null || load < maxMigrationsPerHost_;
+    }
+    
+    /**
+     * Accounts a migration on a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    private void acquire(String localControllerId)
+    {
+        if (localControllerId == null)
+        {
+            return;
+        }
+        
+        Integer load = hostLoad_.get(localControllerId);
+        hostLoad_.put(localControllerId, load == null ? 1 : load + 1);
+    }
+    
+    /**
+     * Releases a migration on a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    private void release(String localControllerId)
+    {
+        Integer load = localControllerId == null ? null : hostLoad_.get(localControllerId);
+        if (load == null)
+        {
+            return;
+        }
+        
+        if (load <= 1)
+        {
+            hostLoad_.remove(localControllerId);
+            return;
+        }
+        
+        hostLoad_.put(localControllerId, load - 1);
+    }
+    
+    /**
+     * Returns the number of pending migrations.
+     * 
+     * @return  The number of pending migrations
+     */
+    public synchronized int getNumberOfPendingMigrations()
+    {
+        return pending_.size();
+    }
+    
+    /**
+     * Returns the number of running migrations.
+     * 
+     * @return  The number of running migrations
+     */
+    public synchronized int getNumberOfRunningMigrations()
+    {
+        return running_.size();
+    }
+    
+    /**
+     * Queued or running migration.
+     */
+    private static final class ScheduledMigration
+    {
+        /** Migration request. */
+        private final MigrationRequest migrationRequest_;
+        
+        /** Listener starting the migration. */
+        private final MigrationSchedulerListener listener_;
+        
+        /** Source local controller identifier. */
+        private final String sourceId_;
+        
+        /** Destination local controller identifier. */
+        private final String destinationId_;
+        
+        /** Submission time. */
+        private final long submitTime_;
+        
+        /** Start time. */
+        private long startTime_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param migrationRequest  The migration request
+         * @param listener          The listener
+         */
+        private ScheduledMigration(MigrationRequest migrationRequest, MigrationSchedulerListener listener)
+        {
+            migrationRequest_ = migrationRequest;
+            listener_ = listener;
+            sourceId_ = migrationRequest.getSourceVirtualMachineLocation().getLocalControllerId();
+            destinationId_ = migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerId();
+            submitTime_ = System.currentTimeMillis();
+        }
+        
+        /** Marks the migration as started. */
+        private void start()
+        {
+            startTime_ = System.currentTimeMillis();
+        }
+        
+        /**
+         * Returns the migration request.
+         * 
+         * @return  The migration request
+         */
+        private MigrationRequest getMigrationRequest()
+        {
+            return migrationRequest_;
+        }
+        
+        /**
+         * Returns the listener.
+         * 
+         * @return  The listener
+         */
+        private MigrationSchedulerListener getListener()
+        {
+            return listener_;
+        }
+        
+        /**
+         * Returns the source local controller identifier.
+         * 
+         * @return  The source local controller identifier
+         */
+        private String getSourceId()
+        {
+            return sourceId_;
+        }
+        
+        /**
+         * Returns the destination local controller identifier.
+         * 
+         * @return  The destination local controller identifier
+         */
+        private String getDestinationId()
+        {
+            return destinationId_;
+        }
+        
+        /**
+         * Returns the submission time.
+         * 
+         * @return  The submission time
+         */
+        private long getSubmitTime()
+        {
+            return submitTime_;
+        }
+        
+        /**
+         * Returns the start time.
+         * 
+         * @return  The start time
+         */
+        private long getStartTime()
+        {
+            return startTime_;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.concurrent.BlockingQueue;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.external.ExternalNotifierSettings;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
@@ -33,6 +34,9 @@ import org.inria.myriads.snoozenode.groupmanager.monitoring.receiver.GroupManage
 import org.inria.myriads.snoozenode.groupmanager.monitoring.receiver.LocalControllerSummaryReceiver;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.service.GroupManagerMonitoringService;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineLocationIndex;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
+import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
 
 /**
@@ -55,17 +59,31 @@ public final class MonitoringFactory
      * 
      * @param networkAddress    The network address
      * @param timeOut           The time out
+     * @param transportSettings The monitoring transport settings
      * @param repository        The repository
+     * @param submissionListener The submission finish listener
+     * @param locationIndex     The virtual machine location index
+     * @param heartbeatMessage  The group leader heartbeat message
      * @return                  The group leader monitoring data receiver
      * @throws Exception        Exception 
      */
     public static GroupManagerSummaryReceiver 
         newGroupManagerSummaryReceiver(NetworkAddress networkAddress, 
                                        int timeOut, 
-                                       GroupLeaderRepository repository) 
+                                       MonitoringTransportSettings transportSettings,
+                                       GroupLeaderRepository repository,
+                                       VirtualMachineManagerListener submissionListener,
+                                       VirtualMachineLocationIndex locationIndex,
+                                       HeartbeatMessage heartbeatMessage) 
         throws Exception
     {
-        return new GroupManagerSummaryReceiver(networkAddress, timeOut, repository);
+        return new GroupManagerSummaryReceiver(networkAddress, 
+                                               timeOut, 
+                                               transportSettings, 
+                                               repository, 
+                                               submissionListener,
+                                               locationIndex,
+                                               heartbeatMessage);
     }
     
     /**
@@ -73,6 +91,7 @@ public final class MonitoringFactory
      * 
      * @param networkAddress     The network address
      * @param timeOut            The timeout
+     * @param transportSettings  The monitoring transport settings
      * @param dataQueue          The data queue
      * @param stateMachine       The state machine
      * @param repository         The group manager repository
@@ -82,12 +101,18 @@ public final class MonitoringFactory
     public static LocalControllerSummaryReceiver
         newLocalControllerSummaryReceiver(NetworkAddress networkAddress, 
                                           int timeOut, 
+                                          MonitoringTransportSettings transportSettings,
                                           BlockingQueue<LocalControllerDataTransporter> dataQueue,
                                           StateMachine stateMachine,
                                           GroupManagerRepository repository) 
         throws Exception
     {
-        return new LocalControllerSummaryReceiver(networkAddress, timeOut, dataQueue, stateMachine, repository);     
+        return new LocalControllerSummaryReceiver(networkAddress, 
+                                                  timeOut, 
+                                                  transportSettings, 
+                                                  dataQueue, 
+                                                  stateMachine, 
+                                                  repository);     
     }
     
     /**
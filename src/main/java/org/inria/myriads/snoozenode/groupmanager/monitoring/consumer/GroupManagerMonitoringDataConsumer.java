@@ -8,6 +8,7 @@ import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.comunicator.CommunicatorFactory;
 import org.inria.myriads.snoozenode.comunicator.api.Communicator;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +45,7 @@ public class GroupManagerMonitoringDataConsumer implements Runnable
      * @param groupManagerId        The group Manager Id.
      * @param groupLeaderAddress    The group Leader address.
      * @param databaseSettings      The databse Settings.
+     * @param transportSettings     The monitoring transport settings.
      * @param dataQueue             The data queue.
      * @throws IOException      IOException
      */
@@ -51,6 +53,7 @@ public class GroupManagerMonitoringDataConsumer implements Runnable
             String groupManagerId, 
             NetworkAddress groupLeaderAddress,
             DatabaseSettings databaseSettings,
+            MonitoringTransportSettings transportSettings,
             BlockingQueue<GroupManagerDataTransporter> dataQueue 
             ) throws IOException
     {
@@ -58,7 +61,9 @@ public class GroupManagerMonitoringDataConsumer implements Runnable
         groupManagerId_ = groupManagerId;
         dataQueue_ = dataQueue;
         isTerminated_ = false;
-        communicator_ = CommunicatorFactory.newGroupManagerCommunicator(groupLeaderAddress, databaseSettings); 
+        communicator_ = CommunicatorFactory.newGroupManagerCommunicator(groupLeaderAddress, 
+                                                                        databaseSettings, 
+                                                                        transportSettings); 
     }
 
     @Override
@@ -74,8 +79,7 @@ public class GroupManagerMonitoringDataConsumer implements Runnable
 
                 if (groupManagerData.getSummary() == null)
                 {
-                    
-                    sendHeartbeatData(groupManagerId_);
+                    sendHeartbeatData(groupManagerData);
                     continue;
                 }
                    
@@ -121,15 +125,17 @@ public class GroupManagerMonitoringDataConsumer implements Runnable
      * 
      * Sends heartbeat datas.
      * 
-     * @param groupManagerId            The group manager id.
+     * Submission finishes travel as heartbeats too: they always reach the group leader
+     * directly, whatever the regular data transport is.
+     * 
+     * @param heartbeatData             The heartbeat data.
      * @throws InterruptedException     Exception
      */
-    private void sendHeartbeatData(String groupManagerId) throws InterruptedException
+    private void sendHeartbeatData(GroupManagerDataTransporter heartbeatData) throws InterruptedException
     {
-        GroupManagerDataTransporter data = new GroupManagerDataTransporter(groupManagerId, null);
         try
         {
-            communicator_.sendHeartbeatData(data);
+            communicator_.sendHeartbeatData(heartbeatData);
         }
         catch (Exception exception)
         {
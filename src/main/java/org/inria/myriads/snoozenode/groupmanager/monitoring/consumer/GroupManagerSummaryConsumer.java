@@ -19,10 +19,13 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.monitoring.consumer;
 
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineLocationIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,21 +45,33 @@ public final class GroupManagerSummaryConsumer
     
     /** Queue with data. */
     private BlockingQueue<GroupManagerDataTransporter> dataQueue_;
+    
+    /** Virtual machine location index. */
+    private VirtualMachineLocationIndex locationIndex_;
+    
+    /** Summary decoder. */
+    private GroupManagerSummaryDecoder decoder_;
 
     /**
      * Group manager monitoring data consumer.
      * 
      * @param dataQueue     The data queue reference
      * @param repository    The group leader description
+     * @param locationIndex The virtual machine location index
+     * @param decoder       The summary decoder
      * @throws Exception    The exception
      */ 
     public GroupManagerSummaryConsumer(BlockingQueue<GroupManagerDataTransporter> dataQueue,
-                                       GroupLeaderRepository repository)
+                                       GroupLeaderRepository repository,
+                                       VirtualMachineLocationIndex locationIndex,
+                                       GroupManagerSummaryDecoder decoder)
         throws Exception 
     {
         log_.debug("Initializing the group manager monitoring data consumer");
         dataQueue_ = dataQueue;
         repository_ = repository;
+        locationIndex_ = locationIndex;
+        decoder_ = decoder;
     }
 
     /** The run method. */
@@ -67,11 +82,28 @@ public final class GroupManagerSummaryConsumer
             while (true)
             {            
                 GroupManagerDataTransporter groupManagerTransporter = dataQueue_.take();
-                if (groupManagerTransporter != null)
+                if (groupManagerTransporter == null)
+                {
+                    continue;
+                }
+                
+                if (!decoder_.decode(groupManagerTransporter))
+                {
+                    continue;
+                }
+                
+                String groupManagerId = groupManagerTransporter.getId();
+                GroupManagerSummaryInformation summary = groupManagerTransporter.getSummary();
+                List<String> removedLocalControllers = groupManagerTransporter.getRemovedLocalControllers();
+                // index first: the repository strips the local controllers off the summary
+                locationIndex_.onGroupManagerSummary(groupManagerId, summary, removedLocalControllers);
+                if (groupManagerTransporter.isDelta())
+                {
+                    repository_.addGroupManagerSummaryDelta(groupManagerId, summary, removedLocalControllers);
+                } else
                 {
-                    repository_.addGroupManagerSummaryInformation(groupManagerTransporter.getId(),
-                                                                  groupManagerTransporter.getSummary());
-                }         
+                    repository_.addGroupManagerSummaryInformation(groupManagerId, summary);
+                }
             }
         }
         catch (InterruptedException exception) 
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.monitoring.consumer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group manager summary decoder.
+ * 
+ * Checks the sequence numbers of the summaries. Delta summaries are applied as they 
+ * are by the group leader repository. On a sequence gap (or a delta without preceding 
+ * full summary) the summary is dropped and a full summary is requested through the 
+ * group leader heartbeat.
+ * 
+ * @author Eugen Feller
+ */
+public final class GroupManagerSummaryDecoder 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(GroupManagerSummaryDecoder.class);
+    
+    /** Group leader heartbeat message. */
+    private HeartbeatMessage heartbeatMessage_;
+    
+    /** Next expected sequence numbers (group manager identifier : sequence number). */
+    private Map<String, Long> nextSequenceNumbers_;
+    
+    /** Group managers asked to send a full summary. */
+    private Set<String> resyncRequests_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param heartbeatMessage  The group leader heartbeat message
+     */
+    public GroupManagerSummaryDecoder(HeartbeatMessage heartbeatMessage)
+    {
+        Guard.check(heartbeatMessage);
+        heartbeatMessage_ = heartbeatMessage;
+        nextSequenceNumbers_ = new HashMap<String, Long>();
+        resyncRequests_ = new LinkedHashSet<String>();
+    }
+    
+    /**
+     * Checks a summary.
+     * 
+     * @param dataTransporter   The data transporter
+     * @return                  true if the summary can be applied, false if it must be dropped
+     */
+    public synchronized boolean decode(GroupManagerDataTransporter dataTransporter)
+    {
+        Guard.check(dataTransporter);
+        String groupManagerId = dataTransporter.getId();
+        long sequenceNumber = dataTransporter.getSequenceNumber();
+        Long nextSequenceNumber = nextSequenceNumbers_.get(groupManagerId);
+        if (!dataTransporter.isDelta())
+        {
+            nextSequenceNumbers_.put(groupManagerId, sequenceNumber + 1);
+            if (resyncRequests_.remove(groupManagerId))
+            {
+                log_.debug(String.format("Group manager %s resynchronized", groupManagerId));
+                publishResyncRequests();
+            }
+            
+            return true;
+        }
+        
+        if (nextSequenceNumber == null || nextSequenceNumber != sequenceNumber)
+        {
+            log_.debug(String.format("Sequence gap on group manager %s summaries (expected: %s, received: %d)! " +
+                                     "Requesting a full summary", 
+                                     groupManagerId,
+                                     nextSequenceNumber == null ? "full summary" : String.valueOf(nextSequenceNumber),
+                                     sequenceNumber));
+            nextSequenceNumbers_.remove(groupManagerId);
+            if (resyncRequests_.add(groupManagerId))
+            {
+                publishResyncRequests();
+            }
+            
+            return false;
+        }
+        
+        nextSequenceNumbers_.put(groupManagerId, sequenceNumber + 1);
+        return true;
+    }
+    
+    /**
+     * Drops a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     */
+    public synchronized void dropGroupManager(String groupManagerId)
+    {
+        Guard.check(groupManagerId);
+        nextSequenceNumbers_.remove(groupManagerId);
+        if (resyncRequests_.remove(groupManagerId))
+        {
+            publishResyncRequests();
+        }
+    }
+    
+    /**
+     * Publishes the resync requests on the group leader heartbeat.
+     */
+    private void publishResyncRequests()
+    {
+        ArrayList<String> resyncRequests = null;
+        if (!resyncRequests_.isEmpty())
+        {
+            resyncRequests = new ArrayList<String>(resyncRequests_);
+        }
+        
+        heartbeatMessage_.setResyncRequests(resyncRequests);
+    }
+}
@@ -79,6 +79,7 @@ public final class LocalControllerSummaryConsumer
             while (true)
             {                            
                 LocalControllerDataTransporter monitoringData = dataQueue_.take();
+                stateMachine_.onLocalControllerReady(monitoringData.getLocalControllerId());
                 if (monitoringData.getData() == null)
                 {
                     log_.debug("Received heartbeat from localController");
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group manager summary encoder.
+ * 
+ * Every summary gets a sequence number. A full summary is sent every n summaries
+ * (and on group leader request), the others only carry the local controllers
+ * whose version changed since the previous summary. Versions are maintained by
+ * the repository; without versions every local controller counts as changed.
+ * 
+ * @author Eugen Feller
+ */
+public final class GroupManagerSummaryEncoder 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(GroupManagerSummaryEncoder.class);
+    
+    /** Number of summaries between two full summaries. */
+    private final int fullSnapshotInterval_;
+    
+    /** Next sequence number. */
+    private long sequenceNumber_;
+    
+    /** Local controller versions of the previous summary (null = none sent yet). */
+    private Map<String, Long> versions_;
+    
+    /** Signals a full summary was requested. */
+    private volatile boolean isResyncRequested_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param fullSnapshotInterval  The number of summaries between two full summaries (1 = always full)
+     */
+    public GroupManagerSummaryEncoder(int fullSnapshotInterval)
+    {
+        fullSnapshotInterval_ = Math.max(1, fullSnapshotInterval);
+    }
+    
+    /**
+     * Encodes a summary.
+     * 
+     * The versions must be read before the local controllers of the summary,
+     * so that a concurrent change is sent again with the next summary.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param summary           The summary (with all local controllers)
+     * @param versions          The local controller versions (null if not tracked)
+     * @return                  The data transporter
+     */
+    public synchronized GroupManagerDataTransporter encode(String groupManagerId, 
+                                                           GroupManagerSummaryInformation summary,
+                                                           Map<String, Long> versions)
+    {
+        long sequenceNumber = sequenceNumber_++;
+        if (fullSnapshotInterval_ == 1)
+        {
+            return new GroupManagerDataTransporter(groupManagerId, summary, sequenceNumber, null);
+        }
+        
+        boolean isFull = versions_ == null || isResyncRequested_ || sequenceNumber % fullSnapshotInterval_ == 0;
+        isResyncRequested_ = false;
+        
+        Map<String, Long> sentVersions = new HashMap<String, Long>();
+        ArrayList<LocalControllerDescription> changedLocalControllers = new ArrayList<LocalControllerDescription>();
+        for (LocalControllerDescription localController : summary.getLocalControllers())
+        {
+            String localControllerId = localController.getId();
+            Long version = versions == null ? null : versions.get(localControllerId);
+            sentVersions.put(localControllerId, version);
+            Long previousVersion = versions_ == null ? null : versions_.get(localControllerId);
+            if (version == null || !version.equals(previousVersion))
+            {
+                changedLocalControllers.add(localController);
+            }
+        }
+        
+        ArrayList<String> removedLocalControllers = null;
+        if (!isFull)
+        {
+            removedLocalControllers = new ArrayList<String>();
+            for (String localControllerId : versions_.keySet())
+            {
+                if (!sentVersions.containsKey(localControllerId))
+                {
+                    removedLocalControllers.add(localControllerId);
+                }
+            }
+            
+            log_.debug(String.format("Delta summary %d: %d of %d local controllers changed, %d removed", 
+                                     sequenceNumber,
+                                     changedLocalControllers.size(), 
+                                     sentVersions.size(),
+                                     removedLocalControllers.size()));
+            summary.setLocalControllers(changedLocalControllers);
+        }
+        
+        versions_ = sentVersions;
+        return new GroupManagerDataTransporter(groupManagerId, summary, sequenceNumber, removedLocalControllers);
+    }
+    
+    /**
+     * Requests the next summary to be full.
+     */
+    public void requestResync()
+    {
+        log_.debug("Full summary requested");
+        isResyncRequested_ = true;
+    }
+}
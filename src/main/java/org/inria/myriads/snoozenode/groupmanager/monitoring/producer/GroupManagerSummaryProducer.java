@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
@@ -30,6 +31,7 @@ import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.external.ExternalNotifierSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.listener.GroupManagerSummaryListener;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,6 +66,12 @@ public final class GroupManagerSummaryProducer
     /** Data queue.*/
     private BlockingQueue<GroupManagerDataTransporter> dataQueue_;
     
+    /** Summary encoder. */
+    private GroupManagerSummaryEncoder encoder_;
+    
+    /** Summary listener (null = none). */
+    private volatile GroupManagerSummaryListener summaryListener_;
+    
     /**
      * Constructor.
      * 
@@ -73,6 +81,7 @@ public final class GroupManagerSummaryProducer
      * @param monitoringSettings            The monitoring settings
      * @param monitoringExternalSettings    The external settings
      * @param dataQueue                     The dataQueue
+     * @param fullSnapshotInterval          The number of summaries between two full summaries
      * @throws IOException          The I/O exception
      */
     public GroupManagerSummaryProducer(GroupManagerRepository repository, 
@@ -80,7 +89,8 @@ public final class GroupManagerSummaryProducer
                                        ResourceDemandEstimator estimator,
                                        MonitoringSettings monitoringSettings,
                                        ExternalNotifierSettings monitoringExternalSettings,
-                                       BlockingQueue<GroupManagerDataTransporter> dataQueue
+                                       BlockingQueue<GroupManagerDataTransporter> dataQueue,
+                                       int fullSnapshotInterval
                                        )
         throws  IOException 
     { 
@@ -92,7 +102,7 @@ public final class GroupManagerSummaryProducer
         monitoringInterval_ = monitoringSettings.getInterval();
         lockObject_ = new Object();
         dataQueue_ = dataQueue;
-        
+        encoder_ = new GroupManagerSummaryEncoder(fullSnapshotInterval);
     }
     
     /**
@@ -100,16 +110,23 @@ public final class GroupManagerSummaryProducer
      * 
      * @return    The data transporter
      */
-    private GroupManagerDataTransporter createDataTransporter()
+    GroupManagerDataTransporter createDataTransporter()
     {
+        Map<String, Long> versions = repository_.getLocalControllerVersions();
         ArrayList<LocalControllerDescription> localControllers = 
-            repository_.getLocalControllerDescriptions(estimator_.getNumberOfMonitoringEntries(), false, true);
+            repository_.getLocalControllerDescriptions(estimator_.getNumberOfCopiedMonitoringEntries(), false, true);
         ArrayList<String> legacyIpAddresses = repository_.getLegacyIpAddresses();
         GroupManagerSummaryInformation summary = estimator_.generateGroupManagerSummaryInformation(localControllers);
+        GroupManagerSummaryListener summaryListener = summaryListener_;
+        if (summaryListener != null)
+        {
+            summaryListener.onGroupManagerSummary(summary, localControllers);
+        }
+        
         summary.setLegacyIpAddresses(legacyIpAddresses);
         summary.setLocalControllers(repository_.getLocalControllerDescriptionForDataTransporter());
         String groupManagerId = repository_.getGroupManagerId();
-        GroupManagerDataTransporter dataTransporter = new GroupManagerDataTransporter(groupManagerId, summary);      
+        GroupManagerDataTransporter dataTransporter = encoder_.encode(groupManagerId, summary, versions);      
         return dataTransporter;
     }
     
@@ -146,7 +163,23 @@ public final class GroupManagerSummaryProducer
         log_.debug("Group manager summary information producer is stopped!");
     }
     
+    /**
+     * Sets the summary listener.
+     * 
+     * @param summaryListener   The summary listener
+     */
+    public void setSummaryListener(GroupManagerSummaryListener summaryListener)
+    {
+        summaryListener_ = summaryListener;
+    }
     
+    /**
+     * Requests the next summary to be full.
+     */
+    public void requestResync()
+    {
+        encoder_.requestResync();
+    }
 
     /** 
      * Terminating the thread.
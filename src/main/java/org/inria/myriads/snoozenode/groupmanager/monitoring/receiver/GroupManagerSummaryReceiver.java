@@ -26,11 +26,17 @@ import java.util.concurrent.LinkedBlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.GroupManagerSummaryConsumer;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.GroupManagerSummaryDecoder;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineLocationIndex;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
+import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
 import org.inria.myriads.snoozenode.tcpip.DataListener;
-import org.inria.myriads.snoozenode.tcpip.TCPDataReceiver;
+import org.inria.myriads.snoozenode.tcpip.DataReceiver;
+import org.inria.myriads.snoozenode.tcpip.DataReceiverFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +45,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eugen Feller
  */
-public final class GroupManagerSummaryReceiver extends TCPDataReceiver 
+public final class GroupManagerSummaryReceiver 
     implements DataListener 
 {
     /** Define the logger. */
@@ -53,25 +59,48 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
     
     /** Group manager identifiers. */
     private Map<String, String> groupManagerIds_;
+    
+    /** Data receiver. */
+    private DataReceiver receiver_;
+    
+    /** Submission finish listener. */
+    private VirtualMachineManagerListener submissionListener_;
+    
+    /** Virtual machine location index. */
+    private VirtualMachineLocationIndex locationIndex_;
+    
+    /** Summary decoder. */
+    private GroupManagerSummaryDecoder decoder_;
 
     /**
      * Constructor.
      * 
      * @param networkAddress   The network address
      * @param timeOut          The timeout
+     * @param transportSettings The monitoring transport settings
      * @param repository       The group leader repository
+     * @param submissionListener The submission finish listener
+     * @param locationIndex    The virtual machine location index
+     * @param heartbeatMessage The group leader heartbeat message
      * @throws Exception       Exception 
      */
     public GroupManagerSummaryReceiver(NetworkAddress networkAddress, 
                                        int timeOut,
-                                       GroupLeaderRepository repository)
+                                       MonitoringTransportSettings transportSettings,
+                                       GroupLeaderRepository repository,
+                                       VirtualMachineManagerListener submissionListener,
+                                       VirtualMachineLocationIndex locationIndex,
+                                       HeartbeatMessage heartbeatMessage)
         throws Exception                                        
     {
-        super(networkAddress, timeOut);
-        Guard.check(repository);
+        Guard.check(repository, submissionListener, locationIndex, heartbeatMessage);
         log_.debug("Initializing the group manager summary information receiver");
         
+        receiver_ = DataReceiverFactory.newDataReceiver(networkAddress, timeOut, transportSettings);
         repository_ = repository;
+        submissionListener_ = submissionListener;
+        locationIndex_ = locationIndex;
+        decoder_ = new GroupManagerSummaryDecoder(heartbeatMessage);
         groupManagerIds_ = new HashMap<String, String>();
         dataQueue_ = new LinkedBlockingQueue<GroupManagerDataTransporter>();
           
@@ -89,7 +118,10 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
     private void startDataConsumer()   
         throws Exception
     {
-        GroupManagerSummaryConsumer consumer = new GroupManagerSummaryConsumer(dataQueue_, repository_);
+        GroupManagerSummaryConsumer consumer = new GroupManagerSummaryConsumer(dataQueue_, 
+                                                                            repository_, 
+                                                                            locationIndex_, 
+                                                                            decoder_);
         new Thread(consumer, "GroupManagerSummaryConsumer").start();       
     }
     
@@ -98,8 +130,16 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
      */
     private void starDataReceiver()
     {
-        setHandler(this);
-        new Thread(this, "TCPDataReceiver").start();       
+        receiver_.setHandler(this);
+        new Thread(receiver_, "TCPDataReceiver").start();       
+    }
+    
+    /**
+     * Terminates the receiver.
+     */
+    public void terminate()
+    {
+        receiver_.terminate();
     }
     
     /** 
@@ -120,6 +160,8 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
             return;
         }
         
+        locationIndex_.dropGroupManager(groupManagerId);
+        decoder_.dropGroupManager(groupManagerId);
         boolean isDropped = repository_.dropGroupManager(groupManagerId);
         if (isDropped)
         {
@@ -149,6 +191,16 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
             groupManagerIds_.put(workerThreadId, dataTransporter.getId());    
         }
         
+        if (dataTransporter.getSubmissionResponse() != null)
+        {
+            log_.debug(String.format("Received group manager %s submission %s finish", 
+                                     dataTransporter.getId(), 
+                                     dataTransporter.getTaskIdentifier()));
+            submissionListener_.onSubmissionFinished(dataTransporter.getTaskIdentifier(), 
+                                                     dataTransporter.getSubmissionResponse());
+            return;
+        }
+        
         if (dataTransporter.getSummary() == null)
         {
             log_.debug("Received heartbeat ... skipping");
@@ -162,6 +214,8 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
                                  "Used: %s, " +
                                  "Legacy IP addresses: %s, " +
                                  "Assigned localControllers: %d, " +
+                                 "Sequence number: %d, " +
+                                 "Delta: %s, " +
                                  "Worker thread id: %s",
                                  dataTransporter.getId(), 
                                  dataTransporter.getSummary().getActiveCapacity(),
@@ -170,6 +224,8 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
                                  dataTransporter.getSummary().getUsedCapacity(), 
                                  dataTransporter.getSummary().getLegacyIpAddresses(),
                                  dataTransporter.getSummary().getLocalControllers().size(),
+                                 dataTransporter.getSequenceNumber(),
+                                 dataTransporter.isDelta(),
                                  workerThreadId));
     
 
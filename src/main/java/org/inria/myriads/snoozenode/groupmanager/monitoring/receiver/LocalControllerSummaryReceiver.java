@@ -25,12 +25,14 @@ import java.util.concurrent.BlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
 import org.inria.myriads.snoozenode.tcpip.DataListener;
-import org.inria.myriads.snoozenode.tcpip.TCPDataReceiver;
+import org.inria.myriads.snoozenode.tcpip.DataReceiver;
+import org.inria.myriads.snoozenode.tcpip.DataReceiverFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +41,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eugen Feller
  */
-public final class LocalControllerSummaryReceiver extends TCPDataReceiver 
+public final class LocalControllerSummaryReceiver 
     implements DataListener 
 {
     /** Define the logger. */
@@ -56,12 +58,16 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
 
     /** Group manager repository. */
     private GroupManagerRepository repository_;
+    
+    /** Data receiver. */
+    private DataReceiver receiver_;
    
     /**
      * Constructor.
      * 
      * @param networkAddress     The network address
      * @param timeOut            The timeout
+     * @param transportSettings  The monitoring transport settings
      * @param dataQueue          The data queue
      * @param stateMachine       The state machine
      * @param repository         The group manager repository
@@ -69,14 +75,15 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
      */
     public LocalControllerSummaryReceiver(NetworkAddress networkAddress, 
                                           int timeOut,
+                                          MonitoringTransportSettings transportSettings,
                                           BlockingQueue<LocalControllerDataTransporter> dataQueue, 
                                           StateMachine stateMachine,
                                           GroupManagerRepository repository) 
         throws Exception 
     {
-        super(networkAddress, timeOut);
         log_.debug("Initializing the local controller data receiver");
         
+        receiver_ = DataReceiverFactory.newDataReceiver(networkAddress, timeOut, transportSettings);
         dataQueue_ = dataQueue;
         stateMachine_ = stateMachine;
         repository_ = repository;
@@ -90,8 +97,16 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
      */
     private void starReceiver()
     {
-        setHandler(this);
-        new Thread(this, "LocalControllerSummaryReceiver").start();
+        receiver_.setHandler(this);
+        new Thread(receiver_, "LocalControllerSummaryReceiver").start();
+    }
+    
+    /**
+     * Terminates the receiver.
+     */
+    public void terminate()
+    {
+        receiver_.terminate();
     }
     
     /**
@@ -150,9 +165,10 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
                                  workerThreadId,
                                  localControllerId));
         
-        if (stateMachine_.isBusy() && !monitoringData.getState().equals(LocalControllerState.STABLE))
+        if (stateMachine_.isBusy(localControllerId) && 
+            !monitoringData.getState().equals(LocalControllerState.STABLE))
         {
-            log_.debug("System is BUSY! Skipping overloaded/underloaded local controller monitoring data!");
+            log_.debug("Local controller is BUSY! Skipping overloaded/underloaded local controller monitoring data!");
             return;
         }
         
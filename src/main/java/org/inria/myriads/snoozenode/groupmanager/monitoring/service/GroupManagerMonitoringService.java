@@ -24,16 +24,20 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.external.ExternalNotifierSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.enums.DatabaseType;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.GroupManagerMonitoringDataConsumer;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.listener.GroupManagerSummaryListener;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.producer.GroupManagerHeartbeatDataProducer;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.producer.GroupManagerSummaryProducer;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +47,7 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class GroupManagerMonitoringService 
+    implements VirtualMachineManagerListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerMonitoringService.class);
@@ -76,6 +81,9 @@ public final class GroupManagerMonitoringService
     
     /** Monitoring external.*/
     private ExternalNotifierSettings monitoringExternalSettings_;
+    
+    /** Summary listener (null = none). */
+    private GroupManagerSummaryListener summaryListener_;
 
    
 
@@ -149,11 +157,54 @@ public final class GroupManagerMonitoringService
                                                                   estimator_,
                                                                   monitoringSettings_,
                                                                   monitoringExternalSettings_,
-                                                                  dataQueue_
+                                                                  dataQueue_,
+                                                                  getSummaryFullSnapshotInterval()
                                                                   );
+        monitoringDataProducer_.setSummaryListener(summaryListener_);
         new Thread(monitoringDataProducer_, "GroupManagerSummaryProducer").start();
     }
     
+    /**
+     * Returns the number of summaries between two full summaries.
+     * (delta summaries rely on the group leader keeping them in memory)
+     * 
+     * @return  The full snapshot interval
+     */
+    private int getSummaryFullSnapshotInterval()
+    {
+        if (databaseSettings_.getType() != DatabaseType.memory)
+        {
+            return 1;
+        }
+        
+        return monitoringSettings_.getSummaryFullSnapshotInterval();
+    }
+    
+    /**
+     * Sets the listener of the produced summaries.
+     * 
+     * @param summaryListener   The summary listener
+     */
+    public void setSummaryListener(GroupManagerSummaryListener summaryListener)
+    {
+        summaryListener_ = summaryListener;
+        if (monitoringDataProducer_ != null)
+        {
+            monitoringDataProducer_.setSummaryListener(summaryListener);
+        }
+    }
+    
+    /**
+     * Requests the next group manager summary to be full.
+     */
+    public void requestSummaryResync()
+    {
+        if (monitoringDataProducer_ != null)
+        {
+            monitoringDataProducer_.requestResync();
+        }
+    }
+    
     /**
      * Starts the heartbeat producer.
      * 
@@ -186,11 +237,26 @@ public final class GroupManagerMonitoringService
                 groupManagerId_,
                 groupLeaderAddress,
                 databaseSettings_,
+                monitoringSettings_.getTransport(),
                 dataQueue_
                 );
         new Thread(groupManagerMonitoringDataConsumer_, "GroupManagerMonitoringDataConsumer").start();
     }
     
+    /**
+     * Pushes a submission finish to the group leader.
+     * 
+     * @param taskIdentifier        The task identifier
+     * @param submissionResponse    The virtual machine submission response
+     */
+    @Override
+    public void onSubmissionFinished(String taskIdentifier, VirtualMachineSubmissionResponse submissionResponse)
+    {
+        Guard.check(taskIdentifier, submissionResponse);
+        log_.debug(String.format("Adding submission %s finish to the queue", taskIdentifier));
+        dataQueue_.add(new GroupManagerDataTransporter(groupManagerId_, taskIdentifier, submissionResponse));
+    }
+    
     /**
      * Terminates the monitoring service.
      */
@@ -25,6 +25,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.MonitoringFactory;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.LocalControllerSummaryConsumer;
@@ -106,8 +107,10 @@ public final class LocalControllerMonitoringService
         log_.debug("Starting the local controller summary information receiver");     
         NetworkAddress address = nodeConfiguration_.getNetworking().getListen().getMonitoringDataAddress();
         int timeout = nodeConfiguration_.getMonitoring().getTimeout();
+        MonitoringTransportSettings transportSettings = nodeConfiguration_.getMonitoring().getTransport();
         summaryReceiver_ = MonitoringFactory.newLocalControllerSummaryReceiver(address,
                                                                                timeout,
+                                                                               transportSettings,
                                                                                dataQueue_,
                                                                                stateMachine_,
                                                                                repository_);
@@ -20,8 +20,10 @@
 package org.inria.myriads.snoozenode.groupmanager.monitoring.transport;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 
 
 /**
@@ -41,6 +43,17 @@ public final class GroupManagerDataTransporter
     /** Summary information. */
     private GroupManagerSummaryInformation summary_;
     
+    /** Summary sequence number. */
+    private long sequenceNumber_;
+    
+    /** Local controllers removed since the previous summary (null for full summaries). */
+    private ArrayList<String> removedLocalControllers_;
+    
+    /** Finished submission task identifier (piggybacked on heartbeats). */
+    private String taskIdentifier_;
+    
+    /** Finished submission response. */
+    private VirtualMachineSubmissionResponse submissionResponse_;
     
     /** Default constructor. */
     public GroupManagerDataTransporter() 
@@ -60,6 +73,43 @@ public final class GroupManagerDataTransporter
         groupManagerId_ = groupManagerId;
         summary_ = summary;
     }
+    
+    /**
+     * Constructor for sequenced summaries.
+     * 
+     * Delta summaries only carry the local controllers which changed since the previous summary.
+     *  
+     * @param groupManagerId            The group manager identifier
+     * @param summary                   The summary information
+     * @param sequenceNumber            The sequence number
+     * @param removedLocalControllers   The removed local controllers (null for a full summary)
+     */
+    public GroupManagerDataTransporter(String groupManagerId,
+                                       GroupManagerSummaryInformation summary,
+                                       long sequenceNumber,
+                                       ArrayList<String> removedLocalControllers)
+    {
+        groupManagerId_ = groupManagerId;
+        summary_ = summary;
+        sequenceNumber_ = sequenceNumber;
+        removedLocalControllers_ = removedLocalControllers;
+    }
+    
+    /**
+     * Constructor for submission finishes.
+     *  
+     * @param groupManagerId        The group manager identifier
+     * @param taskIdentifier        The submission task identifier
+     * @param submissionResponse    The submission response
+     */
+    public GroupManagerDataTransporter(String groupManagerId,
+                                       String taskIdentifier,
+                                       VirtualMachineSubmissionResponse submissionResponse)
+    {
+        groupManagerId_ = groupManagerId;
+        taskIdentifier_ = taskIdentifier;
+        submissionResponse_ = submissionResponse;
+    }
 
     /**
      * Returns the identifier.
@@ -80,6 +130,54 @@ public final class GroupManagerDataTransporter
     {
         return summary_;
     }
-
     
+    /**
+     * Returns the finished submission task identifier.
+     * 
+     * @return  The task identifier (null if none)
+     */
+    public String getTaskIdentifier() 
+    {
+        return taskIdentifier_;
+    }
+    
+    /**
+     * Returns the finished submission response.
+     * 
+     * @return  The submission response (null if none)
+     */
+    public VirtualMachineSubmissionResponse getSubmissionResponse() 
+    {
+        return submissionResponse_;
+    }
+    
+    /**
+     * Returns the summary sequence number.
+     * 
+     * @return  The sequence number
+     */
+    public long getSequenceNumber() 
+    {
+        return sequenceNumber_;
+    }
+    
+    /**
+     * Returns the local controllers removed since the previous summary.
+     * 
+     * @return  The local controller identifiers (null for full summaries)
+     */
+    public ArrayList<String> getRemovedLocalControllers() 
+    {
+        return removedLocalControllers_;
+    }
+    
+    /**
+     * Checks if the summary is a delta.
+     * 
+     * @return  true if delta, false if full
+     */
+    public boolean isDelta() 
+    {
+        return removedLocalControllers_ != null;
+    }
 }
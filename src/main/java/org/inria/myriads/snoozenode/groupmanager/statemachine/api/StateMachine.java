@@ -29,6 +29,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.communication.virtualmachine.ResizeRequest;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.VirtualMachineCommand;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 
 /** 
@@ -64,8 +65,28 @@ public interface StateMachine
 
     /**
      * Called upon virtual machine submission finished.
+     * 
+     * @param taskIdentifier        The task identifier
+     */
+    void onVirtualMachineSubmissionFinished(String taskIdentifier);
+    
+    /**
+     * Reserves local controllers for a running operation.
+     * 
+     * @param operationId           The operation (task) identifier
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if reserved, false if held by another operation
+     */
+    boolean reserveLocalControllers(String operationId, List<String> localControllerIds);
+    
+    /**
+     * Waits until other operations release the local controllers.
+     * 
+     * @param operationId           The operation (task) identifier
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if released, false on timeout
      */
-    void onVirtualMachineSubmissionFinished();
+    boolean awaitLocalControllers(String operationId, List<String> localControllerIds);
     
     /**
      * Processes virtual machine command.
@@ -93,6 +114,14 @@ public interface StateMachine
      */
     boolean isBusy();
     
+    /**
+     * Indicates if an operation is in progress on a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if busy, else otherwise
+     */
+    boolean isBusy(String localControllerId);
+    
     /**
      * Returns virtual machine submission finish.
      * 
@@ -101,6 +130,13 @@ public interface StateMachine
      */
     VirtualMachineSubmissionResponse getVirtualMachineSubmissionResponse(String taskIdentifier);
     
+    /**
+     * Sets the listener notified on virtual machine submission finish.
+     * 
+     * @param submissionListener    The submission listener
+     */
+    void setSubmissionListener(VirtualMachineManagerListener submissionListener);
+    
     /**
      * Wakeup local controller.
      * 
@@ -117,6 +153,13 @@ public interface StateMachine
      */
     boolean onWakeupLocalControllers(List<LocalControllerDescription> localControllers);
     
+    /**
+     * Called when a local controller joins or reports to the group manager.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    void onLocalControllerReady(String localControllerId);
+    
     /**
      * Called on energy savings enabled.
      * 
@@ -128,9 +171,10 @@ public interface StateMachine
     /**
      * Called on anomaly resolved.
      * 
+     * @param operationId               The relocation operation identifier
      * @param anomalyLocalController    The anomalied local controller
      */
-    void onAnomalyResolved(LocalControllerDescription anomalyLocalController);
+    void onAnomalyResolved(String operationId, LocalControllerDescription anomalyLocalController);
 
     /**
      * 
@@ -140,6 +184,11 @@ public interface StateMachine
      * @return                  True if everything is ok, false otherwise.
      */
     VirtualMachineMetaData resizeVirtualMachine(ResizeRequest resizeRequest);
+    
+    /**
+     * Terminates the state machine.
+     */
+    void terminate();
 
     
     
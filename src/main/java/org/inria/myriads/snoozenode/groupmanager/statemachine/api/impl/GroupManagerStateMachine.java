@@ -19,7 +19,9 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.statemachine.api.impl;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
@@ -29,11 +31,12 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.communication.virtualmachine.ResizeRequest;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.PowerSavingAction;
-import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
 import org.inria.myriads.snoozenode.configurator.scheduler.GroupManagerSchedulerSettings;
+import org.inria.myriads.snoozenode.configurator.scheduler.MigrationSettings;
 import org.inria.myriads.snoozenode.configurator.scheduler.RelocationSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.exception.GroupManagerInitException;
@@ -48,10 +51,14 @@ import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPolicy;
 import org.inria.myriads.snoozenode.groupmanager.migration.MigrationPlanEnforcer;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationPlanListener;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.MigrationScheduler;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.VirtualMachineCommand;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.scheduler.Operation;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.scheduler.OperationScheduler;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.VirtualMachineManager;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.inria.myriads.snoozenode.message.ManagementMessage;
 import org.inria.myriads.snoozenode.message.ManagementMessageType;
@@ -66,22 +73,26 @@ import org.slf4j.LoggerFactory;
 /**
  * Group manager state machine.
  * 
+ * Submissions, relocations, migrations, virtual machine commands and energy savings are 
+ * scheduled as operations on the local controllers and virtual machines they touch, so
+ * operations on disjoint resources run in parallel. Reconfiguration is exclusive.
+ * 
  * @author Eugen Feller
  */
 public class GroupManagerStateMachine 
-    implements StateMachine, MigrationPlanListener
+    implements StateMachine
 {
     /** Logging instance. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerStateMachine.class);
     
-    /** System state reference. */
-    private SystemState systemState_;
+    /** Operation scheduler. */
+    private OperationScheduler scheduler_;
+    
+    /** Operation timeout (ms). */
+    private long operationTimeout_;
     
     /** Reconfiguration policy. */
     private ReconfigurationPolicy reconfiguration_;
-        
-    /** Anomaly resolver. */
-    private MigrationPlanEnforcer migrationPlanEnforcer_;
 
     /** Virtual machine manager. */
     private VirtualMachineManager virtualMachineManager_;
@@ -89,8 +100,8 @@ public class GroupManagerStateMachine
     /** Energy management settings. */
     private EnergyManagementSettings energyManagementSettings_;
     
-    /** Energy management settings. */
-    private EstimatorSettings estimatorSettings_;
+    /** Resource demand estimator. */
+    private ResourceDemandEstimator estimator_;
 
     /** Repository. */
     private GroupManagerRepository repository_;
@@ -101,6 +112,9 @@ public class GroupManagerStateMachine
     /** Anomaly resolver. */
     private AnomalyResolver anomalyResolver_;
     
+    /** Migration scheduler (shared by all migration plan enforcers). */
+    private MigrationScheduler migrationScheduler_;
+    
     /** External notifier. */
     private ExternalNotifier externalNotifier_;
     
@@ -119,19 +133,22 @@ public class GroupManagerStateMachine
                                     )
     {
         log_.debug("Initializing the state machine");
-        systemState_ = SystemState.IDLE; 
+        GroupManagerSchedulerSettings schedulerSettings = nodeConfiguration.getGroupManagerScheduler();
+        scheduler_ = new OperationScheduler();
+        operationTimeout_ = TimeUtils.convertSecondsToMilliseconds(schedulerSettings.getOperationTimeout());
         energyManagementSettings_ = nodeConfiguration.getEnergyManagement();
-        estimatorSettings_ = nodeConfiguration.getEstimator();
+        estimator_ = estimator;
         repository_ = repository;
         externalNotifier_ = externalNotifier;
-        // Migration plan enforcer
-        migrationPlanEnforcer_ = new MigrationPlanEnforcer(repository, this, externalNotifier_);
+        MigrationSettings migrationSettings = schedulerSettings.getMigrationSettings();
+        migrationScheduler_ = new MigrationScheduler(migrationSettings.getMaxConcurrentMigrations(),
+                                                     migrationSettings.getMaxConcurrentMigrationsPerHost(),
+                                                     estimator.getMigrationCostEstimator());
         // Wakeup 
         wakeupResources_ = createWakeupResources(energyManagementSettings_, repository);
         // Virtual machine manager
         virtualMachineManager_ = createVirtualMachineManager(nodeConfiguration, estimator, repository);
         // Anomaly
-        GroupManagerSchedulerSettings schedulerSettings = nodeConfiguration.getGroupManagerScheduler();
         anomalyResolver_ = createAnomalyResolver(schedulerSettings.getRelocationSettings(), estimator, repository);
         // Reconfiguration
         Reconfiguration reconfiguration = schedulerSettings.getReconfigurationSettings().getPolicy();
@@ -154,7 +171,8 @@ public class GroupManagerStateMachine
                                                               estimator, 
                                                               repository, 
                                                               this,
-                                                              externalNotifier_
+                                                              externalNotifier_,
+                                                              migrationScheduler_
                                                               );
         return anomalyResolver;
     }
@@ -208,15 +226,36 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting virtual machines");        
         
-        if (!changeState(SystemState.MANAGEMENT))
+        Operation operation = new Operation(UUID.randomUUID().toString(), SystemState.MANAGEMENT, false);
+        for (VirtualMachineMetaData virtualMachine : submissionRequest.getVirtualMachineMetaData())
+        {
+            operation.addVirtualMachine(virtualMachine.getVirtualMachineLocation().getVirtualMachineId());
+        }
+        
+        if (!startOperation(operation))
         {
             return null;
         }
         
-        String taskIdentifier = virtualMachineManager_.start(submissionRequest);
+        String taskIdentifier = virtualMachineManager_.start(operation.getId(), submissionRequest);
         return taskIdentifier;
     }
     
+    /**
+     * Creates an operation on a virtual machine.
+     * 
+     * @param type          The operation type
+     * @param location      The virtual machine location
+     * @return              The operation
+     */
+    private Operation createVirtualMachineOperation(SystemState type, VirtualMachineLocation location)
+    {
+        Operation operation = new Operation(UUID.randomUUID().toString(), type, false);
+        operation.addLocalController(location.getLocalControllerId());
+        operation.addVirtualMachine(location.getVirtualMachineId());
+        return operation;
+    }
+    
     
     
     /**
@@ -231,13 +270,21 @@ public class GroupManagerStateMachine
     {
         log_.debug(String.format("Starting virtual machine command: %s processing", command));
         
-        if (!changeState(SystemState.MANAGEMENT))
+        Operation operation = createVirtualMachineOperation(SystemState.MANAGEMENT, location);
+        if (!startOperation(operation))
         {
             return false;
         }   
         
-        setIdle();
-        boolean isProcessed = virtualMachineManager_.processControlCommand(command, location);
+        boolean isProcessed;
+        try
+        {
+            isProcessed = virtualMachineManager_.processControlCommand(command, location);
+        }
+        finally
+        {
+            finishOperation(operation.getId());
+        }
         
         ExternalNotifierUtils.send(
                 externalNotifier_,
@@ -254,29 +301,57 @@ public class GroupManagerStateMachine
     }
 
     /** 
-     * Changes the system state.
+     * Starts an operation, waiting for conflicting operations up to the operation timeout.
      * 
-     * @param state    The new system state
-     * @return          true if everything ok, false otherwise
+     * @param operation     The operation
+     * @return              true if everything ok, false otherwise
      */
-    private synchronized boolean changeState(SystemState state)
+    private boolean startOperation(Operation operation)
     {
-        if (systemState_.equals(SystemState.IDLE))
+        if (!scheduler_.start(operation, operationTimeout_))
         {
-            log_.debug(String.format("Changing system state to: %s", state));
-            systemState_ = state;
-            // log state change.
-            ExternalNotifierUtils.send(
-                    externalNotifier_,
-                    ExternalNotificationType.SYSTEM,
-                    new SystemMessage(SystemMessageType.GM_BUSY, repository_.getGroupManager()),
-                    "groupmanager." + repository_.getGroupManagerId()
-                    );
-            return true;
+            log_.debug(String.format("Unable to start operation %s! Conflicting operations are in progress", 
+                                     operation));
+            return false;
         }
         
-        log_.debug(String.format("Unable to change state! System is in state: %s", systemState_));
-        return false;
+        onOperationStarted(operation);
+        return true;
+    }
+    
+    /** 
+     * Starts an operation if no conflicting operation is in progress.
+     * 
+     * @param operation     The operation
+     * @return              true if everything ok, false otherwise
+     */
+    private boolean tryStartOperation(Operation operation)
+    {
+        if (!scheduler_.tryStart(operation))
+        {
+            log_.debug(String.format("Unable to start operation %s! Conflicting operations are in progress", 
+                                     operation));
+            return false;
+        }
+        
+        onOperationStarted(operation);
+        return true;
+    }
+    
+    /**
+     * Called when an operation started.
+     * 
+     * @param operation     The operation
+     */
+    private void onOperationStarted(Operation operation)
+    {
+        log_.debug(String.format("Operation started: %s", operation));
+        ExternalNotifierUtils.send(
+                externalNotifier_,
+                ExternalNotificationType.SYSTEM,
+                new SystemMessage(SystemMessageType.GM_BUSY, repository_.getGroupManager()),
+                "groupmanager." + repository_.getGroupManagerId()
+                );
     }
     
     /**
@@ -291,7 +366,13 @@ public class GroupManagerStateMachine
         Guard.check(idleResources);
         log_.debug("Entering on energy savings enabled!");
         
-        if (!changeState(SystemState.ENERGYSAVER))
+        Operation operation = new Operation(UUID.randomUUID().toString(), SystemState.ENERGYSAVER, false);
+        for (LocalControllerDescription localController : idleResources)
+        {
+            operation.addLocalController(localController.getId());
+        }
+        
+        if (!tryStartOperation(operation))
         {
             return false;
         }      
@@ -306,25 +387,58 @@ public class GroupManagerStateMachine
                 "groupmanager." + repository_.getGroupManagerId()
                 );
         
-        EnergySaverUtils.powerCycleLocalControllers(idleResources, action, repository_);  
-        setIdle();
+        try
+        {
+            EnergySaverUtils.powerCycleLocalControllers(idleResources, action, repository_);  
+        }
+        finally
+        {
+            finishOperation(operation.getId());
+        }
         
         return true;
     }
     
     /**
-     * Changes system state to idle.
+     * Finishes an operation.
+     * 
+     * @param operationId   The operation identifier
      */
-    private synchronized void setIdle()
+    private void finishOperation(String operationId)
     {
-        log_.debug(String.format("Changing system state from: %s to IDLE", systemState_));
+        boolean isIdle = scheduler_.finish(operationId);
+        if (!isIdle)
+        {
+            return;
+        }
+        
+        log_.debug("No more operations in progress, system is IDLE");
         ExternalNotifierUtils.send(
                 externalNotifier_,
                 ExternalNotificationType.SYSTEM,
                 new SystemMessage(SystemMessageType.GM_IDLE, repository_.getGroupManager()),
                 "groupmanager." + repository_.getGroupManagerId()
                 );
-        systemState_ = SystemState.IDLE;
+    }
+    
+    /**
+     * Creates a migration plan enforcer finishing an operation once the plan is enforced.
+     * 
+     * @param operationId   The operation identifier
+     * @return              The migration plan enforcer
+     */
+    private MigrationPlanEnforcer createMigrationPlanEnforcer(final String operationId)
+    {
+        MigrationPlanListener listener = new MigrationPlanListener()
+        {
+            @Override
+            public void onMigrationPlanEnforced() 
+            {
+                finishOperation(operationId);
+            }
+        };
+        
+        return new MigrationPlanEnforcer(repository_, listener, externalNotifier_, migrationScheduler_);
     }
     
     /**
@@ -337,14 +451,15 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting the reconfiguration procedure");
         
-        if (!changeState(SystemState.RECONFIGURATION))
+        Operation operation = new Operation(UUID.randomUUID().toString(), SystemState.RECONFIGURATION, true);
+        if (!tryStartOperation(operation))
         {
             return false;
         }    
         
         try
         {
-            int numberOfMonitoringEntries = estimatorSettings_.getNumberOfMonitoringEntries();
+            int numberOfMonitoringEntries = estimator_.getNumberOfCopiedMonitoringEntries();
             List<LocalControllerDescription> localControllers = 
                 repository_.getLocalControllerDescriptions(numberOfMonitoringEntries, true, true);
             if (localControllers == null)
@@ -368,11 +483,11 @@ public class GroupManagerStateMachine
                 log_.debug("Consolidation started!");
             }
             
-            migrationPlanEnforcer_.enforceMigrationPlan(migrationPlan);
+            createMigrationPlanEnforcer(operation.getId()).enforceMigrationPlan(migrationPlan);
         }
         catch (Exception exception) 
         {
-            setIdle();
+            finishOperation(operation.getId());
             log_.debug(String.format("Unable to execute the migration plan: %s", exception.getMessage()));
             return false;
         }
@@ -391,19 +506,21 @@ public class GroupManagerStateMachine
     {
         log_.debug(String.format("Starting to resolve ANOMALY (%s) situation!", state));
         
-        if (!changeState(SystemState.RELOCATION))
+        Operation operation = new Operation(UUID.randomUUID().toString(), SystemState.RELOCATION, false);
+        operation.addLocalController(localControllerId);
+        if (!tryStartOperation(operation))
         {
             return;
         }
         
         try 
         {
-            anomalyResolver_.resolveAnomaly(localControllerId, state);
+            anomalyResolver_.resolveAnomaly(operation.getId(), localControllerId, state);
         } 
         catch (Exception exception) 
         {
             log_.debug(String.format("Exception during anomaly resolving: %s", exception.getMessage()));
-            setIdle();
+            finishOperation(operation.getId());
         }
     }
     
@@ -415,22 +532,52 @@ public class GroupManagerStateMachine
     @Override
     public boolean isBusy()
     {        
-        if (!systemState_.equals(SystemState.IDLE))
+        if (scheduler_.isBusy())
         {
-            log_.debug(String.format("System is in state: %s", systemState_));
+            log_.debug(String.format("Number of operations in progress: %d", 
+                                     scheduler_.getNumberOfRunningOperations()));
             return true;
         }     
         
         return false;
     }
-
+    
     /**
-     * Called upon migration plan enforcement.
+     * Checks if an operation is in progress on a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if busy, false otherwise
      */
     @Override
-    public void onMigrationPlanEnforced() 
+    public boolean isBusy(String localControllerId)
     {
-        setIdle();
+        return scheduler_.isBusy(localControllerId);
+    }
+    
+    /**
+     * Reserves local controllers for a running operation.
+     * 
+     * @param operationId           The operation identifier
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if reserved, false otherwise
+     */
+    @Override
+    public boolean reserveLocalControllers(String operationId, List<String> localControllerIds)
+    {
+        return scheduler_.tryReserve(operationId, localControllerIds);
+    }
+    
+    /**
+     * Waits until other operations release the local controllers.
+     * 
+     * @param operationId           The operation identifier
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if released, false on timeout
+     */
+    @Override
+    public boolean awaitLocalControllers(String operationId, List<String> localControllerIds)
+    {
+        return scheduler_.awaitRelease(operationId, localControllerIds, operationTimeout_);
     }
     
     /**
@@ -449,8 +596,9 @@ public class GroupManagerStateMachine
             return false;
         }
         
-        wakeupResources_.sleep();
-        return true;
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        localControllers.add(localController);
+        return wakeupResources_.awaitLocalControllers(localControllers);
     }
     
     /**
@@ -480,26 +628,39 @@ public class GroupManagerStateMachine
             }
         }
         
-        wakeupResources_.sleep();
-        return true;
+        return wakeupResources_.awaitLocalControllers(localControllers);
+    }
+    
+    /**
+     * Called when a local controller joins or reports to the group manager.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    @Override
+    public void onLocalControllerReady(String localControllerId)
+    {
+        wakeupResources_.onLocalControllerReady(localControllerId);
     }
     
     /**
      * Called upon virtual machine submission finished.
+     * 
+     * @param taskIdentifier    The task identifier
      */
     @Override
-    public void onVirtualMachineSubmissionFinished() 
+    public void onVirtualMachineSubmissionFinished(String taskIdentifier) 
     {
-        setIdle();
+        finishOperation(taskIdentifier);
     }
     
     /**
      * Called on anomaly resolved.
      * 
+     * @param operationId        The relocation operation identifier
      * @param localController    The local controller
      */
     @Override
-    public void onAnomalyResolved(LocalControllerDescription localController) 
+    public void onAnomalyResolved(String operationId, LocalControllerDescription localController) 
     {   
         if (localController != null)
         {
@@ -510,7 +671,7 @@ public class GroupManagerStateMachine
             log_.debug(String.format("Power saving action to be executed: %s", action));
             EnergySaverUtils.powerCycleLocalController(localController, action, repository_);        
         }
-        setIdle();
+        finishOperation(operationId);
     }
 
     /**
@@ -524,6 +685,17 @@ public class GroupManagerStateMachine
     {
         return virtualMachineManager_.getVirtualMachineSubmissionResponse(taskIdentifier);
     }
+    
+    /**
+     * Sets the submission finish listener.
+     * 
+     * @param submissionListener    The submission listener
+     */
+    @Override
+    public void setSubmissionListener(VirtualMachineManagerListener submissionListener) 
+    {
+        virtualMachineManager_.setSubmissionListener(submissionListener);
+    }
 
 
     
@@ -540,18 +712,21 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting the migration procedure");
         
-        if (!changeState(SystemState.RECONFIGURATION))
+        VirtualMachineLocation source = migrationRequest.getSourceVirtualMachineLocation();
+        Operation operation = createVirtualMachineOperation(SystemState.RECONFIGURATION, source);
+        operation.addLocalController(migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerId());
+        if (!startOperation(operation))
         {
             return false;
         }
         
         try
         {
-            migrationPlanEnforcer_.startManualMigration(migrationRequest);
+            createMigrationPlanEnforcer(operation.getId()).startManualMigration(migrationRequest);
         }
         catch (Exception exception) 
         {
-            setIdle();
+            finishOperation(operation.getId());
             log_.debug(String.format("Unable to execute the migration plan: %s", exception.getMessage()));
             return false;
         }
@@ -564,19 +739,37 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting a resize request");
         
-        if (!changeState(SystemState.MANAGEMENT))
+        Operation operation = createVirtualMachineOperation(SystemState.MANAGEMENT, 
+                                                            resizeRequest.getVirtualMachineLocation());
+        if (!startOperation(operation))
         {
             return null;
         }   
         
-        setIdle();
-        VirtualMachineMetaData newVirtualMachineMetaData = 
-                virtualMachineManager_.resizeVirtualMachine(resizeRequest);
-        
-        VirtualMachineMetaData virtualMachine = 
-                repository_.getVirtualMachineMetaData(resizeRequest.getVirtualMachineLocation(), 0);
-        virtualMachine.setRequestedCapacity(newVirtualMachineMetaData.getRequestedCapacity());
-        return newVirtualMachineMetaData;
+        try
+        {
+            VirtualMachineMetaData newVirtualMachineMetaData = 
+                    virtualMachineManager_.resizeVirtualMachine(resizeRequest);
+            
+            VirtualMachineMetaData virtualMachine = 
+                    repository_.getVirtualMachineMetaData(resizeRequest.getVirtualMachineLocation(), 0);
+            virtualMachine.setRequestedCapacity(newVirtualMachineMetaData.getRequestedCapacity());
+            return newVirtualMachineMetaData;
+        }
+        finally
+        {
+            finishOperation(operation.getId());
+        }
         
     }
+    
+    /**
+     * Terminates the state machine.
+     */
+    @Override
+    public void terminate()
+    {
+        log_.debug("Terminating the state machine");
+        virtualMachineManager_.terminate();
+    }
 }
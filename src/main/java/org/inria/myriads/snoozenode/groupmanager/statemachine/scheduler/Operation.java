@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.statemachine.scheduler;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
+
+/**
+ * Group manager operation.
+ * 
+ * Records the local controllers and virtual machines an operation touches.
+ * Exclusive operations (e.g. reconfiguration) touch the whole group manager.
+ * 
+ * @author Eugen Feller
+ */
+public final class Operation 
+{
+    /** Operation identifier. */
+    private String id_;
+    
+    /** Operation type. */
+    private SystemState type_;
+    
+    /** Exclusive flag. */
+    private boolean isExclusive_;
+    
+    /** Local controller identifiers. */
+    private Set<String> localControllerIds_;
+    
+    /** Virtual machine identifiers. */
+    private Set<String> virtualMachineIds_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param id            The operation identifier
+     * @param type          The operation type
+     * @param isExclusive   true if the operation touches the whole group manager
+     */
+    public Operation(String id, SystemState type, boolean isExclusive)
+    {
+        Guard.check(id, type);
+        id_ = id;
+        type_ = type;
+        isExclusive_ = isExclusive;
+        localControllerIds_ = new HashSet<String>();
+        virtualMachineIds_ = new HashSet<String>();
+    }
+    
+    /**
+     * Adds a local controller (before scheduling).
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void addLocalController(String localControllerId)
+    {
+        if (localControllerId != null)
+        {
+            localControllerIds_.add(localControllerId);
+        }
+    }
+    
+    /**
+     * Adds local controllers.
+     * 
+     * @param localControllerIds    The local controller identifiers
+     */
+    void addLocalControllers(Collection<String> localControllerIds)
+    {
+        for (String localControllerId : localControllerIds)
+        {
+            addLocalController(localControllerId);
+        }
+    }
+    
+    /**
+     * Adds a virtual machine (before scheduling).
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     */
+    public void addVirtualMachine(String virtualMachineId)
+    {
+        if (virtualMachineId != null)
+        {
+            virtualMachineIds_.add(virtualMachineId);
+        }
+    }
+    
+    /**
+     * Checks if two operations touch common resources.
+     * 
+     * @param operation     The other operation
+     * @return              true if conflicting, false otherwise
+     */
+    public boolean conflictsWith(Operation operation)
+    {
+        if (isExclusive_ || operation.isExclusive())
+        {
+            return true;
+        }
+        
+        return intersects(localControllerIds_, operation.getLocalControllerIds()) ||
+               intersects(virtualMachineIds_, operation.getVirtualMachineIds());
+    }
+    
+    /**
+     * Checks if the operation touches one of the local controllers.
+     * 
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if conflicting, false otherwise
+     */
+    public boolean conflictsWith(Collection<String> localControllerIds)
+    {
+        if (isExclusive_)
+        {
+            return true;
+        }
+        
+        for (String localControllerId : localControllerIds)
+        {
+            if (localControllerIds_.contains(localControllerId))
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Checks two sets for common elements.
+     * 
+     * @param first     The first set
+     * @param second    The second set
+     * @return          true if intersecting, false otherwise
+     */
+    private static boolean intersects(Set<String> first, Set<String> second)
+    {
+        Set<String> smaller = first.size() <= second.size() ? first : second;
+        Set<String> larger = smaller == first ? second : first;
+        for (String element : smaller)
+        {
+            if (larger.contains(element))
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Returns the operation identifier.
+     * 
+     * @return  The operation identifier
+     */
+    public String getId() 
+    {
+        return id_;
+    }
+
+    /**
+     * Returns the operation type.
+     * 
+     * @return  The operation type
+     */
+    public SystemState getType() 
+    {
+        return type_;
+    }
+
+    /**
+     * Returns the exclusive flag.
+     * 
+     * @return  true if exclusive, false otherwise
+     */
+    public boolean isExclusive() 
+    {
+        return isExclusive_;
+    }
+
+    /**
+     * Returns the local controller identifiers.
+     * 
+     * @return  The local controller identifiers
+     */
+    public Set<String> getLocalControllerIds() 
+    {
+        return localControllerIds_;
+    }
+
+    /**
+     * Returns the virtual machine identifiers.
+     * 
+     * @return  The virtual machine identifiers
+     */
+    public Set<String> getVirtualMachineIds() 
+    {
+        return virtualMachineIds_;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.format("%s %s (exclusive: %s, local controllers: %s, virtual machines: %d)", 
+                             type_, id_, isExclusive_, localControllerIds_, virtualMachineIds_.size());
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.statemachine.scheduler;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group manager operation scheduler.
+ * 
+ * Operations touching disjoint local controllers and virtual machines run in parallel.
+ * Conflicting operations either get rejected (try variants) or wait in FIFO order, 
+ * i.e. an operation never overtakes an earlier waiting operation it conflicts with.
+ * 
+ * Running operations may reserve additional local controllers (e.g. the targets of 
+ * a placement plan) without queuing, which keeps the scheduler free of deadlocks.
+ * 
+ * @author Eugen Feller
+ */
+public final class OperationScheduler 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(OperationScheduler.class);
+    
+    /** Lock. */
+    private final ReentrantLock lock_;
+    
+    /** Signaled on operation start, finish, reservation and timeout. */
+    private final Condition changed_;
+    
+    /** Running operations. */
+    private final Map<String, Operation> runningOperations_;
+    
+    /** Waiting operations (FIFO). */
+    private final LinkedList<Operation> waitingOperations_;
+    
+    /** Constructor. */
+    public OperationScheduler()
+    {
+        lock_ = new ReentrantLock();
+        changed_ = lock_.newCondition();
+        runningOperations_ = new LinkedHashMap<String, Operation>();
+        waitingOperations_ = new LinkedList<Operation>();
+    }
+    
+    /**
+     * Starts an operation if it does not conflict with running or waiting operations.
+     * 
+     * @param operation     The operation
+     * @return              true if started, false otherwise
+     */
+    public boolean tryStart(Operation operation)
+    {
+        Guard.check(operation);
+        lock_.lock();
+        try
+        {
+            if (hasConflict(operation, waitingOperations_.size()))
+            {
+                log_.debug(String.format("Rejecting conflicting operation: %s", operation));
+                return false;
+            }
+            
+            runningOperations_.put(operation.getId(), operation);
+            log_.debug(String.format("Operation started: %s", operation));
+            return true;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Starts an operation, waiting for conflicting operations to finish.
+     * 
+     * @param operation     The operation
+     * @param timeout       The maximum waiting time (ms)
+     * @return              true if started, false on timeout
+     */
+    public boolean start(Operation operation, long timeout)
+    {
+        Guard.check(operation);
+        lock_.lock();
+        waitingOperations_.add(operation);
+        try
+        {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (hasConflict(operation, waitingOperations_.indexOf(operation)))
+            {
+                if (remaining <= 0)
+                {
+                    log_.debug(String.format("Timeout while waiting to start operation: %s", operation));
+                    return false;
+                }
+                
+                remaining = changed_.awaitNanos(remaining);
+            }
+            
+            runningOperations_.put(operation.getId(), operation);
+            log_.debug(String.format("Operation started: %s", operation));
+            return true;
+        }
+        catch (InterruptedException exception)
+        {
+            log_.debug("Interrupted while waiting to start operation");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        finally
+        {
+            waitingOperations_.remove(operation);
+            changed_.signalAll();
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Reserves local controllers for a running operation if no other running operation holds them.
+     * 
+     * @param operationId           The operation identifier
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if reserved, false otherwise
+     */
+    public boolean tryReserve(String operationId, Collection<String> localControllerIds)
+    {
+        Guard.check(operationId, localControllerIds);
+        lock_.lock();
+        try
+        {
+            Operation operation = runningOperations_.get(operationId);
+            if (operation == null)
+            {
+                log_.debug(String.format("No such running operation: %s", operationId));
+                return false;
+            }
+            
+            if (isReservedByOthers(operationId, localControllerIds))
+            {
+                return false;
+            }
+            
+            operation.addLocalControllers(localControllerIds);
+            log_.debug(String.format("Local controllers reserved: %s", operation));
+            return true;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Waits until no other running operation holds one of the local controllers.
+     * 
+     * @param operationId           The operation identifier
+     * @param localControllerIds    The local controller identifiers
+     * @param timeout               The maximum waiting time (ms)
+     * @return                      true if released, false on timeout
+     */
+    public boolean awaitRelease(String operationId, Collection<String> localControllerIds, long timeout)
+    {
+        Guard.check(operationId, localControllerIds);
+        lock_.lock();
+        try
+        {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (isReservedByOthers(operationId, localControllerIds))
+            {
+                if (remaining <= 0)
+                {
+                    log_.debug(String.format("Timeout while waiting for local controllers: %s", localControllerIds));
+                    return false;
+                }
+                
+                remaining = changed_.awaitNanos(remaining);
+            }
+            
+            return true;
+        }
+        catch (InterruptedException exception)
+        {
+            log_.debug("Interrupted while waiting for local controllers");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Finishes an operation.
+     * 
+     * @param operationId   The operation identifier
+     * @return              true if no more operations are running, false otherwise
+     */
+    public boolean finish(String operationId)
+    {
+        Guard.check(operationId);
+        lock_.lock();
+        try
+        {
+            Operation operation = runningOperations_.remove(operationId);
+            if (operation == null)
+            {
+                log_.debug(String.format("No such running operation: %s", operationId));
+            } 
+            else
+            {
+                log_.debug(String.format("Operation finished: %s", operation));
+            }
+            
+            changed_.signalAll();
+            return runningOperations_.isEmpty();
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Checks if any operation is running.
+     * 
+     * @return  true if busy, false otherwise
+     */
+    public boolean isBusy()
+    {
+        lock_.lock();
+        try
+        {
+            return !runningOperations_.isEmpty();
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Checks if a running operation touches a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if busy, false otherwise
+     */
+    public boolean isBusy(String localControllerId)
+    {
+        Guard.check(localControllerId);
+        lock_.lock();
+        try
+        {
+            for (Operation operation : runningOperations_.values())
+            {
+                if (operation.isExclusive() || operation.getLocalControllerIds().contains(localControllerId))
+                {
+                    return true;
+                }
+            }
+            
+            return false;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of running operations.
+     * 
+     * @return  The number of running operations
+     */
+    public int getNumberOfRunningOperations()
+    {
+        lock_.lock();
+        try
+        {
+            return runningOperations_.size();
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of waiting operations.
+     * 
+     * @return  The number of waiting operations
+     */
+    public int getNumberOfWaitingOperations()
+    {
+        lock_.lock();
+        try
+        {
+            return waitingOperations_.size();
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Checks an operation against the running operations and the first waiting operations.
+     * 
+     * @param operation                 The operation
+     * @param numberOfPrecedingWaiters  The number of waiting operations queued before it
+     * @return                          true if conflicting, false otherwise
+     */
+    private boolean hasConflict(Operation operation, int numberOfPrecedingWaiters)
+    {
+        for (Operation runningOperation : runningOperations_.values())
+        {
+            if (runningOperation.conflictsWith(operation))
+            {
+                return true;
+            }
+        }
+        
+        int index = 0;
+        for (Operation waitingOperation : waitingOperations_)
+        {
+            if (index++ >= numberOfPrecedingWaiters)
+            {
+                break;
+            }
+            
+            if (waitingOperation != operation && waitingOperation.conflictsWith(operation))
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Checks if another running operation holds one of the local controllers.
+     * 
+     * @param operationId           The operation identifier
+     * @param localControllerIds    The local controller identifiers
+     * @return                      true if reserved, false otherwise
+     */
+    private boolean isReservedByOthers(String operationId, Collection<String> localControllerIds)
+    {
+        for (Operation runningOperation : runningOperations_.values())
+        {
+            if (!runningOperation.getId().equals(operationId) && runningOperation.conflictsWith(localControllerIds))
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+}
@@ -21,11 +21,10 @@ package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
@@ -36,25 +35,32 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.status.Virtua
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualClusterSubmissionRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualClusterSubmissionResponse;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineTemplate;
 import org.inria.myriads.snoozecommon.exception.VirtualClusterParserException;
 import org.inria.myriads.snoozecommon.globals.Globals;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.parser.VirtualClusterParserFactory;
 import org.inria.myriads.snoozecommon.parser.api.VirtualClusterParser;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozecommon.virtualmachineimage.VirtualMachineImage;
 import org.inria.myriads.snoozeimages.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozeimages.communication.rest.api.ImageRepositoryAPI;
 import org.inria.myriads.snoozeimages.communication.rest.api.ImagesRepositoryAPI;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.scheduler.GroupLeaderSchedulerSettings;
+import org.inria.myriads.snoozenode.configurator.submission.PollingSettings;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.GroupLeaderPolicyFactory;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.enums.Dispatching;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.collector.SubmissionResponseCollector;
 import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler.GroupManagerReservations;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler.SubmissionScheduler;
 import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.worker.VirtualClusterSubmissionWorker;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineLocationIndex;
 import org.inria.myriads.snoozenode.groupmanager.virtualnetworkmanager.VirtualNetworkFactory;
 import org.inria.myriads.snoozenode.groupmanager.virtualnetworkmanager.api.VirtualNetworkManager;
 import org.slf4j.Logger;
@@ -74,8 +80,20 @@ public final class VirtualClusterManager
     /** Map which holds the virtual cluster responses. */
     private Map<String, VirtualClusterSubmissionResponse> virtualClusterResponses_;
 
-    /** Queue for tasks. */
-    private Queue<VirtualClusterSubmissionWorker> workerQueue_;
+    /** Default tenant (unknown client). */
+    private static final String DEFAULT_TENANT = "default";
+    
+    /** Submission scheduler. */
+    private SubmissionScheduler submissionScheduler_;
+    
+    /** Group manager reservations of the running submissions. */
+    private GroupManagerReservations reservations_;
+    
+    /** Submission finishes pushed by the group managers. */
+    private SubmissionResponseCollector responseCollector_;
+    
+    /** Virtual machine location index. */
+    private VirtualMachineLocationIndex locationIndex_;
 
     /** Virtual cluster dispatching. */
     private DispatchingPolicy virtualClusterDispatching_;
@@ -108,8 +126,15 @@ public final class VirtualClusterManager
         nodeConfiguration_ = nodeConfiguration;
         repository_ = repository;
         estimator_ = estimator;
-        virtualClusterResponses_ = new HashMap<String, VirtualClusterSubmissionResponse>();
-        workerQueue_ = new LinkedList<VirtualClusterSubmissionWorker>();
+        virtualClusterResponses_ = new ConcurrentHashMap<String, VirtualClusterSubmissionResponse>();
+        reservations_ = new GroupManagerReservations();
+        PollingSettings collectionSettings = nodeConfiguration.getSubmission().getCollection();
+        responseCollector_ = new SubmissionResponseCollector(
+                TimeUtils.convertSecondsToMilliseconds(collectionSettings.getNumberOfRetries() * 
+                                                       collectionSettings.getRetryInterval()));
+        int numberOfSubmissions = nodeConfiguration.getGroupLeaderScheduler().getNumberOfConcurrentSubmissions();
+        submissionScheduler_ = new SubmissionScheduler(numberOfSubmissions);
+        locationIndex_ = new VirtualMachineLocationIndex();
         virtualNetworkManager_ = VirtualNetworkFactory.newVirtualNetworkManager(repository);
         initializeDispatchingPolicy();
     }
@@ -253,7 +278,20 @@ public final class VirtualClusterManager
      * @param submissionRequest       The submission request
      * @return                        The task identifier
      */
-    public synchronized String startVirtualClusterSubmission(VirtualClusterSubmissionRequest submissionRequest) 
+    public String startVirtualClusterSubmission(VirtualClusterSubmissionRequest submissionRequest) 
+    {
+        return startVirtualClusterSubmission(DEFAULT_TENANT, submissionRequest);
+    }
+    
+    /**
+     * Dispatches the virtual cluster submission request.
+     * 
+     * @param tenant                  The tenant (e.g. client address)
+     * @param submissionRequest       The submission request
+     * @return                        The task identifier
+     */
+    public synchronized String startVirtualClusterSubmission(String tenant,
+                                                             VirtualClusterSubmissionRequest submissionRequest) 
     {
         Guard.check(submissionRequest);
         log_.debug("Executing the virtual cluster start request");
@@ -283,7 +321,7 @@ public final class VirtualClusterManager
                 return null;
             }
             
-            taskIdentifier = startSubmissionWorker(virtualMachines);
+            taskIdentifier = startSubmissionWorker(tenant, virtualMachines);
         }
                
         return taskIdentifier;
@@ -292,10 +330,11 @@ public final class VirtualClusterManager
     /**
      * Starts the submission worker.
      * 
+     * @param tenant            The tenant
      * @param virtualMachines   The virtual machines
      * @return                  The task identifier
      */ 
-    private String startSubmissionWorker(ArrayList<VirtualMachineMetaData> virtualMachines)
+    private String startSubmissionWorker(String tenant, ArrayList<VirtualMachineMetaData> virtualMachines)
     {
         String taskIdentifier = UUID.randomUUID().toString();
         VirtualClusterSubmissionWorker submission = new VirtualClusterSubmissionWorker(taskIdentifier,
@@ -304,15 +343,11 @@ public final class VirtualClusterManager
                                                                                        virtualClusterDispatching_,
                                                                                        repository_,
                                                                                        estimator_,
-                                                                                       this);   
-        if (workerQueue_.size() == 0)
-        {
-            log_.debug(String.format("Starting virtual cluster submission thread for task: %s!", 
-                                     taskIdentifier));
-            new Thread(submission, "SubmissionWorker : " + taskIdentifier).start();
-        }
-        
-        workerQueue_.add(submission);
+                                                                                       this,
+                                                                                       reservations_,
+                                                                                       responseCollector_);   
+        log_.debug(String.format("Scheduling virtual cluster submission for task: %s!", taskIdentifier));
+        submissionScheduler_.submit(tenant == null ? DEFAULT_TENANT : tenant, submission);
         return taskIdentifier;
     }
     
@@ -331,13 +366,6 @@ public final class VirtualClusterManager
         
         postVirtualClusterSubmission(response.getVirtualMachineMetaData());
         virtualClusterResponses_.put(taskIdentifier, response);
-        
-        workerQueue_.poll();
-        VirtualClusterSubmissionWorker submissionWorker = workerQueue_.peek();
-        if (submissionWorker != null)
-        {
-            new Thread(submissionWorker, "SubmissionWorker : " + taskIdentifier).start();
-        }
     }
      
     /**
@@ -355,6 +383,14 @@ public final class VirtualClusterManager
                 log_.debug("Releasing IP address!");
                 virtualNetworkManager_.releaseIpAddress(metaData);
             }
+            
+            VirtualMachineLocation location = metaData.getVirtualMachineLocation();
+            if (isRunning && location.getGroupManagerId() != null && location.getLocalControllerId() != null)
+            {
+                locationIndex_.addVirtualMachine(location.getVirtualMachineId(), 
+                                                 location.getGroupManagerId(), 
+                                                 location.getLocalControllerId());
+            }
         }
     }
     
@@ -368,12 +404,26 @@ public final class VirtualClusterManager
     {
         Guard.check(taskIdentifier);        
         
-        VirtualClusterSubmissionResponse virtualClusterResponse = virtualClusterResponses_.get(taskIdentifier);
-        if (virtualClusterResponse != null)
-        {
-            virtualClusterResponses_.remove(taskIdentifier);
-        }
-        
-        return virtualClusterResponse;
+        return virtualClusterResponses_.remove(taskIdentifier);
+    }
+    
+    /**
+     * Returns the submission response collector.
+     * 
+     * @return  The submission response collector
+     */
+    public SubmissionResponseCollector getSubmissionResponseCollector()
+    {
+        return responseCollector_;
+    }
+    
+    /**
+     * Returns the virtual machine location index.
+     * 
+     * @return  The virtual machine location index
+     */
+    public VirtualMachineLocationIndex getVirtualMachineLocationIndex()
+    {
+        return locationIndex_;
     }
 }
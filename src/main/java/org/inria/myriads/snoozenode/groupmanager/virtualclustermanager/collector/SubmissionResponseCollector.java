@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.collector;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the virtual machine submission finishes pushed by the group managers.
+ * 
+ * Finishes may arrive before the submission worker waits for them, they are 
+ * therefore kept (in arrival order) until claimed or until the retention expires.
+ * 
+ * @author Eugen Feller
+ */
+public final class SubmissionResponseCollector 
+    implements VirtualMachineManagerListener
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SubmissionResponseCollector.class);
+    
+    /** Unclaimed finishes (task identifier : finish). */
+    private final LinkedHashMap<String, SubmissionFinish> finishes_;
+    
+    /** Retention of unclaimed finishes (ms). */
+    private final long retention_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param retention     The retention of unclaimed finishes (ms)
+     */
+    public SubmissionResponseCollector(long retention)
+    {
+        finishes_ = new LinkedHashMap<String, SubmissionFinish>();
+        retention_ = retention;
+    }
+    
+    /**
+     * Called on virtual machine submission finished.
+     * 
+     * @param taskIdentifier      The task identifier
+     * @param submissionResponse  The virtual machine submission response
+     */
+    @Override
+    public synchronized void onSubmissionFinished(String taskIdentifier, 
+                                                  VirtualMachineSubmissionResponse submissionResponse)
+    {
+        Guard.check(taskIdentifier, submissionResponse);
+        log_.debug(String.format("Received submission %s finish", taskIdentifier));
+        
+        long now = System.currentTimeMillis();
+        for (Iterator<SubmissionFinish> iterator = finishes_.values().iterator(); iterator.hasNext();)
+        {
+            if (iterator.next().timeStamp_ >= now - retention_)
+            {
+                break;
+            }
+            
+            iterator.remove();
+        }
+        
+        finishes_.put(taskIdentifier, new SubmissionFinish(submissionResponse, now));
+        notifyAll();
+    }
+    
+    /**
+     * Waits until at least one of the submissions finished.
+     * 
+     * @param taskIdentifiers           The task identifiers
+     * @param timeout                   The timeout (ms)
+     * @return                          The finished submissions (empty on timeout)
+     * @throws InterruptedException     The interrupted exception
+     */
+    public synchronized Map<String, VirtualMachineSubmissionResponse> await(Collection<String> taskIdentifiers,
+                                                                            long timeout)
+        throws InterruptedException
+    {
+        Guard.check(taskIdentifiers);
+        Map<String, VirtualMachineSubmissionResponse> responses = 
+            new HashMap<String, VirtualMachineSubmissionResponse>();
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true)
+        {
+            for (String taskIdentifier : taskIdentifiers)
+            {
+                SubmissionFinish finish = finishes_.remove(taskIdentifier);
+                if (finish != null)
+                {
+                    responses.put(taskIdentifier, finish.response_);
+                }
+            }
+            
+            long remaining = deadline - System.currentTimeMillis();
+            if (responses.size() > 0 || remaining <= 0)
+            {
+                return responses;
+            }
+            
+            wait(remaining);
+        }
+    }
+    
+    /**
+     * Discards the finishes of the given submissions (e.g. collected by polling).
+     * 
+     * @param taskIdentifiers   The task identifiers
+     */
+    public synchronized void discard(Collection<String> taskIdentifiers)
+    {
+        Guard.check(taskIdentifiers);
+        finishes_.keySet().removeAll(taskIdentifiers);
+    }
+    
+    /**
+     * Returns the number of unclaimed finishes.
+     * 
+     * @return  The number of unclaimed finishes
+     */
+    public synchronized int getNumberOfFinishes()
+    {
+        return finishes_.size();
+    }
+    
+    /**
+     * Submission finish.
+     */
+    private static final class SubmissionFinish
+    {
+        /** Submission response. */
+        private final VirtualMachineSubmissionResponse response_;
+        
+        /** Arrival time stamp. */
+        private final long timeStamp_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param response      The submission response
+         * @param timeStamp     The arrival time stamp
+         */
+        private SubmissionFinish(VirtualMachineSubmissionResponse response, long timeStamp)
+        {
+            response_ = response;
+            timeStamp_ = timeStamp;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozecommon.util.MonitoringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group manager capacity reservations of the running virtual cluster submissions.
+ * 
+ * Capacity dispatched to a group manager stays reserved until the group manager
+ * summaries account for it, i.e. until the first summary following the submission
+ * response. Concurrent dispatches see the reserved capacity as unavailable and 
+ * therefore do not oversubscribe the same group manager.
+ * 
+ * @author Eugen Feller
+ */
+public final class GroupManagerReservations 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(GroupManagerReservations.class);
+    
+    /** Reservations (group manager identifier : task identifier : reservation). */
+    private final Map<String, Map<String, Reservation>> reservations_;
+    
+    /** Constructor. */
+    public GroupManagerReservations()
+    {
+        reservations_ = new HashMap<String, Map<String, Reservation>>();
+    }
+    
+    /**
+     * Removes the reserved capacity from the latest group manager summaries.
+     * (group manager descriptions must be copies)
+     * 
+     * @param groupManagers     The group managers
+     */
+    public synchronized void apply(List<GroupManagerDescription> groupManagers)
+    {
+        Guard.check(groupManagers);
+        for (GroupManagerDescription groupManager : groupManagers)
+        {
+            Map<String, Reservation> reservations = reservations_.get(groupManager.getId());
+            if (reservations == null || groupManager.getSummaryInformation().size() == 0)
+            {
+                continue;
+            }
+            
+            GroupManagerSummaryInformation summary = 
+                    MonitoringUtils.getLatestSummaryInformation(groupManager.getSummaryInformation());
+            List<Double> reservedCapacity = getReservedCapacity(reservations, summary.getTimeStamp());
+            if (reservations.isEmpty())
+            {
+                reservations_.remove(groupManager.getId());
+            }
+            
+            log_.debug(String.format("Group manager %s has %s capacity reserved", 
+                                     groupManager.getId(), reservedCapacity));
+            ArrayList<Double> activeCapacity = MathUtils.substractVector(summary.getActiveCapacity(), 
+                                                                         reservedCapacity);
+            ArrayList<Double> passiveCapacity = new ArrayList<Double>(summary.getPassiveCapacity());
+            for (int i = 0; i < activeCapacity.size(); i++)
+            {
+                if (activeCapacity.get(i) < 0)
+                {
+                    passiveCapacity.set(i, Math.max(0, passiveCapacity.get(i) + activeCapacity.get(i)));
+                    activeCapacity.set(i, 0.0);
+                }
+            }
+            
+            summary.setActiveCapacity(activeCapacity);
+            summary.setPassiveCapacity(passiveCapacity);
+        }
+    }
+    
+    /**
+     * Sums up the reservations and drops the ones accounted for by the summaries.
+     * 
+     * @param reservations      The reservations
+     * @param timeStamp         The latest summary time stamp
+     * @return                  The reserved capacity
+     */
+    private List<Double> getReservedCapacity(Map<String, Reservation> reservations, long timeStamp)
+    {
+        List<Double> reservedCapacity = MathUtils.createEmptyVector();
+        for (Iterator<Reservation> iterator = reservations.values().iterator(); iterator.hasNext();)
+        {
+            Reservation reservation = iterator.next();
+            if (reservation.isAccountedFor(timeStamp))
+            {
+                iterator.remove();
+                continue;
+            }
+            
+            reservedCapacity = MathUtils.addVectors(reservedCapacity, reservation.getCapacity());
+        }
+        
+        return reservedCapacity;
+    }
+    
+    /**
+     * Reserves the capacity of the virtual machines dispatched to a group manager.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param groupManager      The group manager
+     */
+    public synchronized void reserve(String taskIdentifier, GroupManagerDescription groupManager)
+    {
+        Guard.check(taskIdentifier, groupManager);
+        Map<String, Reservation> reservations = reservations_.get(groupManager.getId());
+        if (reservations == null)
+        {
+            reservations = new HashMap<String, Reservation>();
+            reservations_.put(groupManager.getId(), reservations);
+        }
+        
+        List<Double> capacity = sumRequestedCapacity(groupManager.getVirtualMachines(), false);
+        reservations.put(taskIdentifier, new Reservation(capacity));
+    }
+    
+    /**
+     * Called once the group manager responded, keeps only the running virtual machines 
+     * reserved until the next group manager summary.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param groupManagerId    The group manager identifier
+     * @param virtualMachines   The virtual machines
+     */
+    public synchronized void complete(String taskIdentifier, 
+                                      String groupManagerId, 
+                                      List<VirtualMachineMetaData> virtualMachines)
+    {
+        Guard.check(taskIdentifier, groupManagerId, virtualMachines);
+        Reservation reservation = getReservation(taskIdentifier, groupManagerId);
+        if (reservation != null)
+        {
+            reservation.complete(sumRequestedCapacity(virtualMachines, true));
+        }
+    }
+    
+    /**
+     * Cancels a reservation.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param groupManagerId    The group manager identifier
+     */
+    public synchronized void cancel(String taskIdentifier, String groupManagerId)
+    {
+        Guard.check(taskIdentifier, groupManagerId);
+        Map<String, Reservation> reservations = reservations_.get(groupManagerId);
+        if (reservations != null)
+        {
+            reservations.remove(taskIdentifier);
+        }
+    }
+    
+    /**
+     * Cancels the reservations of a task not completed yet.
+     * 
+     * @param taskIdentifier    The task identifier
+     */
+    public synchronized void release(String taskIdentifier)
+    {
+        Guard.check(taskIdentifier);
+        for (Map<String, Reservation> reservations : reservations_.values())
+        {
+            Reservation reservation = reservations.get(taskIdentifier);
+            if (reservation != null && !reservation.isCompleted())
+            {
+                reservations.remove(taskIdentifier);
+            }
+        }
+    }
+    
+    /**
+     * Returns the reserved capacity of a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @return                  The reserved capacity
+     */
+    public synchronized List<Double> getReservedCapacity(String groupManagerId)
+    {
+        List<Double> reservedCapacity = MathUtils.createEmptyVector();
+        Map<String, Reservation> reservations = reservations_.get(groupManagerId);
+        if (reservations != null)
+        {
+            for (Reservation reservation : reservations.values())
+            {
+                reservedCapacity = MathUtils.addVectors(reservedCapacity, reservation.getCapacity());
+            }
+        }
+        
+        return reservedCapacity;
+    }
+    
+    /**
+     * Returns a reservation.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param groupManagerId    The group manager identifier
+     * @return                  The reservation, null if none
+     */
+    private Reservation getReservation(String taskIdentifier, String groupManagerId)
+    {
+        Map<String, Reservation> reservations = reservations_.get(groupManagerId);
+        if (reservations == null)
+        {
+            return null;
+        }
+        
+        return reservations.get(taskIdentifier);
+    }
+    
+    /**
+     * Sums up the requested capacity.
+     * 
+     * @param virtualMachines   The virtual machines
+     * @param isRunningOnly     true to skip the virtual machines not running
+     * @return                  The requested capacity
+     */
+    private static List<Double> sumRequestedCapacity(List<VirtualMachineMetaData> virtualMachines, 
+                                                     boolean isRunningOnly)
+    {
+        List<Double> capacity = MathUtils.createEmptyVector();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            if (isRunningOnly && !VirtualMachineStatus.RUNNING.equals(virtualMachine.getStatus()))
+            {
+                continue;
+            }
+            
+            capacity = MathUtils.addVectors(capacity, virtualMachine.getRequestedCapacity());
+        }
+        
+        return capacity;
+    }
+    
+    /**
+     * Capacity reservation on a group manager.
+     */
+    private static final class Reservation
+    {
+        /** Reserved capacity. */
+        private List<Double> capacity_;
+        
+        /** Signals the group manager responded. */
+        private boolean isCompleted_;
+        
+        /** Latest summary time stamp seen after the response (-1 = none yet). */
+        private long timeStamp_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param capacity  The capacity
+         */
+        private Reservation(List<Double> capacity)
+        {
+            capacity_ = capacity;
+            timeStamp_ = -1;
+        }
+        
+        /**
+         * Completes the reservation.
+         * 
+         * @param capacity  The capacity still to account for
+         */
+        private void complete(List<Double> capacity)
+        {
+            capacity_ = capacity;
+            isCompleted_ = true;
+        }
+        
+        /**
+         * Checks if a summary newer than the response accounts for the reservation.
+         * (compares group manager time stamps only, i.e. is not subject to clock skew)
+         * 
+         * @param timeStamp     The latest summary time stamp
+         * @return              true if accounted for, false otherwise
+         */
+        private boolean isAccountedFor(long timeStamp)
+        {
+            if (!isCompleted_)
+            {
+                return false;
+            }
+            
+            if (timeStamp_ == -1)
+            {
+                timeStamp_ = timeStamp;
+                return false;
+            }
+            
+            return timeStamp > timeStamp_;
+        }
+        
+        /**
+         * Returns the capacity.
+         * 
+         * @return  The capacity
+         */
+        private List<Double> getCapacity()
+        {
+            return capacity_;
+        }
+        
+        /**
+         * Checks if completed.
+         * 
+         * @return  true if completed, false otherwise
+         */
+        private boolean isCompleted()
+        {
+            return isCompleted_;
+        }
+    }
+}
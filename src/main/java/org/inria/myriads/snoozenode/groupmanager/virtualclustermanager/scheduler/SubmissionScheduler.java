@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Virtual cluster submission scheduler.
+ * 
+ * Runs up to a bounded number of submissions concurrently (one dispatch slot each).
+ * Pending submissions are queued per tenant and the free slots are handed out
+ * round robin across the tenants, i.e. a large submission of one tenant does 
+ * not delay the submissions of the others.
+ * 
+ * @author Eugen Feller
+ */
+public final class SubmissionScheduler 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SubmissionScheduler.class);
+    
+    /** Number of dispatch slots. */
+    private final int numberOfSlots_;
+    
+    /** Pending submissions (tenant : submissions), in round robin order. */
+    private final LinkedHashMap<String, Queue<Runnable>> pendingSubmissions_;
+    
+    /** Submission threads. */
+    private final ExecutorService executor_;
+    
+    /** Number of running submissions. */
+    private int numberOfRunningSubmissions_;
+    
+    /** Number of pending submissions. */
+    private int numberOfPendingSubmissions_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param numberOfSlots     The number of concurrent submissions
+     */
+    public SubmissionScheduler(int numberOfSlots)
+    {
+        numberOfSlots_ = Math.max(1, numberOfSlots);
+        log_.debug(String.format("Initializing the submission scheduler with %d slots", numberOfSlots_));
+        pendingSubmissions_ = new LinkedHashMap<String, Queue<Runnable>>();
+        executor_ = Executors.newFixedThreadPool(numberOfSlots_);
+    }
+    
+    /**
+     * Submits a virtual cluster submission.
+     * 
+     * @param tenant        The tenant
+     * @param submission    The submission
+     */
+    public synchronized void submit(String tenant, Runnable submission)
+    {
+        Guard.check(tenant, submission);
+        Queue<Runnable> submissions = pendingSubmissions_.get(tenant);
+        if (submissions == null)
+        {
+            submissions = new LinkedList<Runnable>();
+            pendingSubmissions_.put(tenant, submissions);
+        }
+        
+        submissions.add(submission);
+        numberOfPendingSubmissions_++;
+        log_.debug(String.format("Submission of tenant %s queued (%d running, %d pending)", 
+                                 tenant, numberOfRunningSubmissions_, numberOfPendingSubmissions_));
+        schedule();
+    }
+    
+    /**
+     * Starts pending submissions while slots are free.
+     */
+    private void schedule()
+    {
+        while (numberOfRunningSubmissions_ < numberOfSlots_ && numberOfPendingSubmissions_ > 0)
+        {
+            Runnable submission = pollNextSubmission();
+            numberOfPendingSubmissions_--;
+            numberOfRunningSubmissions_++;
+            executor_.execute(createSlot(submission));
+        }
+    }
+    
+    /**
+     * Takes the next submission of the next tenant and moves the tenant to the end.
+     * 
+     * @return  The submission
+     */
+    private Runnable pollNextSubmission()
+    {
+        Iterator<Map.Entry<String, Queue<Runnable>>> iterator = pendingSubmissions_.entrySet().iterator();
+        Map.Entry<String, Queue<Runnable>> entry = iterator.next();
+        iterator.remove();
+        
+        Runnable submission = entry.getValue().poll();
+        if (!entry.getValue().isEmpty())
+        {
+            pendingSubmissions_.put(entry.getKey(), entry.getValue());
+        }
+        
+        return submission;
+    }
+    
+    /**
+     * Wraps a submission into a dispatch slot.
+     * 
+     * @param submission    The submission
+     * @return              The slot
+     */
+    private Runnable createSlot(final Runnable submission)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    submission.run();
+                }
+                catch (RuntimeException exception)
+                {
+                    log_.error("Submission failed", exception);
+                }
+                finally
+                {
+                    onSubmissionFinished();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Releases a dispatch slot.
+     */
+    private synchronized void onSubmissionFinished()
+    {
+        numberOfRunningSubmissions_--;
+        schedule();
+    }
+    
+    /**
+     * Returns the number of running submissions.
+     * 
+     * @return  The number of running submissions
+     */
+    public synchronized int getNumberOfRunningSubmissions()
+    {
+        return numberOfRunningSubmissions_;
+    }
+    
+    /**
+     * Returns the number of pending submissions.
+     * 
+     * @return  The number of pending submissions
+     */
+    public synchronized int getNumberOfPendingSubmissions()
+    {
+        return numberOfPendingSubmissions_;
+    }
+}
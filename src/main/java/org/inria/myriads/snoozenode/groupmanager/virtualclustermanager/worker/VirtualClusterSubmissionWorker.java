@@ -49,7 +49,9 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPlan;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.impl.Static;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.collector.SubmissionResponseCollector;
 import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler.GroupManagerReservations;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,6 +88,11 @@ public final class VirtualClusterSubmissionWorker
     /** Task identifier. */
     private String taskIdentifier_;
     
+    /** Group manager reservations. */
+    private GroupManagerReservations reservations_;
+    
+    /** Submission finishes pushed by the group managers. */
+    private SubmissionResponseCollector responseCollector_;
 
     
     /**
@@ -98,6 +105,8 @@ public final class VirtualClusterSubmissionWorker
      * @param estimator            The resource demand estimator
      * @param virtualMachines      The virtual machines
      * @param submissionListener   The submission listener
+     * @param reservations         The group manager reservations
+     * @param responseCollector    The submission response collector
      */
     public VirtualClusterSubmissionWorker(String taskIdentifier,
                                           ArrayList<VirtualMachineMetaData> virtualMachines,
@@ -105,7 +114,9 @@ public final class VirtualClusterSubmissionWorker
                                           DispatchingPolicy dispatchingPolicy, 
                                           GroupLeaderRepository repository,
                                           ResourceDemandEstimator estimator,
-                                          VirtualClusterSubmissionListener submissionListener)
+                                          VirtualClusterSubmissionListener submissionListener,
+                                          GroupManagerReservations reservations,
+                                          SubmissionResponseCollector responseCollector)
     {
         log_.debug("Initializing the virtual cluster submission");
         
@@ -116,6 +127,8 @@ public final class VirtualClusterSubmissionWorker
         dispatchingPolicy_ = dispatchingPolicy;
         staticDispatchingPolicy_ = new Static(estimator);
         submissionListener_ = submissionListener;
+        reservations_ = reservations;
+        responseCollector_ = responseCollector;
     }
         
     /** Run method. */
@@ -149,6 +162,7 @@ public final class VirtualClusterSubmissionWorker
         }
         finally
         {      
+            reservations_.release(taskIdentifier_);
             log_.debug("Adding virtual cluster response to the response map");            
             response.setVirtualMachineMetaData(virtualMachines_);
             submissionListener_.onVirtualClusterSubmissionFinished(taskIdentifier_, response);
@@ -209,7 +223,37 @@ public final class VirtualClusterSubmissionWorker
         {
             EnergySaverUtils.suspendEnergySavers(groupManagers);
         }
-                        
+        
+        DispatchingPlan dispatchPlan;
+        synchronized (reservations_)
+        {
+            reservations_.apply(groupManagers);
+            dispatchPlan = computeDispatchingPlan(virtualMachines, groupManagers);
+            for (GroupManagerDescription groupManager : dispatchPlan.getGroupManagers())
+            {
+                reservations_.reserve(taskIdentifier_, groupManager);
+            }
+        }
+                
+        startVirtualCluster(dispatchPlan);    
+        
+        if (isEnergySavings)
+        {
+            EnergySaverUtils.resumeEnergySavers(groupManagers);
+        }
+    }
+    
+    /**
+     * Computes the dispatching plan.
+     * (callers serialize on the reservations, the dispatching policy is shared)
+     * 
+     * @param virtualMachines   The virtual machines
+     * @param groupManagers     The group managers
+     * @return                  The dispatching plan
+     */
+    private DispatchingPlan computeDispatchingPlan(List<VirtualMachineMetaData> virtualMachines,
+                                                   List<GroupManagerDescription> groupManagers)
+    {
         ArrayList<VirtualMachineMetaData> virtualMachinesCopy = 
             new ArrayList<VirtualMachineMetaData>(Arrays.asList(new VirtualMachineMetaData[virtualMachines.size()]));  
 
@@ -238,13 +282,7 @@ public final class VirtualClusterSubmissionWorker
         }
         
         DispatchingPlan dispatchPlan = new DispatchingPlan(groupManagerCandidates);
-                
-        startVirtualCluster(dispatchPlan);    
-        
-        if (isEnergySavings)
-        {
-            EnergySaverUtils.resumeEnergySavers(groupManagers);
-        }
+        return dispatchPlan;
     }
                
     /**
@@ -313,7 +351,7 @@ public final class VirtualClusterSubmissionWorker
                         assignedVirtualMachines,
                         VirtualMachineStatus.ERROR,
                         VirtualMachineErrorCode.UNABLE_TO_START_ON_GROUP_MANAGER);
-                
+                reservations_.cancel(taskIdentifier_, groupManager.getId());
                 continue;
             }
             
@@ -335,64 +373,111 @@ public final class VirtualClusterSubmissionWorker
     /**
      * Starts the submission monitoring.
      * 
+     * Finishes pushed by the group managers are processed as soon as they arrive.
+     * The group managers are polled for the missing ones after each collection 
+     * interval (lost notifications).
+     * 
      * @param responses         The submission responses
      */
     private void startCollectionPolling(Map<String, GroupManagerDescription> responses) 
     {
         log_.debug("Starting submission response collection");
         
-        int numberOfFinishes = 0;
-        int numberOfSubmissions = responses.size();  
         int numberOfRetries = nodeConfiguration_.getSubmission().getCollection().getNumberOfRetries();
         int collectionInterval = nodeConfiguration_.getSubmission().getCollection().getRetryInterval();
         
-        while (numberOfRetries > 0)
+        try
         {
-            if (numberOfFinishes == numberOfSubmissions)
+            while (numberOfRetries > 0)
             {
-                log_.debug("Received all virtual machine submission finishes! Terminating polling!");
-                break;
+                log_.debug(String.format("Waiting at most %d seconds for submission finishes", collectionInterval));
+                collectPushedResponses(responses, TimeUtils.convertSecondsToMilliseconds(collectionInterval));
+                if (responses.isEmpty())
+                {
+                    log_.debug("Received all virtual machine submission finishes! Terminating polling!");
+                    break;
+                }
+                
+                pollResponses(responses);
+                if (responses.isEmpty())
+                {
+                    log_.debug("Received all virtual machine submission finishes! Terminating polling!");
+                    break;
+                }
+                
+                numberOfRetries--;
+                log_.debug(String.format("Will try to collect responses %d more times", numberOfRetries));
             }
-         
-            try 
+        }
+        catch (InterruptedException exception) 
+        {
+            log_.error("Submission monitoring was interrupted!", exception);
+        }
+        finally
+        {
+            responseCollector_.discard(responses.keySet());
+        }
+    }
+    
+    /**
+     * Processes the pushed submission finishes until the timeout.
+     * 
+     * @param responses                 The pending submission responses
+     * @param timeout                   The timeout (ms)
+     * @throws InterruptedException     The interrupted exception
+     */
+    private void collectPushedResponses(Map<String, GroupManagerDescription> responses, long timeout) 
+        throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!responses.isEmpty())
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
             {
-                log_.debug(String.format("Waiting %d seconds more before collecting", collectionInterval));
-                Thread.sleep(TimeUtils.convertSecondsToMilliseconds(collectionInterval));
-            } 
-            catch (InterruptedException exception) 
+                return;
+            }
+            
+            Map<String, VirtualMachineSubmissionResponse> finishes = 
+                    responseCollector_.await(responses.keySet(), remaining);
+            for (Map.Entry<String, VirtualMachineSubmissionResponse> finish : finishes.entrySet())
             {
-                log_.error("Submission monitoring was interrupted!", exception);
-                break;
+                log_.debug(String.format("Submission %s finish was pushed", finish.getKey()));
+                processVirtualMachineSubmissionResponse(finish.getValue(), responses.remove(finish.getKey()));
             }
+        }
+    }
+    
+    /**
+     * Polls the group managers for the missing submission finishes.
+     * 
+     * @param responses     The pending submission responses
+     */
+    private void pollResponses(Map<String, GroupManagerDescription> responses)
+    {
+        for (Iterator<Map.Entry<String, GroupManagerDescription>> iterator = 
+             responses.entrySet().iterator(); iterator.hasNext();)
+        {
+            Map.Entry<String, GroupManagerDescription> entry = iterator.next();
             
-            for (Iterator<Map.Entry<String, GroupManagerDescription>> iterator = 
-                 responses.entrySet().iterator(); iterator.hasNext();)
+            String taskIdentifier = entry.getKey();
+            GroupManagerDescription groupManager = entry.getValue();
+            VirtualMachineSubmissionResponse submissionResponse = 
+                    getVirtualMachineSubmissionResponse(taskIdentifier, groupManager);
+            if (submissionResponse == null)
             {
-                Map.Entry<String, GroupManagerDescription> entry = iterator.next();
+                log_.debug(String.format("No submission %s finish available yet!", taskIdentifier));
+                ManagementUtils.updateAllVirtualMachineMetaData(
+                        groupManager.getVirtualMachines(), 
+                        VirtualMachineStatus.ERROR, 
+                        VirtualMachineErrorCode.UNABLE_TO_COLLECT_GROUP_MANAGER_RESPONSE);
                 
-                String taskIdentifier = entry.getKey();
-                GroupManagerDescription groupManager = entry.getValue();
-                VirtualMachineSubmissionResponse submissionResponse = 
-                        getVirtualMachineSubmissionResponse(taskIdentifier, groupManager);
-                if (submissionResponse == null)
-                {
-                    log_.debug(String.format("No submission %s finish available yet!", taskIdentifier));
-                    ManagementUtils.updateAllVirtualMachineMetaData(
-                            virtualMachines_, 
-                            VirtualMachineStatus.ERROR, 
-                            VirtualMachineErrorCode.UNABLE_TO_COLLECT_GROUP_MANAGER_RESPONSE);
-                    
-                    continue;
-                }
-                                                
-                processVirtualMachineSubmissionResponse(submissionResponse, groupManager);
-                iterator.remove();
-                numberOfFinishes++;
+                continue;
             }
-            
-            numberOfRetries--;
-            log_.debug(String.format("Will try to collect responses %d more times", numberOfRetries));
-        }     
+                                            
+            processVirtualMachineSubmissionResponse(submissionResponse, groupManager);
+            iterator.remove();
+        }
     }
     
     /**
@@ -419,6 +504,8 @@ public final class VirtualClusterSubmissionWorker
                                                          receivedVirtualMachine.getErrorCode());
             submittedVirtualMachine.setVirtualMachineLocation(receivedVirtualMachine.getVirtualMachineLocation());
         }
+        
+        reservations_.complete(taskIdentifier_, groupManager.getId(), submittedVirtualMachines);
     }
 
     /**
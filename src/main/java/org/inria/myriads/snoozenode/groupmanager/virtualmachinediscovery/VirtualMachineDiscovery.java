@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDes
 import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.discovery.VirtualMachineDiscoveryResponse;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.slf4j.Logger;
@@ -34,6 +35,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Virtual machine discovery logic.
  * 
+ * The location index is asked first and its answer verified on the indexed group manager.
+ * All group managers are searched only if the index misses or is stale.
+ * 
  * @author Eugen Feller
  */
 public final class VirtualMachineDiscovery
@@ -47,16 +51,22 @@ public final class VirtualMachineDiscovery
     /** The group leader repository. */
     private GroupLeaderRepository groupLeaderRepository_;
     
+    /** Virtual machine location index. */
+    private VirtualMachineLocationIndex locationIndex_;
+    
     /**
      * Virtual machine discovery constructor.
      * 
      * @param groupLeaderRepository     The  group leader repository
+     * @param locationIndex             The virtual machine location index
      */
-    public VirtualMachineDiscovery(GroupLeaderRepository groupLeaderRepository) 
+    public VirtualMachineDiscovery(GroupLeaderRepository groupLeaderRepository,
+                                   VirtualMachineLocationIndex locationIndex) 
     {
-        Guard.check(groupLeaderRepository);
+        Guard.check(groupLeaderRepository, locationIndex);
         log_.debug("Initializing the virtual machine discovery service");
         groupLeaderRepository_ = groupLeaderRepository;
+        locationIndex_ = locationIndex;
     }
 
     /**
@@ -70,24 +80,91 @@ public final class VirtualMachineDiscovery
         Guard.check(virtualMachineId);
         log_.debug(String.format("Starting virtual machine discovery for: %s", virtualMachineId));
         
+        VirtualMachineDiscoveryResponse response = lookupVirtualMachine(virtualMachineId);
+        if (response != null)
+        {
+            return response;
+        }
+        
         List<GroupManagerDescription> groupManagerDescriptions = 
             groupLeaderRepository_.getGroupManagerDescriptions(NUMBER_OF_MONITORING_ENTRIES);
         for (GroupManagerDescription groupManager : groupManagerDescriptions) 
         {
-            NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerAPI groupManagerCommunicator = CommunicatorFactory.newGroupManagerCommunicator(address);
-            String localControllerId = groupManagerCommunicator.searchVirtualMachine(virtualMachineId);  
-            if (localControllerId != null)
+            response = searchVirtualMachine(virtualMachineId, groupManager);
+            if (response != null)
             {
                 log_.debug(String.format("Group manager %s has the virtual machine! Great!", 
                                          groupManager.getId()));
-                VirtualMachineDiscoveryResponse response = new VirtualMachineDiscoveryResponse();
-                response.setLocalControllerId(localControllerId);
-                response.setGroupManagerAddress(address);
+                locationIndex_.addVirtualMachine(virtualMachineId, 
+                                                 groupManager.getId(), 
+                                                 response.getLocalControllerId());
                 return response;
             }
         }
         
         return null;
     }
+    
+    /**
+     * Looks the virtual machine up in the location index.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The verified discovery response (null if missing or stale)
+     */
+    private VirtualMachineDiscoveryResponse lookupVirtualMachine(String virtualMachineId)
+    {
+        VirtualMachineLocation location = locationIndex_.getVirtualMachineLocation(virtualMachineId);
+        if (location == null)
+        {
+            log_.debug(String.format("Virtual machine %s is not indexed", virtualMachineId));
+            return null;
+        }
+        
+        GroupManagerDescription groupManager = 
+            groupLeaderRepository_.getGroupManagerDescription(location.getGroupManagerId(), 
+                                                              NUMBER_OF_MONITORING_ENTRIES);
+        VirtualMachineDiscoveryResponse response = null;
+        if (groupManager != null)
+        {
+            response = searchVirtualMachine(virtualMachineId, groupManager);
+        }
+        
+        if (response == null)
+        {
+            log_.debug(String.format("Indexed location of virtual machine %s is stale", virtualMachineId));
+            locationIndex_.removeVirtualMachine(virtualMachineId);
+            return null;
+        }
+        
+        if (!response.getLocalControllerId().equals(location.getLocalControllerId()))
+        {
+            locationIndex_.addVirtualMachine(virtualMachineId, groupManager.getId(), response.getLocalControllerId());
+        }
+        
+        return response;
+    }
+    
+    /**
+     * Searches a virtual machine on a group manager.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @param groupManager          The group manager description
+     * @return                      The discovery response (null if not found)
+     */
+    private VirtualMachineDiscoveryResponse searchVirtualMachine(String virtualMachineId, 
+                                                                 GroupManagerDescription groupManager)
+    {
+        NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
+        GroupManagerAPI groupManagerCommunicator = CommunicatorFactory.newGroupManagerCommunicator(address);
+        String localControllerId = groupManagerCommunicator.searchVirtualMachine(virtualMachineId);  
+        if (localControllerId == null)
+        {
+            return null;
+        }
+        
+        VirtualMachineDiscoveryResponse response = new VirtualMachineDiscoveryResponse();
+        response.setLocalControllerId(localControllerId);
+        response.setGroupManagerAddress(address);
+        return response;
+    }
 }
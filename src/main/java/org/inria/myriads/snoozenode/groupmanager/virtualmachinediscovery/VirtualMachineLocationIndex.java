@@ -0,0 +1,241 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Virtual machine location index of the group leader.
+ * 
+ * Maps virtual machine identifiers to their group manager and local controller.
+ * Built from the group manager summaries, the submission results and the discovery
+ * results. Entries may be stale and must be verified by the caller.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineLocationIndex 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineLocationIndex.class);
+    
+    /** Locations (virtual machine identifier : location). */
+    private final ConcurrentMap<String, VirtualMachineLocation> locations_;
+    
+    /** 
+     * Virtual machines of the latest summaries.
+     * 
+     * Key: Group manager identifier
+     * Value: Virtual machine identifiers per local controller identifier
+     */
+    private final Map<String, Map<String, Set<String>>> summaryVirtualMachines_;
+    
+    /** Constructor. */
+    public VirtualMachineLocationIndex()
+    {
+        locations_ = new ConcurrentHashMap<String, VirtualMachineLocation>();
+        summaryVirtualMachines_ = new HashMap<String, Map<String, Set<String>>>();
+    }
+    
+    /**
+     * Indexes the virtual machines of a group manager summary.
+     * 
+     * A full summary replaces all local controllers of the group manager, a delta summary
+     * only the changed and removed ones. Virtual machines no longer reported are removed.
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param summary                   The summary information
+     * @param removedLocalControllers   The removed local controller identifiers (null for full summaries)
+     */
+    public synchronized void onGroupManagerSummary(String groupManagerId, 
+                                                   GroupManagerSummaryInformation summary,
+                                                   List<String> removedLocalControllers)
+    {
+        Guard.check(groupManagerId, summary);
+        if (summary.getLocalControllers() == null)
+        {
+            return;
+        }
+        
+        Set<String> staleVirtualMachines = new HashSet<String>();
+        Map<String, Set<String>> localControllers = summaryVirtualMachines_.get(groupManagerId);
+        if (localControllers == null || removedLocalControllers == null)
+        {
+            if (localControllers != null)
+            {
+                for (Set<String> virtualMachines : localControllers.values())
+                {
+                    staleVirtualMachines.addAll(virtualMachines);
+                }
+            }
+            
+            localControllers = new HashMap<String, Set<String>>();
+            summaryVirtualMachines_.put(groupManagerId, localControllers);
+        } else
+        {
+            for (String localControllerId : removedLocalControllers)
+            {
+                Set<String> virtualMachines = localControllers.remove(localControllerId);
+                if (virtualMachines != null)
+                {
+                    staleVirtualMachines.addAll(virtualMachines);
+                }
+            }
+        }
+        
+        Set<String> indexedVirtualMachines = new HashSet<String>();
+        for (LocalControllerDescription localController : summary.getLocalControllers())
+        {
+            Set<String> virtualMachines = new HashSet<String>(localController.getVirtualMachineMetaData().keySet());
+            Set<String> previousVirtualMachines = localControllers.put(localController.getId(), virtualMachines);
+            if (previousVirtualMachines != null)
+            {
+                staleVirtualMachines.addAll(previousVirtualMachines);
+            }
+            
+            for (String virtualMachineId : virtualMachines)
+            {
+                locations_.put(virtualMachineId, 
+                               createLocation(virtualMachineId, groupManagerId, localController.getId()));
+            }
+            indexedVirtualMachines.addAll(virtualMachines);
+        }
+        
+        staleVirtualMachines.removeAll(indexedVirtualMachines);
+        for (String virtualMachineId : staleVirtualMachines)
+        {
+            removeIfOnGroupManager(virtualMachineId, groupManagerId);
+        }
+    }
+    
+    /**
+     * Adds (or moves) a virtual machine.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @param groupManagerId        The group manager identifier
+     * @param localControllerId     The local controller identifier
+     */
+    public synchronized void addVirtualMachine(String virtualMachineId, String groupManagerId, String localControllerId)
+    {
+        Guard.check(virtualMachineId, groupManagerId, localControllerId);
+        log_.debug(String.format("Indexing virtual machine %s on group manager %s, local controller %s", 
+                                 virtualMachineId, groupManagerId, localControllerId));
+        locations_.put(virtualMachineId, createLocation(virtualMachineId, groupManagerId, localControllerId));
+    }
+    
+    /**
+     * Removes a virtual machine.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     */
+    public synchronized void removeVirtualMachine(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        locations_.remove(virtualMachineId);
+    }
+    
+    /**
+     * Removes the virtual machines of a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     */
+    public synchronized void dropGroupManager(String groupManagerId)
+    {
+        Guard.check(groupManagerId);
+        log_.debug(String.format("Dropping the virtual machines of group manager %s", groupManagerId));
+        summaryVirtualMachines_.remove(groupManagerId);
+        for (Iterator<VirtualMachineLocation> iterator = locations_.values().iterator(); iterator.hasNext();)
+        {
+            if (groupManagerId.equals(iterator.next().getGroupManagerId()))
+            {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Returns the indexed location of a virtual machine.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The location (null if unknown)
+     */
+    public VirtualMachineLocation getVirtualMachineLocation(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        return locations_.get(virtualMachineId);
+    }
+    
+    /**
+     * Returns the number of indexed virtual machines.
+     * 
+     * @return  The number of virtual machines
+     */
+    public int getNumberOfVirtualMachines()
+    {
+        return locations_.size();
+    }
+    
+    /**
+     * Removes a virtual machine if it is indexed on the group manager.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @param groupManagerId        The group manager identifier
+     */
+    private void removeIfOnGroupManager(String virtualMachineId, String groupManagerId)
+    {
+        VirtualMachineLocation location = locations_.get(virtualMachineId);
+        if (location != null && groupManagerId.equals(location.getGroupManagerId()))
+        {
+            locations_.remove(virtualMachineId, location);
+        }
+    }
+    
+    /**
+     * Creates a virtual machine location.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @param groupManagerId        The group manager identifier
+     * @param localControllerId     The local controller identifier
+     * @return                      The location
+     */
+    private static VirtualMachineLocation createLocation(String virtualMachineId, 
+                                                         String groupManagerId, 
+                                                         String localControllerId)
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(virtualMachineId);
+        location.setGroupManagerId(groupManagerId);
+        location.setLocalControllerId(localControllerId);
+        return location;
+    }
+}
@@ -19,9 +19,13 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
@@ -33,8 +37,11 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.communication.virtualmachine.ResizeRequest;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.scheduler.GroupManagerSchedulerSettings;
+import org.inria.myriads.snoozenode.configurator.submission.EnforcementSettings;
+import org.inria.myriads.snoozenode.configurator.submission.PollingSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.GroupManagerPolicyFactory;
@@ -70,6 +77,15 @@ public final class VirtualMachineManager
     /** Finsished submissions. */
     private Map<String, VirtualMachineSubmissionResponse> submissionResponses_;
     
+    /** Finished submission time stamps. */
+    private Map<String, Long> submissionTimeStamps_;
+    
+    /** Time (ms) a finished submission is kept for collection. */
+    private long submissionRetention_;
+    
+    /** Submission finish listener (pushes to the group leader). */
+    private volatile VirtualMachineManagerListener submissionListener_;
+    
     /** Number of monitoring entries. */
     private int numberOfMonitoringEntries_;
 
@@ -79,6 +95,12 @@ public final class VirtualMachineManager
     /** External Notifier. */
     private ExternalNotifier externalNotifier_;
     
+    /** Placement plan enforcement pool (null = sequential enforcement). */
+    private ExecutorService enforcementPool_;
+    
+    /** Per local controller enforcement timeout (sec). */
+    private int enforcementTimeout_;
+    
     /**
      * Constructor.
      * 
@@ -97,26 +119,73 @@ public final class VirtualMachineManager
         log_.debug("Initializing virtual machine management");
         GroupManagerSchedulerSettings schedulerSettings = nodeConfiguration.getGroupManagerScheduler();
         externalNotifier_ = new ExternalNotifier(nodeConfiguration);
-        numberOfMonitoringEntries_ = estimator.getNumberOfMonitoringEntries();        
+        numberOfMonitoringEntries_ = estimator.getNumberOfCopiedMonitoringEntries();        
         repository_ = groupManagerRepository;
         stateMachine_ = stateMachine;
-        submissionResponses_ = new HashMap<String, VirtualMachineSubmissionResponse>();
+        submissionResponses_ = new ConcurrentHashMap<String, VirtualMachineSubmissionResponse>();
+        submissionTimeStamps_ = new ConcurrentHashMap<String, Long>();
+        PollingSettings collectionSettings = nodeConfiguration.getSubmission().getCollection();
+        submissionRetention_ = TimeUtils.convertSecondsToMilliseconds(collectionSettings.getNumberOfRetries() * 
+                                                                      collectionSettings.getRetryInterval());
         placementPolicy_ = GroupManagerPolicyFactory.newVirtualMachinePlacement(schedulerSettings, 
                                                                                 estimator);
         estimator_ = estimator;
+        
+        EnforcementSettings enforcementSettings = nodeConfiguration.getSubmission().getEnforcement();
+        enforcementTimeout_ = enforcementSettings.getTimeout();
+        if (enforcementSettings.getNumberOfThreads() > 1)
+        {
+            enforcementPool_ = Executors.newFixedThreadPool(enforcementSettings.getNumberOfThreads(),
+                                                            createEnforcementThreadFactory());
+        }
+    }
+    
+    /**
+     * Creates the enforcement thread factory (daemon threads).
+     * 
+     * @return  The thread factory
+     */
+    private static ThreadFactory createEnforcementThreadFactory()
+    {
+        return new ThreadFactory()
+        {
+            /** Number of created threads. */
+            private final AtomicInteger numberOfThreads_ = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "VirtualMachineEnforcement-" + 
+                                                     numberOfThreads_.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+    
+    /**
+     * Terminates the virtual machine manager.
+     */
+    public void terminate()
+    {
+        log_.debug("Terminating the virtual machine manager");
+        if (enforcementPool_ != null)
+        {
+            enforcementPool_.shutdown();
+        }
     }
     
     /**
      * Starts a virtual machine.
      * 
+     * @param taskIdentifier        The task (submission operation) identifier
      * @param submissionRequest     The virtual machine description
      * @return                      The task identifier
      */
-    public String start(VirtualMachineSubmissionRequest submissionRequest) 
+    public String start(String taskIdentifier, VirtualMachineSubmissionRequest submissionRequest) 
     {
-        Guard.check(submissionRequest);
+        Guard.check(taskIdentifier, submissionRequest);
         
-        String taskIdentifier = UUID.randomUUID().toString();
         VirtualMachineSubmissionWorker worker = new VirtualMachineSubmissionWorker(taskIdentifier,
                                                                                    numberOfMonitoringEntries_,
                                                                                    submissionRequest, 
@@ -125,7 +194,9 @@ public final class VirtualMachineManager
                                                                                    stateMachine_,
                                                                                    estimator_,
                                                                                    this,
-                                                                                   externalNotifier_
+                                                                                   externalNotifier_,
+                                                                                   enforcementPool_,
+                                                                                   enforcementTimeout_
                                                                                     );
         new Thread(worker, "VirtualMachineManager : " + taskIdentifier).start();
         return taskIdentifier; 
@@ -328,8 +399,21 @@ public final class VirtualMachineManager
         return true;
     }
 
+    /**
+     * Sets the submission finish listener.
+     * 
+     * @param submissionListener    The submission listener
+     */
+    public void setSubmissionListener(VirtualMachineManagerListener submissionListener)
+    {
+        submissionListener_ = submissionListener;
+    }
+    
     /**
      * Adds a virtual cluster response.
+     * 
+     * The response is pushed to the listener (if any) and kept until it is collected
+     * or the group leader collection window has passed.
      *
      * @param taskIdentifier        The task identifier
      * @param submissionResponse    The virtual machine submisson response
@@ -339,8 +423,35 @@ public final class VirtualMachineManager
     {
         Guard.check(taskIdentifier, submissionResponse);
         log_.debug(String.format("Adding submission %s response", taskIdentifier));
+        dropExpiredSubmissionResponses();
+        submissionTimeStamps_.put(taskIdentifier, System.currentTimeMillis());
         submissionResponses_.put(taskIdentifier, submissionResponse);
-        stateMachine_.onVirtualMachineSubmissionFinished();
+        stateMachine_.onVirtualMachineSubmissionFinished(taskIdentifier);
+        
+        VirtualMachineManagerListener submissionListener = submissionListener_;
+        if (submissionListener != null)
+        {
+            submissionListener.onSubmissionFinished(taskIdentifier, submissionResponse);
+        }
+    }
+    
+    /**
+     * Drops the submission responses nobody collected in time.
+     */
+    private void dropExpiredSubmissionResponses()
+    {
+        long expiration = System.currentTimeMillis() - submissionRetention_;
+        for (Iterator<Map.Entry<String, Long>> iterator = submissionTimeStamps_.entrySet().iterator(); 
+             iterator.hasNext();)
+        {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() < expiration)
+            {
+                log_.debug(String.format("Dropping uncollected submission %s response", entry.getKey()));
+                submissionResponses_.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
     }
     
     /**
@@ -353,11 +464,8 @@ public final class VirtualMachineManager
     {
         Guard.check(taskIdentifier);        
         
-        VirtualMachineSubmissionResponse submissionResponse = submissionResponses_.get(taskIdentifier);
-        if (submissionResponse != null)
-        {
-            submissionResponses_.remove(taskIdentifier);
-        }
+        VirtualMachineSubmissionResponse submissionResponse = submissionResponses_.remove(taskIdentifier);
+        submissionTimeStamps_.remove(taskIdentifier);
         
         log_.debug(String.format("Returning virtual machine submission response: %s", submissionResponse));
         return submissionResponse;
@@ -21,6 +21,12 @@ package org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.worker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
@@ -31,6 +37,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.status.Virtua
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
@@ -52,7 +59,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eugen Feller
  */
-public final class VirtualMachineSubmissionWorker
+public class VirtualMachineSubmissionWorker
     implements Runnable
 {
     /** Define the logger. */
@@ -85,6 +92,12 @@ public final class VirtualMachineSubmissionWorker
     /** External Notifier. */
     private ExternalNotifier externalNotifier_;
     
+    /** Enforcement pool (null = sequential enforcement). */
+    private ExecutorService enforcementPool_;
+    
+    /** Per local controller enforcement timeout (ms). */
+    private long enforcementTimeout_;
+    
     /**
      * Constructor.
      * 
@@ -97,6 +110,8 @@ public final class VirtualMachineSubmissionWorker
      * @param estimator                  The resource estimator
      * @param managerListener            The manager listener
      * @param externalNotifier           The external Notifier
+     * @param enforcementPool            The enforcement pool (null = sequential enforcement)
+     * @param enforcementTimeout         The per local controller enforcement timeout (sec)
      */
     public VirtualMachineSubmissionWorker(String taskIdentifier,
                                           int numberOfMonitoringEntries,
@@ -106,7 +121,9 @@ public final class VirtualMachineSubmissionWorker
                                           StateMachine stateMachine,
                                           ResourceDemandEstimator estimator,
                                           VirtualMachineManagerListener managerListener,
-                                          ExternalNotifier externalNotifier
+                                          ExternalNotifier externalNotifier,
+                                          ExecutorService enforcementPool,
+                                          int enforcementTimeout
                                           )
     {
         taskIdentifier_ = taskIdentifier;
@@ -119,6 +136,8 @@ public final class VirtualMachineSubmissionWorker
     
         staticPlacementPolicy_ = new Static(estimator);
         externalNotifier_ = externalNotifier;
+        enforcementPool_ = enforcementPool;
+        enforcementTimeout_ = TimeUtils.convertSecondsToMilliseconds(enforcementTimeout);
     }
     
     /**
@@ -156,7 +175,7 @@ public final class VirtualMachineSubmissionWorker
      * @param localController   The local controller description
      * @return                  The virtual machine submission response
      */
-    private VirtualMachineSubmissionResponse startVirtualMachines(LocalControllerDescription localController)
+    protected VirtualMachineSubmissionResponse startVirtualMachines(LocalControllerDescription localController)
     {
         List<VirtualMachineMetaData> virtualMachines = localController.getAssignedVirtualMachines();
         log_.debug(String.format("Sending a request to start %d virtual machines to the local controller: %s", 
@@ -171,6 +190,36 @@ public final class VirtualMachineSubmissionWorker
         return submissionResponse;
     }
     
+    /**
+     * Destroys the running virtual machines of a local controller.
+     * (late started virtual machines were already reported failed and their addresses released)
+     * 
+     * @param localController   The local controller description
+     * @param virtualMachines   The virtual machines
+     */
+    protected void destroyVirtualMachines(LocalControllerDescription localController,
+                                          List<VirtualMachineMetaData> virtualMachines)
+    {
+        LocalControllerAPI communicator = 
+                CommunicatorFactory.newLocalControllerCommunicator(localController.getControlDataAddress());
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            if (!virtualMachine.getStatus().equals(VirtualMachineStatus.RUNNING))
+            {
+                continue;
+            }
+            
+            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+            log_.debug(String.format("Destroying late started virtual machine %s on local controller: %s", 
+                                     virtualMachineId, localController.getId()));
+            boolean isDestroyed = communicator.destroyVirtualMachine(virtualMachineId);
+            if (!isDestroyed)
+            {
+                log_.error(String.format("Unable to destroy late started virtual machine: %s", virtualMachineId));
+            }
+        }
+    }
+    
     /**
      * Wakes up a local controller if it is passive.
      * 
@@ -190,54 +239,176 @@ public final class VirtualMachineSubmissionWorker
         return isWokenUp;
     }
     
+    /**
+     * Enforces the placement plan on a local controller.
+     * 
+     * @param localController   The local controller
+     * @param enforcement       The enforcement (null if sequential)
+     * @return                  The virtual machines
+     */
+    private List<VirtualMachineMetaData> enforcePlacementPlan(LocalControllerDescription localController,
+                                                              LocalControllerEnforcement enforcement)
+    {
+        List<VirtualMachineMetaData> assignedVirtualMachines = localController.getAssignedVirtualMachines();
+        log_.debug(String.format("Starting to enforce the placement plan for local controller: %s", 
+                                 localController.getId()));
+        
+        boolean isWokenUp = wakeupLocalControllerIfPassive(localController);
+        if (!isWokenUp)
+        {
+            ManagementUtils.updateAllVirtualMachineMetaData(assignedVirtualMachines,
+                                                            VirtualMachineStatus.ERROR,
+                                                            VirtualMachineErrorCode.LOCAL_CONTROLLER_WAKEUP_FAILED);
+            return assignedVirtualMachines;
+        }
+        
+        VirtualMachineSubmissionResponse submissionResponse = startVirtualMachines(localController);
+        if (submissionResponse == null)
+        {
+            ManagementUtils.updateAllVirtualMachineMetaData(assignedVirtualMachines,
+                                                            VirtualMachineStatus.ERROR,
+                                                            VirtualMachineErrorCode.INVALID_SUBMISSION_RESPONSE);
+            return assignedVirtualMachines;
+        }
+        
+        if (enforcement != null && !enforcement.onResponseReceived())
+        {
+            log_.warn(String.format("Late submission response from local controller: %s! Destroying the started " +
+                                    "virtual machines", localController.getId()));
+            destroyVirtualMachines(localController, submissionResponse.getVirtualMachineMetaData());
+            return submissionResponse.getVirtualMachineMetaData();
+        }
+        
+        for (VirtualMachineMetaData virtualMachine : submissionResponse.getVirtualMachineMetaData())
+        {
+            updateVirtualMachineRepositoryInformation(virtualMachine);
+        }
+        
+        return submissionResponse.getVirtualMachineMetaData();
+    }
+    
     /**
      * Enforces the placement plan.
      * 
      * @param placementPlan    The placement plan
      * @return                 The virtual machine submissions response
      */ 
-    private VirtualMachineSubmissionResponse enforcePlacementPlan(PlacementPlan placementPlan)
+    protected VirtualMachineSubmissionResponse enforcePlacementPlan(PlacementPlan placementPlan)
     {        
         ArrayList<VirtualMachineMetaData> allVirtualMachines = new ArrayList<VirtualMachineMetaData>();
         allVirtualMachines.addAll(placementPlan.gettUnassignedVirtualMachines());
         
-        for (LocalControllerDescription localController : placementPlan.getLocalControllers())
-        {             
-            List<VirtualMachineMetaData> assignedVirtualMachines = localController.getAssignedVirtualMachines();
-            log_.debug(String.format("Starting to enforce the placement plan for local controller: %s", 
-                                     localController.getId()));
-            
-            boolean isWokenUp = wakeupLocalControllerIfPassive(localController);
-            if (!isWokenUp)
-            {
-                ManagementUtils.updateAllVirtualMachineMetaData(assignedVirtualMachines,
-                                                                VirtualMachineStatus.ERROR,
-                                                                VirtualMachineErrorCode.LOCAL_CONTROLLER_WAKEUP_FAILED);
-                allVirtualMachines.addAll(assignedVirtualMachines);
-                continue;
-            }
-            
-            VirtualMachineSubmissionResponse submissionResponse = startVirtualMachines(localController);
-            if (submissionResponse == null)
-            {
-                ManagementUtils.updateAllVirtualMachineMetaData(assignedVirtualMachines,
-                                                                VirtualMachineStatus.ERROR,
-                                                                VirtualMachineErrorCode.INVALID_SUBMISSION_RESPONSE);
-                allVirtualMachines.addAll(assignedVirtualMachines);
-                continue;
-            }
-            
-            for (VirtualMachineMetaData virtualMachine : submissionResponse.getVirtualMachineMetaData())
-            {
-                updateVirtualMachineRepositoryInformation(virtualMachine);
-                allVirtualMachines.add(virtualMachine);
+        List<LocalControllerDescription> localControllers = placementPlan.getLocalControllers();
+        if (enforcementPool_ == null || localControllers.size() <= 1)
+        {
+            for (LocalControllerDescription localController : localControllers)
+            {             
+                allVirtualMachines.addAll(enforcePlacementPlan(localController, null));
             }
         }
+        else
+        {
+            allVirtualMachines.addAll(enforcePlacementPlanInParallel(localControllers));
+        }
         
         VirtualMachineSubmissionResponse submissionResponse = new VirtualMachineSubmissionResponse();
         submissionResponse.setVirtualMachineMetaData(allVirtualMachines);
         return submissionResponse;
     }
+    
+    /**
+     * Enforces the placement plan on all local controllers at once.
+     * (the repository is updated as the responses arrive)
+     * 
+     * @param localControllers  The target local controllers
+     * @return                  The virtual machines
+     */
+    private List<VirtualMachineMetaData> enforcePlacementPlanInParallel(List<LocalControllerDescription> 
+                                                                            localControllers)
+    {
+        log_.debug(String.format("Enforcing the placement plan on %d local controllers in parallel", 
+                                 localControllers.size()));
+        
+        List<LocalControllerEnforcement> enforcements = new ArrayList<LocalControllerEnforcement>();
+        List<Future<List<VirtualMachineMetaData>>> futures = new ArrayList<Future<List<VirtualMachineMetaData>>>();
+        for (LocalControllerDescription localController : localControllers)
+        {
+            LocalControllerEnforcement enforcement = new LocalControllerEnforcement(localController);
+            enforcements.add(enforcement);
+            futures.add(enforcementPool_.submit(enforcement));
+        }
+        
+        List<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+        for (int i = 0; i < enforcements.size(); i++)
+        {
+            virtualMachines.addAll(awaitEnforcement(enforcements.get(i), futures.get(i)));
+        }
+        
+        return virtualMachines;
+    }
+    
+    /**
+     * Waits for the enforcement on a local controller.
+     * (the timeout starts once the enforcement is running)
+     * 
+     * @param enforcement   The enforcement
+     * @param future        The enforcement future
+     * @return              The virtual machines
+     */
+    private List<VirtualMachineMetaData> awaitEnforcement(LocalControllerEnforcement enforcement,
+                                                          Future<List<VirtualMachineMetaData>> future)
+    {
+        String localControllerId = enforcement.getLocalController().getId();
+        try
+        {
+            while (true)
+            {
+                long startTime = enforcement.getStartTime();
+                long remaining = enforcementTimeout_;
+                if (startTime > 0)
+                {
+                    remaining = startTime + enforcementTimeout_ - System.currentTimeMillis();
+                }
+                
+                if (remaining <= 0 && enforcement.abandon())
+                {
+                    log_.error(String.format("Timeout while enforcing the placement plan on local controller: %s",
+                                             localControllerId));
+                    // Not interrupted: the virtual machines of a late response are destroyed
+                    future.cancel(false);
+                    break;
+                }
+                
+                try
+                {
+                    return future.get(Math.max(remaining, 1), TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException exception)
+                {
+                    log_.debug(String.format("Still waiting for local controller: %s", localControllerId));
+                }
+            }
+        }
+        catch (ExecutionException exception)
+        {
+            log_.error(String.format("Failed to enforce the placement plan on local controller: %s", 
+                                     localControllerId), exception);
+        }
+        catch (InterruptedException exception)
+        {
+            log_.error("Interrupted while enforcing the placement plan", exception);
+            Thread.currentThread().interrupt();
+            enforcement.abandon();
+            future.cancel(true);
+        }
+        
+        List<VirtualMachineMetaData> assignedVirtualMachines = 
+                enforcement.getLocalController().getAssignedVirtualMachines();
+        ManagementUtils.updateAllVirtualMachineMetaData(assignedVirtualMachines,
+                                                        VirtualMachineStatus.ERROR,
+                                                        VirtualMachineErrorCode.INVALID_SUBMISSION_RESPONSE);
+        return assignedVirtualMachines;
+    }
 
     /** Run method. */
     @Override
@@ -246,6 +417,68 @@ public final class VirtualMachineSubmissionWorker
         log_.debug(String.format("Starting the virtual machine submission %s procedure", taskIdentifier_));
           
         ArrayList<VirtualMachineMetaData> virtualMachines = submissionRequest_.getVirtualMachineMetaData(); 
+        PlacementPlan placementPlan = computeReservedPlacementPlan(virtualMachines);
+        VirtualMachineSubmissionResponse submissionResponse;
+        if (placementPlan == null)
+        {
+            log_.debug("Unable to reserve the target local controllers!");
+            ManagementUtils.updateAllVirtualMachineMetaData(virtualMachines,
+                                                            VirtualMachineStatus.ERROR,
+                                                            VirtualMachineErrorCode.NOT_ENOUGH_LOCAL_CONTROLLER_CAPACITY);
+            submissionResponse = new VirtualMachineSubmissionResponse();
+            submissionResponse.setVirtualMachineMetaData(virtualMachines);
+        }
+        else
+        {
+            submissionResponse = enforcePlacementPlan(placementPlan);
+        }
+        
+        managerListener_.onSubmissionFinished(taskIdentifier_, submissionResponse);
+    }
+    
+    /**
+     * Computes a placement plan and reserves its target local controllers.
+     * (re-plans once other operations release the targets)
+     * 
+     * @param virtualMachines   The virtual machines
+     * @return                  The placement plan, null on timeout
+     */
+    private PlacementPlan computeReservedPlacementPlan(ArrayList<VirtualMachineMetaData> virtualMachines)
+    {
+        while (true)
+        {
+            List<String> localControllerIds = new ArrayList<String>();
+            synchronized (placementPolicy_)
+            {
+                PlacementPlan placementPlan = computePlacementPlan(virtualMachines);
+                for (LocalControllerDescription localController : placementPlan.getLocalControllers())
+                {
+                    localControllerIds.add(localController.getId());
+                }
+                
+                if (stateMachine_.reserveLocalControllers(taskIdentifier_, localControllerIds))
+                {
+                    return placementPlan;
+                }
+            }
+            
+            log_.debug(String.format("Target local controllers %s are busy! Waiting to re-plan", 
+                                     localControllerIds));
+            if (!stateMachine_.awaitLocalControllers(taskIdentifier_, localControllerIds))
+            {
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Computes the placement plan.
+     * 
+     * @param virtualMachines   The virtual machines
+     * @return                  The placement plan
+     */
+    private PlacementPlan computePlacementPlan(ArrayList<VirtualMachineMetaData> virtualMachines)
+    {
         List<LocalControllerDescription> localControllers = 
                 repository_.getLocalControllerDescriptions(numberOfMonitoringEntries_, false, true);
         
@@ -274,10 +507,7 @@ public final class VirtualMachineSubmissionWorker
         unassignedVirtualMachine.addAll(freePlacementPlan.gettUnassignedVirtualMachines());
 
         PlacementPlan placementPlan = new PlacementPlan(targetLocalControllers, unassignedVirtualMachine);
-        
-        
-        VirtualMachineSubmissionResponse submissionResponse = enforcePlacementPlan(placementPlan);
-        managerListener_.onSubmissionFinished(taskIdentifier_, submissionResponse);
+        return placementPlan;
     }
 
     /**
@@ -320,4 +550,87 @@ public final class VirtualMachineSubmissionWorker
         }
         
     }
+
+    /**
+     * Placement plan enforcement on a single local controller.
+     */
+    private final class LocalControllerEnforcement
+        implements Callable<List<VirtualMachineMetaData>>
+    {
+        /** The local controller. */
+        private final LocalControllerDescription localController_;
+        
+        /** Start time (ms, 0 = not started). */
+        private volatile long startTime_;
+        
+        /** Response received. */
+        private boolean isResponseReceived_;
+        
+        /** Abandoned on timeout. */
+        private boolean isAbandoned_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param localController   The local controller
+         */
+        private LocalControllerEnforcement(LocalControllerDescription localController)
+        {
+            localController_ = localController;
+        }
+        
+        /**
+         * Enforces the placement plan.
+         * 
+         * @return  The virtual machines
+         */
+        @Override
+        public List<VirtualMachineMetaData> call()
+        {
+            startTime_ = System.currentTimeMillis();
+            return enforcePlacementPlan(localController_, this);
+        }
+        
+        /**
+         * Called once the submission response arrived.
+         * 
+         * @return  true if the response is still awaited, false otherwise
+         */
+        private synchronized boolean onResponseReceived()
+        {
+            isResponseReceived_ = !isAbandoned_;
+            return isResponseReceived_;
+        }
+        
+        /**
+         * Abandons the enforcement unless the response already arrived.
+         * 
+         * @return  true if abandoned, false otherwise
+         */
+        private synchronized boolean abandon()
+        {
+            isAbandoned_ = !isResponseReceived_;
+            return isAbandoned_;
+        }
+        
+        /**
+         * Returns the start time.
+         * 
+         * @return  The start time (ms, 0 = not started)
+         */
+        private long getStartTime()
+        {
+            return startTime_;
+        }
+        
+        /**
+         * Returns the local controller.
+         * 
+         * @return  The local controller
+         */
+        private LocalControllerDescription getLocalController()
+        {
+            return localController_;
+        }
+    }
 }
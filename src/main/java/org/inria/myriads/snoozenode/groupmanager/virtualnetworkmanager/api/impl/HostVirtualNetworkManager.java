@@ -73,25 +73,27 @@ public final class HostVirtualNetworkManager
      */
     public boolean assignIpAddresses(List<VirtualMachineMetaData> virtualMachines)
     {
-//        int size = groupLeaderRepository_.getNumberOfFreeIpAddresses();
-//        if (size < virtualMachines.size())
-//        {
-//            log_.warn("Not enough IP addresses available!");
-//            return false;
-//        }
+        List<String> freeIpAddresses = groupLeaderRepository_.allocateIpAddresses(virtualMachines.size());
+        if (freeIpAddresses.size() < virtualMachines.size())
+        {
+            log_.warn(String.format("Not enough IP addresses available (%d of %d)!", 
+                                    freeIpAddresses.size(), virtualMachines.size()));
+        }
         
-        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        for (int i = 0; i < virtualMachines.size(); i++)
         {
+            VirtualMachineMetaData virtualMachine = virtualMachines.get(i);
             String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
-            boolean isAssigned = assignIpAddress(virtualMachine);    
-            if (!isAssigned)
+            if (i >= freeIpAddresses.size())
             {
                 ManagementUtils.updateVirtualMachineMetaData(virtualMachine, 
                                              VirtualMachineStatus.ERROR, 
                                              VirtualMachineErrorCode.NOT_ENOUGH_IP_ADDRESSES);
-                log_.debug("Unable to assign IP address to virtual machine: %s!", virtualMachineId);
-                //return false;
-            }        
+                log_.debug(String.format("Unable to assign IP address to virtual machine: %s!", virtualMachineId));
+                continue;
+            }
+            
+            assignIpAddress(virtualMachine, freeIpAddresses.get(i));
         }
         
         return true;
@@ -101,20 +103,14 @@ public final class HostVirtualNetworkManager
      * Assign MAC address to the virtual machines.
      * 
      * @param virtualMachineMetaData    The virtual machine meta data
-     * @return                          true if assigned, false otherwise
+     * @param freeIpAddress             The allocated IP address
      */
-    private boolean assignIpAddress(VirtualMachineMetaData virtualMachineMetaData) 
+    private void assignIpAddress(VirtualMachineMetaData virtualMachineMetaData, String freeIpAddress) 
     {
-        Guard.check(virtualMachineMetaData);
-        log_.debug(String.format("Assigning MAC address to virtual machine %s and updating IP pool",
+        Guard.check(virtualMachineMetaData, freeIpAddress);
+        log_.debug(String.format("Assigning MAC address to virtual machine %s",
                                  virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId()));
         
-        String freeIpAddress = groupLeaderRepository_.getFreeIpAddress();
-        if (freeIpAddress == null)
-        {
-            return false;
-        }
-        
         log_.debug(String.format("Free IP address: %s", freeIpAddress));
         virtualMachineMetaData.setIpAddress(freeIpAddress);            
         String newMacAddress = embedIpToMac(freeIpAddress);
@@ -126,8 +122,6 @@ public final class HostVirtualNetworkManager
                                                                                             newMacAddress);
 
         virtualMachineMetaData.setXmlRepresentation(newXmlDescription);
-        groupLeaderRepository_.removeIpAddress(freeIpAddress);
-        return true;
     }  
          
     /**
@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.heartbeat.message;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.ListenSettings;
@@ -43,6 +44,9 @@ public final class HeartbeatMessage
     
     /** Heartbeat address. */
     private NetworkAddress heartbeatAddress_;
+    
+    /** Group managers asked to send a full summary (group leader heartbeats only). */
+    private volatile ArrayList<String> resyncRequests_;
 
     /**
      * Sets the identifier.
@@ -103,4 +107,24 @@ public final class HeartbeatMessage
     {
         return heartbeatAddress_;
     }
+
+    /**
+     * Sets the resync requests.
+     * 
+     * @param resyncRequests    The group manager identifiers
+     */
+    public void setResyncRequests(ArrayList<String> resyncRequests) 
+    {
+        resyncRequests_ = resyncRequests;
+    }
+
+    /**
+     * Returns the resync requests.
+     * 
+     * @return  The group manager identifiers
+     */
+    public ArrayList<String> getResyncRequests() 
+    {
+        return resyncRequests_;
+    }
 }
@@ -423,6 +423,7 @@ public final class LocalControllerResource extends ServerResource
         }
         
         boolean isDestroyed = backend_.getVirtualMachineActuator().destroy(virtualMachineId);
+        backend_.getVirtualMachineMonitoringService().invalidate(virtualMachineId);
         if (!isDestroyed)
         {
             log_.error("Unable to destroy the virtual machine");
@@ -610,6 +611,7 @@ public final class LocalControllerResource extends ServerResource
 
        boolean isResizedMem = 
                backend_.getVirtualMachineActuator().setMemory(virtualMachineId, memory.longValue());
+       backend_.getVirtualMachineMonitoringService().invalidate(virtualMachineId);
        
        if (!isResizedMem)
        {
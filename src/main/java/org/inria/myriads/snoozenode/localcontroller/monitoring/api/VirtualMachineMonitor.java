@@ -38,4 +38,11 @@ public interface VirtualMachineMonitor
      */
     VirtualMachineInformation getVirtualMachineInformation(String virtualMachineId)
         throws VirtualMachineMonitoringException;
+    
+    /**
+     * Drops the cached meta data of a virtual machine (e.g. after a lifecycle change).
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     */
+    void invalidate(String virtualMachineId);
 }
@@ -21,6 +21,8 @@ package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.parser.VirtualClusterParserFactory;
@@ -42,6 +44,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Libvirt based virtual machine monitor.
  * 
+ * Domain handles and network interface names are cached per virtual machine,
+ * so that a steady state sample only issues the statistics calls. The cache 
+ * is invalidated on lifecycle changes and whenever a cached handle fails.
+ * 
  * @author Eugen Feller
  */
 public final class LibVirtVirtualMachineMonitor
@@ -53,6 +59,12 @@ public final class LibVirtVirtualMachineMonitor
     /** Connection to the hypervisor. */
     private Connect connect_;
     
+    /** Domain handles (virtual machine identifier : domain). */
+    private Map<String, Domain> domains_;
+    
+    /** Network interfaces (virtual machine identifier : interface names). */
+    private Map<String, List<String>> networkInterfaces_;
+    
     /**
      * Constructor.
      * 
@@ -65,6 +77,22 @@ public final class LibVirtVirtualMachineMonitor
         Guard.check(connector);
         log_.debug("Initializing the libvirt based virtual machine monitoring");
         connect_ = (Connect) connector.getConnector();
+        domains_ = new ConcurrentHashMap<String, Domain>();
+        networkInterfaces_ = new ConcurrentHashMap<String, List<String>>();
+    }
+    
+    /**
+     * Drops the cached domain handle and network interfaces.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     */
+    @Override
+    public void invalidate(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        log_.debug(String.format("Invalidating cached domain meta data of virtual machine: %s", virtualMachineId));
+        domains_.remove(virtualMachineId);
+        networkInterfaces_.remove(virtualMachineId);
     }
     
     /**
@@ -81,12 +109,69 @@ public final class LibVirtVirtualMachineMonitor
         Guard.check(virtualMachineId);
         log_.debug(String.format("Getting information for virtual machine: %s", virtualMachineId));
         
-        Domain domain;
-        DomainInfo domainInformation;
+        boolean isCached = domains_.containsKey(virtualMachineId);
+        try
+        {
+            return getVirtualMachineInformation(virtualMachineId, getDomain(virtualMachineId));
+        }
+        catch (VirtualMachineMonitoringException exception)
+        {
+            if (!isCached)
+            {
+                throw exception;
+            }
+            
+            log_.debug(String.format("Cached domain of virtual machine %s failed, retrying with a new lookup: %s", 
+                                     virtualMachineId, exception.getMessage()));
+            invalidate(virtualMachineId);
+            return getVirtualMachineInformation(virtualMachineId, getDomain(virtualMachineId));
+        }
+    }
+    
+    /**
+     * Returns the (cached) domain handle.
+     * 
+     * @param virtualMachineId                       The virtual machine identifier
+     * @return                                       The domain
+     * @throws VirtualMachineMonitoringException     Exception 
+     */
+    private Domain getDomain(String virtualMachineId) 
+        throws VirtualMachineMonitoringException
+    {
+        Domain domain = domains_.get(virtualMachineId);
+        if (domain != null)
+        {
+            return domain;
+        }
         
         try 
         {
             domain = connect_.domainLookupByName(virtualMachineId);
+        } 
+        catch (LibvirtException exception) 
+        {
+            throw new VirtualMachineMonitoringException(String.format("Failed to lookup domain information: %s", 
+                                                                      exception.getMessage()));
+        }
+        
+        domains_.put(virtualMachineId, domain);
+        return domain;
+    }
+    
+    /**
+     * Returns the resource usage information of a domain.
+     * 
+     * @param virtualMachineId                       The virtual machine identifier
+     * @param domain                                 The domain
+     * @return                                       The virtual machine information
+     * @throws VirtualMachineMonitoringException     Exception 
+     */
+    private VirtualMachineInformation getVirtualMachineInformation(String virtualMachineId, Domain domain) 
+        throws VirtualMachineMonitoringException
+    {
+        DomainInfo domainInformation;
+        try 
+        {
             domainInformation = domain.getInfo();
         } 
         catch (LibvirtException exception) 
@@ -95,8 +180,8 @@ public final class LibVirtVirtualMachineMonitor
                                                                       exception.getMessage()));
         }
                             
-        long currentMemoryUsage = getCurrentMemoryUsage(domain);
-        List<NetworkTrafficInformation> networkTraffic = getCurrentNetworkUsage(domain);
+        long currentMemoryUsage = getCurrentMemoryUsage(domain, domainInformation);
+        List<NetworkTrafficInformation> networkTraffic = getCurrentNetworkUsage(virtualMachineId, domain);
         VirtualMachineInformation information = new VirtualMachineInformation(domainInformation.nrVirtCpu,
                                                                               domainInformation.cpuTime,
                                                                               currentMemoryUsage,
@@ -107,34 +192,51 @@ public final class LibVirtVirtualMachineMonitor
     /**
      * Gets the network traffic information for all interfaces.
      * 
+     * @param virtualMachineId                      The virtual machine identifier
      * @param domain                                The domain
      * @return                                      The traffic information
      * @throws VirtualMachineMonitoringException    The virtual machine monitoring exception
      */
-    private List<NetworkTrafficInformation> getCurrentNetworkUsage(Domain domain) 
+    private List<NetworkTrafficInformation> getCurrentNetworkUsage(String virtualMachineId, Domain domain) 
         throws VirtualMachineMonitoringException 
     {
         Guard.check(domain);
         log_.debug("Getting the network traffic information for all interfaces");
         
-        List<String> networkInterfaces = null;
+        List<String> networkInterfaces = networkInterfaces_.get(virtualMachineId);
+        if (networkInterfaces == null)
+        {
+            networkInterfaces = getNetworkInterfaces(domain);
+            networkInterfaces_.put(virtualMachineId, networkInterfaces);
+        }
+        
+        log_.debug(String.format("Size of the network list: %s", networkInterfaces.size()));
+        
+        List<NetworkTrafficInformation> networkTrafficInformation = 
+            computeNetworkTrafficInformation(networkInterfaces, domain); 
+        return networkTrafficInformation;
+    }
+    
+    /**
+     * Parses the network interface names from the domain description.
+     * 
+     * @param domain                                The domain
+     * @return                                      The network interfaces
+     * @throws VirtualMachineMonitoringException    The virtual machine monitoring exception
+     */
+    private List<String> getNetworkInterfaces(Domain domain) 
+        throws VirtualMachineMonitoringException 
+    {
         try 
         {   
             VirtualClusterParser parser = VirtualClusterParserFactory.newVirtualClusterParser();
-            networkInterfaces = parser.getNetworkInterfaces(domain.getXMLDesc(1));
+            return parser.getNetworkInterfaces(domain.getXMLDesc(1));
         } 
         catch (Exception exception) 
         {
             throw new VirtualMachineMonitoringException(String.format("Unable to get domain XML description: %s",
                                                                       exception.getMessage()));
         } 
-        
-        
-        log_.debug(String.format("Size of the network list: %s", networkInterfaces.size()));
-        
-        List<NetworkTrafficInformation> networkTrafficInformation = 
-            computeNetworkTrafficInformation(networkInterfaces, domain); 
-        return networkTrafficInformation;
     }
     
     /**
@@ -183,48 +285,35 @@ public final class LibVirtVirtualMachineMonitor
      * see http://libvirt.org/hvsupport.html  
      * 
      * @param domain                                    The domain
+     * @param domainInformation                         The domain information of this sample
      * @return                                          The memory usage
-     * @throws VirtualMachineMonitoringException 
      */
-    private long getCurrentMemoryUsage(Domain domain) 
-        throws VirtualMachineMonitoringException
+    private long getCurrentMemoryUsage(Domain domain, DomainInfo domainInformation) 
     {
         Guard.check(domain);
         log_.debug("Getting current domain memory usage information");
         
-        long usedMemory;
         MemoryStatistic[] memStats;
         try 
         {
-            try 
-            {
-                memStats = domain.memoryStats(1);
-                log_.debug(String.format("Size of memory stats: %d", memStats.length));
-            }
-            catch (LibvirtException exception)
-            {
-               log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation! : ");
-               return domain.getInfo().memory;
-            }
-            
-            if (memStats.length > 0)
-            {
-                MemoryStatistic memory = memStats[0];
-                log_.debug(String.format("Good news! Dynamic memory usage information is available: %d", 
-                                         memory.getValue()));
-                return memory.getValue();
-            }
-            
-            log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation!");
-            usedMemory = domain.getInfo().memory;
-        } 
-        catch (LibvirtException exception) 
+            memStats = domain.memoryStats(1);
+            log_.debug(String.format("Size of memory stats: %d", memStats.length));
+        }
+        catch (LibvirtException exception)
         {
-            throw new 
-                VirtualMachineMonitoringException(String.format("Unable to capture current memory information: %s", 
-                                                                exception.getMessage()));
-        } 
+           log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation! : ");
+           return domainInformation.memory;
+        }
+        
+        if (memStats.length > 0)
+        {
+            MemoryStatistic memory = memStats[0];
+            log_.debug(String.format("Good news! Dynamic memory usage information is available: %d", 
+                                     memory.getValue()));
+            return memory.getValue();
+        }
         
-        return usedMemory;
+        log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation!");
+        return domainInformation.memory;
     }
 }
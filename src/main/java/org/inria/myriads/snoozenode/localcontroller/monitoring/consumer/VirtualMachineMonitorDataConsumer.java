@@ -93,7 +93,10 @@ public final class VirtualMachineMonitorDataConsumer
         dataQueue_ = dataQueue;
         callback_ = callback; 
         crossingDetector_ = new ThresholdCrossingDetector(monitoringThresholds, localController.getTotalCapacity());
-        communicator_  = CommunicatorFactory.newVirtualMachineCommunicator(groupManagerAddress, databaseSettings);
+        communicator_  = CommunicatorFactory.newVirtualMachineCommunicator(
+                groupManagerAddress, 
+                databaseSettings, 
+                infrastructureMonitoring.getMonitoringSettings().getTransport());
     }
    
     /**
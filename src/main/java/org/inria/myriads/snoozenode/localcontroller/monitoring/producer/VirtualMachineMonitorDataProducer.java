@@ -19,21 +19,11 @@
  */
 package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 import org.inria.myriads.snoozecommon.guard.Guard;
-import org.inria.myriads.snoozecommon.util.MathUtils;
-import org.inria.myriads.snoozenode.exception.HostMonitoringException;
-import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
-import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.NetworkDirection;
-import org.inria.myriads.snoozenode.localcontroller.monitoring.information.NetworkTrafficInformation;
-import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
@@ -43,6 +33,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Virtual machine monitoring data producer.
  * 
+ * Dedicated sampling thread of one virtual machine.
+ * 
  * @author Eugen Feller
  */
 public final class VirtualMachineMonitorDataProducer 
@@ -50,9 +42,6 @@ public final class VirtualMachineMonitorDataProducer
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineMonitorDataProducer.class);
-          
-    /** Position of the network interface. */
-    private static final int NETWORK_INTERFACE_POSITION = 0;
     
     /** Monitoring callback. */
     private VirtualMachineMonitoringListener monitoringListener_;
@@ -60,41 +49,11 @@ public final class VirtualMachineMonitorDataProducer
     /** Infrastructure monitoring. */
     private InfrastructureMonitoring infrastructureMonitoring_;
     
-    /** Data queue. */
-    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
-    
-    /** Montioring data. */
-    private ArrayList<VirtualMachineMonitoringData> aggregatedData_;
-    
-    /** Virtual machine meta data. */
-    private VirtualMachineMetaData virtualMachineMetaData_;
-            
-    /** Indicates if a measurement interval is first. */
-    private boolean isFirst_;
+    /** Virtual machine sampler. */
+    private VirtualMachineSampler sampler_;
     
     /** Used to terminate the thread. */
     private boolean isTerminated_;
-
-    /** Used to suspend the thread. */
-    private boolean isSuspended_;
-    
-    /** Timestamp before sleep. */
-    private long beforeSleepTime_;
-
-    /** Current system time. */
-    private long currentSystemTime_;
-    
-    /** Time difference. */
-    private long samplingTimeDifference_;
-
-    /** The cpu time stamp. */
-    private long cpuTimeStamp_;
-    
-    /** Network Rx traffic. */
-    private double networkRxBytes_;
-
-    /** Network Tx traffic. */
-    private double networkTxBytes_;
     
     /** Lock object. */
     private Object lockObject_;
@@ -117,34 +76,11 @@ public final class VirtualMachineMonitorDataProducer
         Guard.check(virtualMachineMetaData, monitoringListener, dataQueue, monitoringListener);   
         log_.debug(String.format("Initializing virtual machine monitoring data producer for %s", 
                                  virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId()));
-        virtualMachineMetaData_ = virtualMachineMetaData;
         infrastructureMonitoring_ = infrastructureMonitoring;        
-        dataQueue_ = dataQueue;
         monitoringListener_ = monitoringListener;
         lockObject_ = new Object();
-        aggregatedData_ = new ArrayList<VirtualMachineMonitoringData>();
-        isFirst_ = true;
-    }
-            
-    /**
-     * Creates aggregated virtual machine data.
-     * 
-     * @param monitoringData    The monitoring data
-     * @return                  The aggregated virtual machine data
-     */
-    @SuppressWarnings("unchecked")
-    private AggregatedVirtualMachineData createAggregatedVirtualMachineData(ArrayList<VirtualMachineMonitoringData> 
-                                                                            monitoringData)
-    {
-        log_.debug("Creating aggregated virtual machine data object");
-              
-        ArrayList<VirtualMachineMonitoringData> clonedData =
-            (ArrayList<VirtualMachineMonitoringData>) monitoringData.clone();
-      
-        String virtualMachineId = virtualMachineMetaData_.getVirtualMachineLocation().getVirtualMachineId();
-        AggregatedVirtualMachineData aggregatedData = new AggregatedVirtualMachineData(virtualMachineId, 
-                                                                                       clonedData);
-        return aggregatedData;        
+        int historySize = infrastructureMonitoring.getMonitoringSettings().getNumberOfMonitoringEntries();
+        sampler_ = new VirtualMachineSampler(virtualMachineMetaData, historySize, dataQueue);
     }
     
     /**
@@ -153,209 +89,28 @@ public final class VirtualMachineMonitorDataProducer
     public void run() 
     {
         VirtualMachineMonitor virtualMachineMonitor = infrastructureMonitoring_.getVirtualMachineMonitor();
-        String virtualMachineId = virtualMachineMetaData_.getVirtualMachineLocation().getVirtualMachineId();
-        int historySize = infrastructureMonitoring_.getMonitoringSettings().getNumberOfMonitoringEntries();
+        String virtualMachineId = sampler_.getVirtualMachineId();
         int monitoringInterval =  infrastructureMonitoring_.getMonitoringSettings().getInterval();
         
         log_.debug(String.format("Starting virtual machine monitoring data producer for %s", virtualMachineId));
         try
         {
-            while (true)
+            while (!isTerminated_)
             {            
-                
-                if (isTerminated_)
-                {
-                    break;
-                }
-                         
-                if (!isFirst_)
-                {
-                    currentSystemTime_ = System.nanoTime(); 
-                    samplingTimeDifference_ = currentSystemTime_ - beforeSleepTime_; 
-                }
-                
-                // this call allow us to know if the vm is still alive.
-                VirtualMachineInformation virtualMachineInformation = 
-                    virtualMachineMonitor.getVirtualMachineInformation(virtualMachineId);
-                
-                if (!isSuspended_)
-                {
-                    VirtualMachineMonitoringData monitoringData = 
-                        createDynamicMonitoringData(virtualMachineInformation);
-                    
-                    log_.debug(String.format("Size of aggregated virtual machnine %s monitoring data is %d / %d",
-                                             virtualMachineId, aggregatedData_.size(), historySize));                
-                    if (aggregatedData_.size() == historySize)
-                    {
-                        log_.debug(String.format("Adding aggregated virtual machine %s monitoring data to the " +
-                                                 "monitoring service queue", 
-                                                 virtualMachineId));
-                        
-                        AggregatedVirtualMachineData data = createAggregatedVirtualMachineData(aggregatedData_);
-                        dataQueue_.put(data);
-                        aggregatedData_.clear();
-                    } else
-                    {
-                        log_.debug(String.format("Adding virtual machine %s monitoring data: %s to " +
-                                                 "the local monitoring data list", 
-                                                 virtualMachineId,
-                                                 monitoringData.getUsedCapacity()));
-                        aggregatedData_.add(monitoringData);
-                    }
-                }
-                
-                beforeSleepTime_ = System.nanoTime();      
+                sampler_.sample(virtualMachineMonitor);
                 doSleep(monitoringInterval);       
-                setGlobalUtilization(virtualMachineInformation); 
-                isFirst_ = false;
             }
         }
         catch (Exception exception) 
         {
             log_.debug(String.format("Failed to generate virtual machine monitoring data: %s", 
                                      exception.getMessage()));
-            monitoringListener_.onMonitoringFailure(virtualMachineMetaData_.getVirtualMachineLocation());
+            monitoringListener_.onMonitoringFailure(sampler_.getVirtualMachineMetaData().getVirtualMachineLocation());
         }
         
         log_.debug(String.format("Virtual machine: %s monitoring thread terminated!",  virtualMachineId));  
     }
 
-    /**
-     * Sets the global utilization variables.
-     * Note that only the first network interface is taken into account!
-     * 
-     * @param virtualMachineInformation     The virtual machine information
-     */
-    private void setGlobalUtilization(VirtualMachineInformation virtualMachineInformation)
-    {                   
-        cpuTimeStamp_ = virtualMachineInformation.getCpuTime();   
-        
-        List<NetworkTrafficInformation> networkTraffic = virtualMachineInformation.getNetworkTraffic();
-        if (networkTraffic != null)
-        {
-            networkRxBytes_ = networkTraffic.get(NETWORK_INTERFACE_POSITION).getNetworkDemand().getRxBytes();
-            networkTxBytes_ = networkTraffic.get(NETWORK_INTERFACE_POSITION).getNetworkDemand().getTxBytes();
-        }
-    }
-    
-    /**
-     * Creates a virtual machine data object.
-     * 
-     * @param information                           The domain information
-     * @return                                      The virtual machine data
-     * @throws VirtualMachineMonitoringException 
-     * @throws HostMonitoringException 
-     */
-    private VirtualMachineMonitoringData createDynamicMonitoringData(VirtualMachineInformation information)
-        throws VirtualMachineMonitoringException, HostMonitoringException
-    {        
-        ArrayList<Double> currentUtilization = getCurrentUtilization(information);
-        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
-        data.setUsedCapacity(currentUtilization);
-        return data;
-    }
-    
-    /**
-     * Computes the used capacity.
-     * 
-     * @param virtualMachineInformation             The virtual machine information
-     * @return                                      The used capacity vector
-     * @throws VirtualMachineMonitoringException 
-     * @throws HostMonitoringException 
-     */
-    private ArrayList<Double> getCurrentUtilization(VirtualMachineInformation virtualMachineInformation) 
-        throws VirtualMachineMonitoringException, HostMonitoringException
-    {
-        Guard.check(virtualMachineInformation);
-        
-        double cpuUtilization = 0;
-        double memoryUsage = 0;
-        double networkRxBytes = 0;
-        double networkTxBytes = 0;
-     
-        /**
-         * Make sure during first monitoring cycle no CPU and networking
-         * utilization is computed (values for cpuTimeStamp_ and networkTx/RxBytes_ are
-         * not available and result in 100% utilization)
-         */
-        if (!isFirst_)
-        {
-            cpuUtilization = computeProzessorUtilization(virtualMachineInformation.getCpuTime());        
-            memoryUsage = virtualMachineInformation.getMemoryUsage();
-            
-            // Only first interface is considered
-            List<NetworkTrafficInformation> networkTraffic = virtualMachineInformation.getNetworkTraffic();
-            if (networkTraffic != null)
-            {
-                double traffic = networkTraffic.get(NETWORK_INTERFACE_POSITION).
-                                                    getNetworkDemand().getRxBytes();
-                networkRxBytes = computeNetworkUtilization(traffic, NetworkDirection.Rx);
-                
-                traffic = networkTraffic.get(NETWORK_INTERFACE_POSITION).
-                                            getNetworkDemand().getTxBytes();
-                networkTxBytes = computeNetworkUtilization(traffic, NetworkDirection.Tx);
-            }      
-        }
-               
-        NetworkDemand networkDemand = new NetworkDemand(networkRxBytes, networkTxBytes);
-        ArrayList<Double> utilizationVector = MathUtils.createCustomVector(cpuUtilization,
-                                                                           memoryUsage,
-                                                                           networkDemand);
-        return utilizationVector;
-    }
-
-    /**
-     * Computes the CPU utilization.
-     * 
-     * @param currentCpuTime                        The current cpu time
-     * @return                                      The prozessor utilzation
-     * @throws VirtualMachineMonitoringException 
-     * @throws HostMonitoringException 
-     */
-    private double computeProzessorUtilization(long currentCpuTime) 
-        throws VirtualMachineMonitoringException, HostMonitoringException
-    {                  
-        long cpuTimeDiff = currentCpuTime - cpuTimeStamp_;
-        double cpuUsagePercentage = cpuTimeDiff / (samplingTimeDifference_ * 1.0);
-
-        if (cpuUsagePercentage < 0.0)
-        {
-            log_.debug("CPU utilization is NEGATIVE!");
-            cpuUsagePercentage = 0.0;
-        }
-              
-        return cpuUsagePercentage;
-    }
-       
-    /**
-     * Computes the network utilization.
-     * 
-     * @param currentNetworkTraffic     The current network utilization
-     * @param networkDirection          The network direction
-     * @return                          Number of kilobytes
-     */
-    private double computeNetworkUtilization(double currentNetworkTraffic, NetworkDirection networkDirection) 
-    {                
-        double networkTrafficDifference = 0.0;
-        switch (networkDirection)
-        {
-            case Rx :
-                networkTrafficDifference = currentNetworkTraffic - networkRxBytes_;
-                break;
-                
-            case Tx :
-                networkTrafficDifference = currentNetworkTraffic - networkTxBytes_;
-                break;
-                
-            default :
-                log_.error(String.format("Unknown network direction selected: %s", networkDirection));
-                return 0;
-        }
-        
-        double utilization = networkTrafficDifference / 1024;        
-        return utilization;
-    }
-
     /**
      * Puts the thread to sleep.
      *  
@@ -377,7 +132,7 @@ public final class VirtualMachineMonitorDataProducer
     public synchronized void terminate() 
     {          
         isTerminated_ = true;
-        if (isSuspended_)
+        if (sampler_.isSuspended())
         {
             wakeup();
         }
@@ -388,7 +143,7 @@ public final class VirtualMachineMonitorDataProducer
      */
     public synchronized void setSuspend()
     {
-        isSuspended_ = true;
+        sampler_.setSuspend();
     }
     
     /**
@@ -398,7 +153,7 @@ public final class VirtualMachineMonitorDataProducer
     {
         synchronized (lockObject_)
         {
-            isSuspended_ = false;
+            sampler_.resume();
             lockObject_.notify();
         }
     }
@@ -0,0 +1,377 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.NetworkDirection;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.NetworkTrafficInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Virtual machine sampler.
+ * 
+ * Keeps the sampling state of one virtual machine (previous counters and the
+ * local history) and turns a sample into utilization data. It does not own a 
+ * thread: it is driven either by a dedicated producer thread or by the shared 
+ * sampling scheduler.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineSampler 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineSampler.class);
+          
+    /** Position of the network interface. */
+    private static final int NETWORK_INTERFACE_POSITION = 0;
+    
+    /** Data queue. */
+    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
+    
+    /** Montioring data. */
+    private ArrayList<VirtualMachineMonitoringData> aggregatedData_;
+    
+    /** Virtual machine meta data. */
+    private VirtualMachineMetaData virtualMachineMetaData_;
+    
+    /** History size. */
+    private int historySize_;
+            
+    /** Indicates if a measurement interval is first. */
+    private boolean isFirst_;
+    
+    /** Used to suspend the sampling. */
+    private volatile boolean isSuspended_;
+    
+    /** Used to terminate the sampling. */
+    private volatile boolean isTerminated_;
+    
+    /** Time of the previous sample (ns). */
+    private long previousSampleTime_;
+    
+    /** Time difference. */
+    private long samplingTimeDifference_;
+
+    /** The cpu time stamp. */
+    private long cpuTimeStamp_;
+    
+    /** Network Rx traffic. */
+    private double networkRxBytes_;
+
+    /** Network Tx traffic. */
+    private double networkTxBytes_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     * @param historySize               The number of monitoring entries
+     * @param dataQueue                 The data queue
+     */
+    public VirtualMachineSampler(VirtualMachineMetaData virtualMachineMetaData,
+                                 int historySize,
+                                 BlockingQueue<AggregatedVirtualMachineData> dataQueue) 
+    {
+        Guard.check(virtualMachineMetaData, dataQueue);
+        virtualMachineMetaData_ = virtualMachineMetaData;
+        historySize_ = historySize;
+        dataQueue_ = dataQueue;
+        aggregatedData_ = new ArrayList<VirtualMachineMonitoringData>();
+        isFirst_ = true;
+    }
+    
+    /**
+     * Returns the virtual machine meta data.
+     * 
+     * @return  The virtual machine meta data
+     */
+    public VirtualMachineMetaData getVirtualMachineMetaData()
+    {
+        return virtualMachineMetaData_;
+    }
+    
+    /**
+     * Returns the virtual machine identifier.
+     * 
+     * @return  The virtual machine identifier
+     */
+    public String getVirtualMachineId()
+    {
+        return virtualMachineMetaData_.getVirtualMachineLocation().getVirtualMachineId();
+    }
+    
+    /**
+     * Takes one sample.
+     * 
+     * The domain is queried even while suspended, so that a vanished virtual
+     * machine is still detected.
+     * 
+     * @param virtualMachineMonitor     The virtual machine monitor
+     * @throws Exception                The exception
+     */
+    public synchronized void sample(VirtualMachineMonitor virtualMachineMonitor) 
+        throws Exception
+    {
+        String virtualMachineId = getVirtualMachineId();
+        long currentSampleTime = System.nanoTime();
+        if (!isFirst_)
+        {
+            samplingTimeDifference_ = currentSampleTime - previousSampleTime_;
+        }
+        
+        // this call allow us to know if the vm is still alive.
+        VirtualMachineInformation virtualMachineInformation = 
+            virtualMachineMonitor.getVirtualMachineInformation(virtualMachineId);
+        
+        if (!isSuspended_)
+        {
+            VirtualMachineMonitoringData monitoringData = createDynamicMonitoringData(virtualMachineInformation);
+            
+            log_.debug(String.format("Size of aggregated virtual machnine %s monitoring data is %d / %d",
+                                     virtualMachineId, aggregatedData_.size(), historySize_));                
+            if (aggregatedData_.size() == historySize_)
+            {
+                log_.debug(String.format("Adding aggregated virtual machine %s monitoring data to the " +
+                                         "monitoring service queue", 
+                                         virtualMachineId));
+                
+                AggregatedVirtualMachineData data = createAggregatedVirtualMachineData(aggregatedData_);
+                dataQueue_.put(data);
+                aggregatedData_.clear();
+            } else
+            {
+                log_.debug(String.format("Adding virtual machine %s monitoring data: %s to " +
+                                         "the local monitoring data list", 
+                                         virtualMachineId,
+                                         monitoringData.getUsedCapacity()));
+                aggregatedData_.add(monitoringData);
+            }
+        }
+        
+        previousSampleTime_ = currentSampleTime;
+        setGlobalUtilization(virtualMachineInformation); 
+        isFirst_ = false;
+    }
+    
+    /**
+     * Suspends the sampling.
+     */
+    public void setSuspend()
+    {
+        isSuspended_ = true;
+    }
+    
+    /**
+     * Resumes the sampling.
+     */
+    public void resume()
+    {
+        isSuspended_ = false;
+    }
+    
+    /**
+     * Checks if the sampling is suspended.
+     * 
+     * @return  true if suspended, false otherwise
+     */
+    public boolean isSuspended()
+    {
+        return isSuspended_;
+    }
+    
+    /**
+     * Terminates the sampling.
+     */
+    public void terminate()
+    {
+        isTerminated_ = true;
+    }
+    
+    /**
+     * Checks if the sampling is terminated.
+     * 
+     * @return  true if terminated, false otherwise
+     */
+    public boolean isTerminated()
+    {
+        return isTerminated_;
+    }
+    
+    /**
+     * Creates aggregated virtual machine data.
+     * 
+     * @param monitoringData    The monitoring data
+     * @return                  The aggregated virtual machine data
+     */
+    @SuppressWarnings("unchecked")
+    private AggregatedVirtualMachineData createAggregatedVirtualMachineData(ArrayList<VirtualMachineMonitoringData> 
+                                                                            monitoringData)
+    {
+        log_.debug("Creating aggregated virtual machine data object");
+              
+        ArrayList<VirtualMachineMonitoringData> clonedData =
+            (ArrayList<VirtualMachineMonitoringData>) monitoringData.clone();
+        return new AggregatedVirtualMachineData(getVirtualMachineId(), clonedData);        
+    }
+
+    /**
+     * Sets the global utilization variables.
+     * Note that only the first network interface is taken into account!
+     * 
+     * @param virtualMachineInformation     The virtual machine information
+     */
+    private void setGlobalUtilization(VirtualMachineInformation virtualMachineInformation)
+    {                   
+        cpuTimeStamp_ = virtualMachineInformation.getCpuTime();   
+        
+        List<NetworkTrafficInformation> networkTraffic = virtualMachineInformation.getNetworkTraffic();
+        if (networkTraffic != null)
+        {
+            networkRxBytes_ = networkTraffic.get(NETWORK_INTERFACE_POSITION).getNetworkDemand().getRxBytes();
+            networkTxBytes_ = networkTraffic.get(NETWORK_INTERFACE_POSITION).getNetworkDemand().getTxBytes();
+        }
+    }
+    
+    /**
+     * Creates a virtual machine data object.
+     * 
+     * @param information                           The domain information
+     * @return                                      The virtual machine data
+     * @throws VirtualMachineMonitoringException 
+     */
+    private VirtualMachineMonitoringData createDynamicMonitoringData(VirtualMachineInformation information)
+        throws VirtualMachineMonitoringException
+    {        
+        ArrayList<Double> currentUtilization = getCurrentUtilization(information);
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setUsedCapacity(currentUtilization);
+        return data;
+    }
+    
+    /**
+     * Computes the used capacity.
+     * 
+     * @param virtualMachineInformation             The virtual machine information
+     * @return                                      The used capacity vector
+     * @throws VirtualMachineMonitoringException 
+     */
+    private ArrayList<Double> getCurrentUtilization(VirtualMachineInformation virtualMachineInformation) 
+        throws VirtualMachineMonitoringException
+    {
+        Guard.check(virtualMachineInformation);
+        
+        double cpuUtilization = 0;
+        double memoryUsage = 0;
+        double networkRxBytes = 0;
+        double networkTxBytes = 0;
+     
+        /**
+         * Make sure during first monitoring cycle no CPU and networking
+         * utilization is computed (values for cpuTimeStamp_ and networkTx/RxBytes_ are
+         * not available and result in 100% utilization)
+         */
+        if (!isFirst_)
+        {
+            cpuUtilization = computeProzessorUtilization(virtualMachineInformation.getCpuTime());        
+            memoryUsage = virtualMachineInformation.getMemoryUsage();
+            
+            // Only first interface is considered
+            List<NetworkTrafficInformation> networkTraffic = virtualMachineInformation.getNetworkTraffic();
+            if (networkTraffic != null)
+            {
+                double traffic = networkTraffic.get(NETWORK_INTERFACE_POSITION).
+                                                    getNetworkDemand().getRxBytes();
+                networkRxBytes = computeNetworkUtilization(traffic, NetworkDirection.Rx);
+                
+                traffic = networkTraffic.get(NETWORK_INTERFACE_POSITION).
+                                            getNetworkDemand().getTxBytes();
+                networkTxBytes = computeNetworkUtilization(traffic, NetworkDirection.Tx);
+            }      
+        }
+               
+        NetworkDemand networkDemand = new NetworkDemand(networkRxBytes, networkTxBytes);
+        ArrayList<Double> utilizationVector = MathUtils.createCustomVector(cpuUtilization,
+                                                                           memoryUsage,
+                                                                           networkDemand);
+        return utilizationVector;
+    }
+
+    /**
+     * Computes the CPU utilization.
+     * 
+     * @param currentCpuTime                        The current cpu time
+     * @return                                      The prozessor utilzation
+     */
+    private double computeProzessorUtilization(long currentCpuTime) 
+    {                  
+        long cpuTimeDiff = currentCpuTime - cpuTimeStamp_;
+        double cpuUsagePercentage = cpuTimeDiff / (samplingTimeDifference_ * 1.0);
+
+        if (cpuUsagePercentage < 0.0)
+        {
+            log_.debug("CPU utilization is NEGATIVE!");
+            cpuUsagePercentage = 0.0;
+        }
+              
+        return cpuUsagePercentage;
+    }
+       
+    /**
+     * Computes the network utilization.
+     * 
+     * @param currentNetworkTraffic     The current network utilization
+     * @param networkDirection          The network direction
+     * @return                          Number of kilobytes
+     */
+    private double computeNetworkUtilization(double currentNetworkTraffic, NetworkDirection networkDirection) 
+    {                
+        double networkTrafficDifference = 0.0;
+        switch (networkDirection)
+        {
+            case Rx :
+                networkTrafficDifference = currentNetworkTraffic - networkRxBytes_;
+                break;
+                
+            case Tx :
+                networkTrafficDifference = currentNetworkTraffic - networkTxBytes_;
+                break;
+                
+            default :
+                log_.error(String.format("Unknown network direction selected: %s", networkDirection));
+                return 0;
+        }
+        
+        double utilization = networkTrafficDifference / 1024;        
+        return utilization;
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Virtual machine sampling scheduler.
+ * 
+ * Samples all the virtual machines of the host in rounds aligned on the
+ * monitoring interval. A round is spread over a small pool of threads and 
+ * completes before the next one starts (overrunning rounds delay the next one).
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineSamplingScheduler 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineSamplingScheduler.class);
+    
+    /** Nanoseconds per millisecond. */
+    private static final long NANOSECONDS_PER_MILLISECOND = 1000000L;
+    
+    /** Monitoring callback. */
+    private VirtualMachineMonitoringListener monitoringListener_;
+    
+    /** Infrastructure monitoring. */
+    private InfrastructureMonitoring infrastructureMonitoring_;
+    
+    /** Data queue. */
+    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
+    
+    /** Samplers (virtual machine identifier : sampler). */
+    private Map<String, VirtualMachineSampler> samplers_;
+    
+    /** Round scheduler. */
+    private ScheduledExecutorService scheduler_;
+    
+    /** Sampling pool. */
+    private ExecutorService pool_;
+    
+    /** Signals that the rounds are scheduled. */
+    private boolean isStarted_;
+    
+    /** Number of completed rounds. */
+    private volatile long numberOfRounds_;
+    
+    /** Duration of the last round (ms). */
+    private volatile long lastRoundDuration_;
+    
+    /** Longest round (ms). */
+    private volatile long maximumRoundDuration_;
+    
+    /** Total round duration (ms). */
+    private volatile long totalRoundDuration_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param infrastructureMonitoring     The infrastructure monitoring
+     * @param dataQueue                    The data queue
+     * @param monitoringListener           The virtual machine monitoring callback
+     * @param numberOfThreads              The number of sampling threads
+     */
+    public VirtualMachineSamplingScheduler(InfrastructureMonitoring infrastructureMonitoring,
+                                           BlockingQueue<AggregatedVirtualMachineData> dataQueue,
+                                           VirtualMachineMonitoringListener monitoringListener,
+                                           int numberOfThreads) 
+    {
+        Guard.check(infrastructureMonitoring, dataQueue, monitoringListener);
+        log_.debug(String.format("Initializing the virtual machine sampling scheduler with %d threads", 
+                                 numberOfThreads));
+        infrastructureMonitoring_ = infrastructureMonitoring;
+        dataQueue_ = dataQueue;
+        monitoringListener_ = monitoringListener;
+        samplers_ = new ConcurrentHashMap<String, VirtualMachineSampler>();
+        scheduler_ = Executors.newSingleThreadScheduledExecutor();
+        pool_ = Executors.newFixedThreadPool(Math.max(1, numberOfThreads));
+    }
+    
+    /**
+     * Starts the sampling rounds (once).
+     */
+    public synchronized void start()
+    {
+        if (isStarted_)
+        {
+            return;
+        }
+        
+        isStarted_ = true;
+        long interval = infrastructureMonitoring_.getMonitoringSettings().getInterval();
+        long initialDelay = interval - System.currentTimeMillis() % interval;
+        log_.debug(String.format("Starting sampling rounds every %d ms in %d ms", interval, initialDelay));
+        scheduler_.scheduleAtFixedRate(new Runnable()
+            {
+                public void run()
+                {
+                    runRound();
+                }
+            }, 
+            initialDelay, 
+            interval, 
+            TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Runs one sampling round.
+     */
+    private void runRound()
+    {
+        long startTime = System.nanoTime();
+        final VirtualMachineMonitor virtualMachineMonitor = infrastructureMonitoring_.getVirtualMachineMonitor();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(samplers_.size());
+        for (final VirtualMachineSampler sampler : samplers_.values())
+        {
+            tasks.add(new Callable<Void>()
+                {
+                    public Void call()
+                    {
+                        sample(sampler, virtualMachineMonitor);
+                        return null;
+                    }
+                });
+        }
+        
+        try
+        {
+            pool_.invokeAll(tasks);
+        }
+        catch (InterruptedException exception)
+        {
+            log_.debug("Sampling round was interrupted");
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        long duration = (System.nanoTime() - startTime) / NANOSECONDS_PER_MILLISECOND;
+        numberOfRounds_++;
+        lastRoundDuration_ = duration;
+        totalRoundDuration_ += duration;
+        maximumRoundDuration_ = Math.max(maximumRoundDuration_, duration);
+        log_.debug(String.format("Sampled %d virtual machines in %d ms", tasks.size(), duration));
+        
+        if (duration > infrastructureMonitoring_.getMonitoringSettings().getInterval())
+        {
+            log_.warn(String.format("Sampling round took %d ms, longer than the monitoring interval", duration));
+        }
+    }
+    
+    /**
+     * Samples one virtual machine.
+     * 
+     * @param sampler                   The sampler
+     * @param virtualMachineMonitor     The virtual machine monitor
+     */
+    private void sample(VirtualMachineSampler sampler, VirtualMachineMonitor virtualMachineMonitor)
+    {
+        if (sampler.isTerminated() || samplers_.get(sampler.getVirtualMachineId()) != sampler)
+        {
+            return;
+        }
+        
+        try
+        {
+            sampler.sample(virtualMachineMonitor);
+        }
+        catch (Exception exception)
+        {
+            log_.debug(String.format("Failed to generate virtual machine monitoring data: %s", 
+                                     exception.getMessage()));
+            sampler.terminate();
+            monitoringListener_.onMonitoringFailure(sampler.getVirtualMachineMetaData().getVirtualMachineLocation());
+        }
+    }
+    
+    /**
+     * Adds a virtual machine.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     * @return                          true if added, false if already sampled
+     */
+    public boolean add(VirtualMachineMetaData virtualMachineMetaData)
+    {
+        Guard.check(virtualMachineMetaData);
+        String virtualMachineId = virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId();
+        VirtualMachineSampler current = samplers_.get(virtualMachineId);
+        if (current != null && !current.isTerminated())
+        {
+            return false;
+        }
+        
+        int historySize = infrastructureMonitoring_.getMonitoringSettings().getNumberOfMonitoringEntries();
+        samplers_.put(virtualMachineId, new VirtualMachineSampler(virtualMachineMetaData, historySize, dataQueue_));
+        return true;
+    }
+    
+    /**
+     * Suspends the sampling of a virtual machine.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  true if suspended, false if unknown
+     */
+    public boolean suspend(String virtualMachineId)
+    {
+        VirtualMachineSampler sampler = samplers_.get(virtualMachineId);
+        if (sampler == null)
+        {
+            return false;
+        }
+        
+        sampler.setSuspend();
+        return true;
+    }
+    
+    /**
+     * Resumes the sampling of a virtual machine.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  true if resumed, false if unknown
+     */
+    public boolean resume(String virtualMachineId)
+    {
+        VirtualMachineSampler sampler = samplers_.get(virtualMachineId);
+        if (sampler == null)
+        {
+            return false;
+        }
+        
+        sampler.resume();
+        return true;
+    }
+    
+    /**
+     * Removes a virtual machine.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  true if removed, false if unknown
+     */
+    public boolean remove(String virtualMachineId)
+    {
+        VirtualMachineSampler sampler = samplers_.remove(virtualMachineId);
+        if (sampler == null)
+        {
+            return false;
+        }
+        
+        sampler.terminate();
+        return true;
+    }
+    
+    /**
+     * Checks if a virtual machine is sampled.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  true if sampled, false otherwise
+     */
+    public boolean contains(String virtualMachineId)
+    {
+        return samplers_.containsKey(virtualMachineId);
+    }
+    
+    /**
+     * Returns the number of sampled virtual machines.
+     * 
+     * @return  The number of virtual machines
+     */
+    public int size()
+    {
+        return samplers_.size();
+    }
+    
+    /**
+     * Returns the number of completed rounds.
+     * 
+     * @return  The number of rounds
+     */
+    public long getNumberOfRounds()
+    {
+        return numberOfRounds_;
+    }
+    
+    /**
+     * Returns the duration of the last round.
+     * 
+     * @return  The duration (ms)
+     */
+    public long getLastRoundDuration()
+    {
+        return lastRoundDuration_;
+    }
+    
+    /**
+     * Returns the longest round duration.
+     * 
+     * @return  The duration (ms)
+     */
+    public long getMaximumRoundDuration()
+    {
+        return maximumRoundDuration_;
+    }
+    
+    /**
+     * Returns the average round duration.
+     * 
+     * @return  The duration (ms)
+     */
+    public double getAverageRoundDuration()
+    {
+        long numberOfRounds = numberOfRounds_;
+        if (numberOfRounds == 0)
+        {
+            return 0;
+        }
+        
+        return totalRoundDuration_ / (double) numberOfRounds;
+    }
+    
+    /**
+     * Terminates the scheduler.
+     */
+    public void terminate()
+    {
+        log_.debug("Terminating the virtual machine sampling scheduler");
+        scheduler_.shutdownNow();
+        pool_.shutdownNow();
+        samplers_.clear();
+    }
+}
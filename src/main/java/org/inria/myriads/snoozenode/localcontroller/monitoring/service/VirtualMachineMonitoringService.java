@@ -35,9 +35,11 @@ import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.database.api.LocalControllerRepository;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.consumer.VirtualMachineMonitorDataConsumer;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.SamplerType;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineHeartbeatDataProducer;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineMonitorDataProducer;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineSamplingScheduler;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
@@ -57,6 +59,9 @@ public final class VirtualMachineMonitoringService
     /** Keeps track of the monitoring threads. */
     private Map<String, VirtualMachineMonitorDataProducer> producerThreads_;
     
+    /** Shared sampling scheduler (null if one thread per virtual machine). */
+    private VirtualMachineSamplingScheduler samplingScheduler_;
+    
     /** Data queue. */
     private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
     
@@ -101,6 +106,11 @@ public final class VirtualMachineMonitoringService
         databaseSettings_ = databaseSettings;
         dataQueue_ = new LinkedBlockingQueue<AggregatedVirtualMachineData>();
         producerThreads_ = Collections.synchronizedMap(new HashMap<String, VirtualMachineMonitorDataProducer>());
+        if (monitoring.getMonitoringSettings().getSamplerType() == SamplerType.scheduled)
+        {
+            int numberOfThreads = monitoring.getMonitoringSettings().getNumberOfSamplerThreads();
+            samplingScheduler_ = new VirtualMachineSamplingScheduler(monitoring, dataQueue_, this, numberOfThreads);
+        }
     }
 
     /**
@@ -116,6 +126,10 @@ public final class VirtualMachineMonitoringService
         Guard.check(groupManagerAddress);
         startVirtualMachineMonitorDataConsumer(groupManagerAddress);
         startHeartbeatProducer();
+        if (samplingScheduler_ != null)
+        {
+            samplingScheduler_.start();
+        }
     }
 
     /**
@@ -165,7 +179,7 @@ public final class VirtualMachineMonitoringService
         log_.debug("Starting virtual machine monitoring");
         
         String virtualMachineId = virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId();
-        if (producerThreads_.containsKey(virtualMachineId))
+        if (isMonitored(virtualMachineId))
         {
             log_.debug("This virtual machine is already beeing monitored!");
             return false;
@@ -180,14 +194,47 @@ public final class VirtualMachineMonitoringService
         }
         
         log_.debug(String.format("Starting monitoring of virtual machine: %s", virtualMachineId));
+        startSampling(virtualMachineMetaData);
+        return true;
+    }
+    
+    /**
+     * Starts sampling a virtual machine.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     */
+    private void startSampling(VirtualMachineMetaData virtualMachineMetaData)
+    {
+        invalidate(virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId());
+        if (samplingScheduler_ != null)
+        {
+            samplingScheduler_.add(virtualMachineMetaData);
+            return;
+        }
+        
         VirtualMachineMonitorDataProducer producer = 
             new VirtualMachineMonitorDataProducer(virtualMachineMetaData, 
                                                   monitoring_,
                                                   dataQueue_,
                                                   this);
         producer.start();
-        producerThreads_.put(virtualMachineId, producer);
-        return true;
+        producerThreads_.put(virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId(), producer);
+    }
+    
+    /**
+     * Checks if a virtual machine is monitored.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      true if monitored, false otherwise
+     */
+    private boolean isMonitored(String virtualMachineId)
+    {
+        if (samplingScheduler_ != null)
+        {
+            return samplingScheduler_.contains(virtualMachineId);
+        }
+        
+        return producerThreads_.containsKey(virtualMachineId);
     }
 
     /**
@@ -200,6 +247,17 @@ public final class VirtualMachineMonitoringService
     {
         Guard.check(virtualMachineId);
         
+        if (samplingScheduler_ != null)
+        {
+            log_.debug(String.format("Suspending virtual machine %s monitoring", virtualMachineId));
+            boolean isSuspended = samplingScheduler_.suspend(virtualMachineId);
+            if (!isSuspended)
+            {
+                log_.error("No monitoring loop exists for this virtual machine");
+            }
+            return isSuspended;
+        }
+        
         VirtualMachineMonitorDataProducer dataProducer = producerThreads_.get(virtualMachineId);
         if (dataProducer == null)
         {
@@ -223,6 +281,16 @@ public final class VirtualMachineMonitoringService
         Guard.check(virtualMachineId);
         log_.debug(String.format("Resuming virtual machine %s monitoring", virtualMachineId));
         
+        if (samplingScheduler_ != null)
+        {
+            boolean isResumed = samplingScheduler_.resume(virtualMachineId);
+            if (!isResumed)
+            {
+                log_.error("No monitoring loop exists for this virtual machine");
+            }
+            return isResumed;
+        }
+        
         VirtualMachineMonitorDataProducer dataProducer = producerThreads_.get(virtualMachineId);
         if (dataProducer == null)
         {
@@ -245,6 +313,17 @@ public final class VirtualMachineMonitoringService
     {
         Guard.check(virtualMachineId);
         log_.debug(String.format("Stopping virtual machine %s monitoring", virtualMachineId));
+        invalidate(virtualMachineId);
+        
+        if (samplingScheduler_ != null)
+        {
+            boolean isRemoved = samplingScheduler_.remove(virtualMachineId);
+            if (!isRemoved)
+            {
+                log_.debug("No monitoring loop exists for this virtual machine");
+            }
+            return isRemoved;
+        }
        
         VirtualMachineMonitorDataProducer monitorProducer = producerThreads_.get(virtualMachineId);
         if (monitorProducer == null)
@@ -258,6 +337,18 @@ public final class VirtualMachineMonitoringService
         return true;
     }
 
+    /**
+     * Drops the cached hypervisor meta data of a virtual machine.
+     * To be called whenever the domain changes (start, migration, resize, destroy).
+     * 
+     * @param virtualMachineId     The virtual machine identifier
+     */
+    public void invalidate(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        monitoring_.getVirtualMachineMonitor().invalidate(virtualMachineId);
+    }
+    
     /**
      * Stops the service.
      * 
@@ -279,6 +370,12 @@ public final class VirtualMachineMonitoringService
             log_.debug("Terminating the monitoring data consumer");
             monitorDataConsumer_.terminate();
         }
+
+        if (samplingScheduler_ != null)
+        {
+            log_.debug("Terminating the virtual machine sampling scheduler");
+            samplingScheduler_.terminate();
+        }
     }
     
     /**
@@ -298,12 +395,7 @@ public final class VirtualMachineMonitoringService
            return false;
         }
        
-        VirtualMachineMonitorDataProducer producer = new VirtualMachineMonitorDataProducer(metaData, 
-                                                                                           monitoring_, 
-                                                                                           dataQueue_, 
-                                                                                           this);
-        producer.start();
-        producerThreads_.put(metaData.getVirtualMachineLocation().getVirtualMachineId(), producer);
+        startSampling(metaData);
         return false;
     }
     
@@ -315,6 +407,11 @@ public final class VirtualMachineMonitoringService
     @Override
     public int getNumberOfActiveVirtualMachines()
     {
+        if (samplingScheduler_ != null)
+        {
+            return samplingScheduler_.size();
+        }
+        
         return producerThreads_.size();
     }
     
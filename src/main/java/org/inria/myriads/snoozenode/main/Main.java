@@ -42,6 +42,7 @@ import org.inria.myriads.snoozenode.localcontroller.LocalControllerBackend;
 import org.inria.myriads.snoozenode.main.applications.BootstrapApplication;
 import org.inria.myriads.snoozenode.main.applications.GroupManagerApplication;
 import org.inria.myriads.snoozenode.main.applications.LocalControllerApplication;
+import org.inria.myriads.snoozenode.util.CodecRegistry;
 import org.inria.myriads.snoozenode.util.OutputUtils;
 import org.restlet.Application;
 import org.restlet.Component;
@@ -207,6 +208,7 @@ public final class Main
     {
         Guard.check(nodeConfiguration);
         log_.debug("Starting the node initialization");
+        CodecRegistry.setSmile(nodeConfiguration.getDatabase().getCassandraSettings().isSmile());
                 
         Component component = new Component();
         Context context = component.getContext().createChildContext();
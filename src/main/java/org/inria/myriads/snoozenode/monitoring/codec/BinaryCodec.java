@@ -0,0 +1,589 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.monitoring.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+
+/**
+ * Compact binary codec.
+ * 
+ * Local controller monitoring data is written field by field: varint lengths 
+ * and counts, delta encoded time stamps and raw doubles for the usage vectors.
+ * Group manager summaries, submission responses and unknown objects fall back 
+ * to Java serialization.
+ * 
+ * Counts are written as (count + 1), 0 standing for a null list.
+ * 
+ * Payload layouts are never changed in place: new fields get a new type 
+ * identifier and the older layouts remain decodable.
+ * 
+ * @author Eugen Feller
+ */
+public final class BinaryCodec 
+    implements MonitoringCodec 
+{
+    /** Codec identifier. */
+    public static final byte ID = 1;
+    
+    /** Serialized object. */
+    private static final byte TYPE_OBJECT = 0;
+    
+    /** Local controller data transporter. */
+    private static final byte TYPE_LOCAL_CONTROLLER = 1;
+    
+    /** Group manager data transporter. */
+    private static final byte TYPE_GROUP_MANAGER = 2;
+    
+    /** Group manager data transporter carrying a finished submission. */
+    private static final byte TYPE_SUBMISSION_RESPONSE = 3;
+    
+    /** Group manager data transporter carrying a sequenced (full or delta) summary. */
+    private static final byte TYPE_SEQUENCED_SUMMARY = 4;
+    
+    /** String encoding. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    /** Number of payload bits per varint byte. */
+    private static final int VARINT_SHIFT = 7;
+    
+    /** Varint payload mask. */
+    private static final int VARINT_MASK = 0x7F;
+    
+    /** Varint continuation bit. */
+    private static final int VARINT_CONTINUATION = 0x80;
+    
+    /** Java serialization fallback. */
+    private SerializationCodec serialization_;
+    
+    /** Constructor. */
+    public BinaryCodec()
+    {
+        serialization_ = new SerializationCodec();
+    }
+    
+    /**
+     * Returns the codec identifier.
+     * 
+     * @return  The codec identifier
+     */
+    public byte getId()
+    {
+        return ID;
+    }
+    
+    /**
+     * Encodes a data object.
+     * 
+     * @param data          The data object
+     * @param output        The output stream
+     * @throws IOException  The I/O exception
+     */
+    public void encode(Object data, OutputStream output) 
+        throws IOException
+    {
+        DataOutputStream dataOutput = new DataOutputStream(output);
+        if (data instanceof LocalControllerDataTransporter)
+        {
+            dataOutput.writeByte(TYPE_LOCAL_CONTROLLER);
+            writeLocalControllerData(dataOutput, (LocalControllerDataTransporter) data);
+        } else if (data instanceof GroupManagerDataTransporter && 
+                   ((GroupManagerDataTransporter) data).getSubmissionResponse() != null)
+        {
+            dataOutput.writeByte(TYPE_SUBMISSION_RESPONSE);
+            writeSubmissionResponse(dataOutput, (GroupManagerDataTransporter) data);
+        } else if (data instanceof GroupManagerDataTransporter && 
+                   ((GroupManagerDataTransporter) data).getSummary() != null)
+        {
+            dataOutput.writeByte(TYPE_SEQUENCED_SUMMARY);
+            writeSequencedSummary(dataOutput, (GroupManagerDataTransporter) data);
+        } else if (data instanceof GroupManagerDataTransporter)
+        {
+            dataOutput.writeByte(TYPE_GROUP_MANAGER);
+            writeGroupManagerData(dataOutput, (GroupManagerDataTransporter) data);
+        } else
+        {
+            dataOutput.writeByte(TYPE_OBJECT);
+            dataOutput.flush();
+            serialization_.encode(data, output);
+        }
+        
+        dataOutput.flush();
+    }
+    
+    /**
+     * Decodes a data object.
+     * 
+     * @param input                     The input stream
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    public Object decode(InputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        DataInputStream dataInput = new DataInputStream(input);
+        byte type = dataInput.readByte();
+        switch (type)
+        {
+            case TYPE_LOCAL_CONTROLLER :
+                return readLocalControllerData(dataInput);
+                
+            case TYPE_GROUP_MANAGER :
+                return readGroupManagerData(dataInput);
+                
+            case TYPE_SUBMISSION_RESPONSE :
+                return readSubmissionResponse(dataInput);
+                
+            case TYPE_SEQUENCED_SUMMARY :
+                return readSequencedSummary(dataInput);
+                
+            case TYPE_OBJECT :
+                return serialization_.decode(input);
+                
+            default :
+                throw new StreamCorruptedException(String.format("Unknown binary payload type: %d", type));
+        }
+    }
+    
+    /**
+     * Writes local controller data.
+     * 
+     * @param output        The output
+     * @param data          The local controller data
+     * @throws IOException  The I/O exception
+     */
+    private void writeLocalControllerData(DataOutputStream output, LocalControllerDataTransporter data) 
+        throws IOException
+    {
+        writeString(output, data.getLocalControllerId());
+        output.writeByte(data.getState().ordinal());
+        
+        List<AggregatedVirtualMachineData> aggregatedData = data.getData();
+        writeCount(output, aggregatedData);
+        if (aggregatedData == null)
+        {
+            return;
+        }
+        
+        for (AggregatedVirtualMachineData virtualMachineData : aggregatedData)
+        {
+            writeString(output, virtualMachineData.getVirtualMachineId());
+            List<VirtualMachineMonitoringData> history = virtualMachineData.getMonitoringData();
+            writeCount(output, history);
+            if (history == null)
+            {
+                continue;
+            }
+            
+            long previousTimeStamp = 0;
+            for (VirtualMachineMonitoringData monitoringData : history)
+            {
+                writeVarLong(output, monitoringData.getTimeStamp() - previousTimeStamp);
+                previousTimeStamp = monitoringData.getTimeStamp();
+                
+                List<Double> usedCapacity = monitoringData.getUsedCapacity();
+                writeCount(output, usedCapacity);
+                if (usedCapacity == null)
+                {
+                    continue;
+                }
+                
+                for (Double value : usedCapacity)
+                {
+                    output.writeDouble(value);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reads local controller data.
+     * 
+     * @param input         The input
+     * @return              The local controller data
+     * @throws IOException  The I/O exception
+     */
+    private LocalControllerDataTransporter readLocalControllerData(DataInputStream input) 
+        throws IOException
+    {
+        String localControllerId = readString(input);
+        LocalControllerState state = LocalControllerState.values()[input.readByte()];
+        
+        ArrayList<AggregatedVirtualMachineData> aggregatedData = null;
+        int numberOfVirtualMachines = readCount(input);
+        if (numberOfVirtualMachines >= 0)
+        {
+            aggregatedData = new ArrayList<AggregatedVirtualMachineData>(numberOfVirtualMachines);
+            for (int i = 0; i < numberOfVirtualMachines; i++)
+            {
+                aggregatedData.add(readAggregatedData(input));
+            }
+        }
+        
+        LocalControllerDataTransporter data = new LocalControllerDataTransporter(localControllerId, aggregatedData);
+        data.setState(state);
+        return data;
+    }
+    
+    /**
+     * Reads the aggregated data of one virtual machine.
+     * 
+     * @param input         The input
+     * @return              The aggregated virtual machine data
+     * @throws IOException  The I/O exception
+     */
+    private AggregatedVirtualMachineData readAggregatedData(DataInputStream input) 
+        throws IOException
+    {
+        String virtualMachineId = readString(input);
+        int numberOfEntries = readCount(input);
+        if (numberOfEntries < 0)
+        {
+            return new AggregatedVirtualMachineData(virtualMachineId, null);
+        }
+        
+        ArrayList<VirtualMachineMonitoringData> history = 
+            new ArrayList<VirtualMachineMonitoringData>(numberOfEntries);
+        long timeStamp = 0;
+        for (int i = 0; i < numberOfEntries; i++)
+        {
+            timeStamp += readVarLong(input);
+            VirtualMachineMonitoringData monitoringData = new VirtualMachineMonitoringData();
+            monitoringData.setTimeStamp(timeStamp);
+            
+            int dimension = readCount(input);
+            if (dimension >= 0)
+            {
+                ArrayList<Double> usedCapacity = new ArrayList<Double>(dimension);
+                for (int j = 0; j < dimension; j++)
+                {
+                    usedCapacity.add(input.readDouble());
+                }
+                monitoringData.setUsedCapacity(usedCapacity);
+            }
+            
+            history.add(monitoringData);
+        }
+        
+        return new AggregatedVirtualMachineData(virtualMachineId, history);
+    }
+    
+    /**
+     * Writes group manager data.
+     * (summaries without sequence number, heartbeats only carry the identifier)
+     * 
+     * @param output        The output
+     * @param data          The group manager data
+     * @throws IOException  The I/O exception
+     */
+    private void writeGroupManagerData(DataOutputStream output, GroupManagerDataTransporter data) 
+        throws IOException
+    {
+        writeString(output, data.getId());
+        output.writeBoolean(data.getSummary() != null);
+        output.flush();
+        if (data.getSummary() != null)
+        {
+            serialization_.encode(data.getSummary(), output);
+        }
+        
+        output.flush();
+    }
+    
+    /**
+     * Reads group manager data.
+     * 
+     * @param input                     The input
+     * @return                          The group manager data
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    private GroupManagerDataTransporter readGroupManagerData(DataInputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        String groupManagerId = readString(input);
+        GroupManagerSummaryInformation summary = null;
+        if (input.readBoolean())
+        {
+            summary = (GroupManagerSummaryInformation) serialization_.decode(input);
+        }
+        
+        return new GroupManagerDataTransporter(groupManagerId, summary);
+    }
+    
+    /**
+     * Writes a sequenced summary.
+     * 
+     * @param output        The output
+     * @param data          The group manager data
+     * @throws IOException  The I/O exception
+     */
+    private void writeSequencedSummary(DataOutputStream output, GroupManagerDataTransporter data) 
+        throws IOException
+    {
+        writeString(output, data.getId());
+        writeVarLong(output, data.getSequenceNumber());
+        List<String> removedLocalControllers = data.getRemovedLocalControllers();
+        writeCount(output, removedLocalControllers);
+        if (removedLocalControllers != null)
+        {
+            for (String localControllerId : removedLocalControllers)
+            {
+                writeString(output, localControllerId);
+            }
+        }
+        
+        output.flush();
+        serialization_.encode(data.getSummary(), output);
+        output.flush();
+    }
+    
+    /**
+     * Reads a sequenced summary.
+     * 
+     * @param input                     The input
+     * @return                          The group manager data
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    private GroupManagerDataTransporter readSequencedSummary(DataInputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        String groupManagerId = readString(input);
+        long sequenceNumber = readVarLong(input);
+        ArrayList<String> removedLocalControllers = null;
+        int numberOfRemovedLocalControllers = readCount(input);
+        if (numberOfRemovedLocalControllers >= 0)
+        {
+            removedLocalControllers = new ArrayList<String>(numberOfRemovedLocalControllers);
+            for (int i = 0; i < numberOfRemovedLocalControllers; i++)
+            {
+                removedLocalControllers.add(readString(input));
+            }
+        }
+        
+        GroupManagerSummaryInformation summary = (GroupManagerSummaryInformation) serialization_.decode(input);
+        return new GroupManagerDataTransporter(groupManagerId, summary, sequenceNumber, removedLocalControllers);
+    }
+    
+    /**
+     * Writes a finished submission.
+     * 
+     * @param output        The output
+     * @param data          The group manager data
+     * @throws IOException  The I/O exception
+     */
+    private void writeSubmissionResponse(DataOutputStream output, GroupManagerDataTransporter data) 
+        throws IOException
+    {
+        writeString(output, data.getId());
+        writeString(output, data.getTaskIdentifier());
+        output.flush();
+        serialization_.encode(data.getSubmissionResponse(), output);
+        output.flush();
+    }
+    
+    /**
+     * Reads a finished submission.
+     * 
+     * @param input                     The input
+     * @return                          The group manager data
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    private GroupManagerDataTransporter readSubmissionResponse(DataInputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        String groupManagerId = readString(input);
+        String taskIdentifier = readString(input);
+        VirtualMachineSubmissionResponse submissionResponse = 
+            (VirtualMachineSubmissionResponse) serialization_.decode(input);
+        return new GroupManagerDataTransporter(groupManagerId, taskIdentifier, submissionResponse);
+    }
+    
+    /**
+     * Writes a list size (+1, 0 for null).
+     * 
+     * @param output        The output
+     * @param list          The list
+     * @throws IOException  The I/O exception
+     */
+    private static void writeCount(DataOutputStream output, List<?> list) 
+        throws IOException
+    {
+        writeVarInt(output, list == null ? 0 : list.size() + 1);
+    }
+    
+    /**
+     * Reads a list size.
+     * 
+     * @param input         The input
+     * @return              The size, -1 for null
+     * @throws IOException  The I/O exception
+     */
+    private static int readCount(DataInputStream input) 
+        throws IOException
+    {
+        return readVarInt(input) - 1;
+    }
+    
+    /**
+     * Writes a string (varint length + UTF-8 bytes, 0 for null).
+     * 
+     * @param output        The output
+     * @param value         The string
+     * @throws IOException  The I/O exception
+     */
+    private static void writeString(DataOutputStream output, String value) 
+        throws IOException
+    {
+        if (value == null)
+        {
+            writeVarInt(output, 0);
+            return;
+        }
+        
+        byte[] bytes = value.getBytes(UTF8);
+        writeVarInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+    
+    /**
+     * Reads a string.
+     * 
+     * @param input         The input
+     * @return              The string
+     * @throws IOException  The I/O exception
+     */
+    private static String readString(DataInputStream input) 
+        throws IOException
+    {
+        int length = readVarInt(input) - 1;
+        if (length < 0)
+        {
+            return null;
+        }
+        
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+    
+    /**
+     * Writes an unsigned varint.
+     * 
+     * @param output        The output
+     * @param value         The (non negative) value
+     * @throws IOException  The I/O exception
+     */
+    private static void writeVarInt(DataOutputStream output, int value) 
+        throws IOException
+    {
+        while ((value & ~VARINT_MASK) != 0)
+        {
+            output.writeByte((value & VARINT_MASK) | VARINT_CONTINUATION);
+            value >>>= VARINT_SHIFT;
+        }
+        output.writeByte(value);
+    }
+    
+    /**
+     * Reads an unsigned varint.
+     * 
+     * @param input         The input
+     * @return              The value
+     * @throws IOException  The I/O exception
+     */
+    private static int readVarInt(DataInputStream input) 
+        throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += VARINT_SHIFT)
+        {
+            int current = input.readUnsignedByte();
+            value |= (current & VARINT_MASK) << shift;
+            if ((current & VARINT_CONTINUATION) == 0)
+            {
+                return value;
+            }
+        }
+        
+        throw new StreamCorruptedException("Malformed varint");
+    }
+    
+    /**
+     * Writes a signed (zigzag) varlong.
+     * 
+     * @param output        The output
+     * @param value         The value
+     * @throws IOException  The I/O exception
+     */
+    private static void writeVarLong(DataOutputStream output, long value) 
+        throws IOException
+    {
+        long zigzag = (value << 1) ^ (value >> (Long.SIZE - 1));
+        while ((zigzag & ~((long) VARINT_MASK)) != 0)
+        {
+            output.writeByte((int) ((zigzag & VARINT_MASK) | VARINT_CONTINUATION));
+            zigzag >>>= VARINT_SHIFT;
+        }
+        output.writeByte((int) zigzag);
+    }
+    
+    /**
+     * Reads a signed (zigzag) varlong.
+     * 
+     * @param input         The input
+     * @return              The value
+     * @throws IOException  The I/O exception
+     */
+    private static long readVarLong(DataInputStream input) 
+        throws IOException
+    {
+        long zigzag = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_SHIFT)
+        {
+            long current = input.readUnsignedByte();
+            zigzag |= (current & VARINT_MASK) << shift;
+            if ((current & VARINT_CONTINUATION) == 0)
+            {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        
+        throw new StreamCorruptedException("Malformed varlong");
+    }
+}
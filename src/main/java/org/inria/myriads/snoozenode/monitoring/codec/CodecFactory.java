@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.monitoring.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Monitoring codec factory.
+ * 
+ * Codecs are stateless and shared; frames reference them by identifier.
+ * 
+ * @author Eugen Feller
+ */
+public final class CodecFactory 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(CodecFactory.class);
+    
+    /** Serialization codec. */
+    private static final MonitoringCodec SERIALIZATION = new SerializationCodec();
+    
+    /** Binary codec. */
+    private static final MonitoringCodec BINARY = new BinaryCodec();
+    
+    /**
+     * Hide the consturctor.
+     */
+    private CodecFactory() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Returns the codec of a given type.
+     * 
+     * @param codecType     The codec type
+     * @return              The codec
+     */
+    public static MonitoringCodec newCodec(CodecType codecType)
+    {
+        switch (codecType)
+        {
+            case binary :
+                return BINARY;
+                
+            case serialization :
+                return SERIALIZATION;
+                
+            default :
+                log_.error(String.format("Unknown codec type selected: %s", codecType));
+                return SERIALIZATION;
+        }
+    }
+    
+    /**
+     * Returns the codec with a given identifier.
+     * 
+     * @param codecId   The codec identifier
+     * @return          The codec, null if unknown
+     */
+    public static MonitoringCodec getCodec(byte codecId)
+    {
+        switch (codecId)
+        {
+            case BinaryCodec.ID :
+                return BINARY;
+                
+            case SerializationCodec.ID :
+                return SERIALIZATION;
+                
+            default :
+                return null;
+        }
+    }
+}
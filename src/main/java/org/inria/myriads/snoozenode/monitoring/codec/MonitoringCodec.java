@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.monitoring.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Monitoring codec, turns monitoring transport objects into frame payloads.
+ * 
+ * @author Eugen Feller
+ */
+public interface MonitoringCodec 
+{
+    /**
+     * Returns the codec identifier (written in the frame header).
+     * 
+     * @return  The codec identifier
+     */
+    byte getId();
+    
+    /**
+     * Encodes a data object.
+     * 
+     * @param data          The data object
+     * @param output        The output stream
+     * @throws IOException  The I/O exception
+     */
+    void encode(Object data, OutputStream output) 
+        throws IOException;
+    
+    /**
+     * Decodes a data object.
+     * 
+     * @param input                     The input stream (exactly one payload)
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    Object decode(InputStream input) 
+        throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.monitoring.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Java serialization codec.
+ * 
+ * Each payload is a self-contained object stream.
+ * 
+ * @author Eugen Feller
+ */
+public final class SerializationCodec 
+    implements MonitoringCodec 
+{
+    /** Codec identifier. */
+    public static final byte ID = 0;
+    
+    /**
+     * Returns the codec identifier.
+     * 
+     * @return  The codec identifier
+     */
+    public byte getId()
+    {
+        return ID;
+    }
+    
+    /**
+     * Encodes a data object.
+     * 
+     * @param data          The data object
+     * @param output        The output stream
+     * @throws IOException  The I/O exception
+     */
+    public void encode(Object data, OutputStream output) 
+        throws IOException
+    {
+        ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+        objectOutput.writeObject(data);
+        objectOutput.flush();
+    }
+    
+    /**
+     * Decodes a data object.
+     * 
+     * @param input                     The input stream
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    public Object decode(InputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        return new ObjectInputStream(input).readObject();
+    }
+}
@@ -22,6 +22,7 @@ package org.inria.myriads.snoozenode.monitoring.datasender.api.impl;
 import java.io.IOException;
 
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.database.cassandra.CassandraSettings;
 import org.inria.myriads.snoozenode.database.api.impl.cassandra.CassandraRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.DataSender;
@@ -39,6 +40,9 @@ public class CassandraGroupManagerDataSender extends CassandraRepository impleme
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(CassandraGroupManagerDataSender.class);
     
+    /** Maximum time to wait for the buffered data to be written on close (ms). */
+    private static final long CLOSE_TIMEOUT = 5000;
+    
     
     
     
@@ -55,6 +59,10 @@ public class CassandraGroupManagerDataSender extends CassandraRepository impleme
                 databaseSettings.getNumberOfEntriesPerGroupManager(),
                 databaseSettings.getNumberOfEntriesPerVirtualMachine()
                 );
+        CassandraSettings cassandraSettings = databaseSettings.getCassandraSettings();
+        startBatchWriter(cassandraSettings.getBatchSize(), 
+                         cassandraSettings.getBatchFlushInterval(), 
+                         cassandraSettings.getBatchQueueCapacity());
         log_.debug("Cassandra Data Sender Initialized...");
     }
 
@@ -88,7 +96,7 @@ public class CassandraGroupManagerDataSender extends CassandraRepository impleme
     public void close() 
     {
         log_.debug("Closing the socket and output stream");
-       
+        stopBatchWriter(CLOSE_TIMEOUT);
     }
 
     @Override
@@ -22,6 +22,7 @@ package org.inria.myriads.snoozenode.monitoring.datasender.api.impl;
 import java.io.IOException;
 
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.database.cassandra.CassandraSettings;
 import org.inria.myriads.snoozenode.database.api.impl.cassandra.CassandraRepository;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.DataSender;
@@ -39,6 +40,9 @@ public class CassandraVirtualMachineDataSender extends CassandraRepository imple
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(CassandraVirtualMachineDataSender.class);
     
+    /** Maximum time to wait for the buffered data to be written on close (ms). */
+    private static final long CLOSE_TIMEOUT = 5000;
+    
     /**
      * 
      * Cassandra direct sender constructor.
@@ -52,6 +56,10 @@ public class CassandraVirtualMachineDataSender extends CassandraRepository imple
                 databaseSettings.getNumberOfEntriesPerGroupManager(),
                 databaseSettings.getNumberOfEntriesPerVirtualMachine()
                 );
+        CassandraSettings cassandraSettings = databaseSettings.getCassandraSettings();
+        startBatchWriter(cassandraSettings.getBatchSize(), 
+                         cassandraSettings.getBatchFlushInterval(), 
+                         cassandraSettings.getBatchQueueCapacity());
         log_.debug("Cassandra Data Sender Initialized...");
     }
 
@@ -85,7 +93,7 @@ public class CassandraVirtualMachineDataSender extends CassandraRepository imple
     public void close() 
     {
         log_.debug("Closing the socket and output stream");
-       
+        stopBatchWriter(CLOSE_TIMEOUT);
     }
 
     @Override
@@ -1,29 +1,36 @@
 package org.inria.myriads.snoozenode.monitoring.datasender.api.impl;
 
 import java.io.IOException;
-
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.ShutdownSignalException;
 
-
-
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.configurator.monitoring.external.ExternalNotifierSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.external.enums.OverflowPolicy;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.DataSender;
-import org.inria.myriads.snoozenode.util.SerializationUtils;
+import org.inria.myriads.snoozenode.util.CodecRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-
-
 /**
  * 
  * RabbitMQ external sender.
  * 
+ * Notifications are queued in a bounded backlog and published by a single thread
+ * over a long-lived channel, in batches acknowledged by publisher confirms. The 
+ * connection is re-opened by the publisher thread whenever it is lost.
+ * 
  * @author msimonin
  *
  */
@@ -33,6 +40,12 @@ public class RabbitMQExternalSender implements DataSender
     /** Logging instance. */
     private static final Logger log_ = LoggerFactory.getLogger(RabbitMQExternalSender.class);
     
+    /** Number of dropped notifications between two warnings. */
+    private static final int DROP_LOG_INTERVAL = 1000;
+    
+    /** Interval at which blocked senders check for termination (ms). */
+    private static final int ENQUEUE_CHECK_INTERVAL = 100;
+    
     /** Connection factory. */
     private ConnectionFactory factory_ = new ConnectionFactory();
     
@@ -75,8 +88,32 @@ public class RabbitMQExternalSender implements DataSender
     /** Default routing key to use. */
     private String routingKey_ = "";
 
-    /** Thread pool for sending.*/
-    private ExecutorService threadPool_ = Executors.newSingleThreadExecutor();
+    /** Pending notifications.*/
+    private BlockingQueue<Notification> backlog_;
+    
+    /** Policy applied when the pending notifications reach the capacity.*/
+    private OverflowPolicy overflowPolicy_;
+    
+    /** Number of notifications published per confirm round.*/
+    private int confirmBatchSize_;
+    
+    /** Publisher confirms timeout (ms).*/
+    private int confirmTimeout_;
+    
+    /** Number of connection attempts per batch.*/
+    private int numberOfRetries_;
+    
+    /** Interval between the connection attempts (ms).*/
+    private long retryInterval_;
+    
+    /** Publisher thread.*/
+    private Thread publisher_;
+    
+    /** Signals termination.*/
+    private volatile boolean isTerminated_;
+    
+    /** Number of dropped notifications.*/
+    private AtomicLong numberOfDroppedNotifications_ = new AtomicLong();
     
     /**
      * 
@@ -105,44 +142,29 @@ public class RabbitMQExternalSender implements DataSender
         password_ = monitoringExternalSettings.getPassword(); 
         virtualHost_ = monitoringExternalSettings.getVhost();        
         exchange_ = exchange;
-        activateOptions();
+        backlog_ = new ArrayBlockingQueue<Notification>(Math.max(1, monitoringExternalSettings.getQueueCapacity()));
+        overflowPolicy_ = monitoringExternalSettings.getOverflowPolicy();
+        confirmBatchSize_ = Math.max(1, monitoringExternalSettings.getConfirmBatchSize());
+        confirmTimeout_ = monitoringExternalSettings.getConfirmTimeout();
+        numberOfRetries_ = monitoringExternalSettings.getNumberOfRetries();
+        retryInterval_ = TimeUtils.convertSecondsToMilliseconds(monitoringExternalSettings.getRetryInterval());
+        
+        publisher_ = new Thread(new Publisher(), "RabbitMQExternalSender-" + exchange);
+        publisher_.setDaemon(true);
+        publisher_.start();
     }
 
     /**
      * Activate options.
+     * (opens the connection and channel and declares the exchange unless done already)
+     * 
+     * @throws IOException  Exception
      */
-    public void activateOptions() 
+    private void activateOptions() 
+        throws IOException
     {
-        //== creating connection
-        try 
-        {
-            this.createConnection();
-        } 
-        catch (IOException ioe) 
-        {
-            log_.error("Unable to create the connection " + ioe.getMessage());
-        }
-
-        //== creating channel
-        try 
-        {
-            this.createChannel();
-        } 
-        catch (IOException ioe) 
-        {
-            log_.error("Unable to create the channel " + ioe.getMessage());
-        }
-        
-        //== create exchange
-        try 
-        {
-            this.createExchange();
-        }
-        catch (Exception ioe) 
-        {
-            log_.error("Unable to create the exchange " + ioe.getMessage());
-            ioe.printStackTrace();
-        }
+        this.createConnection();
+        this.createChannel();
     }
 
     
@@ -188,6 +210,8 @@ public class RabbitMQExternalSender implements DataSender
                     (this.connection_ != null && this.connection_.isOpen()))
             {
                 this.channel_ = this.connection_.createChannel();
+                this.createExchange();
+                this.channel_.confirmSelect();
             }
         }
         return this.channel_;
@@ -205,19 +229,15 @@ public class RabbitMQExternalSender implements DataSender
     {
         if (this.channel_ != null && this.channel_.isOpen()) 
         {
-            synchronized (this.channel_) 
-            {
-                this.channel_.exchangeDeclare(this.exchange_, this.type_, this.durable_);
-            }
+            this.channel_.exchangeDeclare(this.exchange_, this.type_, this.durable_);
         }
     }
 
 
     /**
-     * Closes the channel and connection to RabbitMQ when shutting down the appender.
+     * Closes the channel and connection to RabbitMQ.
      */
-    @Override
-    public void close() 
+    private void closeConnection() 
     {
         if (channel_ != null && channel_.isOpen()) 
         {
@@ -225,7 +245,7 @@ public class RabbitMQExternalSender implements DataSender
             {
                 channel_.close();
             } 
-            catch (IOException ioe) 
+            catch (Exception ioe) 
             {
                 log_.debug(ioe.getMessage());
             }
@@ -237,27 +257,202 @@ public class RabbitMQExternalSender implements DataSender
             {
                 this.connection_.close();
             } 
-            catch (IOException ioe) 
+            catch (Exception ioe) 
             {
                 log_.debug(ioe.getMessage());
             }
         }
     }
     
-    
-    
+    /**
+     * Publishes the pending notifications and closes the connection to RabbitMQ.
+     * (blocked senders are released, notifications left over are dropped)
+     */
+    @Override
+    public void close() 
+    {
+        isTerminated_ = true;
+        try
+        {
+            publisher_.join(confirmTimeout_ + numberOfRetries_ * retryInterval_);
+            if (publisher_.isAlive())
+            {
+                publisher_.interrupt();
+                publisher_.join(confirmTimeout_);
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        
+        List<Notification> notifications = new ArrayList<Notification>();
+        backlog_.drainTo(notifications);
+        if (!notifications.isEmpty())
+        {
+            numberOfDroppedNotifications_.addAndGet(notifications.size());
+            log_.warn(String.format("Dropping %d pending notifications of %s", notifications.size(), exchange_));
+        }
+        
+        closeConnection();
+    }
 
     @Override
     public void send(Object data) 
     {
-        setRoutingKey("");
-        threadPool_.submit(new SenderTask(data));
+        enqueue(new Notification(data, routingKey_));
     }
 
     @Override
     public void send(Object data, String routingKey) 
     {
-        threadPool_.submit(new SenderTask(data, routingKey));
+        enqueue(new Notification(data, routingKey));
+    }
+    
+    /**
+     * Queues a notification according to the overflow policy.
+     * 
+     * @param notification  The notification
+     */
+    private void enqueue(Notification notification)
+    {
+        if (isTerminated_)
+        {
+            numberOfDroppedNotifications_.incrementAndGet();
+            return;
+        }
+        
+        if (overflowPolicy_ == OverflowPolicy.BLOCK)
+        {
+            try
+            {
+                while (!isTerminated_)
+                {
+                    if (backlog_.offer(notification, ENQUEUE_CHECK_INTERVAL, TimeUnit.MILLISECONDS))
+                    {
+                        dropIfClosed(notification);
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        else if (backlog_.offer(notification))
+        {
+            dropIfClosed(notification);
+            return;
+        }
+        
+        long numberOfDroppedNotifications = numberOfDroppedNotifications_.incrementAndGet();
+        if (numberOfDroppedNotifications % DROP_LOG_INTERVAL == 1)
+        {
+            log_.warn(String.format("External notification backlog of %s is full! %d notifications dropped so far", 
+                                    exchange_, numberOfDroppedNotifications));
+        }
+    }
+    
+    /**
+     * Drops a notification queued while the sender was closed.
+     * 
+     * @param notification  The notification
+     */
+    private void dropIfClosed(Notification notification)
+    {
+        if (isTerminated_ && backlog_.remove(notification))
+        {
+            numberOfDroppedNotifications_.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Publishes a batch of notifications and waits for the broker confirms.
+     * (re-opens the connection on failure, drops the batch once the retries are exhausted)
+     * 
+     * @param notifications     The notifications
+     * @throws InterruptedException     The interrupted exception
+     */
+    private void publish(List<Notification> notifications) 
+        throws InterruptedException
+    {
+        List<byte[]> messages = new ArrayList<byte[]>(notifications.size());
+        for (Notification notification : notifications)
+        {
+            try
+            {
+                messages.add(CodecRegistry.toJsonBytes(notification.getData()));
+            }
+            catch (IOException exception)
+            {
+                log_.error("Unable to serialize the notification " + exception.getMessage());
+                messages.add(null);
+            }
+        }
+        
+        for (int attempt = 0; attempt <= numberOfRetries_; attempt++)
+        {
+            try
+            {
+                activateOptions();
+                for (int i = 0; i < notifications.size(); i++)
+                {
+                    if (messages.get(i) != null)
+                    {
+                        channel_.basicPublish(exchange_, notifications.get(i).getRoutingKey(), null, messages.get(i));
+                    }
+                }
+                
+                if (channel_.waitForConfirms(confirmTimeout_))
+                {
+                    return;
+                }
+                
+                log_.warn("Notifications were not acknowledged by the broker! Publishing them again");
+            }
+            catch (IOException exception)
+            {
+                log_.warn("Unable to publish the notifications " + exception.getMessage());
+                closeConnection();
+            }
+            catch (ShutdownSignalException exception)
+            {
+                log_.warn("Connection lost while publishing the notifications " + exception.getMessage());
+                closeConnection();
+            }
+            catch (TimeoutException exception)
+            {
+                log_.warn("Publisher confirms timed out " + exception.getMessage());
+                closeConnection();
+            }
+            
+            Thread.sleep(retryInterval_);
+        }
+        
+        numberOfDroppedNotifications_.addAndGet(notifications.size());
+        log_.error(String.format("Unable to publish %d notifications on %s! Dropping them", 
+                                 notifications.size(), exchange_));
+    }
+    
+    /**
+     * Returns the number of pending notifications.
+     * 
+     * @return  The number of pending notifications
+     */
+    public int getQueueDepth()
+    {
+        return backlog_.size();
+    }
+    
+    /**
+     * Returns the number of dropped notifications.
+     * 
+     * @return  The number of dropped notifications
+     */
+    public long getNumberOfDroppedNotifications()
+    {
+        return numberOfDroppedNotifications_.get();
     }
 
 
@@ -514,66 +709,79 @@ public class RabbitMQExternalSender implements DataSender
 
     
     /**
-     * Simple Callable class that publishes messages to RabbitMQ server.
+     * Publishes the pending notifications until termination.
      */
-    class SenderTask implements Callable<Object> 
+    private class Publisher implements Runnable 
     {
-
-        /** Event message to send. */
-        private Object eventMessage__;
+        @Override
+        public void run()
+        {
+            List<Notification> notifications = new ArrayList<Notification>(confirmBatchSize_);
+            try
+            {
+                while (!isTerminated_ || !backlog_.isEmpty())
+                {
+                    Notification notification = backlog_.poll(confirmTimeout_, TimeUnit.MILLISECONDS);
+                    if (notification == null)
+                    {
+                        continue;
+                    }
+                    
+                    notifications.add(notification);
+                    backlog_.drainTo(notifications, confirmBatchSize_ - 1);
+                    publish(notifications);
+                    notifications.clear();
+                }
+            }
+            catch (InterruptedException exception)
+            {
+                log_.debug("External sender publisher interrupted");
+                numberOfDroppedNotifications_.addAndGet(notifications.size());
+            }
+            
+            log_.debug(String.format("External sender publisher of %s stopped", exchange_));
+        }
+    }
+    
+    /**
+     * Notification (immutable).
+     */
+    private static final class Notification 
+    {
+        /** Data to send.*/
+        private final Object data_;
         
         /** Routing key.*/
-        private String routingKey__;
-
+        private final String routingKey_;
         
         /**
          * 
          * Constructor.
          * 
-         * @param data      The data.
+         * @param data          The data.
+         * @param routingKey    The routing key to use.
          */
-        SenderTask(Object data)
+        private Notification(Object data, String routingKey) 
         {
-            routingKey__ = routingKey_;
-            eventMessage__ = data;
+            Guard.check(data, routingKey);
+            data_ = data;
+            routingKey_ = routingKey;
         }
         
         /**
-         * 
-         * Constructor.
-         * 
-         * @param data          The data.
-         * @param routingKey    The routing key to use.
+         * @return the data
          */
-        SenderTask(Object data, String routingKey) 
+        private Object getData()
         {
-            routingKey__ = routingKey;
-            eventMessage__ = data;
+            return data_;
         }
         
-        
-
         /**
-         * 
-         * Method is called by ExecutorService and publishes message on RabbitMQ.
-         * 
-         * @return  eventMessage.
-         * @throws Exception    Exception
+         * @return the routing key
          */
-        public Object call() throws Exception
+        private String getRoutingKey()
         {
-
-            activateOptions();
-               
-            if (channel_ != null && channel_.isOpen()) 
-            {                    
-                String message =  SerializationUtils.serializeObjectToJSON(eventMessage__);
-                
-                channel_.basicPublish(exchange_, routingKey__, null, message.getBytes());
-            }
-
-            return eventMessage__;
+            return routingKey_;
         }
     }
-    
 }
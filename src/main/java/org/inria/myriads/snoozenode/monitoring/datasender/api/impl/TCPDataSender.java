@@ -19,15 +19,22 @@
  */
 package org.inria.myriads.snoozenode.monitoring.datasender.api.impl;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 
 import org.apache.commons.io.IOUtils;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
+import org.inria.myriads.snoozenode.monitoring.codec.CodecFactory;
+import org.inria.myriads.snoozenode.monitoring.codec.MonitoringCodec;
 import org.inria.myriads.snoozenode.monitoring.datasender.api.DataSender;
+import org.inria.myriads.snoozenode.tcpip.MessageFraming;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,22 +49,35 @@ public class TCPDataSender implements DataSender
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(TCPDataSender.class);
     
+    /** Initial payload buffer size. */
+    private static final int PAYLOAD_BUFFER_SIZE = 4096;
+    
     /** Client socket. */
     private Socket clientSocket_;
     
-    /** Object output stream. */
-    private ObjectOutputStream outputStream_;
+    /** Output stream. */
+    private OutputStream outputStream_;
+    
+    /** Object output stream (null if framed). */
+    private ObjectOutputStream objectOutputStream_;
+    
+    /** Payload codec (framed only). */
+    private MonitoringCodec codec_;
+    
+    /** Payload buffer (framed only). */
+    private ByteArrayOutputStream payload_;
     
     /**
      * TCP data sender constructor.
      * 
      * @param networkAddress          The network address
+     * @param transportSettings       The monitoring transport settings
      * @throws IOException            The I/O exception
      */
-    public TCPDataSender(NetworkAddress networkAddress) 
+    public TCPDataSender(NetworkAddress networkAddress, MonitoringTransportSettings transportSettings) 
         throws IOException 
     {
-        Guard.check(networkAddress);
+        Guard.check(networkAddress, transportSettings);
         log_.debug(String.format("Initializing the TCP data sender for %s : %d", 
                                  networkAddress.getAddress(), networkAddress.getPort()));
         
@@ -74,7 +94,16 @@ public class TCPDataSender implements DataSender
                 clientSocket_.getSoLinger(),
                 clientSocket_.getTrafficClass()
                 ));
-        outputStream_ = new ObjectOutputStream(clientSocket_.getOutputStream());
+        if (transportSettings.isFramed())
+        {
+            outputStream_ = new BufferedOutputStream(clientSocket_.getOutputStream());
+            codec_ = CodecFactory.newCodec(transportSettings.getCodec());
+            payload_ = new ByteArrayOutputStream(PAYLOAD_BUFFER_SIZE);
+        } else
+        {
+            objectOutputStream_ = new ObjectOutputStream(clientSocket_.getOutputStream());
+            outputStream_ = objectOutputStream_;
+        }
     }           
 
     /** 
@@ -110,6 +139,14 @@ public class TCPDataSender implements DataSender
     public void send(Object data, String senderId) throws IOException
     {
         Guard.check(data);
-        outputStream_.writeObject(data);
+        if (objectOutputStream_ != null)
+        {
+            objectOutputStream_.writeObject(data);
+            objectOutputStream_.reset();
+            return;
+        }
+        
+        MessageFraming.writeFrame(data, codec_, payload_, outputStream_);
+        outputStream_.flush();
     }
 }
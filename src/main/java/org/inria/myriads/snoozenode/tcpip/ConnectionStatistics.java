@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+/**
+ * Per-connection receiver statistics.
+ * 
+ * Updated by the event loop owning the connection, read by anyone.
+ * 
+ * @author Eugen Feller
+ */
+public final class ConnectionStatistics 
+{
+    /** Milliseconds per second. */
+    private static final double MILLISECONDS_PER_SECOND = 1000.0;
+    
+    /** Connection identifier (host address + port). */
+    private String id_;
+    
+    /** Connection time. */
+    private long connectedAt_;
+    
+    /** Last read time. */
+    private volatile long lastReadTime_;
+    
+    /** Number of bytes read. */
+    private volatile long numberOfBytes_;
+    
+    /** Number of decoded messages. */
+    private volatile long numberOfMessages_;
+    
+    /** Number of received bytes waiting for the rest of their frame. */
+    private volatile int backlog_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param id    The connection identifier
+     */
+    public ConnectionStatistics(String id)
+    {
+        id_ = id;
+        connectedAt_ = System.currentTimeMillis();
+        lastReadTime_ = connectedAt_;
+    }
+    
+    /**
+     * Accounts for a read.
+     * 
+     * @param numberOfBytes     The number of bytes read
+     * @param backlog           The number of pending bytes after the read
+     */
+    void onRead(int numberOfBytes, int backlog)
+    {
+        lastReadTime_ = System.currentTimeMillis();
+        numberOfBytes_ += numberOfBytes;
+        backlog_ = backlog;
+    }
+    
+    /**
+     * Accounts for a decoded message.
+     */
+    void onMessage()
+    {
+        numberOfMessages_++;
+    }
+    
+    /**
+     * Returns the connection identifier.
+     * 
+     * @return  The identifier
+     */
+    public String getId()
+    {
+        return id_;
+    }
+    
+    /**
+     * Returns the last read time.
+     * 
+     * @return  The last read time (= ms)
+     */
+    public long getLastReadTime()
+    {
+        return lastReadTime_;
+    }
+    
+    /**
+     * Returns the number of bytes read.
+     * 
+     * @return  The number of bytes
+     */
+    public long getNumberOfBytes()
+    {
+        return numberOfBytes_;
+    }
+    
+    /**
+     * Returns the number of decoded messages.
+     * 
+     * @return  The number of messages
+     */
+    public long getNumberOfMessages()
+    {
+        return numberOfMessages_;
+    }
+    
+    /**
+     * Returns the number of bytes waiting for the rest of their frame.
+     * 
+     * @return  The backlog (= bytes)
+     */
+    public int getBacklog()
+    {
+        return backlog_;
+    }
+    
+    /**
+     * Returns the average read rate since the connection was established.
+     * 
+     * @return  The read rate (= bytes/sec)
+     */
+    public double getReadRate()
+    {
+        long elapsed = Math.max(1, System.currentTimeMillis() - connectedAt_);
+        return numberOfBytes_ * MILLISECONDS_PER_SECOND / elapsed;
+    }
+    
+    /**
+     * Returns the average message rate since the connection was established.
+     * 
+     * @return  The message rate (= messages/sec)
+     */
+    public double getMessageRate()
+    {
+        long elapsed = Math.max(1, System.currentTimeMillis() - connectedAt_);
+        return numberOfMessages_ * MILLISECONDS_PER_SECOND / elapsed;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.format("%s: %d messages, %d bytes, %.1f bytes/sec, %.2f messages/sec, backlog %d bytes",
+                             id_, numberOfMessages_, numberOfBytes_, getReadRate(), getMessageRate(), backlog_);
+    }
+}
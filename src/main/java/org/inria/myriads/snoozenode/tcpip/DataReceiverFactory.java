@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringTransportSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Data receiver factory.
+ * 
+ * @author Eugen Feller
+ */
+public final class DataReceiverFactory 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(DataReceiverFactory.class);
+    
+    /**
+     * Hide the consturctor.
+     */
+    private DataReceiverFactory() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Creates a new data receiver.
+     * 
+     * @param networkAddress        The network address
+     * @param timeout               The timeout
+     * @param transportSettings     The monitoring transport settings
+     * @return                      The data receiver
+     * @throws IOException          The I/O exception
+     */
+    public static DataReceiver newDataReceiver(NetworkAddress networkAddress, 
+                                               int timeout, 
+                                               MonitoringTransportSettings transportSettings)
+        throws IOException
+    {
+        ReceiverType receiverType = transportSettings.getReceiverType();
+        switch (receiverType)
+        {
+            case selector :
+                log_.debug("Initializing the selector data receiver");
+                return new SelectorDataReceiver(networkAddress, 
+                                                timeout, 
+                                                transportSettings.getNumberOfReceiverThreads());
+                
+            case blocking :
+                log_.debug("Initializing the blocking data receiver");
+                return new TCPDataReceiver(networkAddress, timeout);
+                
+            default :
+                log_.error(String.format("Unknown receiver type selected: %s", receiverType));
+                return new TCPDataReceiver(networkAddress, timeout);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+import org.inria.myriads.snoozenode.monitoring.codec.CodecFactory;
+import org.inria.myriads.snoozenode.monitoring.codec.MonitoringCodec;
+import org.inria.myriads.snoozenode.monitoring.codec.SerializationCodec;
+
+/**
+ * Monitoring message framing.
+ * 
+ * A frame starts with a magic number and a version. Version 1 frames are
+ * followed by the payload length and a serialized object. Version 2 frames
+ * add the codec identifier before the payload length. Each payload is
+ * self-contained, so frames can be decoded independently of each other.
+ * 
+ * Serialization payloads are always written as version 1 frames, so that
+ * receivers which only know version 1 keep working.
+ * 
+ * @author Eugen Feller
+ */
+public final class MessageFraming 
+{
+    /** Frame magic ("SN"), distinct from the object stream magic. */
+    public static final short MAGIC = 0x534E;
+    
+    /** Frame version (serialization only). */
+    public static final byte VERSION_1 = 1;
+    
+    /** Frame version (codec identifier). */
+    public static final byte VERSION_2 = 2;
+    
+    /** Prefix size (magic, version). */
+    public static final int PREFIX_SIZE = 3;
+    
+    /** Maximum header size. */
+    public static final int MAXIMUM_HEADER_SIZE = 8;
+    
+    /** Maximum accepted payload size. */
+    public static final int MAXIMUM_PAYLOAD_SIZE = 64 * 1024 * 1024;
+    
+    /** Version 1 header size (magic, version, payload length). */
+    private static final int HEADER_SIZE_1 = 7;
+    
+    /** Version 2 header size (magic, version, codec, payload length). */
+    private static final int HEADER_SIZE_2 = 8;
+    
+    /** Initial encoding buffer size. */
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    
+    /** Object stream magic, first byte. */
+    private static final int OBJECT_STREAM_MAGIC_HIGH = 0xAC;
+    
+    /** Object stream magic, second byte. */
+    private static final int OBJECT_STREAM_MAGIC_LOW = 0xED;
+    
+    /**
+     * Hide the consturctor.
+     */
+    private MessageFraming() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Encodes a data object into a serialization frame.
+     * 
+     * @param data          The data object
+     * @return              The frame
+     * @throws IOException  The I/O exception
+     */
+    public static byte[] encode(Object data) 
+        throws IOException
+    {
+        return encode(data, CodecFactory.getCodec(SerializationCodec.ID));
+    }
+    
+    /**
+     * Encodes a data object into a frame.
+     * 
+     * @param data          The data object
+     * @param codec         The codec
+     * @return              The frame
+     * @throws IOException  The I/O exception
+     */
+    public static byte[] encode(Object data, MonitoringCodec codec) 
+        throws IOException
+    {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        writeFrame(data, codec, new ByteArrayOutputStream(INITIAL_BUFFER_SIZE), frame);
+        return frame.toByteArray();
+    }
+    
+    /**
+     * Encodes a data object and writes the frame.
+     * 
+     * @param data          The data object
+     * @param codec         The codec
+     * @param buffer        The payload buffer (reset before use)
+     * @param output        The output stream
+     * @throws IOException  The I/O exception
+     */
+    public static void writeFrame(Object data, 
+                                  MonitoringCodec codec, 
+                                  ByteArrayOutputStream buffer, 
+                                  OutputStream output) 
+        throws IOException
+    {
+        buffer.reset();
+        codec.encode(data, buffer);
+        
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeShort(MAGIC);
+        if (codec.getId() == SerializationCodec.ID)
+        {
+            header.writeByte(VERSION_1);
+        } else
+        {
+            header.writeByte(VERSION_2);
+            header.writeByte(codec.getId());
+        }
+        header.writeInt(buffer.size());
+        buffer.writeTo(output);
+    }
+    
+    /**
+     * Reads the frame prefix and returns the header size.
+     * 
+     * @param prefix        The header buffer (PREFIX_SIZE bytes, absolute access)
+     * @return              The header size
+     * @throws IOException  The I/O exception
+     */
+    public static int getHeaderSize(ByteBuffer prefix) 
+        throws IOException
+    {
+        short magic = prefix.getShort(0);
+        if (magic != MAGIC)
+        {
+            throw new StreamCorruptedException(String.format("Invalid frame magic: %x", magic));
+        }
+        
+        byte version = prefix.get(2);
+        switch (version)
+        {
+            case VERSION_1 :
+                return HEADER_SIZE_1;
+                
+            case VERSION_2 :
+                return HEADER_SIZE_2;
+                
+            default :
+                throw new StreamCorruptedException(String.format("Unsupported frame version: %d", version));
+        }
+    }
+    
+    /**
+     * Returns the codec identifier of a complete header.
+     * 
+     * @param header        The header buffer (absolute access)
+     * @return              The codec identifier
+     * @throws IOException  The I/O exception
+     */
+    public static byte getCodecId(ByteBuffer header) 
+        throws IOException
+    {
+        if (getHeaderSize(header) == HEADER_SIZE_1)
+        {
+            return SerializationCodec.ID;
+        }
+        
+        return header.get(PREFIX_SIZE);
+    }
+    
+    /**
+     * Returns the payload length of a complete header.
+     * 
+     * @param header        The header buffer (absolute access)
+     * @return              The payload length
+     * @throws IOException  The I/O exception
+     */
+    public static int getPayloadLength(ByteBuffer header) 
+        throws IOException
+    {
+        int length = header.getInt(getHeaderSize(header) - Integer.SIZE / Byte.SIZE);
+        if (length <= 0 || length > MAXIMUM_PAYLOAD_SIZE)
+        {
+            throw new StreamCorruptedException(String.format("Invalid frame length: %d", length));
+        }
+        
+        return length;
+    }
+    
+    /**
+     * Decodes a frame payload.
+     * 
+     * @param codecId                   The codec identifier
+     * @param payload                   The payload buffer
+     * @param offset                    The payload offset
+     * @param length                    The payload length
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    public static Object decode(byte codecId, byte[] payload, int offset, int length) 
+        throws IOException, ClassNotFoundException
+    {
+        MonitoringCodec codec = CodecFactory.getCodec(codecId);
+        if (codec == null)
+        {
+            throw new StreamCorruptedException(String.format("Unknown codec: %d", codecId));
+        }
+        
+        return codec.decode(new ByteArrayInputStream(payload, offset, length));
+    }
+    
+    /**
+     * Reads a frame from a blocking stream.
+     * 
+     * @param input                     The input stream
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    public static Object readFrame(DataInputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        byte[] header = new byte[MAXIMUM_HEADER_SIZE];
+        input.readFully(header, 0, PREFIX_SIZE);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        int headerSize = getHeaderSize(headerBuffer);
+        input.readFully(header, PREFIX_SIZE, headerSize - PREFIX_SIZE);
+        
+        int length = getPayloadLength(headerBuffer);
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return decode(getCodecId(headerBuffer), payload, 0, length);
+    }
+    
+    /**
+     * Checks if a stream starts like a (non framed) object stream.
+     * 
+     * @param first     The first byte
+     * @param second    The second byte
+     * @return          true if object stream, false otherwise
+     */
+    public static boolean isObjectStream(int first, int second)
+    {
+        return first == OBJECT_STREAM_MAGIC_HIGH && second == OBJECT_STREAM_MAGIC_LOW;
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+
+/**
+ * Selector connection, decodes frames as bytes arrive.
+ * 
+ * @author Eugen Feller
+ */
+public final class SelectorConnection 
+{
+    /** Read buffer size. */
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    
+    /** Socket channel. */
+    private SocketChannel channel_;
+    
+    /** Read buffer. */
+    private ByteBuffer readBuffer_;
+    
+    /** Header buffer. */
+    private ByteBuffer header_;
+    
+    /** Codec of the current payload. */
+    private byte codecId_;
+    
+    /** Payload buffer (null while reading a header). */
+    private ByteBuffer payload_;
+    
+    /** Signals that the stream format was checked. */
+    private boolean isChecked_;
+    
+    /** Signals a continuous object stream. */
+    private boolean isObjectStream_;
+    
+    /** Statistics. */
+    private ConnectionStatistics statistics_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param channel   The socket channel
+     */
+    public SelectorConnection(SocketChannel channel)
+    {
+        Guard.check(channel);
+        channel_ = channel;
+        readBuffer_ = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        header_ = ByteBuffer.allocate(MessageFraming.MAXIMUM_HEADER_SIZE);
+        header_.limit(MessageFraming.PREFIX_SIZE);
+        String id = channel.socket().getInetAddress().getHostAddress() + ":" + channel.socket().getPort();
+        statistics_ = new ConnectionStatistics(id);
+    }
+    
+    /**
+     * Reads the available bytes and dispatches all complete frames.
+     * 
+     * Stops early if the peer turns out to send a continuous object stream.
+     * 
+     * @param dataHandler               The data handler
+     * @return                          false on end of stream, true otherwise
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    public boolean read(DataListener dataHandler) 
+        throws IOException, ClassNotFoundException
+    {
+        int numberOfBytes = channel_.read(readBuffer_);
+        if (numberOfBytes == -1)
+        {
+            return false;
+        }
+        
+        readBuffer_.flip();
+        while (readBuffer_.hasRemaining())
+        {
+            if (payload_ == null)
+            {
+                transfer(readBuffer_, header_);
+                if (!isChecked_ && header_.position() >= 2)
+                {
+                    isChecked_ = true;
+                    isObjectStream_ = MessageFraming.isObjectStream(header_.get(0) & 0xFF, header_.get(1) & 0xFF);
+                    if (isObjectStream_)
+                    {
+                        statistics_.onRead(numberOfBytes, 0);
+                        return true;
+                    }
+                }
+                
+                if (header_.hasRemaining())
+                {
+                    continue;
+                }
+                
+                if (header_.limit() == MessageFraming.PREFIX_SIZE)
+                {
+                    header_.limit(MessageFraming.getHeaderSize(header_));
+                    continue;
+                }
+                
+                codecId_ = MessageFraming.getCodecId(header_);
+                payload_ = ByteBuffer.allocate(MessageFraming.getPayloadLength(header_));
+                header_.clear();
+                header_.limit(MessageFraming.PREFIX_SIZE);
+                continue;
+            }
+            
+            transfer(readBuffer_, payload_);
+            if (!payload_.hasRemaining())
+            {
+                Object data = MessageFraming.decode(codecId_, payload_.array(), 0, payload_.capacity());
+                payload_ = null;
+                statistics_.onMessage();
+                dataHandler.onDataArrival(data, statistics_.getId());
+            }
+        }
+        
+        readBuffer_.clear();
+        statistics_.onRead(numberOfBytes, getBacklog());
+        return true;
+    }
+    
+    /**
+     * Copies as many bytes as possible from one buffer to another.
+     * 
+     * @param source        The source buffer
+     * @param destination   The destination buffer
+     */
+    private static void transfer(ByteBuffer source, ByteBuffer destination)
+    {
+        int count = Math.min(source.remaining(), destination.remaining());
+        int limit = source.limit();
+        source.limit(source.position() + count);
+        destination.put(source);
+        source.limit(limit);
+    }
+    
+    /**
+     * Returns the number of bytes waiting for the rest of their frame.
+     * 
+     * @return  The backlog
+     */
+    private int getBacklog()
+    {
+        int backlog = header_.position();
+        if (payload_ != null)
+        {
+            backlog += payload_.position();
+        }
+        
+        return backlog;
+    }
+    
+    /**
+     * Returns the bytes read but not consumed yet.
+     * 
+     * Used to hand over object stream connections.
+     * 
+     * @return  The unconsumed bytes
+     */
+    public byte[] getUnconsumedBytes()
+    {
+        header_.flip();
+        int headerLength = header_.remaining();
+        byte[] bytes = new byte[headerLength + readBuffer_.remaining()];
+        header_.get(bytes, 0, headerLength);
+        readBuffer_.get(bytes, headerLength, readBuffer_.remaining());
+        return bytes;
+    }
+    
+    /**
+     * Checks if the peer sends a continuous object stream.
+     * 
+     * @return  true if object stream, false otherwise
+     */
+    public boolean isObjectStream()
+    {
+        return isObjectStream_;
+    }
+    
+    /**
+     * Returns the socket channel.
+     * 
+     * @return  The socket channel
+     */
+    public SocketChannel getChannel()
+    {
+        return channel_;
+    }
+    
+    /**
+     * Returns the connection identifier.
+     * 
+     * @return  The identifier
+     */
+    public String getId()
+    {
+        return statistics_.getId();
+    }
+    
+    /**
+     * Returns the connection statistics.
+     * 
+     * @return  The statistics
+     */
+    public ConnectionStatistics getStatistics()
+    {
+        return statistics_;
+    }
+}
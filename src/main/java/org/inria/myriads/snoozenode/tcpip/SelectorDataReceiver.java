@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selector based data receiver.
+ * 
+ * Connections are spread over a fixed number of event loops, each one serving
+ * all its connections from a single thread.
+ * 
+ * @author Eugen Feller
+ */
+public class SelectorDataReceiver 
+    implements DataReceiver
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SelectorDataReceiver.class);
+    
+    /** Server socket channel. */
+    private ServerSocketChannel serverChannel_;
+    
+    /** Data handler. */
+    private DataListener dataHandler_;
+    
+    /** Event loops. */
+    private List<SelectorEventLoop> eventLoops_;
+    
+    /** Worker threads serving object stream connections. */
+    private List<TCPWorkerThread> workerThreads_;
+    
+    /** Number of event loops. */
+    private int numberOfEventLoops_;
+    
+    /** Timeout. */
+    private int timeout_;
+    
+    /** Signals termination. */
+    private volatile boolean isTerminated_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param networkAddress        The network address
+     * @param timeout               The timeout
+     * @param numberOfEventLoops    The number of event loops
+     * @throws IOException          The I/O exception
+     */
+    public SelectorDataReceiver(NetworkAddress networkAddress, int timeout, int numberOfEventLoops) 
+        throws IOException 
+    {
+        Guard.check(networkAddress, timeout);
+        log_.debug(String.format("Initializing the selector data receiver at address: %s, port: %d, " +
+                                 "timeout: %s, event loops: %d", 
+                                 networkAddress.getAddress(), networkAddress.getPort(), timeout, 
+                                 numberOfEventLoops));
+        
+        timeout_ = timeout;
+        numberOfEventLoops_ = Math.max(1, numberOfEventLoops);
+        eventLoops_ = new ArrayList<SelectorEventLoop>();
+        workerThreads_ = Collections.synchronizedList(new ArrayList<TCPWorkerThread>());
+        serverChannel_ = ServerSocketChannel.open();
+        serverChannel_.socket().bind(new InetSocketAddress(networkAddress.getAddress(), networkAddress.getPort()));
+    }
+    
+    /** 
+     * Sets the data handler.
+     *  
+     * @param dataHandler   The data handler
+     */
+    public void setHandler(DataListener dataHandler) 
+    {
+        Guard.check(dataHandler);
+        dataHandler_ = dataHandler;
+    }
+    
+    /** 
+     * Starts the event loops, then accepts new clients.
+     */
+    public void run()
+    {
+        try
+        {
+            startEventLoops();
+            int next = 0;
+            while (!isTerminated_) 
+            {            
+                log_.debug("Waiting for incoming connections"); 
+                SocketChannel channel = serverChannel_.accept();
+                channel.configureBlocking(false);
+                
+                log_.debug("New connection established");
+                eventLoops_.get(next).register(channel);
+                next = (next + 1) % eventLoops_.size();
+            }
+        }
+        catch (IOException exception) 
+        {
+            if (!isTerminated_)
+            {
+                log_.error("I/O exception during communication", exception);
+                IOUtils.closeQuietly(serverChannel_);
+            }
+        } 
+    }
+    
+    /**
+     * Starts the event loops.
+     * 
+     * @throws IOException  The I/O exception
+     */
+    private synchronized void startEventLoops() 
+        throws IOException
+    {
+        for (int i = 0; i < numberOfEventLoops_; i++)
+        {
+            SelectorEventLoop eventLoop = new SelectorEventLoop(this, dataHandler_, timeout_);
+            eventLoops_.add(eventLoop);
+            new Thread(eventLoop, "SelectorEventLoop-" + i).start();
+        }
+    }
+    
+    /**
+     * Starts a worker thread for a connection taken over from an event loop.
+     * 
+     * @param workerThread  The worker thread
+     */
+    protected void startWorkerThread(TCPWorkerThread workerThread)
+    {
+        synchronized (workerThreads_)
+        {
+            for (int i = workerThreads_.size() - 1; i >= 0; i--)
+            {
+                if (workerThreads_.get(i).isStopped())
+                {
+                    workerThreads_.remove(i);
+                }
+            }
+            
+            workerThreads_.add(workerThread);
+        }
+        
+        new Thread(workerThread, "WorkerThread : " + workerThread.getId()).start();
+    }
+    
+    /**
+     * Returns the statistics of all open (framed) connections.
+     * 
+     * @return  The connection statistics
+     */
+    public synchronized List<ConnectionStatistics> getConnectionStatistics()
+    {
+        List<ConnectionStatistics> statistics = new ArrayList<ConnectionStatistics>();
+        for (SelectorEventLoop eventLoop : eventLoops_)
+        {
+            statistics.addAll(eventLoop.getConnectionStatistics());
+        }
+        
+        return statistics;
+    }
+    
+    /**
+     * Terminates the receiver.
+     */
+    public synchronized void terminate()
+    {
+        log_.debug("Terminating the event loops and worker threads");
+        isTerminated_ = true;
+        IOUtils.closeQuietly(serverChannel_);
+        for (SelectorEventLoop eventLoop : eventLoops_)
+        {
+            eventLoop.terminate();
+        }
+        
+        synchronized (workerThreads_)
+        {
+            for (TCPWorkerThread workerThread : workerThreads_)
+            {
+                workerThread.terminate();
+            }
+        }
+    }
+}
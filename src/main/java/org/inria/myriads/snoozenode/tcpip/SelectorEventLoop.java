@@ -0,0 +1,383 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selector event loop, serves the connections assigned by the selector data receiver.
+ * 
+ * @author Eugen Feller
+ */
+public final class SelectorEventLoop 
+    implements Runnable 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SelectorEventLoop.class);
+    
+    /** Select timeout (= ms), bounds the timeout detection latency. */
+    private static final long SELECT_TIMEOUT = 1000;
+    
+    /** Statistics logging interval (= ms). */
+    private static final long STATISTICS_INTERVAL = 60000;
+    
+    /** Selector. */
+    private Selector selector_;
+    
+    /** Channels waiting for registration. */
+    private Queue<SocketChannel> pendingChannels_;
+    
+    /** Open connections. */
+    private Map<String, SelectorConnection> connections_;
+    
+    /** Data handler. */
+    private DataListener dataHandler_;
+    
+    /** Receiver (takes over object stream connections). */
+    private SelectorDataReceiver receiver_;
+    
+    /** Timeout. */
+    private int timeout_;
+    
+    /** Last statistics logging time. */
+    private long lastStatisticsTime_;
+    
+    /** Signals termination. */
+    private volatile boolean isTerminated_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param receiver          The selector data receiver
+     * @param dataHandler       The data handler
+     * @param timeout           The timeout
+     * @throws IOException      The I/O exception
+     */
+    public SelectorEventLoop(SelectorDataReceiver receiver, DataListener dataHandler, int timeout)
+        throws IOException 
+    {
+        Guard.check(receiver, dataHandler);
+        receiver_ = receiver;
+        dataHandler_ = dataHandler;
+        timeout_ = timeout;
+        selector_ = Selector.open();
+        pendingChannels_ = new ConcurrentLinkedQueue<SocketChannel>();
+        connections_ = new ConcurrentHashMap<String, SelectorConnection>();
+        lastStatisticsTime_ = System.currentTimeMillis();
+    }
+    
+    /**
+     * Assigns a new connection to this event loop.
+     * 
+     * @param channel   The (non blocking) socket channel
+     */
+    public void register(SocketChannel channel)
+    {
+        pendingChannels_.add(channel);
+        selector_.wakeup();
+    }
+    
+    /**
+     * The run() method.
+     */
+    public void run()
+    {
+        try
+        {
+            while (!isTerminated_)
+            {
+                selector_.select(SELECT_TIMEOUT);
+                registerPendingChannels();
+                
+                List<SelectorConnection> objectStreams = new ArrayList<SelectorConnection>();
+                Iterator<SelectionKey> iterator = selector_.selectedKeys().iterator();
+                while (iterator.hasNext())
+                {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    SelectorConnection connection = (SelectorConnection) key.attachment();
+                    if (key.isValid() && key.isReadable() && read(key, connection) && connection.isObjectStream())
+                    {
+                        objectStreams.add(connection);
+                    }
+                }
+                
+                for (SelectorConnection connection : objectStreams)
+                {
+                    handOver(connection);
+                }
+                
+                closeTimedOutConnections();
+                logStatistics();
+            }
+        }
+        catch (IOException exception)
+        {
+            if (!isTerminated_)
+            {
+                log_.error("I/O exception in the selector event loop", exception);
+            }
+        }
+        finally
+        {
+            closeAll();
+        }
+        
+        log_.debug("Selector event loop is stopped!");
+    }
+    
+    /**
+     * Registers the pending channels with the selector.
+     */
+    private void registerPendingChannels()
+    {
+        SocketChannel channel;
+        while ((channel = pendingChannels_.poll()) != null)
+        {
+            SelectorConnection connection = new SelectorConnection(channel);
+            try
+            {
+                channel.register(selector_, SelectionKey.OP_READ, connection);
+                connections_.put(connection.getId(), connection);
+                log_.debug(String.format("Connection %s registered", connection.getId()));
+            }
+            catch (IOException exception)
+            {
+                log_.error(String.format("Unable to register connection %s", connection.getId()), exception);
+                IOUtils.closeQuietly(channel);
+            }
+        }
+    }
+    
+    /**
+     * Reads from a connection.
+     * 
+     * @param key           The selection key
+     * @param connection    The connection
+     * @return              true if the connection is still open, false otherwise
+     */
+    private boolean read(SelectionKey key, SelectorConnection connection)
+    {
+        try
+        {
+            if (connection.read(dataHandler_))
+            {
+                return true;
+            }
+            
+            log_.debug(String.format("Connection %s closed by peer! Treating it as failure!", connection.getId()));
+            fail(connection);
+        }
+        catch (IOException exception)
+        {
+            log_.debug(String.format("I/O exception during read from %s! Treating it as failure!", 
+                                     connection.getId()));
+            fail(connection);
+        }
+        catch (ClassNotFoundException exception)
+        {
+            log_.error("Class not found exception", exception);
+            close(connection);
+        }
+        catch (RuntimeException exception)
+        {
+            log_.error(String.format("Unable to process data from %s! Treating it as failure!",
+                                     connection.getId()),
+                       exception);
+            fail(connection);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Hands a continuous object stream connection over to a worker thread.
+     * 
+     * @param connection    The connection
+     */
+    private void handOver(SelectorConnection connection)
+    {
+        log_.debug(String.format("Connection %s sends an object stream! Handing it over to a worker thread",
+                                 connection.getId()));
+        SocketChannel channel = connection.getChannel();
+        connections_.remove(connection.getId());
+        channel.keyFor(selector_).cancel();
+        try
+        {
+            selector_.selectNow();
+            channel.configureBlocking(true);
+            Socket socket = channel.socket();
+            socket.setSoTimeout(timeout_);
+            InputStream inputStream = new SequenceInputStream(new ByteArrayInputStream(connection.getUnconsumedBytes()),
+                                                              socket.getInputStream());
+            receiver_.startWorkerThread(new TCPWorkerThread(socket, inputStream, dataHandler_));
+        }
+        catch (IOException exception)
+        {
+            log_.debug(String.format("Unable to hand over connection %s! Treating it as failure!", 
+                                     connection.getId()));
+            IOUtils.closeQuietly(channel);
+            dataHandler_.onFailure(connection.getId());
+        }
+    }
+    
+    /**
+     * Closes the connections which did not deliver data within the timeout.
+     */
+    private void closeTimedOutConnections()
+    {
+        if (timeout_ <= 0)
+        {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        for (SelectorConnection connection : connections_.values())
+        {
+            if (now - connection.getStatistics().getLastReadTime() > timeout_)
+            {
+                log_.debug(String.format("Connection %s timed out! Treating it as failure!", connection.getId()));
+                fail(connection);
+            }
+        }
+    }
+    
+    /**
+     * Logs the connection statistics.
+     */
+    private void logStatistics()
+    {
+        long now = System.currentTimeMillis();
+        if (!log_.isDebugEnabled() || now - lastStatisticsTime_ < STATISTICS_INTERVAL)
+        {
+            return;
+        }
+        
+        lastStatisticsTime_ = now;
+        for (SelectorConnection connection : connections_.values())
+        {
+            log_.debug(String.format("Connection statistics %s", connection.getStatistics()));
+        }
+    }
+    
+    /**
+     * Closes a connection and notifies the failure.
+     * 
+     * @param connection    The connection
+     */
+    private void fail(SelectorConnection connection)
+    {
+        close(connection);
+        if (!isTerminated_)
+        {
+            dataHandler_.onFailure(connection.getId());
+        }
+    }
+    
+    /**
+     * Closes a connection.
+     * 
+     * @param connection    The connection
+     */
+    private void close(SelectorConnection connection)
+    {
+        connections_.remove(connection.getId());
+        SelectionKey key = connection.getChannel().keyFor(selector_);
+        if (key != null)
+        {
+            key.cancel();
+        }
+        
+        IOUtils.closeQuietly(connection.getChannel());
+    }
+    
+    /**
+     * Closes all connections and the selector.
+     */
+    private void closeAll()
+    {
+        for (SelectorConnection connection : connections_.values())
+        {
+            close(connection);
+        }
+        
+        SocketChannel channel;
+        while ((channel = pendingChannels_.poll()) != null)
+        {
+            IOUtils.closeQuietly(channel);
+        }
+        
+        IOUtils.closeQuietly(selector_);
+    }
+    
+    /**
+     * Returns the statistics of the open connections.
+     * 
+     * @return  The connection statistics
+     */
+    public List<ConnectionStatistics> getConnectionStatistics()
+    {
+        List<ConnectionStatistics> statistics = new ArrayList<ConnectionStatistics>();
+        for (SelectorConnection connection : connections_.values())
+        {
+            statistics.add(connection.getStatistics());
+        }
+        
+        return statistics;
+    }
+    
+    /**
+     * Returns the number of registered channels not yet served.
+     * 
+     * @return  The number of pending channels
+     */
+    public int getNumberOfPendingChannels()
+    {
+        return pendingChannels_.size();
+    }
+    
+    /**
+     * Terminates the event loop.
+     */
+    public void terminate()
+    {
+        isTerminated_ = true;
+        selector_.wakeup();
+    }
+}
@@ -27,6 +27,8 @@ import java.net.Socket;
 import java.net.SocketAddress;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
@@ -35,12 +37,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * TCP data receiver.
+ * TCP data receiver (one worker thread per connection).
  * 
  * @author Eugen Feller
  */
-public abstract class TCPDataReceiver 
-    implements Runnable 
+public class TCPDataReceiver 
+    implements DataReceiver 
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(TCPDataReceiver.class);
@@ -75,7 +77,7 @@ public abstract class TCPDataReceiver
                                  networkAddress.getAddress(), networkAddress.getPort(), timeout));
               
         timeout_ = timeout;
-        workerThreads_ = new ArrayList<TCPWorkerThread>();
+        workerThreads_ = Collections.synchronizedList(new ArrayList<TCPWorkerThread>());
         serverSocket_ = new ServerSocket();
         SocketAddress socketAddress = new InetSocketAddress(networkAddress.getAddress(), networkAddress.getPort());
         serverSocket_.bind(socketAddress);   
@@ -108,6 +110,7 @@ public abstract class TCPDataReceiver
                 
                 log_.debug("New connected estabilished");
                 TCPWorkerThread workerThread = new TCPWorkerThread(clientSocket, dataHandler_);
+                removeStoppedWorkerThreads();
                 workerThreads_.add(workerThread);
                 new Thread(workerThread, "WorkerThread : " + clientSocket.toString()).start();
             }
@@ -129,15 +132,36 @@ public abstract class TCPDataReceiver
         } 
     }    
     
+    /**
+     * Removes the worker threads of closed connections.
+     */
+    private void removeStoppedWorkerThreads()
+    {
+        synchronized (workerThreads_)
+        {
+            Iterator<TCPWorkerThread> iterator = workerThreads_.iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next().isStopped())
+                {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+    
     /**
      * Terminates the receiver.
      */
     public void terminate()
     {
         log_.debug("Terminating all worker threads");
-        for (TCPWorkerThread worrkerThread : workerThreads_)
+        synchronized (workerThreads_)
         {
-            worrkerThread.terminate();
+            for (TCPWorkerThread worrkerThread : workerThreads_)
+            {
+                worrkerThread.terminate();
+            }
         }
         
         isTerminated_ = true;
@@ -19,7 +19,11 @@
  */
 package org.inria.myriads.snoozenode.tcpip;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 
 import java.net.Socket;
@@ -42,8 +46,8 @@ public final class TCPWorkerThread
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(TCPWorkerThread.class);
     
-    /** Object input stream. */
-    private ObjectInputStream inputStream_;
+    /** Input stream. */
+    private InputStream inputStream_;
     
     /** Client socket. */
     private Socket clientSocket_;
@@ -57,6 +61,9 @@ public final class TCPWorkerThread
     /** Signals termination. */
     private boolean isTerminated_;
     
+    /** Signals that the run() method returned. */
+    private volatile boolean isStopped_;
+    
     /**
      * TCP worker thread constructor.
      * 
@@ -64,11 +71,26 @@ public final class TCPWorkerThread
      * @param dataListener  The data listener
      */
     public TCPWorkerThread(Socket clientSocket, DataListener dataListener)
+    {
+        this(clientSocket, null, dataListener);
+    }
+    
+    /**
+     * TCP worker thread constructor.
+     * 
+     * Used to take over connections whose first bytes were already read elsewhere.
+     * 
+     * @param clientSocket  The client socket
+     * @param inputStream   The input stream (null to read from the socket)
+     * @param dataListener  The data listener
+     */
+    public TCPWorkerThread(Socket clientSocket, InputStream inputStream, DataListener dataListener)
     {
         Guard.check(clientSocket, dataListener);
         log_.debug("Initializing worker thread");
         
         clientSocket_ = clientSocket;
+        inputStream_ = inputStream;
         dataHandler_ = dataListener;
         isTerminated_ = false;
         id_ = clientSocket_.getInetAddress().getHostAddress() + ":" + clientSocket_.getPort();
@@ -81,11 +103,18 @@ public final class TCPWorkerThread
     {
         try 
         {
-            inputStream_ = new ObjectInputStream(clientSocket_.getInputStream());
-            while (!isTerminated_) 
+            if (inputStream_ == null)
+            {
+                inputStream_ = clientSocket_.getInputStream();
+            }
+            
+            inputStream_ = new BufferedInputStream(inputStream_);
+            if (isObjectStream(inputStream_))
             {
-                Object data = inputStream_.readObject();
-                dataHandler_.onDataArrival(data, id_);
+                readObjectStream(new ObjectInputStream(inputStream_));
+            } else
+            {
+                readFrames(new DataInputStream(inputStream_));
             }
         } 
         catch (IOException exception)
@@ -103,11 +132,88 @@ public final class TCPWorkerThread
         finally
         {
             close();
+            isStopped_ = true;
         }
         
         log_.debug(String.format("Worker thread %s is stopped!", id_));
     }
     
+    /**
+     * Returns the identifier.
+     * 
+     * @return  The identifier (host address + port)
+     */
+    protected String getId()
+    {
+        return id_;
+    }
+    
+    /**
+     * Checks if the worker thread is stopped.
+     * 
+     * @return  true if stopped, false otherwise
+     */
+    protected boolean isStopped()
+    {
+        return isStopped_;
+    }
+    
+    /**
+     * Checks if the sender writes a continuous object stream.
+     * 
+     * @param input         The (buffered) input stream
+     * @return              true if object stream, false if framed
+     * @throws IOException  The I/O exception
+     */
+    private boolean isObjectStream(InputStream input) 
+        throws IOException
+    {
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        if (second == -1)
+        {
+            throw new EOFException("Connection closed before any data arrived");
+        }
+        
+        return MessageFraming.isObjectStream(first, second);
+    }
+    
+    /**
+     * Reads objects from a continuous object stream.
+     * 
+     * @param input                     The object input stream
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    private void readObjectStream(ObjectInputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        while (!isTerminated_) 
+        {
+            Object data = input.readObject();
+            dataHandler_.onDataArrival(data, id_);
+        }
+    }
+    
+    /**
+     * Reads objects from a framed stream.
+     * 
+     * @param input                     The data input stream
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    private void readFrames(DataInputStream input) 
+        throws IOException, ClassNotFoundException
+    {
+        while (!isTerminated_) 
+        {
+            Object data = MessageFraming.readFrame(input);
+            dataHandler_.onDataArrival(data, id_);
+        }
+    }
+    
     /**
      * Terminates the thread.
      */
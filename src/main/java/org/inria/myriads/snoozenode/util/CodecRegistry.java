@@ -0,0 +1,345 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
+import org.codehaus.jackson.smile.SmileFactory;
+import org.inria.myriads.snoozecommon.guard.Guard;
+
+/**
+ * Codec registry.
+ * 
+ * Shares one JSON and one Smile object mapper and hands out their readers and writers
+ * per type. Readers and writers are immutable and thread-safe, so the introspection and
+ * serializer caches are built once per type instead of once per call.
+ * 
+ * @author Eugen Feller
+ */
+public final class CodecRegistry 
+{
+    /** Smile header (":)\n"). */
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+    
+    /** Initial pooled buffer size (in bytes). */
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    
+    /** Pooled buffers growing beyond this size (in bytes) are dropped after use. */
+    private static final int MAXIMUM_POOLED_BUFFER_SIZE = 64 * 1024;
+    
+    /** JSON mapper. */
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    
+    /** Smile mapper. */
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+    
+    /** JSON readers. */
+    private static final ConcurrentMap<Class<?>, ObjectReader> JSON_READERS = 
+        new ConcurrentHashMap<Class<?>, ObjectReader>();
+    
+    /** Smile readers. */
+    private static final ConcurrentMap<Class<?>, ObjectReader> SMILE_READERS = 
+        new ConcurrentHashMap<Class<?>, ObjectReader>();
+    
+    /** JSON writers. */
+    private static final ConcurrentMap<Class<?>, ObjectWriter> JSON_WRITERS = 
+        new ConcurrentHashMap<Class<?>, ObjectWriter>();
+    
+    /** Smile writers. */
+    private static final ConcurrentMap<Class<?>, ObjectWriter> SMILE_WRITERS = 
+        new ConcurrentHashMap<Class<?>, ObjectWriter>();
+    
+    /** Per thread output buffer. */
+    private static final ThreadLocal<PooledOutputStream> BUFFER = new ThreadLocal<PooledOutputStream>()
+    {
+        @Override
+        protected PooledOutputStream initialValue()
+        {
+            return new PooledOutputStream();
+        }
+    };
+    
+    /** Signals Smile encoding of the binary values. */
+    private static volatile boolean isSmile_;
+    
+    /**
+     * Hide the consturctor.
+     */
+    private CodecRegistry() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Enables or disables Smile encoding of the binary values.
+     * (values are decoded in both formats regardless)
+     * 
+     * @param isSmile   true to encode in Smile, false to encode in JSON
+     */
+    public static void setSmile(boolean isSmile)
+    {
+        isSmile_ = isSmile;
+    }
+    
+    /**
+     * Checks if binary values are encoded in Smile.
+     * 
+     * @return  true if Smile, false if JSON
+     */
+    public static boolean isSmile()
+    {
+        return isSmile_;
+    }
+    
+    /**
+     * Encodes an object in the configured binary format.
+     * 
+     * @param object        The object
+     * @return              The encoded bytes
+     * @throws IOException  The I/O exception
+     */
+    public static byte[] toBytes(Object object) 
+        throws IOException
+    {
+        Guard.check(object);
+        boolean isSmile = isSmile_;
+        ObjectWriter writer = getWriter(isSmile ? SMILE_WRITERS : JSON_WRITERS, 
+                                        isSmile ? SMILE_MAPPER : JSON_MAPPER, 
+                                        object.getClass());
+        PooledOutputStream buffer = BUFFER.get();
+        try
+        {
+            writer.writeValue(buffer, object);
+            return buffer.toByteArray();
+        }
+        finally
+        {
+            buffer.recycle();
+        }
+    }
+    
+    /**
+     * Decodes an object from JSON or Smile bytes.
+     * 
+     * @param <T>           The type
+     * @param buffer        The byte buffer (position is left untouched)
+     * @param type          The type
+     * @return              The object
+     * @throws IOException  The I/O exception
+     */
+    public static <T> T fromBytes(ByteBuffer buffer, Class<T> type) 
+        throws IOException
+    {
+        Guard.check(buffer, type);
+        if (buffer.hasArray())
+        {
+            return fromBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), type);
+        }
+        
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return fromBytes(bytes, 0, bytes.length, type);
+    }
+    
+    /**
+     * Decodes an object from JSON or Smile bytes.
+     * 
+     * @param <T>           The type
+     * @param bytes         The bytes
+     * @param offset        The offset
+     * @param length        The length
+     * @param type          The type
+     * @return              The object
+     * @throws IOException  The I/O exception
+     */
+    public static <T> T fromBytes(byte[] bytes, int offset, int length, Class<T> type) 
+        throws IOException
+    {
+        Guard.check(bytes, type);
+        boolean isSmile = isSmile(bytes, offset, length);
+        ObjectReader reader = getReader(isSmile ? SMILE_READERS : JSON_READERS, 
+                                        isSmile ? SMILE_MAPPER : JSON_MAPPER, 
+                                        type);
+        return type.cast(reader.readValue(bytes, offset, length));
+    }
+    
+    /**
+     * Encodes an object in JSON.
+     * 
+     * @param object        The object
+     * @return              The JSON string
+     * @throws IOException  The I/O exception
+     */
+    public static String toJson(Object object) 
+        throws IOException
+    {
+        Guard.check(object);
+        return getWriter(JSON_WRITERS, JSON_MAPPER, object.getClass()).writeValueAsString(object);
+    }
+    
+    /**
+     * Encodes an object in UTF-8 JSON bytes.
+     * 
+     * @param object        The object
+     * @return              The JSON bytes
+     * @throws IOException  The I/O exception
+     */
+    public static byte[] toJsonBytes(Object object) 
+        throws IOException
+    {
+        Guard.check(object);
+        ObjectWriter writer = getWriter(JSON_WRITERS, JSON_MAPPER, object.getClass());
+        PooledOutputStream buffer = BUFFER.get();
+        try
+        {
+            writer.writeValue(buffer, object);
+            return buffer.toByteArray();
+        }
+        finally
+        {
+            buffer.recycle();
+        }
+    }
+    
+    /**
+     * Decodes an object from JSON.
+     * 
+     * @param <T>           The type
+     * @param json          The JSON string
+     * @param type          The type
+     * @return              The object
+     * @throws IOException  The I/O exception
+     */
+    public static <T> T fromJson(String json, Class<T> type) 
+        throws IOException
+    {
+        Guard.check(json, type);
+        return type.cast(getReader(JSON_READERS, JSON_MAPPER, type).readValue(json));
+    }
+    
+    /**
+     * Checks for the Smile header.
+     * 
+     * @param bytes     The bytes
+     * @param offset    The offset
+     * @param length    The length
+     * @return          true if Smile, false otherwise
+     */
+    private static boolean isSmile(byte[] bytes, int offset, int length)
+    {
+        if (length < SMILE_HEADER.length)
+        {
+            return false;
+        }
+        
+        for (int i = 0; i < SMILE_HEADER.length; i++)
+        {
+            if (bytes[offset + i] != SMILE_HEADER[i])
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the reader of a type, builds it on first use.
+     * 
+     * @param readers   The readers
+     * @param mapper    The mapper
+     * @param type      The type
+     * @return          The reader
+     */
+    private static ObjectReader getReader(ConcurrentMap<Class<?>, ObjectReader> readers, 
+                                          ObjectMapper mapper, 
+                                          Class<?> type)
+    {
+        ObjectReader reader = readers.get(type);
+        if (reader == null)
+        {
+            reader = mapper.reader(type);
+            ObjectReader existing = readers.putIfAbsent(type, reader);
+            if (existing != null)
+            {
+                reader = existing;
+            }
+        }
+        
+        return reader;
+    }
+    
+    /**
+     * Returns the writer of a type, builds it on first use.
+     * 
+     * @param writers   The writers
+     * @param mapper    The mapper
+     * @param type      The type
+     * @return          The writer
+     */
+    private static ObjectWriter getWriter(ConcurrentMap<Class<?>, ObjectWriter> writers, 
+                                          ObjectMapper mapper, 
+                                          Class<?> type)
+    {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null)
+        {
+            writer = mapper.writerWithType(type);
+            ObjectWriter existing = writers.putIfAbsent(type, writer);
+            if (existing != null)
+            {
+                writer = existing;
+            }
+        }
+        
+        return writer;
+    }
+    
+    /**
+     * Reusable output buffer.
+     */
+    private static final class PooledOutputStream extends ByteArrayOutputStream
+    {
+        /** Constructor. */
+        private PooledOutputStream()
+        {
+            super(INITIAL_BUFFER_SIZE);
+        }
+        
+        /**
+         * Resets the buffer, drops it if it grew too large.
+         */
+        private void recycle()
+        {
+            reset();
+            if (buf.length > MAXIMUM_POOLED_BUFFER_SIZE)
+            {
+                buf = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+    }
+}
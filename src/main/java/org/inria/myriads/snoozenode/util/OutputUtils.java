@@ -199,6 +199,10 @@ public final class OutputUtils
                                  configuration.getEstimator().getPolicy().getMemory()));
         log_.debug(String.format("estimator.policy.memory: %s",
                                  configuration.getEstimator().getPolicy().getNetwork()));
+        log_.debug(String.format("estimator.migration.bandwidth: %s",
+                                 configuration.getEstimator().getMigrationBandwidth()));
+        log_.debug(String.format("estimator.migration.maxDirtyRatio: %s",
+                                 configuration.getEstimator().getMaxDirtyRatio()));
         log_.debug("--------------------------------");
         log_.debug("Group leader scheduler settings:");
         log_.debug("--------------------------------");
@@ -206,6 +210,8 @@ public final class OutputUtils
                                  configuration.getGroupLeaderScheduler().getAssignmentPolicy()));
         log_.debug(String.format("groupLeaderScheduler.dispatchingPolicy: %s",
                                  configuration.getGroupLeaderScheduler().getDispatchingPolicy()));        
+        log_.debug(String.format("groupLeaderScheduler.numberOfConcurrentSubmissions: %d",
+                                 configuration.getGroupLeaderScheduler().getNumberOfConcurrentSubmissions()));
         log_.debug("---------------------------------");
         log_.debug("Group manager scheduler settings:");
         log_.debug("---------------------------------");
@@ -221,6 +227,12 @@ public final class OutputUtils
                                  configuration.getGroupManagerScheduler().getReconfigurationSettings().getPolicy()));
         log_.debug(String.format("groupManagerScheduler.reconfiguration.interval: %s", 
                                 configuration.getGroupManagerScheduler().getReconfigurationSettings().getInterval()));
+        log_.debug(String.format("groupManagerScheduler.operationTimeout: %d", 
+                                 configuration.getGroupManagerScheduler().getOperationTimeout()));
+        log_.debug(String.format("groupManagerScheduler.migration.maxConcurrent: %d", 
+                configuration.getGroupManagerScheduler().getMigrationSettings().getMaxConcurrentMigrations()));
+        log_.debug(String.format("groupManagerScheduler.migration.maxConcurrentPerHost: %d", 
+                configuration.getGroupManagerScheduler().getMigrationSettings().getMaxConcurrentMigrationsPerHost()));
         log_.debug("---------------------------");
         log_.debug("Energy management settings:");
         log_.debug("---------------------------");
@@ -244,6 +256,16 @@ public final class OutputUtils
                                  configuration.getEnergyManagement().getThresholds().getWakeupTime()));
         log_.debug(String.format("energyManagement.commandExecutionTimeout: %d",
                                  configuration.getEnergyManagement().getCommandExecutionTimeout())); 
+        log_.debug(String.format("energyManagement.prediction.enabled: %s",
+                                 configuration.getEnergyManagement().getPrediction().isEnabled()));
+        log_.debug(String.format("energyManagement.prediction.interval: %d",
+                                 configuration.getEnergyManagement().getPrediction().getInterval()));
+        log_.debug(String.format("energyManagement.prediction.horizon: %d",
+                                 configuration.getEnergyManagement().getPrediction().getHorizon()));
+        log_.debug(String.format("energyManagement.prediction.headroom: %s",
+                                 configuration.getEnergyManagement().getPrediction().getHeadroom()));
+        log_.debug(String.format("energyManagement.prediction.historySize: %d",
+                                 configuration.getEnergyManagement().getPrediction().getHistorySize()));
         log_.debug("-----------------------");
         log_.debug("Provisioner Settings");
         log_.debug("-----------------------");
@@ -267,6 +289,15 @@ public final class OutputUtils
                 configuration.getProvisionerSettings().getVncSettings().getVncPortRange()));
         log_.debug(String.format("provisioner.vnc.keymap: %s",
                 configuration.getProvisionerSettings().getVncSettings().getKeymap()));
+        log_.debug("-------------------");
+        log_.debug("Bootstrap settings:");
+        log_.debug("-------------------");
+        log_.debug(String.format("bootstrap.hierarchy.cacheTtl: %d",
+                                 configuration.getBootstrap().getHierarchyCacheTtl()));
+        log_.debug(String.format("bootstrap.hierarchy.numberOfThreads: %d",
+                                 configuration.getBootstrap().getNumberOfHierarchyThreads()));
+        log_.debug(String.format("bootstrap.hierarchy.timeout: %d",
+                                 configuration.getBootstrap().getHierarchyTimeout()));
     }   
     
 
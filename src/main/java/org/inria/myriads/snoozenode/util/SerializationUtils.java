@@ -24,10 +24,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.StringWriter;
-import java.io.Writer;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.inria.myriads.snoozecommon.guard.Guard;
 
 /**
@@ -97,11 +94,6 @@ public final class SerializationUtils
     public static String serializeObjectToJSON(Object data) 
             throws  IOException
     {
-        
-        ObjectMapper mapper = new ObjectMapper();
-        Writer strWriter = new StringWriter();
-        mapper.writeValue(strWriter, data);
-        String json = strWriter.toString();
-        return json;
+        return CodecRegistry.toJson(data);
     }
 }
@@ -0,0 +1,234 @@
+package org.inria.myriads.snoozenode.bootstrap.hierarchy;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
+
+/**
+ *
+ * Test hierarchy snapshot service.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestHierarchySnapshotService extends TestCase
+{
+    /** Number of group managers. */
+    private static final int NUMBER_OF_GROUP_MANAGERS = 4;
+
+    /** Group leader address. */
+    private NetworkAddress groupLeaderAddress_;
+
+    /** Number of group leader queries. */
+    private AtomicInteger numberOfGroupLeaderQueries_;
+
+    /** Group manager query delay (ms). */
+    private volatile long delay_;
+
+    /** Address of the group manager never answering, null for none. */
+    private volatile String hangingAddress_;
+
+    /** Source under test. */
+    private HierarchySource source_;
+
+    /** Service under test. */
+    private HierarchySnapshotService service_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        groupLeaderAddress_ = createAddress("gl");
+        numberOfGroupLeaderQueries_ = new AtomicInteger();
+        source_ = new HierarchySource()
+        {
+            public GroupLeaderRepositoryInformation getGroupLeaderRepositoryInformation(NetworkAddress address,
+                                                                                        int numberOfBacklogEntries)
+            {
+                numberOfGroupLeaderQueries_.incrementAndGet();
+                GroupLeaderRepositoryInformation information = new GroupLeaderRepositoryInformation();
+                ArrayList<GroupManagerDescription> groupManagers = new ArrayList<GroupManagerDescription>();
+                for (int i = 0; i < NUMBER_OF_GROUP_MANAGERS; i++)
+                {
+                    GroupManagerDescription groupManager = new GroupManagerDescription();
+                    groupManager.setId("gm" + i);
+                    groupManager.getListenSettings().setControlDataAddress(createAddress("gm" + i));
+                    groupManagers.add(groupManager);
+                }
+
+                information.setGroupManagerDescriptions(groupManagers);
+                return information;
+            }
+
+            public GroupManagerRepositoryInformation getGroupManagerRepositoryInformations(NetworkAddress address,
+                                                                                           int numberOfBacklogEntries)
+            {
+                try
+                {
+                    Thread.sleep(address.getAddress().equals(hangingAddress_) ? Long.MAX_VALUE : delay_);
+                }
+                catch (InterruptedException exception)
+                {
+                    return null;
+                }
+
+                GroupManagerRepositoryInformation information = new GroupManagerRepositoryInformation();
+                LocalControllerDescription localController = new LocalControllerDescription();
+                localController.setId(address.getAddress() + "-lc");
+                information.getLocalControllerDescriptions().add(localController);
+                return information;
+            }
+        };
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        service_.shutdown();
+    }
+
+    /**
+     * Creates an address.
+     *
+     * @param host      The host
+     * @return          The address
+     */
+    private static NetworkAddress createAddress(String host)
+    {
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress(host);
+        address.setPort(5000);
+        return address;
+    }
+
+    /**
+     * Creates the service.
+     *
+     * @param timeToLive        The time to live (sec)
+     * @param numberOfThreads   The number of threads
+     * @param timeout           The timeout (sec)
+     */
+    private void createService(int timeToLive, int numberOfThreads, int timeout)
+    {
+        BootstrapSettings settings = new BootstrapSettings();
+        settings.setHierarchyCacheTtl(timeToLive);
+        settings.setNumberOfHierarchyThreads(numberOfThreads);
+        settings.setHierarchyTimeout(timeout);
+        service_ = new HierarchySnapshotService(source_, settings);
+    }
+
+    /**
+     * Snapshots are served until invalidated.
+     */
+    public void testCachedSnapshot()
+    {
+        createService(60, NUMBER_OF_GROUP_MANAGERS, 10);
+        GroupLeaderRepositoryInformation hierarchy = service_.getHierarchy(groupLeaderAddress_);
+        assertEquals(NUMBER_OF_GROUP_MANAGERS, hierarchy.getGroupManagerDescriptions().size());
+        for (GroupManagerDescription groupManager : hierarchy.getGroupManagerDescriptions())
+        {
+            assertTrue(groupManager.getLocalControllers().containsKey(groupManager.getId() + "-lc"));
+        }
+
+        assertSame(hierarchy, service_.getHierarchy(groupLeaderAddress_));
+        assertEquals(1, numberOfGroupLeaderQueries_.get());
+
+        service_.invalidate();
+        assertNotSame(hierarchy, service_.getHierarchy(groupLeaderAddress_));
+        assertEquals(2, numberOfGroupLeaderQueries_.get());
+    }
+
+    /**
+     * Without caching every request builds the hierarchy.
+     */
+    public void testNoCaching()
+    {
+        createService(0, 1, 10);
+        service_.getHierarchy(groupLeaderAddress_);
+        service_.getHierarchy(groupLeaderAddress_);
+        assertEquals(2, numberOfGroupLeaderQueries_.get());
+    }
+
+    /**
+     * Concurrent requests share one build, the group managers being queried in parallel.
+     *
+     * @throws Exception    The exception
+     */
+    public void testConcurrentRequests() throws Exception
+    {
+        createService(0, NUMBER_OF_GROUP_MANAGERS, 10);
+        delay_ = 200;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<GroupLeaderRepositoryInformation> hierarchies = new ArrayList<GroupLeaderRepositoryInformation>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++)
+        {
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        return;
+                    }
+
+                    GroupLeaderRepositoryInformation hierarchy = service_.getHierarchy(groupLeaderAddress_);
+                    synchronized (hierarchies)
+                    {
+                        hierarchies.add(hierarchy);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertTrue(System.currentTimeMillis() - startTime < NUMBER_OF_GROUP_MANAGERS * delay_);
+        assertEquals(8, hierarchies.size());
+        assertEquals(1, numberOfGroupLeaderQueries_.get());
+        for (GroupLeaderRepositoryInformation hierarchy : hierarchies)
+        {
+            assertSame(hierarchies.get(0), hierarchy);
+        }
+    }
+
+    /**
+     * A group manager not answering does not block the hierarchy.
+     */
+    public void testGroupManagerTimeout()
+    {
+        createService(60, NUMBER_OF_GROUP_MANAGERS, 1);
+        hangingAddress_ = "gm1";
+        GroupLeaderRepositoryInformation hierarchy = service_.getHierarchy(groupLeaderAddress_);
+        assertEquals(NUMBER_OF_GROUP_MANAGERS, hierarchy.getGroupManagerDescriptions().size());
+        for (GroupManagerDescription groupManager : hierarchy.getGroupManagerDescriptions())
+        {
+            int numberOfLocalControllers = groupManager.getId().equals(hangingAddress_) ? 0 : 1;
+            assertEquals(numberOfLocalControllers, groupManager.getLocalControllers().size());
+        }
+    }
+}
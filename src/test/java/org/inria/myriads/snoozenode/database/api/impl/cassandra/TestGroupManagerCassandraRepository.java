@@ -934,4 +934,69 @@ public class TestGroupManagerCassandraRepository extends TestCase
         assertEquals(0, localControllers.size());
     }
     
+    /**
+     * Monitoring read benchmark.
+     * 
+     * 250 virtual machines with 10 monitoring datas on one local controller.
+     * Fetches 5 monitoring datas per virtual machine once with one slice query per 
+     * virtual machine and once with the chunked multiget.
+     */
+    public void testMonitoringReadBenchmark()
+    {
+        int numberOfVirtualMachines = 250;
+        LocalControllerDescription localControllerDescription = new LocalControllerDescription();
+        localControllerDescription.setId("lc1");
+        localControllerDescription.setStatus(LocalControllerStatus.ACTIVE);
+        repository_.addLocalControllerDescription(localControllerDescription);
+        
+        ArrayList<AggregatedVirtualMachineData> aggregatedDatas = new ArrayList<AggregatedVirtualMachineData>();
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+            virtualMachine.getVirtualMachineLocation().setVirtualMachineId("test-vm" + i);
+            virtualMachine.getVirtualMachineLocation().setGroupManagerId("1234");
+            virtualMachine.getVirtualMachineLocation().setLocalControllerId("lc1");
+            repository_.addVirtualMachine(virtualMachine);
+            
+            ArrayList<VirtualMachineMonitoringData> monitoringDatas = new ArrayList<VirtualMachineMonitoringData>();
+            for (int j = 0; j < 10; j++)
+            {
+                VirtualMachineMonitoringData monitoringData = new VirtualMachineMonitoringData();
+                monitoringData.setTimeStamp(Long.valueOf(j));
+                ArrayList<Double> usedCapacity = new ArrayList<Double>();
+                usedCapacity.add(7d);
+                monitoringData.setUsedCapacity(usedCapacity);
+                monitoringDatas.add(monitoringData);
+            }
+            aggregatedDatas.add(new AggregatedVirtualMachineData("test-vm" + i, monitoringDatas));
+        }
+        repository_.addAggregatedMonitoringData("lc1", aggregatedDatas);
+        
+        ArrayList<VirtualMachineMetaData> virtualMachines = 
+                repository_.getVirtualMachineDescriptionsOnly(null, "lc1", null, -1, 0, true);
+        assertEquals(numberOfVirtualMachines, virtualMachines.size());
+        
+        long startTime = System.currentTimeMillis();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            repository_.fillVirtualMachineMonitoringData(virtualMachine, 5);
+        }
+        long sliceTime = System.currentTimeMillis() - startTime;
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            assertEquals(5, virtualMachine.getUsedCapacity().size());
+            virtualMachine.getUsedCapacity().clear();
+        }
+        
+        startTime = System.currentTimeMillis();
+        repository_.fillVirtualMachineMonitoringData(virtualMachines, 5);
+        long multigetTime = System.currentTimeMillis() - startTime;
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            assertEquals(5, virtualMachine.getUsedCapacity().size());
+        }
+        
+        log_.info(String.format("Monitoring read of %d virtual machines: %d ms (slice per virtual machine), " +
+                                "%d ms (multiget)", numberOfVirtualMachines, sliceTime, multigetTime));
+    }
 }
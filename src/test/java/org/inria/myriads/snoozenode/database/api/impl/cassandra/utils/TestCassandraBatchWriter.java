@@ -0,0 +1,130 @@
+package org.inria.myriads.snoozenode.database.api.impl.cassandra.utils;
+
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.ColumnSlice;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.QueryResult;
+import me.prettyprint.hector.api.query.SliceQuery;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+
+/**
+ *
+ * Test cassandra batch writer.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestCassandraBatchWriter extends TestCase
+{
+    /** Keyspace. */
+    private Keyspace keyspace_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Cluster cluster = HFactory.getOrCreateCluster("Test Cluster", new CassandraHostConfigurator("localhost:9160"));
+        keyspace_ = HFactory.createKeyspace(CassandraUtils.KEYSPACE, cluster);
+        cluster.truncate(CassandraUtils.KEYSPACE, CassandraUtils.VIRTUALMACHINES_MONITORING_CF);
+    }
+
+    /**
+     * Creates a monitoring column.
+     *
+     * @param timeStamp     The time stamp
+     * @param usedCapacity  The used capacity
+     * @return              The column
+     */
+    private HColumn<Long, Object> createColumn(long timeStamp, double usedCapacity)
+    {
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setTimeStamp(timeStamp);
+        ArrayList<Double> capacity = new ArrayList<Double>();
+        capacity.add(usedCapacity);
+        data.setUsedCapacity(capacity);
+        return HFactory.createColumn(timeStamp,
+                                     (Object) data,
+                                     60,
+                                     new LongSerializer(),
+                                     new JsonSerializer(VirtualMachineMonitoringData.class));
+    }
+
+    /**
+     * Reads the monitoring columns of a virtual machine.
+     *
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  The columns
+     */
+    private ColumnSlice<Long, Object> readColumns(String virtualMachineId)
+    {
+        SliceQuery<String, Long, Object> query =
+                HFactory.createSliceQuery(keyspace_,
+                                          StringSerializer.get(),
+                                          LongSerializer.get(),
+                                          new JsonSerializer(VirtualMachineMonitoringData.class))
+                        .setKey(virtualMachineId)
+                        .setColumnFamily(CassandraUtils.VIRTUALMACHINES_MONITORING_CF)
+                        .setRange(null, null, false, 100);
+        QueryResult<ColumnSlice<Long, Object>> result = query.execute();
+        return result.get();
+    }
+
+    /**
+     * Buffered insertions are coalesced and written on flush.
+     */
+    public void testCoalescedFlush()
+    {
+        CassandraBatchWriter writer = new CassandraBatchWriter(keyspace_, 2, 60000, 100);
+        writer.start();
+        assertTrue(writer.addInsertion("vm1", CassandraUtils.VIRTUALMACHINES_MONITORING_CF, createColumn(1, 1.0)));
+        assertTrue(writer.addInsertion("vm1", CassandraUtils.VIRTUALMACHINES_MONITORING_CF, createColumn(1, 2.0)));
+        assertEquals(1, writer.getQueueDepth());
+        assertEquals(1, writer.getNumberOfCoalescedColumns());
+        assertEquals(0, readColumns("vm1").getColumns().size());
+
+        assertTrue(writer.addInsertion("vm2", CassandraUtils.VIRTUALMACHINES_MONITORING_CF, createColumn(1, 3.0)));
+        assertTrue(writer.addInsertion("vm1", CassandraUtils.VIRTUALMACHINES_MONITORING_CF, createColumn(2, 4.0)));
+        writer.terminate(5000);
+        assertFalse(writer.addInsertion("vm1", CassandraUtils.VIRTUALMACHINES_MONITORING_CF, createColumn(3, 5.0)));
+
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(3, writer.getNumberOfWrittenColumns());
+        assertEquals(0, writer.getNumberOfFailedColumns());
+        ColumnSlice<Long, Object> columns = readColumns("vm1");
+        assertEquals(2, columns.getColumns().size());
+        VirtualMachineMonitoringData data = (VirtualMachineMonitoringData) columns.getColumnByName(1L).getValue();
+        assertEquals(2.0, data.getUsedCapacity().get(0));
+        assertEquals(1, readColumns("vm2").getColumns().size());
+    }
+
+    /**
+     * Buffered insertions are written once the flush interval elapsed.
+     *
+     * @throws Exception    The exception
+     */
+    public void testTimedFlush() throws Exception
+    {
+        CassandraBatchWriter writer = new CassandraBatchWriter(keyspace_, 100, 50, 100);
+        writer.start();
+        writer.addInsertion("vm1", CassandraUtils.VIRTUALMACHINES_MONITORING_CF, createColumn(1, 1.0));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getNumberOfFlushes() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, writer.getNumberOfWrittenColumns());
+        assertEquals(1, readColumns("vm1").getColumns().size());
+        writer.terminate(5000);
+    }
+}
@@ -1,13 +1,17 @@
 package org.inria.myriads.snoozenode.database.api.impl.memory;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
 import org.easymock.EasyMock;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
 import org.inria.myriads.snoozecommon.communication.localcontroller.AssignedGroupManager;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
@@ -109,11 +113,8 @@ public class TestGroupLeaderMemoryRepository extends TestCase
     public void testGenerateAddressPoolOneSubnet()
     {
         String[] virtualMachineSubnets = {"192.168.122.0/30"};
-        GroupManagerDescription groupLeader = new GroupManagerDescription();
-
-        GroupLeaderMemoryRepository repository = new GroupLeaderMemoryRepository(groupLeader, virtualMachineSubnets, 0);
-        List<String> ips = repository.generateAddressPool(virtualMachineSubnets);
-        assertEquals(2, ips.size());
+        IpAddressPool pool = new IpAddressPool(virtualMachineSubnets);
+        assertEquals(2, pool.getSize());
     }
     
     /**
@@ -122,10 +123,76 @@ public class TestGroupLeaderMemoryRepository extends TestCase
     public void testGenerateAddressPoolTwoSubnets()
     {
         String[] virtualMachineSubnets = {"192.168.122.0/22", "10.0.0.1/22"};
-        GroupManagerDescription groupLeader = new GroupManagerDescription();
-        GroupLeaderMemoryRepository repository = new GroupLeaderMemoryRepository(groupLeader, virtualMachineSubnets, 0);
-        List<String> ips = repository.generateAddressPool(virtualMachineSubnets);
-        assertEquals(2044, ips.size());
+        IpAddressPool pool = new IpAddressPool(virtualMachineSubnets);
+        assertEquals(2044, pool.getSize());
 
     }
+    
+    /**
+     * Free addresses get handed out once, the first address of the pool never.
+     */
+    public void testIpAddresses()
+    {
+        assertEquals("192.168.122.2", repository_.getFreeIpAddress());
+        assertTrue(repository_.removeIpAddress("192.168.122.2"));
+        assertFalse(repository_.removeIpAddress("192.168.122.2"));
+        assertNull(repository_.getFreeIpAddress());
+        assertTrue(repository_.allocateIpAddresses(2).isEmpty());
+        
+        assertTrue(repository_.addIpAddress("192.168.122.2"));
+        assertFalse(repository_.addIpAddress("192.168.122.2"));
+        assertFalse(repository_.addIpAddress("10.0.0.1"));
+        List<String> ipAddresses = repository_.allocateIpAddresses(2);
+        assertEquals(1, ipAddresses.size());
+        assertEquals("192.168.122.2", ipAddresses.get(0));
+    }
+    
+    /**
+     * Creates a summary.
+     * 
+     * @param localControllerIds    The local controller identifiers
+     * @return                      The summary
+     */
+    private GroupManagerSummaryInformation createSummary(String... localControllerIds)
+    {
+        ArrayList<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        for (String localControllerId : localControllerIds)
+        {
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId(localControllerId);
+            localControllers.add(localController);
+        }
+        
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setLocalControllers(localControllers);
+        return summary;
+    }
+    
+    /**
+     * Full summaries replace the local controllers, deltas update them in place.
+     */
+    public void testSummaryDelta()
+    {
+        GroupManagerDescription gm1 = new GroupManagerDescription();
+        gm1.setId("gm1");
+        repository_.addGroupManagerDescription(gm1);
+        
+        repository_.addGroupManagerSummaryInformation("gm1", createSummary("lc1", "lc2", "lc3"));
+        Map<String, LocalControllerDescription> localControllers = 
+            repository_.getGroupManagerDescription("gm1", 0).getLocalControllers();
+        assertEquals(3, localControllers.size());
+        LocalControllerDescription lc1 = localControllers.get("lc1");
+        
+        repository_.addGroupManagerSummaryDelta("gm1", createSummary("lc2", "lc4"), Arrays.asList("lc3"));
+        assertSame(localControllers, repository_.getGroupManagerDescription("gm1", 0).getLocalControllers());
+        assertEquals(3, localControllers.size());
+        assertSame(lc1, localControllers.get("lc1"));
+        assertTrue(localControllers.containsKey("lc4"));
+        assertFalse(localControllers.containsKey("lc3"));
+        
+        repository_.addGroupManagerSummaryInformation("gm1", createSummary("lc5"));
+        localControllers = repository_.getGroupManagerDescription("gm1", 0).getLocalControllers();
+        assertEquals(1, localControllers.size());
+        assertTrue(localControllers.containsKey("lc5"));
+    }
 }
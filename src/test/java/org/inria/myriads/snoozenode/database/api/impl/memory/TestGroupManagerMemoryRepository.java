@@ -0,0 +1,470 @@
+package org.inria.myriads.snoozenode.database.api.impl.memory;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Test group manager memory repository.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestGroupManagerMemoryRepository extends TestCase
+{
+    /** Number of local controllers. */
+    private static final int NUMBER_OF_LOCAL_CONTROLLERS = 16;
+
+    /** Number of virtual machines per local controller. */
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = 8;
+
+    /** History size. */
+    private static final int MAX_CAPACITY = 10;
+
+    /** Number of monitoring rounds per ingestion thread. */
+    private static final int NUMBER_OF_ROUNDS = 2000;
+
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(TestGroupManagerMemoryRepository.class);
+
+    /** Repository under test.*/
+    private GroupManagerMemoryRepository repository_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        GroupManagerDescription groupManager = new GroupManagerDescription();
+        groupManager.setId("gm1");
+        repository_ = new GroupManagerMemoryRepository(groupManager, MAX_CAPACITY);
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS; i++)
+        {
+            repository_.addLocalControllerDescription(createLocalController("lc" + i));
+        }
+    }
+
+    /**
+     * Creates a local controller hosting virtual machines.
+     *
+     * @param localControllerId     The local controller identifier
+     * @return                      The local controller description
+     */
+    private LocalControllerDescription createLocalController(String localControllerId)
+    {
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId(localControllerId);
+        localController.setStatus(LocalControllerStatus.ACTIVE);
+        for (int i = 0; i < NUMBER_OF_VIRTUAL_MACHINES; i++)
+        {
+            String virtualMachineId = localControllerId + "-vm" + i;
+            VirtualMachineLocation location = new VirtualMachineLocation();
+            location.setVirtualMachineId(virtualMachineId);
+            VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+            virtualMachine.setVirtualMachineLocation(location);
+            virtualMachine.setIpAddress(virtualMachineId);
+            localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+        }
+
+        return localController;
+    }
+
+    /**
+     * Creates one monitoring round of a local controller.
+     *
+     * @param localControllerId     The local controller identifier
+     * @param timeStamp             The time stamp
+     * @return                      The aggregated data
+     */
+    private List<AggregatedVirtualMachineData> createMonitoringData(String localControllerId, long timeStamp)
+    {
+        List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+        for (int i = 0; i < NUMBER_OF_VIRTUAL_MACHINES; i++)
+        {
+            VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+            data.setTimeStamp(timeStamp);
+            data.setUsedCapacity(new ArrayList<Double>(Arrays.asList(1.0, 2.0, 3.0, 4.0)));
+            List<VirtualMachineMonitoringData> dataList = new ArrayList<VirtualMachineMonitoringData>();
+            dataList.add(data);
+            aggregatedData.add(new AggregatedVirtualMachineData(localControllerId + "-vm" + i, dataList));
+        }
+
+        return aggregatedData;
+    }
+
+    /**
+     * Monitoring data shows up in the copies.
+     */
+    public void testAddAggregatedMonitoringData()
+    {
+        for (long timeStamp = 0; timeStamp < 3; timeStamp++)
+        {
+            repository_.addAggregatedMonitoringData("lc0", createMonitoringData("lc0", timeStamp));
+        }
+
+        LocalControllerDescription localController = repository_.getLocalControllerDescription("lc0", 2, true);
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, localController.getVirtualMachineMetaData().size());
+        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+        {
+            assertEquals(2, virtualMachine.getUsedCapacity().size());
+        }
+    }
+
+    /**
+     * Status changes are visible to the snapshots.
+     */
+    public void testChangeLocalControllerStatus()
+    {
+        assertTrue(repository_.changeLocalControllerStatus("lc1", LocalControllerStatus.PASSIVE));
+        assertFalse(repository_.changeLocalControllerStatus("unknown", LocalControllerStatus.PASSIVE));
+
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS - 1,
+                     repository_.getLocalControllerDescriptions(0, true, false).size());
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS, repository_.getLocalControllerDescriptions(0, false, false).size());
+    }
+
+    /**
+     * The group manager description handed over carries the virtual machine history.
+     */
+    public void testFillGroupManagerDescription()
+    {
+        for (long timeStamp = 0; timeStamp < MAX_CAPACITY + 2; timeStamp++)
+        {
+            repository_.addAggregatedMonitoringData("lc0", createMonitoringData("lc0", timeStamp));
+        }
+
+        GroupManagerDescription groupManager = new GroupManagerDescription();
+        repository_.fillGroupManagerDescription(groupManager);
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS, groupManager.getLocalControllers().size());
+
+        LocalControllerDescription localController = groupManager.getLocalControllers().get("lc0");
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, localController.getVirtualMachineMetaData().size());
+        VirtualMachineMetaData virtualMachine = localController.getVirtualMachineMetaData().get("lc0-vm0");
+        assertEquals(MAX_CAPACITY, virtualMachine.getUsedCapacity().size());
+        assertTrue(virtualMachine.getUsedCapacity().containsKey((long) MAX_CAPACITY + 1));
+        assertTrue(groupManager.getLocalControllers().get("lc1").getVirtualMachineMetaData().get("lc1-vm0")
+                               .getUsedCapacity().isEmpty());
+    }
+
+    /**
+     * In place averages follow the virtual machine and local controller lifecycle.
+     */
+    public void testAverageUsedCapacity()
+    {
+        repository_.addAggregatedMonitoringData("lc0", createMonitoringData("lc0", 0));
+        repository_.addAggregatedMonitoringData("lc1", createMonitoringData("lc1", 0));
+
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setLocalControllerId("lc0");
+        location.setVirtualMachineId("lc0-vm0");
+        assertEquals(3.0, repository_.getAverageUsedCapacity(location, 5, 2), 0);
+        assertTrue(Double.isNaN(repository_.getAverageUsedCapacity(location, 5, 4)));
+
+        VirtualMachineLocation otherLocation = new VirtualMachineLocation();
+        otherLocation.setLocalControllerId("lc1");
+        otherLocation.setVirtualMachineId("lc0-vm0");
+        assertTrue(Double.isNaN(repository_.getAverageUsedCapacity(otherLocation, 5, 0)));
+
+        assertTrue(repository_.dropVirtualMachineData(location));
+        assertTrue(Double.isNaN(repository_.getAverageUsedCapacity(location, 5, 0)));
+
+        location.setLocalControllerId("lc1");
+        location.setVirtualMachineId("lc1-vm0");
+        assertEquals(1.0, repository_.getAverageUsedCapacity(location, 5, 0), 0);
+        assertTrue(repository_.dropLocalController("lc1", true));
+        assertTrue(Double.isNaN(repository_.getAverageUsedCapacity(location, 5, 0)));
+    }
+
+    /**
+     * Checks that a local controller snapshot reflects whole monitoring rounds.
+     * Every round adds one entry with the same time stamp to all virtual machines
+     * under the local controller lock, so all histories must end with the same entry.
+     *
+     * @param localController   The local controller snapshot
+     */
+    private static void assertConsistent(LocalControllerDescription localController)
+    {
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, localController.getVirtualMachineMetaData().size());
+        int size = -1;
+        long latestTimeStamp = -1;
+        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+        {
+            Map<Long, VirtualMachineMonitoringData> usedCapacity = virtualMachine.getUsedCapacity();
+            assertTrue(usedCapacity.size() <= MAX_CAPACITY);
+            long timeStamp = usedCapacity.isEmpty() ? -1 : Collections.max(usedCapacity.keySet());
+            if (size == -1)
+            {
+                size = usedCapacity.size();
+                latestTimeStamp = timeStamp;
+                continue;
+            }
+
+            assertEquals(size, usedCapacity.size());
+            assertEquals(latestTimeStamp, timeStamp);
+        }
+    }
+
+    /**
+     * Checks that a local controller holds the complete history of a number of rounds.
+     *
+     * @param localControllerId     The local controller identifier
+     * @param numberOfRounds        The number of ingested rounds
+     */
+    private void assertIngested(String localControllerId, int numberOfRounds)
+    {
+        LocalControllerDescription localController =
+            repository_.getLocalControllerDescription(localControllerId, MAX_CAPACITY, true);
+        assertConsistent(localController);
+        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+        {
+            Map<Long, VirtualMachineMonitoringData> usedCapacity = virtualMachine.getUsedCapacity();
+            assertEquals(Math.min(MAX_CAPACITY, numberOfRounds), usedCapacity.size());
+            assertEquals(numberOfRounds - 1, (long) Collections.max(usedCapacity.keySet()));
+        }
+    }
+
+    /**
+     * Snapshots taken during concurrent ingestion and local controller churn stay consistent.
+     *
+     * @throws Exception    The exception
+     */
+    public void testConcurrentIngestionAndSnapshots() throws Exception
+    {
+        final int numberOfIngestionThreads = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch ingested = new CountDownLatch(numberOfIngestionThreads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numberOfIngestionThreads; i++)
+        {
+            final String localControllerId = "lc" + i;
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    awaitQuietly(start);
+                    for (int round = 0; round < NUMBER_OF_ROUNDS; round++)
+                    {
+                        repository_.addAggregatedMonitoringData(localControllerId,
+                                                                createMonitoringData(localControllerId, round));
+                    }
+                    ingested.countDown();
+                }
+            }));
+        }
+
+        threads.add(new Thread(new Runnable()
+        {
+            public void run()
+            {
+                awaitQuietly(start);
+                int round = 0;
+                while (ingested.getCount() > 0)
+                {
+                    String localControllerId = "churn" + (round++ % 4);
+                    repository_.addLocalControllerDescription(createLocalController(localControllerId));
+                    repository_.dropLocalController(localControllerId, true);
+                }
+            }
+        }));
+
+        threads.add(new Thread(new Runnable()
+        {
+            public void run()
+            {
+                awaitQuietly(start);
+                try
+                {
+                    while (ingested.getCount() > 0)
+                    {
+                        for (LocalControllerDescription localController :
+                             repository_.getLocalControllerDescriptions(MAX_CAPACITY, false, true))
+                        {
+                            assertConsistent(localController);
+                        }
+                    }
+                }
+                catch (Throwable exception)
+                {
+                    failure.set(exception);
+                }
+            }
+        }));
+
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS, repository_.getLocalControllerDescriptions(0, false, false).size());
+        for (int i = 0; i < numberOfIngestionThreads; i++)
+        {
+            assertIngested("lc" + i, NUMBER_OF_ROUNDS);
+        }
+    }
+
+    /**
+     * Contention benchmark: ingestion time with concurrent snapshot readers, once serialized
+     * on a single monitor (the former synchronized repository) and once with the striped locks.
+     * Both runs must leave consistent histories behind.
+     *
+     * @throws Exception    The exception
+     */
+    public void testContentionBenchmark() throws Exception
+    {
+        long coarse = runContentionBenchmark(new Object());
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS / 2; i++)
+        {
+            assertIngested("lc" + i, NUMBER_OF_ROUNDS);
+        }
+
+        setUp();
+        long striped = runContentionBenchmark(null);
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS / 2; i++)
+        {
+            assertIngested("lc" + i, NUMBER_OF_ROUNDS);
+        }
+
+        log_.info(String.format("Group manager repository ingestion of %d rounds: %d ms (single monitor), " +
+                                "%d ms (striped)", NUMBER_OF_ROUNDS, coarse, striped));
+    }
+
+    /**
+     * Runs the ingestion and query workload.
+     *
+     * @param monitor       The monitor serializing every call, null for none
+     * @return              The ingestion time (ms)
+     * @throws Exception    The exception
+     */
+    private long runContentionBenchmark(final Object monitor) throws Exception
+    {
+        final int numberOfIngestionThreads = NUMBER_OF_LOCAL_CONTROLLERS / 2;
+        final int numberOfQueryThreads = 2;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch ingested = new CountDownLatch(numberOfIngestionThreads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numberOfIngestionThreads; i++)
+        {
+            final String localControllerId = "lc" + i;
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    awaitQuietly(start);
+                    for (int round = 0; round < NUMBER_OF_ROUNDS; round++)
+                    {
+                        List<AggregatedVirtualMachineData> data = createMonitoringData(localControllerId, round);
+                        if (monitor == null)
+                        {
+                            repository_.addAggregatedMonitoringData(localControllerId, data);
+                        } else
+                        {
+                            synchronized (monitor)
+                            {
+                                repository_.addAggregatedMonitoringData(localControllerId, data);
+                            }
+                        }
+                    }
+                    ingested.countDown();
+                }
+            }));
+        }
+
+        for (int i = 0; i < numberOfQueryThreads; i++)
+        {
+            final String localControllerId = "lc" + i;
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    awaitQuietly(start);
+                    try
+                    {
+                        while (ingested.getCount() > 0)
+                        {
+                            LocalControllerDescription localController;
+                            if (monitor == null)
+                            {
+                                localController =
+                                    repository_.getLocalControllerDescription(localControllerId, MAX_CAPACITY, true);
+                            } else
+                            {
+                                synchronized (monitor)
+                                {
+                                    localController =
+                                        repository_.getLocalControllerDescription(localControllerId,
+                                                                                  MAX_CAPACITY,
+                                                                                  true);
+                                }
+                            }
+                            assertConsistent(localController);
+                        }
+                    }
+                    catch (Throwable exception)
+                    {
+                        failure.set(exception);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        ingested.await();
+        long ingestionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        return ingestionTime;
+    }
+
+    /**
+     * Waits for the start signal.
+     *
+     * @param start     The start latch
+     */
+    private static void awaitQuietly(CountDownLatch start)
+    {
+        try
+        {
+            start.await();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
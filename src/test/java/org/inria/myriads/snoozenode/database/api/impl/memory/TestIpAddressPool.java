@@ -0,0 +1,83 @@
+package org.inria.myriads.snoozenode.database.api.impl.memory;
+
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test IP address pool.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestIpAddressPool extends TestCase
+{
+    /**
+     * Addresses map across subnets.
+     */
+    public void testTwoSubnets()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"192.168.122.0/29", "", "10.0.1.0/30"});
+        assertEquals(8, pool.getSize());
+        assertEquals(7, pool.getNumberOfFreeAddresses());
+
+        List<String> addresses = pool.allocate(10);
+        assertEquals(7, addresses.size());
+        assertEquals("192.168.122.2", addresses.get(0));
+        assertEquals("192.168.122.6", addresses.get(4));
+        assertEquals("10.0.1.1", addresses.get(5));
+        assertEquals("10.0.1.2", addresses.get(6));
+        assertEquals(0, pool.getNumberOfFreeAddresses());
+        assertEquals(1.0, pool.getOccupancy());
+        assertNull(pool.allocate());
+
+        assertTrue(pool.isFree("192.168.122.1"));
+        assertFalse(pool.isFree("10.0.1.3"));
+        assertFalse(pool.release("10.0.1.3"));
+        assertFalse(pool.release("not-an-address"));
+    }
+
+    /**
+     * Released addresses are handed out again once the cursor wraps around.
+     */
+    public void testCursorWrapsAround()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"10.0.0.0/29"});
+        assertEquals("10.0.0.2", pool.allocate());
+        assertEquals("10.0.0.3", pool.allocate());
+        assertTrue(pool.release("10.0.0.2"));
+        assertFalse(pool.release("10.0.0.2"));
+
+        assertEquals("10.0.0.4", pool.peek());
+        assertTrue(pool.reserve("10.0.0.4"));
+        assertFalse(pool.reserve("10.0.0.4"));
+        assertEquals(2, pool.allocate(2).size());
+        assertEquals("10.0.0.2", pool.allocate());
+        assertNull(pool.peek());
+    }
+
+    /**
+     * A /16 keeps allocating and releasing distinct addresses.
+     */
+    public void testLargeSubnet()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"10.1.0.0/16"});
+        assertEquals(65534, pool.getSize());
+
+        Set<String> addresses = new HashSet<String>(pool.allocate(65533));
+        assertEquals(65533, addresses.size());
+        assertTrue(addresses.contains("10.1.255.254"));
+        assertEquals(0, pool.getNumberOfFreeAddresses());
+
+        for (String address : addresses)
+        {
+            assertTrue(pool.release(address));
+        }
+
+        assertEquals(0.0, pool.getOccupancy());
+    }
+}
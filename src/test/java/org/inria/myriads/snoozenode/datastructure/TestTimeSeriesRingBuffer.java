@@ -0,0 +1,179 @@
+package org.inria.myriads.snoozenode.datastructure;
+
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * Test time series ring buffer.
+ * 
+ * @author Eugen Feller
+ *
+ */
+public class TestTimeSeriesRingBuffer extends TestCase
+{
+    /** Buffer under test.*/
+    private TimeSeriesRingBuffer buffer_;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        buffer_ = new TimeSeriesRingBuffer(3);
+    }
+    
+    /**
+     * Less entries than capacity.
+     * -> oldest first
+     */
+    public void testAddBelowCapacity()
+    {
+        buffer_.add(10L, Arrays.asList(1.0, 2.0));
+        buffer_.add(20L, Arrays.asList(3.0, 4.0));
+        
+        assertEquals(2, buffer_.size());
+        assertEquals(2, buffer_.getDimension());
+        assertEquals(10L, buffer_.getTimeStamp(0));
+        assertEquals(4.0, buffer_.getValue(1, 1), 0);
+    }
+    
+    /**
+     * More entries than capacity.
+     * -> oldest entries overwritten
+     */
+    public void testAddWrapsAround()
+    {
+        for (int i = 1; i <= 5; i++)
+        {
+            buffer_.add(i * 10L, Arrays.asList((double) i));
+        }
+        
+        assertEquals(3, buffer_.size());
+        assertEquals(30L, buffer_.getTimeStamp(0));
+        assertEquals(50L, buffer_.getTimeStamp(2));
+        assertEquals(5.0, buffer_.getValue(2, 0), 0);
+        assertEquals(1, buffer_.getWindowStart(2));
+        assertEquals(0, buffer_.getWindowStart(10));
+    }
+    
+    /**
+     * Same time stamp as the newest entry.
+     * -> replaced
+     */
+    public void testAddSameTimeStamp()
+    {
+        buffer_.add(10L, Arrays.asList(1.0));
+        buffer_.add(10L, Arrays.asList(2.0));
+        
+        assertEquals(1, buffer_.size());
+        assertEquals(2.0, buffer_.getValue(0, 0), 0);
+    }
+    
+    /**
+     * Zero capacity.
+     * -> nothing stored
+     */
+    public void testZeroCapacity()
+    {
+        TimeSeriesRingBuffer buffer = new TimeSeriesRingBuffer(0);
+        buffer.add(10L, Arrays.asList(1.0));
+        assertEquals(0, buffer.size());
+    }
+    
+    /**
+     * Index outside the buffer.
+     * -> exception
+     */
+    public void testIndexOutOfBounds()
+    {
+        buffer_.add(10L, Arrays.asList(1.0));
+        try
+        {
+            buffer_.getTimeStamp(1);
+            fail();
+        }
+        catch (IndexOutOfBoundsException exception)
+        {
+            assertEquals(1, buffer_.size());
+        }
+    }
+    
+    /**
+     * Running sums across overwrites and replacements.
+     * -> sums of the current entries
+     */
+    public void testRunningSums()
+    {
+        for (int i = 1; i <= 7; i++)
+        {
+            buffer_.add(i * 10L, Arrays.asList((double) i, 2.0 * i));
+        }
+        buffer_.add(70L, Arrays.asList(10.0, 0.0));
+        
+        assertEquals(5.0 + 6.0 + 10.0, buffer_.getSum(0), 1e-9);
+        assertEquals(10.0 + 12.0, buffer_.getSum(1), 1e-9);
+        assertEquals(7.0, buffer_.getAverage(0), 1e-9);
+        
+        buffer_.clear();
+        assertEquals(0.0, buffer_.getSum(0), 0);
+        assertEquals(0.0, buffer_.getAverage(1), 0);
+    }
+    
+    /**
+     * Window averages over the newest entries.
+     * -> average of the window, all entries if the window is larger
+     */
+    public void testWindowAverage()
+    {
+        for (int i = 1; i <= 7; i++)
+        {
+            buffer_.add(i * 10L, Arrays.asList((double) i));
+        }
+        
+        assertEquals(6.5, buffer_.getAverage(0, 2), 1e-9);
+        assertEquals(7.0, buffer_.getAverage(0, 1), 1e-9);
+        assertEquals(6.0, buffer_.getAverage(0, 3), 1e-9);
+        assertEquals(6.0, buffer_.getAverage(0, 100), 1e-9);
+    }
+    
+    /**
+     * Window smaller than the buffer across appends, overwrites and replacements.
+     * -> window sums follow the newest entries
+     */
+    public void testWindowSums()
+    {
+        TimeSeriesRingBuffer buffer = new TimeSeriesRingBuffer(5);
+        int window = 3;
+        for (int i = 1; i <= 12; i++)
+        {
+            buffer.add(i * 10L, Arrays.asList((double) i * i, (double) -i));
+            if (i % 4 == 0)
+            {
+                buffer.add(i * 10L, Arrays.asList((double) i, 0.0));
+            }
+            
+            for (int dimension = 0; dimension < 2; dimension++)
+            {
+                double sum = 0;
+                int windowStart = buffer.getWindowStart(window);
+                for (int index = windowStart; index < buffer.size(); index++)
+                {
+                    sum += buffer.getValue(index, dimension);
+                }
+                
+                double expected = sum / (buffer.size() - windowStart);
+                assertEquals(expected, buffer.getAverage(dimension, window), 1e-9);
+            }
+        }
+        
+        assertEquals((100.0 + 121.0 + 12.0) / 3, buffer.getAverage(0, window), 1e-9);
+        assertEquals(-7.0, buffer.getAverage(1, window), 1e-9);
+        assertEquals((121.0 + 12.0) / 2, buffer.getAverage(0, 2), 1e-9);
+        assertEquals((100.0 + 121.0 + 12.0) / 3, buffer.getAverage(0, window), 1e-9);
+        
+        buffer.clear();
+        buffer.add(130L, Arrays.asList(1.0, 1.0));
+        assertEquals(1.0, buffer.getAverage(0, window), 0);
+    }
+}
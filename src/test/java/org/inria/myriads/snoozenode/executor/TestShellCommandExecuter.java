@@ -0,0 +1,97 @@
+package org.inria.myriads.snoozenode.executor;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test shell command executer.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestShellCommandExecuter extends TestCase
+{
+    /** Executer under test (1 second timeout).*/
+    private ShellCommandExecuter executer_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        executer_ = new ShellCommandExecuter(1);
+    }
+
+    /**
+     * Short commands.
+     * -> return on exit with exit code and output
+     */
+    public void testCompletion()
+    {
+        long start = System.currentTimeMillis();
+        CommandResult result = executer_.executeCommand("echo snooze");
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(result.isSuccessful());
+        assertEquals("snooze", result.getOutput().trim());
+
+        result = executer_.executeCommand("ls /nonexistent-snooze-directory");
+        assertFalse(result.isSuccessful());
+        assertFalse(result.isTimedOut());
+        assertTrue(result.getExitCode() > 0);
+        assertTrue(result.getError().length() > 0);
+
+        result = executer_.executeCommand("nonexistent-snooze-command");
+        assertEquals(CommandResult.UNKNOWN_EXIT_CODE, result.getExitCode());
+        assertFalse(executer_.execute("nonexistent-snooze-command"));
+    }
+
+    /**
+     * Long command.
+     * -> destroyed on timeout
+     */
+    public void testTimeout()
+    {
+        long start = System.currentTimeMillis();
+        CommandResult result = executer_.executeCommand("sleep 30");
+        long duration = System.currentTimeMillis() - start;
+        assertTrue(result.isTimedOut());
+        assertFalse(result.isSuccessful());
+        assertTrue(duration >= 1000 && duration < 5000);
+    }
+
+    /**
+     * Concurrent commands.
+     * -> not serialized
+     *
+     * @throws Exception    The exception
+     */
+    public void testConcurrentCommands() throws Exception
+    {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++)
+        {
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    executer_.execute("sleep 0.5");
+                }
+            }));
+        }
+
+        long start = System.currentTimeMillis();
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+}
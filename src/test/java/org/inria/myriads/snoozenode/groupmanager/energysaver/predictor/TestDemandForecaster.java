@@ -0,0 +1,79 @@
+package org.inria.myriads.snoozenode.groupmanager.energysaver.predictor;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test demand forecaster.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestDemandForecaster extends TestCase
+{
+    /**
+     * Creates a demand sample.
+     *
+     * @param cpu       The cpu demand
+     * @param memory    The memory demand
+     * @return          The demand
+     */
+    private List<Double> createDemand(double cpu, double memory)
+    {
+        return new ArrayList<Double>(Arrays.asList(cpu, memory, 0.0, 0.0));
+    }
+
+    /**
+     * Without samples.
+     * -> no demand
+     */
+    public void testNoSamples()
+    {
+        DemandForecaster forecaster = new DemandForecaster(5);
+        assertEquals(createDemand(0, 0), forecaster.predict(10));
+    }
+
+    /**
+     * Increasing demand.
+     * -> trend extrapolated, history bounded
+     */
+    public void testIncreasingDemand()
+    {
+        DemandForecaster forecaster = new DemandForecaster(3);
+        forecaster.addSample(createDemand(100, 50));
+        for (int i = 0; i < 3; i++)
+        {
+            forecaster.addSample(createDemand(i, 10 * i));
+        }
+
+        assertEquals(3, forecaster.getNumberOfSamples());
+        List<Double> forecast = forecaster.predict(2);
+        assertEquals(4.0, forecast.get(0), 1e-9);
+        assertEquals(40.0, forecast.get(1), 1e-9);
+
+        List<Double> required = forecaster.getRequiredCapacity(2, 0.5);
+        assertEquals(6.0, required.get(0), 1e-9);
+        assertEquals(60.0, required.get(1), 1e-9);
+    }
+
+    /**
+     * Decreasing demand.
+     * -> never below the latest sample
+     */
+    public void testDecreasingDemand()
+    {
+        DemandForecaster forecaster = new DemandForecaster(10);
+        forecaster.addSample(createDemand(8, 4));
+        forecaster.addSample(createDemand(6, 4));
+        forecaster.addSample(createDemand(4, 4));
+
+        List<Double> forecast = forecaster.predict(5);
+        assertEquals(4.0, forecast.get(0), 1e-9);
+        assertEquals(4.0, forecast.get(1), 1e-9);
+    }
+}
@@ -0,0 +1,82 @@
+package org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup;
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test wakeup tracker.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestWakeupTracker extends TestCase
+{
+    /** Tracker under test (500 ms deadline).*/
+    private WakeupTracker tracker_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        tracker_ = new WakeupTracker(500);
+    }
+
+    /**
+     * Local controller back before the deadline.
+     * -> waiters return as soon as it is back
+     *
+     * @throws Exception    The exception
+     */
+    public void testReady() throws Exception
+    {
+        tracker_.register("lc1");
+        tracker_.register("lc2");
+        final AtomicBoolean isReady = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    isReady.set(tracker_.await(Arrays.asList("lc1", "lc2")));
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        thread.start();
+        tracker_.onLocalControllerReady("lc1");
+        tracker_.onLocalControllerReady("lc2");
+        thread.join();
+        assertTrue(isReady.get());
+        assertTrue(System.currentTimeMillis() - start < 500);
+        assertFalse(tracker_.isPending("lc1"));
+        assertTrue(tracker_.await(Arrays.asList("lc1")));
+    }
+
+    /**
+     * Local controller not back.
+     * -> fails once the deadline expires
+     *
+     * @throws Exception    The exception
+     */
+    public void testDeadline() throws Exception
+    {
+        tracker_.register("lc1");
+        long start = System.currentTimeMillis();
+        assertFalse(tracker_.await(Arrays.asList("lc1")));
+        assertTrue(System.currentTimeMillis() - start >= 450);
+        assertFalse(tracker_.isPending("lc1"));
+
+        tracker_.register("lc2");
+        tracker_.cancel("lc2");
+        assertTrue(tracker_.await(Arrays.asList("lc2")));
+    }
+}
@@ -0,0 +1,121 @@
+package org.inria.myriads.snoozenode.groupmanager.estimator;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+
+/**
+ * 
+ * Test estimate cache.
+ * 
+ * @author Eugen Feller
+ *
+ */
+public class TestEstimateCache extends TestCase
+{
+    /** Cache under test.*/
+    private EstimateCache cache_;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        EstimatorSettings settings = new EstimatorSettings();
+        settings.setStatic(true);
+        settings.setSortNorm(SortNorm.L1);
+        settings.setNumberOfMonitoringEntries(10);
+        settings.getPolicy().setCPU(Estimator.average);
+        settings.getPolicy().setMemory(Estimator.average);
+        settings.getPolicy().setNetwork(Estimator.average);
+        
+        List<Double> thresholds = Arrays.asList(0.0, 0.5, 1.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+        
+        ResourceDemandEstimator estimator = 
+            new ResourceDemandEstimator(settings, 
+                                        new MonitoringThresholds(thresholds, thresholds, thresholds), 
+                                        packingDensity);
+        cache_ = new EstimateCache(estimator);
+    }
+    
+    /**
+     * Creates a virtual machine.
+     * 
+     * @param id    The virtual machine identifier
+     * @param cpu   The requested cpu
+     * @return      The virtual machine
+     */
+    private VirtualMachineMetaData createVirtualMachine(String id, double cpu)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(id);
+        location.setLocalControllerId("lc0");
+        virtualMachine.setVirtualMachineLocation(location);
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(cpu, 1.0, 1.0, 1.0)));
+        return virtualMachine;
+    }
+    
+    /**
+     * Creates a local controller.
+     * 
+     * @param id    The local controller identifier
+     * @return      The local controller
+     */
+    private LocalControllerDescription createLocalController(String id)
+    {
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId(id);
+        localController.setTotalCapacity(new ArrayList<Double>(Arrays.asList(4.0, 100.0, 100.0, 100.0)));
+        return localController;
+    }
+    
+    /**
+     * Assign and unassign.
+     * -> capacity follows the tentative assignments
+     */
+    public void testAssignUnassign()
+    {
+        LocalControllerDescription localController = createLocalController("lc1");
+        VirtualMachineMetaData virtualMachine1 = createVirtualMachine("vm1", 1.0);
+        VirtualMachineMetaData virtualMachine2 = createVirtualMachine("vm2", 0.5);
+        
+        cache_.assign(virtualMachine1, localController);
+        cache_.assign(virtualMachine2, localController);
+        assertEquals(1.5, cache_.computeLocalControllerCapacity(localController).get(0), 1e-9);
+        assertEquals(2, localController.getVirtualMachineMetaData().size());
+        
+        cache_.unassign(virtualMachine1, localController);
+        assertEquals(0.5, cache_.computeLocalControllerCapacity(localController).get(0), 1e-9);
+        assertEquals(1, localController.getVirtualMachineMetaData().size());
+    }
+    
+    /**
+     * Enough capacity until the mid threshold is reached.
+     * -> true, then false
+     */
+    public void testHasEnoughLocalControllerCapacity()
+    {
+        LocalControllerDescription localController = createLocalController("lc1");
+        VirtualMachineMetaData virtualMachine1 = createVirtualMachine("vm1", 1.5);
+        VirtualMachineMetaData virtualMachine2 = createVirtualMachine("vm2", 1.0);
+        
+        assertTrue(cache_.hasEnoughLocalControllerCapacity(virtualMachine1, localController));
+        cache_.assign(virtualMachine1, localController);
+        assertFalse(cache_.hasEnoughLocalControllerCapacity(virtualMachine2, localController));
+    }
+}
@@ -0,0 +1,90 @@
+package org.inria.myriads.snoozenode.groupmanager.estimator;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+
+/**
+ *
+ * Test migration cost estimator.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestMigrationCostEstimator extends TestCase
+{
+    /** Estimator under test.*/
+    private MigrationCostEstimator estimator_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        estimator_ = new MigrationCostEstimator(1000, 0.5);
+    }
+
+    /**
+     * Creates a virtual machine.
+     *
+     * @param virtualMachineId  The virtual machine identifier
+     * @param cpu               The requested cpu
+     * @param memory            The requested memory
+     * @return                  The virtual machine
+     */
+    private VirtualMachineMetaData createVirtualMachine(String virtualMachineId, double cpu, double memory)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.getVirtualMachineLocation().setVirtualMachineId(virtualMachineId);
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(cpu, memory, 0.0, 0.0)));
+        return virtualMachine;
+    }
+
+    /**
+     * Creates a demand.
+     *
+     * @param cpu       The cpu demand
+     * @param memory    The memory demand
+     * @return          The demand
+     */
+    private List<Double> createDemand(double cpu, double memory)
+    {
+        return new ArrayList<Double>(Arrays.asList(cpu, memory, 0.0, 0.0));
+    }
+
+    /**
+     * Idle and busy virtual machines.
+     * -> busy ones transfer more memory, idle ones only the memory in use
+     */
+    public void testTransferredMemory()
+    {
+        VirtualMachineMetaData virtualMachine = createVirtualMachine("vm1", 2, 4000);
+        assertEquals(2000.0, estimator_.estimateTransferredMemory(virtualMachine, createDemand(0, 2000)), 1e-9);
+        assertEquals(4000.0, estimator_.estimateTransferredMemory(virtualMachine, createDemand(0, 0)), 1e-9);
+
+        double busy = estimator_.estimateTransferredMemory(virtualMachine, createDemand(2, 2000));
+        assertEquals(2000 * (1 - Math.pow(0.5, 5)) / 0.5, busy, 1e-9);
+        assertEquals(busy / 1000, estimator_.estimateMigrationTime(virtualMachine, createDemand(2, 2000)), 1e-9);
+    }
+
+    /**
+     * Observed migrations.
+     * -> bandwidth refined, observed duration accounted for
+     */
+    public void testObservedMigration()
+    {
+        VirtualMachineMetaData virtualMachine = createVirtualMachine("vm1", 2, 4000);
+        assertEquals(2.0, estimator_.estimateMigrationTime(virtualMachine, createDemand(0, 2000)), 1e-9);
+
+        estimator_.onMigrationFinished("vm1", 4000);
+        assertEquals(0.7 * 1000 + 0.3 * 500, estimator_.getBandwidth(), 1e-9);
+        assertEquals((2000 / 850.0 + 4) / 2, estimator_.estimateMigrationTime(virtualMachine, createDemand(0, 2000)), 
+                     1e-9);
+
+        estimator_.onMigrationFinished("unknown", 1000);
+        assertEquals(850.0, estimator_.getBandwidth(), 1e-9);
+    }
+}
@@ -0,0 +1,168 @@
+package org.inria.myriads.snoozenode.groupmanager.estimator;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.database.api.impl.memory.GroupManagerMemoryRepository;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+
+/**
+ *
+ * Test resource demand estimator.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestResourceDemandEstimator extends TestCase
+{
+    /** Number of monitoring entries. */
+    private static final int NUMBER_OF_MONITORING_ENTRIES = 3;
+
+    /** Repository. */
+    private GroupManagerMemoryRepository repository_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        GroupManagerDescription groupManager = new GroupManagerDescription();
+        groupManager.setId("gm1");
+        repository_ = new GroupManagerMemoryRepository(groupManager, 10);
+
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId("lc0");
+        localController.setStatus(LocalControllerStatus.ACTIVE);
+        for (int i = 0; i < 2; i++)
+        {
+            VirtualMachineLocation location = new VirtualMachineLocation();
+            location.setVirtualMachineId("vm" + i);
+            VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+            virtualMachine.setVirtualMachineLocation(location);
+            virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(8.0, 8.0, 8.0, 8.0)));
+            localController.getVirtualMachineMetaData().put(location.getVirtualMachineId(), virtualMachine);
+        }
+        repository_.addLocalControllerDescription(localController);
+
+        for (long timeStamp = 0; timeStamp < 5; timeStamp++)
+        {
+            List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+            for (int i = 0; i < 2; i++)
+            {
+                double value = timeStamp + i;
+                VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+                data.setTimeStamp(timeStamp);
+                data.setUsedCapacity(new ArrayList<Double>(Arrays.asList(value, 2 * value, 3 * value, 4 * value)));
+                List<VirtualMachineMonitoringData> dataList = new ArrayList<VirtualMachineMonitoringData>();
+                dataList.add(data);
+                aggregatedData.add(new AggregatedVirtualMachineData("vm" + i, dataList));
+            }
+            repository_.addAggregatedMonitoringData("lc0", aggregatedData);
+        }
+    }
+
+    /**
+     * Creates an estimator.
+     *
+     * @param policy        The estimator policy
+     * @param isRepository  true if the repository is passed
+     * @return              The estimator
+     */
+    private ResourceDemandEstimator createEstimator(Estimator policy, boolean isRepository)
+    {
+        EstimatorSettings settings = new EstimatorSettings();
+        settings.setSortNorm(SortNorm.L1);
+        settings.setNumberOfMonitoringEntries(NUMBER_OF_MONITORING_ENTRIES);
+        settings.getPolicy().setCPU(policy);
+        settings.getPolicy().setMemory(policy);
+        settings.getPolicy().setNetwork(policy);
+
+        List<Double> thresholds = Arrays.asList(0.0, 0.5, 1.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+
+        return new ResourceDemandEstimator(settings,
+                                           new MonitoringThresholds(thresholds, thresholds, thresholds),
+                                           packingDensity,
+                                           isRepository ? repository_ : null);
+    }
+
+    /**
+     * Returns the estimated local controller capacity.
+     *
+     * @param estimator     The estimator
+     * @return              The capacity
+     */
+    private List<Double> estimate(ResourceDemandEstimator estimator)
+    {
+        int numberOfMonitoringEntries = estimator.getNumberOfCopiedMonitoringEntries();
+        LocalControllerDescription localController =
+            repository_.getLocalControllerDescription("lc0", numberOfMonitoringEntries, true);
+        return estimator.computeLocalControllerCapacity(localController);
+    }
+
+    /**
+     * Running estimators read the history in place.
+     * -> no copies, same estimate as the average over the copies
+     */
+    public void testRunningInPlace()
+    {
+        ResourceDemandEstimator average = createEstimator(Estimator.average, true);
+        ResourceDemandEstimator running = createEstimator(Estimator.running, true);
+        assertEquals(NUMBER_OF_MONITORING_ENTRIES, average.getNumberOfCopiedMonitoringEntries());
+        assertEquals(0, running.getNumberOfCopiedMonitoringEntries());
+
+        // Window of the last 3 entries: (2 + 3 + 4) / 3 + (3 + 4 + 5) / 3
+        List<Double> expected = Arrays.asList(7.0, 14.0, 21.0, 28.0);
+        assertEquals(expected, estimate(average));
+        assertEquals(expected, estimate(running));
+    }
+
+    /**
+     * Running estimators without a repository.
+     * -> average over the copies
+     */
+    public void testRunningWithoutRepository()
+    {
+        ResourceDemandEstimator running = createEstimator(Estimator.running, false);
+        assertEquals(NUMBER_OF_MONITORING_ENTRIES, running.getNumberOfCopiedMonitoringEntries());
+        assertEquals(Arrays.asList(7.0, 14.0, 21.0, 28.0), estimate(running));
+    }
+
+    /**
+     * Virtual machines without monitoring data.
+     * -> requested capacity
+     */
+    public void testNoMonitoringData()
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId("vm2");
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.setVirtualMachineLocation(location);
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(8.0, 8.0, 8.0, 8.0)));
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId("lc1");
+        localController.setStatus(LocalControllerStatus.ACTIVE);
+        localController.getVirtualMachineMetaData().put("vm2", virtualMachine);
+        repository_.addLocalControllerDescription(localController);
+
+        ResourceDemandEstimator running = createEstimator(Estimator.running, true);
+        localController = repository_.getLocalControllerDescription("lc1", 0, true);
+        assertEquals(Arrays.asList(8.0, 8.0, 8.0, 8.0), running.computeLocalControllerCapacity(localController));
+    }
+}
@@ -0,0 +1,111 @@
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationSchedulerListener;
+
+/**
+ *
+ * Test migration scheduler.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestMigrationScheduler extends TestCase
+{
+    /** Started migrations. */
+    private List<MigrationRequest> started_;
+
+    /** Listener recording the started migrations. */
+    private MigrationSchedulerListener listener_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        started_ = new ArrayList<MigrationRequest>();
+        listener_ = new MigrationSchedulerListener()
+        {
+            public void onMigrationScheduled(MigrationRequest migrationRequest)
+            {
+                started_.add(migrationRequest);
+            }
+        };
+    }
+
+    /**
+     * Creates a migration request.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @param sourceId              The source local controller identifier
+     * @param destinationId         The destination local controller identifier
+     * @return                      The migration request
+     */
+    private MigrationRequest createMigrationRequest(String virtualMachineId, String sourceId, String destinationId)
+    {
+        VirtualMachineLocation source = new VirtualMachineLocation();
+        source.setVirtualMachineId(virtualMachineId);
+        source.setLocalControllerId(sourceId);
+        VirtualMachineLocation destination = new VirtualMachineLocation();
+        destination.setLocalControllerId(destinationId);
+        MigrationRequest migrationRequest = new MigrationRequest();
+        migrationRequest.setSourceVirtualMachineLocation(source);
+        migrationRequest.setDestinationVirtualMachineLocation(destination);
+        return migrationRequest;
+    }
+
+    /**
+     * Migrations over a saturated host wait, others pass.
+     */
+    public void testPerHostLimit()
+    {
+        MigrationScheduler scheduler = new MigrationScheduler(0, 1, null);
+        MigrationRequest first = createMigrationRequest("vm1", "lc1", "lc2");
+        MigrationRequest second = createMigrationRequest("vm2", "lc1", "lc3");
+        MigrationRequest third = createMigrationRequest("vm3", "lc4", "lc5");
+        scheduler.submit(first, listener_);
+        scheduler.submit(second, listener_);
+        scheduler.submit(third, listener_);
+
+        assertEquals(2, started_.size());
+        assertSame(third, started_.get(1));
+        assertEquals(1, scheduler.getNumberOfPendingMigrations());
+
+        assertTrue(scheduler.onMigrationEnded(first));
+        assertFalse(scheduler.onMigrationEnded(first));
+        assertSame(second, started_.get(2));
+        assertEquals(0, scheduler.getNumberOfPendingMigrations());
+    }
+
+    /**
+     * Global limit.
+     * -> next migration starts as soon as one finishes
+     */
+    public void testGlobalLimit()
+    {
+        MigrationScheduler scheduler = new MigrationScheduler(2, 0, null);
+        List<MigrationRequest> migrations = new ArrayList<MigrationRequest>();
+        for (int i = 0; i < 5; i++)
+        {
+            MigrationRequest migrationRequest = createMigrationRequest("vm" + i, "lc1", "lc2");
+            migrations.add(migrationRequest);
+            scheduler.submit(migrationRequest, listener_);
+        }
+
+        assertEquals(2, started_.size());
+        assertEquals(2, scheduler.getNumberOfRunningMigrations());
+        for (int i = 0; i < migrations.size(); i++)
+        {
+            assertTrue(scheduler.onMigrationEnded(migrations.get(i)));
+            assertEquals(Math.min(migrations.size(), i + 3), started_.size());
+        }
+
+        assertEquals(migrations, started_);
+        assertEquals(0, scheduler.getNumberOfRunningMigrations());
+    }
+}
@@ -0,0 +1,155 @@
+package org.inria.myriads.snoozenode.groupmanager.monitoring.consumer;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.producer.GroupManagerSummaryEncoder;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
+
+/**
+ *
+ * Test group manager summary decoder.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestGroupManagerSummaryDecoder extends TestCase
+{
+    /** Full snapshot interval. */
+    private static final int FULL_SNAPSHOT_INTERVAL = 4;
+
+    /** Group leader heartbeat message. */
+    private HeartbeatMessage heartbeatMessage_;
+
+    /** Encoder under test.*/
+    private GroupManagerSummaryEncoder encoder_;
+
+    /** Decoder under test.*/
+    private GroupManagerSummaryDecoder decoder_;
+
+    /** Local controllers of the group manager. */
+    private ArrayList<LocalControllerDescription> localControllers_;
+
+    /** Local controller versions. */
+    private Map<String, Long> versions_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        heartbeatMessage_ = new HeartbeatMessage();
+        encoder_ = new GroupManagerSummaryEncoder(FULL_SNAPSHOT_INTERVAL);
+        decoder_ = new GroupManagerSummaryDecoder(heartbeatMessage_);
+        localControllers_ = new ArrayList<LocalControllerDescription>();
+        versions_ = new HashMap<String, Long>();
+        for (int i = 0; i < 8; i++)
+        {
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId("lc" + i);
+            localController.setStatus(LocalControllerStatus.ACTIVE);
+            localControllers_.add(localController);
+            versions_.put(localController.getId(), 1L);
+        }
+    }
+
+    /**
+     * Encodes the current local controllers.
+     *
+     * @return  The data transporter
+     */
+    private GroupManagerDataTransporter encode()
+    {
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setLocalControllers(new ArrayList<LocalControllerDescription>(localControllers_));
+        return encoder_.encode("gm1", summary, new HashMap<String, Long>(versions_));
+    }
+
+    /**
+     * Deltas only carry the changed and removed local controllers.
+     */
+    public void testDeltaRoundTrip()
+    {
+        GroupManagerDataTransporter data = encode();
+        assertFalse(data.isDelta());
+        assertEquals(8, data.getSummary().getLocalControllers().size());
+        assertTrue(decoder_.decode(data));
+
+        data = encode();
+        assertTrue(data.isDelta());
+        assertEquals(0, data.getSummary().getLocalControllers().size());
+        assertEquals(0, data.getRemovedLocalControllers().size());
+        assertTrue(decoder_.decode(data));
+
+        localControllers_.get(0).setStatus(LocalControllerStatus.PASSIVE);
+        versions_.put("lc0", 2L);
+        localControllers_.remove(7);
+        versions_.remove("lc7");
+        data = encode();
+        assertTrue(data.isDelta());
+        assertEquals(1, data.getSummary().getLocalControllers().size());
+        assertEquals("lc0", data.getSummary().getLocalControllers().get(0).getId());
+        assertEquals(Arrays.asList("lc7"), data.getRemovedLocalControllers());
+        assertTrue(decoder_.decode(data));
+
+        assertTrue(decoder_.decode(encode()));
+        data = encode();
+        assertFalse(data.isDelta());
+        assertEquals(FULL_SNAPSHOT_INTERVAL, data.getSequenceNumber());
+        assertEquals(7, data.getSummary().getLocalControllers().size());
+        assertTrue(decoder_.decode(data));
+    }
+
+    /**
+     * Local controllers without version are always sent.
+     */
+    public void testUntrackedLocalControllers()
+    {
+        assertTrue(decoder_.decode(encode()));
+        versions_.remove("lc3");
+        GroupManagerDataTransporter data = encode();
+        assertTrue(data.isDelta());
+        assertEquals(1, data.getSummary().getLocalControllers().size());
+        assertEquals("lc3", data.getSummary().getLocalControllers().get(0).getId());
+    }
+
+    /**
+     * A sequence gap drops the delta and requests a full summary.
+     */
+    public void testSequenceGap()
+    {
+        assertTrue(decoder_.decode(encode()));
+        encode();
+        assertFalse(decoder_.decode(encode()));
+        assertTrue(heartbeatMessage_.getResyncRequests().contains("gm1"));
+
+        encoder_.requestResync();
+        GroupManagerDataTransporter data = encode();
+        assertFalse(data.isDelta());
+        assertEquals(8, data.getSummary().getLocalControllers().size());
+        assertTrue(decoder_.decode(data));
+        assertNull(heartbeatMessage_.getResyncRequests());
+        assertTrue(decoder_.decode(encode()));
+    }
+
+    /**
+     * Deltas of unknown group managers are dropped.
+     */
+    public void testUnknownGroupManager()
+    {
+        assertTrue(decoder_.decode(encode()));
+        decoder_.dropGroupManager("gm1");
+        assertFalse(decoder_.decode(encode()));
+        assertEquals(1, heartbeatMessage_.getResyncRequests().size());
+
+        decoder_.dropGroupManager("gm1");
+        assertNull(heartbeatMessage_.getResyncRequests());
+    }
+}
@@ -0,0 +1,196 @@
+package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.database.api.impl.memory.GroupManagerMemoryRepository;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.GroupManagerSummaryDecoder;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineLocationIndex;
+import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
+
+/**
+ *
+ * Test group manager summary producer.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestGroupManagerSummaryProducer extends TestCase
+{
+    /** Full snapshot interval. */
+    private static final int FULL_SNAPSHOT_INTERVAL = 4;
+
+    /** Repository. */
+    private GroupManagerMemoryRepository repository_;
+
+    /** Producer under test. */
+    private GroupManagerSummaryProducer producer_;
+
+    /** Group leader side decoder. */
+    private GroupManagerSummaryDecoder decoder_;
+
+    /** Group leader side index. */
+    private VirtualMachineLocationIndex index_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        GroupManagerDescription groupManager = new GroupManagerDescription();
+        groupManager.setId("gm1");
+        repository_ = new GroupManagerMemoryRepository(groupManager, 10);
+
+        EstimatorSettings settings = new EstimatorSettings();
+        settings.setSortNorm(SortNorm.L1);
+        settings.getPolicy().setCPU(Estimator.average);
+        settings.getPolicy().setMemory(Estimator.average);
+        settings.getPolicy().setNetwork(Estimator.average);
+        List<Double> thresholds = Arrays.asList(0.0, 0.5, 1.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+        ResourceDemandEstimator estimator =
+            new ResourceDemandEstimator(settings,
+                                        new MonitoringThresholds(thresholds, thresholds, thresholds),
+                                        packingDensity);
+
+        producer_ = new GroupManagerSummaryProducer(repository_,
+                                                    new NetworkAddress(),
+                                                    estimator,
+                                                    new MonitoringSettings(),
+                                                    null,
+                                                    new LinkedBlockingQueue<GroupManagerDataTransporter>(),
+                                                    FULL_SNAPSHOT_INTERVAL);
+        decoder_ = new GroupManagerSummaryDecoder(new HeartbeatMessage());
+        index_ = new VirtualMachineLocationIndex();
+
+        for (String localControllerId : Arrays.asList("lc1", "lc2"))
+        {
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId(localControllerId);
+            localController.setStatus(LocalControllerStatus.ACTIVE);
+            localController.setTotalCapacity(new ArrayList<Double>(Arrays.asList(8.0, 8.0, 8.0, 8.0)));
+            repository_.addLocalControllerDescription(localController);
+        }
+    }
+
+    /**
+     * Creates a virtual machine location.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @param localControllerId     The local controller identifier
+     * @return                      The location
+     */
+    private static VirtualMachineLocation createLocation(String virtualMachineId, String localControllerId)
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(virtualMachineId);
+        location.setLocalControllerId(localControllerId);
+        location.setLocalControllerControlDataAddress(new NetworkAddress());
+        location.setGroupManagerControlDataAddress(new NetworkAddress());
+        return location;
+    }
+
+    /**
+     * Adds a virtual machine to the repository.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @param localControllerId     The local controller identifier
+     */
+    private void addVirtualMachine(String virtualMachineId, String localControllerId)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.setVirtualMachineLocation(createLocation(virtualMachineId, localControllerId));
+        virtualMachine.setIpAddress("10.0.0." + virtualMachineId.substring(2));
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(1.0, 1.0, 1.0, 1.0)));
+        assertTrue(repository_.addVirtualMachine(virtualMachine));
+    }
+
+    /**
+     * Produces a summary and applies it as the group leader does.
+     *
+     * @return  The data transporter
+     */
+    private GroupManagerDataTransporter produce()
+    {
+        GroupManagerDataTransporter dataTransporter = producer_.createDataTransporter();
+        assertTrue(decoder_.decode(dataTransporter));
+        index_.onGroupManagerSummary(dataTransporter.getId(),
+                                     dataTransporter.getSummary(),
+                                     dataTransporter.getRemovedLocalControllers());
+        return dataTransporter;
+    }
+
+    /**
+     * Returns the indexed local controller of a virtual machine.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The local controller identifier (null if not indexed)
+     */
+    private String getIndexedLocalController(String virtualMachineId)
+    {
+        VirtualMachineLocation location = index_.getVirtualMachineLocation(virtualMachineId);
+        return location == null ? null : location.getLocalControllerId();
+    }
+
+    /**
+     * Virtual machines started, moved and dropped on the group manager.
+     * -> indexed from full and delta summaries
+     */
+    public void testSummariesFeedLocationIndex()
+    {
+        addVirtualMachine("vm1", "lc1");
+        addVirtualMachine("vm2", "lc2");
+        GroupManagerDataTransporter dataTransporter = produce();
+        assertFalse(dataTransporter.isDelta());
+        assertEquals("lc1", getIndexedLocalController("vm1"));
+        assertEquals("lc2", getIndexedLocalController("vm2"));
+        assertEquals("gm1", index_.getVirtualMachineLocation("vm1").getGroupManagerId());
+
+        dataTransporter = produce();
+        assertTrue(dataTransporter.isDelta());
+        assertEquals(0, dataTransporter.getSummary().getLocalControllers().size());
+        assertEquals(2, index_.getNumberOfVirtualMachines());
+
+        assertTrue(repository_.updateVirtualMachineLocation(createLocation("vm1", "lc1"),
+                                                            createLocation("vm1", "lc2")));
+        addVirtualMachine("vm3", "lc1");
+        dataTransporter = produce();
+        assertTrue(dataTransporter.isDelta());
+        assertEquals(2, dataTransporter.getSummary().getLocalControllers().size());
+        assertEquals("lc2", getIndexedLocalController("vm1"));
+        assertEquals("lc1", getIndexedLocalController("vm3"));
+
+        assertTrue(repository_.dropVirtualMachineData(createLocation("vm2", "lc2")));
+        dataTransporter = produce();
+        assertTrue(dataTransporter.isDelta());
+        assertEquals(1, dataTransporter.getSummary().getLocalControllers().size());
+        assertNull(getIndexedLocalController("vm2"));
+        assertEquals(2, index_.getNumberOfVirtualMachines());
+
+        assertTrue(repository_.dropLocalController("lc1", true));
+        dataTransporter = produce();
+        assertFalse(dataTransporter.isDelta());
+        assertNull(getIndexedLocalController("vm3"));
+        assertEquals("lc2", getIndexedLocalController("vm1"));
+    }
+}
@@ -0,0 +1,144 @@
+package org.inria.myriads.snoozenode.groupmanager.statemachine.scheduler;
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
+
+/**
+ *
+ * Test operation scheduler.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestOperationScheduler extends TestCase
+{
+    /** Scheduler under test.*/
+    private OperationScheduler scheduler_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        scheduler_ = new OperationScheduler();
+    }
+
+    /**
+     * Creates an operation touching one local controller.
+     *
+     * @param id                    The operation identifier
+     * @param localControllerId     The local controller identifier
+     * @return                      The operation
+     */
+    private Operation createOperation(String id, String localControllerId)
+    {
+        Operation operation = new Operation(id, SystemState.MANAGEMENT, false);
+        operation.addLocalController(localControllerId);
+        return operation;
+    }
+
+    /**
+     * Operations on disjoint local controllers run in parallel.
+     */
+    public void testDisjointOperations()
+    {
+        assertTrue(scheduler_.tryStart(createOperation("op1", "lc1")));
+        assertTrue(scheduler_.tryStart(createOperation("op2", "lc2")));
+        assertEquals(2, scheduler_.getNumberOfRunningOperations());
+        assertTrue(scheduler_.isBusy("lc1"));
+        assertFalse(scheduler_.isBusy("lc3"));
+
+        assertFalse(scheduler_.finish("op1"));
+        assertTrue(scheduler_.finish("op2"));
+        assertFalse(scheduler_.isBusy());
+    }
+
+    /**
+     * Conflicting operations get rejected.
+     */
+    public void testConflictingOperations()
+    {
+        assertTrue(scheduler_.tryStart(createOperation("op1", "lc1")));
+        assertFalse(scheduler_.tryStart(createOperation("op2", "lc1")));
+
+        Operation first = new Operation("op3", SystemState.MANAGEMENT, false);
+        first.addVirtualMachine("vm1");
+        Operation second = new Operation("op4", SystemState.MANAGEMENT, false);
+        second.addVirtualMachine("vm1");
+        assertTrue(scheduler_.tryStart(first));
+        assertFalse(scheduler_.tryStart(second));
+    }
+
+    /**
+     * Exclusive operations conflict with everything.
+     */
+    public void testExclusiveOperation()
+    {
+        assertTrue(scheduler_.tryStart(createOperation("op1", "lc1")));
+        assertFalse(scheduler_.tryStart(new Operation("op2", SystemState.RECONFIGURATION, true)));
+
+        scheduler_.finish("op1");
+        assertTrue(scheduler_.tryStart(new Operation("op2", SystemState.RECONFIGURATION, true)));
+        assertTrue(scheduler_.isBusy("lc2"));
+        assertFalse(scheduler_.tryStart(createOperation("op3", "lc2")));
+    }
+
+    /**
+     * Waiting operations start once the conflicting operation finishes.
+     *
+     * @throws Exception    The exception
+     */
+    public void testWaitingOperation() throws Exception
+    {
+        assertTrue(scheduler_.tryStart(createOperation("op1", "lc1")));
+        assertFalse(scheduler_.start(createOperation("op2", "lc1"), 10));
+        assertEquals(0, scheduler_.getNumberOfWaitingOperations());
+
+        final AtomicBoolean isStarted = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                isStarted.set(scheduler_.start(createOperation("op2", "lc1"), 5000));
+            }
+        });
+        thread.start();
+
+        while (scheduler_.getNumberOfWaitingOperations() == 0)
+        {
+            Thread.sleep(1);
+        }
+
+        assertFalse(scheduler_.tryStart(createOperation("op3", "lc1")));
+        assertTrue(scheduler_.tryStart(createOperation("op4", "lc2")));
+
+        scheduler_.finish("op1");
+        thread.join();
+        assertTrue(isStarted.get());
+        assertTrue(scheduler_.isBusy("lc1"));
+    }
+
+    /**
+     * Running operations reserve local controllers not held by others.
+     *
+     * @throws Exception    The exception
+     */
+    public void testReserve() throws Exception
+    {
+        assertTrue(scheduler_.tryStart(new Operation("op1", SystemState.MANAGEMENT, false)));
+        assertTrue(scheduler_.tryStart(createOperation("op2", "lc2")));
+
+        assertFalse(scheduler_.tryReserve("unknown", Arrays.asList("lc1")));
+        assertFalse(scheduler_.tryReserve("op1", Arrays.asList("lc1", "lc2")));
+        assertFalse(scheduler_.awaitRelease("op1", Arrays.asList("lc2"), 10));
+        assertTrue(scheduler_.tryReserve("op1", Arrays.asList("lc1")));
+        assertTrue(scheduler_.isBusy("lc1"));
+
+        scheduler_.finish("op2");
+        assertTrue(scheduler_.awaitRelease("op1", Arrays.asList("lc2"), 10));
+        assertTrue(scheduler_.tryReserve("op1", Arrays.asList("lc2")));
+    }
+}
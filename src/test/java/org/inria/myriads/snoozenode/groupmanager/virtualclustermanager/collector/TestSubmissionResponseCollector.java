@@ -0,0 +1,104 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.collector;
+
+
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+
+/**
+ *
+ * Test submission response collector.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestSubmissionResponseCollector extends TestCase
+{
+    /** Collector under test.*/
+    private SubmissionResponseCollector collector_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        collector_ = new SubmissionResponseCollector(60000);
+    }
+
+    /**
+     * Finishes pushed before the wait are returned at once.
+     *
+     * @throws Exception    The exception
+     */
+    public void testEarlyFinish() throws Exception
+    {
+        VirtualMachineSubmissionResponse response = new VirtualMachineSubmissionResponse();
+        collector_.onSubmissionFinished("task1", response);
+        collector_.onSubmissionFinished("other", new VirtualMachineSubmissionResponse());
+
+        Map<String, VirtualMachineSubmissionResponse> finishes = 
+            collector_.await(Arrays.asList("task1", "task2"), 0);
+        assertEquals(1, finishes.size());
+        assertSame(response, finishes.get("task1"));
+        assertEquals(1, collector_.getNumberOfFinishes());
+
+        collector_.discard(Arrays.asList("other"));
+        assertEquals(0, collector_.getNumberOfFinishes());
+    }
+
+    /**
+     * Waiting workers wake up on the finish instead of the timeout.
+     *
+     * @throws Exception    The exception
+     */
+    public void testPushedFinish() throws Exception
+    {
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException exception)
+                {
+                    return;
+                }
+                collector_.onSubmissionFinished("task1", new VirtualMachineSubmissionResponse());
+            }
+        });
+        thread.start();
+
+        long start = System.currentTimeMillis();
+        Map<String, VirtualMachineSubmissionResponse> finishes = collector_.await(Arrays.asList("task1"), 10000);
+        assertEquals(1, finishes.size());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        thread.join();
+    }
+
+    /**
+     * Waits time out without finish.
+     *
+     * @throws Exception    The exception
+     */
+    public void testTimeout() throws Exception
+    {
+        assertTrue(collector_.await(Arrays.asList("task1"), 10).isEmpty());
+    }
+
+    /**
+     * Unclaimed finishes expire.
+     *
+     * @throws Exception    The exception
+     */
+    public void testRetention() throws Exception
+    {
+        SubmissionResponseCollector collector = new SubmissionResponseCollector(10);
+        collector.onSubmissionFinished("task1", new VirtualMachineSubmissionResponse());
+        Thread.sleep(20);
+        collector.onSubmissionFinished("task2", new VirtualMachineSubmissionResponse());
+        assertEquals(1, collector.getNumberOfFinishes());
+    }
+}
@@ -0,0 +1,138 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+
+/**
+ *
+ * Test group manager reservations.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestGroupManagerReservations extends TestCase
+{
+    /** Reservations under test. */
+    private GroupManagerReservations reservations_;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        reservations_ = new GroupManagerReservations();
+    }
+    
+    /**
+     * Creates a vector.
+     *
+     * @param value     The value of all dimensions
+     * @return          The vector
+     */
+    private static ArrayList<Double> createVector(double value)
+    {
+        return new ArrayList<Double>(Arrays.asList(value, value, value, value));
+    }
+    
+    /**
+     * Creates a group manager with one summary.
+     *
+     * @param timeStamp     The summary time stamp
+     * @return              The group manager
+     */
+    private static GroupManagerDescription createGroupManager(long timeStamp)
+    {
+        GroupManagerDescription groupManager = new GroupManagerDescription();
+        groupManager.setId("gm1");
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setTimeStamp(timeStamp);
+        summary.setActiveCapacity(createVector(10));
+        summary.setPassiveCapacity(createVector(5));
+        groupManager.getSummaryInformation().put(timeStamp, summary);
+        return groupManager;
+    }
+    
+    /**
+     * Creates a virtual machine.
+     *
+     * @param capacity  The requested capacity of all dimensions
+     * @param status    The status
+     * @return          The virtual machine
+     */
+    private static VirtualMachineMetaData createVirtualMachine(double capacity, VirtualMachineStatus status)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.setRequestedCapacity(createVector(capacity));
+        virtualMachine.setStatus(status);
+        return virtualMachine;
+    }
+    
+    /**
+     * Applies the reservations to a fresh group manager copy.
+     *
+     * @param timeStamp     The summary time stamp
+     * @return              The latest summary
+     */
+    private GroupManagerSummaryInformation apply(long timeStamp)
+    {
+        GroupManagerDescription groupManager = createGroupManager(timeStamp);
+        List<GroupManagerDescription> groupManagers = new ArrayList<GroupManagerDescription>();
+        groupManagers.add(groupManager);
+        reservations_.apply(groupManagers);
+        return groupManager.getSummaryInformation().get(timeStamp);
+    }
+    
+    /**
+     * Dispatched capacity is unavailable to concurrent dispatches.
+     */
+    public void testReserve()
+    {
+        GroupManagerDescription groupManager = createGroupManager(1);
+        groupManager.getVirtualMachines().add(createVirtualMachine(4, VirtualMachineStatus.ON_HOLD));
+        groupManager.getVirtualMachines().add(createVirtualMachine(2, VirtualMachineStatus.ON_HOLD));
+        reservations_.reserve("task1", groupManager);
+        reservations_.reserve("task2", groupManager);
+        
+        GroupManagerSummaryInformation summary = apply(1);
+        assertEquals(createVector(0), summary.getActiveCapacity());
+        assertEquals(createVector(3), summary.getPassiveCapacity());
+        
+        reservations_.cancel("task2", "gm1");
+        summary = apply(1);
+        assertEquals(createVector(4), summary.getActiveCapacity());
+        assertEquals(createVector(5), summary.getPassiveCapacity());
+        
+        reservations_.release("task1");
+        assertEquals(createVector(0), reservations_.getReservedCapacity("gm1"));
+    }
+    
+    /**
+     * Completed reservations are kept until a newer summary accounts for them.
+     */
+    public void testComplete()
+    {
+        GroupManagerDescription groupManager = createGroupManager(1);
+        VirtualMachineMetaData running = createVirtualMachine(4, VirtualMachineStatus.ON_HOLD);
+        VirtualMachineMetaData failed = createVirtualMachine(2, VirtualMachineStatus.ON_HOLD);
+        groupManager.getVirtualMachines().add(running);
+        groupManager.getVirtualMachines().add(failed);
+        reservations_.reserve("task1", groupManager);
+        
+        running.setStatus(VirtualMachineStatus.RUNNING);
+        failed.setStatus(VirtualMachineStatus.ERROR);
+        reservations_.complete("task1", "gm1", groupManager.getVirtualMachines());
+        reservations_.release("task1");
+        
+        assertEquals(createVector(6), apply(1).getActiveCapacity());
+        assertEquals(createVector(6), apply(1).getActiveCapacity());
+        assertEquals(createVector(10), apply(2).getActiveCapacity());
+        assertEquals(createVector(0), reservations_.getReservedCapacity("gm1"));
+    }
+}
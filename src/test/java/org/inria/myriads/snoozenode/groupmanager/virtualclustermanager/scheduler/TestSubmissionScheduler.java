@@ -0,0 +1,123 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test submission scheduler.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestSubmissionScheduler extends TestCase
+{
+    /**
+     * Creates a submission recording its name and waiting for the gate.
+     *
+     * @param name      The name
+     * @param order     The execution order
+     * @param gate      The gate
+     * @param done      The completion latch
+     * @return          The submission
+     */
+    private Runnable createSubmission(final String name, 
+                                      final List<String> order, 
+                                      final CountDownLatch gate,
+                                      final CountDownLatch done)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                order.add(name);
+                try
+                {
+                    gate.await();
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                
+                done.countDown();
+            }
+        };
+    }
+
+    /**
+     * Pending submissions are served round robin across tenants.
+     *
+     * @throws Exception    The exception
+     */
+    public void testTenantFairness() throws Exception
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        
+        scheduler.submit("tenant1", createSubmission("a1", order, gate, done));
+        scheduler.submit("tenant1", createSubmission("a2", order, gate, done));
+        scheduler.submit("tenant1", createSubmission("a3", order, gate, done));
+        scheduler.submit("tenant2", createSubmission("b1", order, gate, done));
+        scheduler.submit("tenant3", createSubmission("c1", order, gate, done));
+        assertEquals(4, scheduler.getNumberOfPendingSubmissions());
+        
+        gate.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a1", "a2", "b1", "c1", "a3"), order);
+    }
+
+    /**
+     * The number of concurrent submissions is bounded.
+     *
+     * @throws Exception    The exception
+     */
+    public void testBoundedConcurrency() throws Exception
+    {
+        final int numberOfSlots = 3;
+        SubmissionScheduler scheduler = new SubmissionScheduler(numberOfSlots);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++)
+        {
+            scheduler.submit("tenant" + (i % 4), new Runnable()
+            {
+                public void run()
+                {
+                    int current = running.incrementAndGet();
+                    synchronized (maximum)
+                    {
+                        maximum.set(Math.max(maximum.get(), current));
+                    }
+                    
+                    try
+                    {
+                        Thread.sleep(5);
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(numberOfSlots, maximum.get());
+        assertEquals(0, scheduler.getNumberOfPendingSubmissions());
+    }
+}
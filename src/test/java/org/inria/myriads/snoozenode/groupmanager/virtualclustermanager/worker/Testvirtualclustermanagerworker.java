@@ -13,7 +13,9 @@ import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.collector.SubmissionResponseCollector;
 import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.scheduler.GroupManagerReservations;
 
 /**
  * 
@@ -75,7 +77,9 @@ public class Testvirtualclustermanagerworker extends TestCase
                                                     dispatchingPolicy,
                                                     repository,
                                                     estimator,
-                                                    submissionListener);
+                                                    submissionListener,
+                                                    new GroupManagerReservations(),
+                                                    new SubmissionResponseCollector(0));
 
         //usually works on a copy : see the code.
         ArrayList<VirtualMachineMetaData> boundVirtualMachines = new ArrayList<VirtualMachineMetaData>();
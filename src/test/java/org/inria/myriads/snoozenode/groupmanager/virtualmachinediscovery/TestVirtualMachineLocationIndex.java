@@ -0,0 +1,123 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+
+/**
+ *
+ * Test virtual machine location index.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestVirtualMachineLocationIndex extends TestCase
+{
+    /** Index under test.*/
+    private VirtualMachineLocationIndex index_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        index_ = new VirtualMachineLocationIndex();
+    }
+
+    /**
+     * Creates a summary with one local controller.
+     *
+     * @param localControllerId     The local controller identifier
+     * @param virtualMachineIds     The virtual machine identifiers
+     * @return                      The summary
+     */
+    private GroupManagerSummaryInformation createSummary(String localControllerId, String... virtualMachineIds)
+    {
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId(localControllerId);
+        for (String virtualMachineId : virtualMachineIds)
+        {
+            localController.getVirtualMachineMetaData().put(virtualMachineId, new VirtualMachineMetaData());
+        }
+
+        ArrayList<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        localControllers.add(localController);
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setLocalControllers(localControllers);
+        return summary;
+    }
+
+    /**
+     * Summaries add, move and remove virtual machines.
+     */
+    public void testSummaries()
+    {
+        index_.onGroupManagerSummary("gm1", createSummary("lc1", "vm1", "vm2"), null);
+        assertEquals("gm1", index_.getVirtualMachineLocation("vm1").getGroupManagerId());
+        assertEquals("lc1", index_.getVirtualMachineLocation("vm2").getLocalControllerId());
+
+        index_.onGroupManagerSummary("gm1", createSummary("lc2", "vm1"), null);
+        assertEquals("lc2", index_.getVirtualMachineLocation("vm1").getLocalControllerId());
+        assertNull(index_.getVirtualMachineLocation("vm2"));
+    }
+
+    /**
+     * Delta summaries only replace the changed and removed local controllers.
+     */
+    public void testDeltaSummaries()
+    {
+        GroupManagerSummaryInformation summary = createSummary("lc1", "vm1");
+        summary.getLocalControllers().addAll(createSummary("lc2", "vm2").getLocalControllers());
+        index_.onGroupManagerSummary("gm1", summary, null);
+
+        index_.onGroupManagerSummary("gm1", createSummary("lc3", "vm3"), new ArrayList<String>());
+        assertEquals("lc1", index_.getVirtualMachineLocation("vm1").getLocalControllerId());
+        assertEquals("lc3", index_.getVirtualMachineLocation("vm3").getLocalControllerId());
+
+        index_.onGroupManagerSummary("gm1", createSummary("lc1", "vm2"), Arrays.asList("lc2"));
+        assertNull(index_.getVirtualMachineLocation("vm1"));
+        assertEquals("lc1", index_.getVirtualMachineLocation("vm2").getLocalControllerId());
+        assertEquals(2, index_.getNumberOfVirtualMachines());
+    }
+
+    /**
+     * A virtual machine moved to another group manager is not removed by the old one.
+     */
+    public void testMoveBetweenGroupManagers()
+    {
+        index_.onGroupManagerSummary("gm1", createSummary("lc1", "vm1"), null);
+        index_.onGroupManagerSummary("gm2", createSummary("lc2", "vm1"), null);
+        index_.onGroupManagerSummary("gm1", createSummary("lc1"), null);
+        assertEquals("gm2", index_.getVirtualMachineLocation("vm1").getGroupManagerId());
+    }
+
+    /**
+     * Submitted virtual machines survive summaries taken before their start.
+     */
+    public void testSubmittedVirtualMachine()
+    {
+        index_.onGroupManagerSummary("gm1", createSummary("lc1", "vm1"), null);
+        index_.addVirtualMachine("vm2", "gm1", "lc1");
+        index_.onGroupManagerSummary("gm1", createSummary("lc1", "vm1"), null);
+        assertEquals("lc1", index_.getVirtualMachineLocation("vm2").getLocalControllerId());
+
+        index_.removeVirtualMachine("vm2");
+        assertNull(index_.getVirtualMachineLocation("vm2"));
+    }
+
+    /**
+     * Dropped group managers lose their virtual machines.
+     */
+    public void testDropGroupManager()
+    {
+        index_.onGroupManagerSummary("gm1", createSummary("lc1", "vm1"), null);
+        index_.addVirtualMachine("vm2", "gm2", "lc2");
+        index_.dropGroupManager("gm1");
+        assertNull(index_.getVirtualMachineLocation("vm1"));
+        assertEquals(1, index_.getNumberOfVirtualMachines());
+    }
+}
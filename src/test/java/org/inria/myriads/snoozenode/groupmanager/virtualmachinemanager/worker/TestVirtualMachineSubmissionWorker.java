@@ -0,0 +1,274 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.worker;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.database.api.impl.memory.GroupManagerMemoryRepository;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+
+/**
+ *
+ * Test virtual machine submission worker.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestVirtualMachineSubmissionWorker extends TestCase
+{
+    /** Enforcement timeout (s). */
+    private static final int TIMEOUT = 1;
+
+    /** Repository. */
+    private GroupManagerMemoryRepository repository_;
+
+    /** Enforcement pool. */
+    private ExecutorService enforcementPool_;
+
+    /** Releases the slow local controllers. */
+    private CountDownLatch release_;
+
+    /** Destroyed virtual machines. */
+    private List<String> destroyed_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        GroupManagerDescription groupManager = new GroupManagerDescription();
+        groupManager.setId("gm1");
+        repository_ = new GroupManagerMemoryRepository(groupManager, 10);
+        enforcementPool_ = Executors.newFixedThreadPool(3);
+        release_ = new CountDownLatch(1);
+        destroyed_ = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        release_.countDown();
+        enforcementPool_.shutdown();
+    }
+
+    /**
+     * Creates a local controller with one assigned virtual machine.
+     *
+     * @param localControllerId     The local controller identifier
+     * @return                      The local controller
+     */
+    private LocalControllerDescription createLocalController(String localControllerId)
+    {
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId(localControllerId);
+        localController.setStatus(LocalControllerStatus.ACTIVE);
+        repository_.addLocalControllerDescription(localController);
+
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setLocalControllerId(localControllerId);
+        location.setVirtualMachineId("vm-" + localControllerId);
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.setVirtualMachineLocation(location);
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(1.0, 1.0, 1.0, 1.0)));
+        virtualMachine.setStatus(VirtualMachineStatus.UNKNOWN);
+        localController.getAssignedVirtualMachines().add(virtualMachine);
+        return localController;
+    }
+
+    /**
+     * Creates the worker.
+     * (local controllers named "fail*" return no response, "slow*" answer once released,
+     * destroyed virtual machines are recorded)
+     *
+     * @return  The worker
+     */
+    private VirtualMachineSubmissionWorker createWorker()
+    {
+        EstimatorSettings settings = new EstimatorSettings();
+        settings.setSortNorm(SortNorm.L1);
+        settings.getPolicy().setCPU(Estimator.average);
+        settings.getPolicy().setMemory(Estimator.average);
+        settings.getPolicy().setNetwork(Estimator.average);
+        List<Double> thresholds = Arrays.asList(0.0, 0.5, 1.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+        ResourceDemandEstimator estimator =
+            new ResourceDemandEstimator(settings,
+                                        new MonitoringThresholds(thresholds, thresholds, thresholds),
+                                        packingDensity);
+
+        return new VirtualMachineSubmissionWorker("task1", 0, new VirtualMachineSubmissionRequest(), repository_,
+                                                  null, null, estimator, null, null, enforcementPool_, TIMEOUT)
+        {
+            @Override
+            protected VirtualMachineSubmissionResponse startVirtualMachines(LocalControllerDescription
+                                                                                localController)
+            {
+                String localControllerId = localController.getId();
+                if (localControllerId.startsWith("fail"))
+                {
+                    return null;
+                }
+
+                if (localControllerId.startsWith("slow"))
+                {
+                    try
+                    {
+                        release_.await();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        return null;
+                    }
+                }
+
+                ArrayList<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+                for (VirtualMachineMetaData assigned : localController.getAssignedVirtualMachines())
+                {
+                    VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+                    VirtualMachineLocation location = new VirtualMachineLocation();
+                    location.setLocalControllerId(localControllerId);
+                    location.setVirtualMachineId(assigned.getVirtualMachineLocation().getVirtualMachineId());
+                    virtualMachine.setVirtualMachineLocation(location);
+                    virtualMachine.setStatus(VirtualMachineStatus.RUNNING);
+                    virtualMachines.add(virtualMachine);
+                }
+
+                VirtualMachineSubmissionResponse submissionResponse = new VirtualMachineSubmissionResponse();
+                submissionResponse.setVirtualMachineMetaData(virtualMachines);
+                return submissionResponse;
+            }
+
+            @Override
+            protected void destroyVirtualMachines(LocalControllerDescription localController,
+                                                  List<VirtualMachineMetaData> virtualMachines)
+            {
+                for (VirtualMachineMetaData virtualMachine : virtualMachines)
+                {
+                    destroyed_.add(virtualMachine.getVirtualMachineLocation().getVirtualMachineId());
+                }
+            }
+        };
+    }
+
+    /**
+     * Enforces a placement plan on local controllers.
+     *
+     * @param localControllerIds    The local controller identifiers
+     * @return                      The virtual machines (virtual machine identifier : virtual machine)
+     */
+    private Map<String, VirtualMachineMetaData> enforce(String... localControllerIds)
+    {
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        for (String localControllerId : localControllerIds)
+        {
+            localControllers.add(createLocalController(localControllerId));
+        }
+
+        PlacementPlan placementPlan =
+            new PlacementPlan(localControllers, new ArrayList<VirtualMachineMetaData>());
+        VirtualMachineSubmissionResponse submissionResponse = createWorker().enforcePlacementPlan(placementPlan);
+
+        Map<String, VirtualMachineMetaData> virtualMachines = new HashMap<String, VirtualMachineMetaData>();
+        for (VirtualMachineMetaData virtualMachine : submissionResponse.getVirtualMachineMetaData())
+        {
+            virtualMachines.put(virtualMachine.getVirtualMachineLocation().getVirtualMachineId(), virtualMachine);
+        }
+        return virtualMachines;
+    }
+
+    /**
+     * Checks if a virtual machine is stored in the repository.
+     *
+     * @param localControllerId     The local controller identifier
+     * @return                      true if stored, false otherwise
+     */
+    private boolean isStored(String localControllerId)
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setLocalControllerId(localControllerId);
+        location.setVirtualMachineId("vm-" + localControllerId);
+        return repository_.getVirtualMachineMetaData(location, 0) != null;
+    }
+
+    /**
+     * All local controllers answer.
+     * -> all virtual machines running and stored
+     */
+    public void testParallelSuccess()
+    {
+        Map<String, VirtualMachineMetaData> virtualMachines = enforce("lc1", "lc2", "lc3");
+
+        assertEquals(3, virtualMachines.size());
+        for (String localControllerId : Arrays.asList("lc1", "lc2", "lc3"))
+        {
+            assertEquals(VirtualMachineStatus.RUNNING, virtualMachines.get("vm-" + localControllerId).getStatus());
+            assertTrue(isStored(localControllerId));
+        }
+    }
+
+    /**
+     * One local controller returns no response.
+     * -> only its virtual machines failed
+     */
+    public void testPartialFailure()
+    {
+        Map<String, VirtualMachineMetaData> virtualMachines = enforce("lc1", "fail1");
+
+        assertEquals(VirtualMachineStatus.RUNNING, virtualMachines.get("vm-lc1").getStatus());
+        assertTrue(isStored("lc1"));
+
+        VirtualMachineMetaData failed = virtualMachines.get("vm-fail1");
+        assertEquals(VirtualMachineStatus.ERROR, failed.getStatus());
+        assertEquals(VirtualMachineErrorCode.INVALID_SUBMISSION_RESPONSE, failed.getErrorCode());
+        assertFalse(isStored("fail1"));
+    }
+
+    /**
+     * One local controller answers after the timeout.
+     * -> reported failed, the late started virtual machines are destroyed and never stored
+     *
+     * @throws Exception    The exception
+     */
+    public void testTimeout() throws Exception
+    {
+        Map<String, VirtualMachineMetaData> virtualMachines = enforce("lc1", "slow1");
+
+        assertEquals(VirtualMachineStatus.RUNNING, virtualMachines.get("vm-lc1").getStatus());
+        VirtualMachineMetaData late = virtualMachines.get("vm-slow1");
+        assertEquals(VirtualMachineStatus.ERROR, late.getStatus());
+        assertEquals(VirtualMachineErrorCode.INVALID_SUBMISSION_RESPONSE, late.getErrorCode());
+        assertFalse(isStored("slow1"));
+
+        release_.countDown();
+        enforcementPool_.shutdown();
+        assertTrue(enforcementPool_.awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(isStored("slow1"));
+        assertEquals(Arrays.asList("vm-slow1"), destroyed_);
+    }
+}
@@ -0,0 +1,236 @@
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
+import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.NetworkTrafficInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+
+/**
+ *
+ * Test virtual machine sampling scheduler.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestVirtualMachineSamplingScheduler extends TestCase
+{
+    /** Monitoring interval (ms). */
+    private static final int INTERVAL = 10;
+
+    /** Data timeout (s). */
+    private static final int TIMEOUT = 5;
+
+    /** Number of samples (virtual machine identifier : samples). */
+    private Map<String, AtomicInteger> numberOfSamples_;
+
+    /** Data queue. */
+    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
+
+    /** Virtual machines reported as failed. */
+    private BlockingQueue<String> failures_;
+
+    /** Scheduler under test.*/
+    private VirtualMachineSamplingScheduler scheduler_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        numberOfSamples_ = new ConcurrentHashMap<String, AtomicInteger>();
+        dataQueue_ = new LinkedBlockingQueue<AggregatedVirtualMachineData>();
+        failures_ = new LinkedBlockingQueue<String>();
+
+        VirtualMachineMonitor monitor = new VirtualMachineMonitor()
+        {
+            public VirtualMachineInformation getVirtualMachineInformation(String virtualMachineId)
+                throws VirtualMachineMonitoringException
+            {
+                AtomicInteger numberOfSamples = numberOfSamples_.get(virtualMachineId);
+                if (numberOfSamples == null)
+                {
+                    numberOfSamples = new AtomicInteger();
+                    numberOfSamples_.put(virtualMachineId, numberOfSamples);
+                }
+                numberOfSamples.incrementAndGet();
+
+                if (virtualMachineId.startsWith("gone"))
+                {
+                    throw new VirtualMachineMonitoringException("Domain not found");
+                }
+
+                List<NetworkTrafficInformation> networkTraffic = new ArrayList<NetworkTrafficInformation>();
+                networkTraffic.add(new NetworkTrafficInformation("eth0"));
+                return new VirtualMachineInformation(1, 0, 0, networkTraffic);
+            }
+
+            public void invalidate(String virtualMachineId)
+            {
+            }
+        };
+
+        VirtualMachineMonitoringListener listener = new VirtualMachineMonitoringListener()
+        {
+            public boolean onMonitoringFailure(VirtualMachineLocation location)
+            {
+                failures_.add(location.getVirtualMachineId());
+                return true;
+            }
+
+            public int getNumberOfActiveVirtualMachines()
+            {
+                return scheduler_.size();
+            }
+        };
+
+        MonitoringSettings settings = new MonitoringSettings();
+        settings.setInterval(INTERVAL);
+        settings.setNumberOfMonitoringEntries(1);
+        InfrastructureMonitoring monitoring = new InfrastructureMonitoring(monitor, null, settings, null);
+        scheduler_ = new VirtualMachineSamplingScheduler(monitoring, dataQueue_, listener, 2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        scheduler_.terminate();
+    }
+
+    /**
+     * Creates virtual machine meta data.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The virtual machine meta data
+     */
+    private VirtualMachineMetaData createVirtualMachine(String virtualMachineId)
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(virtualMachineId);
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.setVirtualMachineLocation(location);
+        return virtualMachine;
+    }
+
+    /**
+     * Waits until a number of rounds completed.
+     *
+     * @param numberOfRounds    The number of rounds
+     * @throws Exception        The exception
+     */
+    private void awaitRounds(long numberOfRounds) throws Exception
+    {
+        while (scheduler_.getNumberOfRounds() < numberOfRounds)
+        {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Returns the number of samples of a virtual machine.
+     *
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The number of samples
+     */
+    private int getNumberOfSamples(String virtualMachineId)
+    {
+        AtomicInteger numberOfSamples = numberOfSamples_.get(virtualMachineId);
+        return numberOfSamples == null ? 0 : numberOfSamples.get();
+    }
+
+    /**
+     * Added virtual machines get sampled by the shared rounds.
+     * -> data of every virtual machine, vanished ones reported
+     *
+     * @throws Exception    The exception
+     */
+    public void testAdd() throws Exception
+    {
+        assertTrue(scheduler_.add(createVirtualMachine("vm1")));
+        assertTrue(scheduler_.add(createVirtualMachine("vm2")));
+        assertTrue(scheduler_.add(createVirtualMachine("gone1")));
+        assertFalse(scheduler_.add(createVirtualMachine("vm1")));
+        assertEquals(3, scheduler_.size());
+        scheduler_.start();
+
+        Set<String> virtualMachineIds = new HashSet<String>();
+        for (int i = 0; i < 2; i++)
+        {
+            AggregatedVirtualMachineData data = dataQueue_.poll(TIMEOUT, TimeUnit.SECONDS);
+            assertNotNull(data);
+            assertEquals(1, data.getMonitoringData().size());
+            virtualMachineIds.add(data.getVirtualMachineId());
+        }
+
+        assertTrue(virtualMachineIds.contains("vm1"));
+        assertTrue(virtualMachineIds.contains("vm2"));
+        assertEquals("gone1", failures_.poll(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(scheduler_.add(createVirtualMachine("gone1")));
+    }
+
+    /**
+     * Suspended virtual machines are still queried but produce no data until resumed.
+     *
+     * @throws Exception    The exception
+     */
+    public void testSuspend() throws Exception
+    {
+        assertFalse(scheduler_.suspend("vm1"));
+        assertTrue(scheduler_.add(createVirtualMachine("vm1")));
+        assertTrue(scheduler_.suspend("vm1"));
+        scheduler_.start();
+
+        awaitRounds(4);
+        assertTrue(getNumberOfSamples("vm1") >= 4);
+        assertTrue(dataQueue_.isEmpty());
+
+        assertTrue(scheduler_.resume("vm1"));
+        AggregatedVirtualMachineData data = dataQueue_.poll(TIMEOUT, TimeUnit.SECONDS);
+        assertNotNull(data);
+        assertEquals("vm1", data.getVirtualMachineId());
+    }
+
+    /**
+     * Removed virtual machines are no longer sampled.
+     *
+     * @throws Exception    The exception
+     */
+    public void testRemove() throws Exception
+    {
+        assertTrue(scheduler_.add(createVirtualMachine("vm1")));
+        assertTrue(scheduler_.add(createVirtualMachine("vm2")));
+        scheduler_.start();
+        awaitRounds(1);
+
+        assertTrue(scheduler_.remove("vm1"));
+        assertFalse(scheduler_.remove("vm1"));
+        assertFalse(scheduler_.contains("vm1"));
+        assertEquals(1, scheduler_.size());
+
+        // The round running during the removal may still sample it
+        long numberOfRounds = scheduler_.getNumberOfRounds();
+        awaitRounds(numberOfRounds + 2);
+        int numberOfSamples = getNumberOfSamples("vm1");
+        int numberOfOtherSamples = getNumberOfSamples("vm2");
+        awaitRounds(numberOfRounds + 4);
+        assertEquals(numberOfSamples, getNumberOfSamples("vm1"));
+        assertTrue(getNumberOfSamples("vm2") > numberOfOtherSamples);
+    }
+}
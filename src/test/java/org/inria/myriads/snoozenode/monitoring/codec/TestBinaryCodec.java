@@ -0,0 +1,235 @@
+package org.inria.myriads.snoozenode.monitoring.codec;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.tcpip.MessageFraming;
+
+/**
+ * 
+ * Test binary codec.
+ * 
+ * @author Eugen Feller
+ *
+ */
+public class TestBinaryCodec extends TestCase
+{
+    /** Codec under test.*/
+    private MonitoringCodec codec_;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        codec_ = CodecFactory.newCodec(CodecType.binary);
+    }
+    
+    /**
+     * Builds local controller data.
+     * 
+     * @return  The local controller data
+     */
+    private LocalControllerDataTransporter newLocalControllerData()
+    {
+        ArrayList<VirtualMachineMonitoringData> history = new ArrayList<VirtualMachineMonitoringData>();
+        for (int i = 0; i < 3; i++)
+        {
+            VirtualMachineMonitoringData monitoringData = new VirtualMachineMonitoringData();
+            monitoringData.setTimeStamp(1350000000000L + i * 3000);
+            ArrayList<Double> usedCapacity = new ArrayList<Double>();
+            usedCapacity.add(0.5 * i);
+            usedCapacity.add(1024.0);
+            usedCapacity.add(12.25);
+            usedCapacity.add(-1.0);
+            monitoringData.setUsedCapacity(usedCapacity);
+            history.add(monitoringData);
+        }
+        
+        List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+        aggregatedData.add(new AggregatedVirtualMachineData("vm1", history));
+        aggregatedData.add(new AggregatedVirtualMachineData("vm2", new ArrayList<VirtualMachineMonitoringData>()));
+        LocalControllerDataTransporter data = new LocalControllerDataTransporter("lc1", aggregatedData);
+        data.setState(LocalControllerState.OVERLOADED);
+        return data;
+    }
+    
+    /**
+     * Encode and decode local controller data.
+     * -> same content
+     * 
+     * @throws Exception    The exception
+     */
+    public void testLocalControllerDataRoundTrip() throws Exception
+    {
+        LocalControllerDataTransporter data = newLocalControllerData();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec_.encode(data, output);
+        
+        LocalControllerDataTransporter decoded = 
+            (LocalControllerDataTransporter) codec_.decode(new ByteArrayInputStream(output.toByteArray()));
+        
+        assertEquals("lc1", decoded.getLocalControllerId());
+        assertEquals(LocalControllerState.OVERLOADED, decoded.getState());
+        assertEquals(2, decoded.getData().size());
+        assertEquals("vm2", decoded.getData().get(1).getVirtualMachineId());
+        assertTrue(decoded.getData().get(1).getMonitoringData().isEmpty());
+        
+        List<VirtualMachineMonitoringData> history = decoded.getData().get(0).getMonitoringData();
+        assertEquals(3, history.size());
+        for (int i = 0; i < 3; i++)
+        {
+            VirtualMachineMonitoringData expected = data.getData().get(0).getMonitoringData().get(i);
+            assertEquals(expected.getTimeStamp(), history.get(i).getTimeStamp());
+            assertEquals(expected.getUsedCapacity(), history.get(i).getUsedCapacity());
+        }
+    }
+    
+    /**
+     * Encode local controller data with both codecs.
+     * -> binary payload is smaller
+     * 
+     * @throws Exception    The exception
+     */
+    public void testBinaryIsSmallerThanSerialization() throws Exception
+    {
+        LocalControllerDataTransporter data = newLocalControllerData();
+        byte[] binary = MessageFraming.encode(data, codec_);
+        byte[] serialized = MessageFraming.encode(data);
+        assertTrue(binary.length < serialized.length);
+    }
+    
+    /**
+     * Null lists and unknown objects.
+     * -> preserved
+     * 
+     * @throws Exception    The exception
+     */
+    public void testNullListsAndFallback() throws Exception
+    {
+        LocalControllerDataTransporter data = new LocalControllerDataTransporter("lc2", null);
+        byte[] frame = MessageFraming.encode(data, codec_);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(frame));
+        LocalControllerDataTransporter decoded = (LocalControllerDataTransporter) MessageFraming.readFrame(input);
+        assertEquals("lc2", decoded.getLocalControllerId());
+        assertNull(decoded.getData());
+        
+        frame = MessageFraming.encode("heartbeat", codec_);
+        assertEquals("heartbeat", MessageFraming.readFrame(new DataInputStream(new ByteArrayInputStream(frame))));
+    }
+    
+    /**
+     * Group manager summaries, heartbeats and submission finishes.
+     * -> preserved
+     * 
+     * @throws Exception    The exception
+     */
+    public void testGroupManagerDataRoundTrip() throws Exception
+    {
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setTimeStamp(42);
+        GroupManagerDataTransporter decoded = decodeGroupManagerData(new GroupManagerDataTransporter("gm1", summary));
+        assertEquals("gm1", decoded.getId());
+        assertEquals(42, decoded.getSummary().getTimeStamp());
+        assertNull(decoded.getSubmissionResponse());
+        assertFalse(decoded.isDelta());
+        
+        ArrayList<String> removedLocalControllers = new ArrayList<String>();
+        removedLocalControllers.add("lc1");
+        decoded = decodeGroupManagerData(new GroupManagerDataTransporter("gm1", summary, 7, removedLocalControllers));
+        assertEquals(7, decoded.getSequenceNumber());
+        assertTrue(decoded.isDelta());
+        assertEquals(removedLocalControllers, decoded.getRemovedLocalControllers());
+        
+        decoded = decodeGroupManagerData(new GroupManagerDataTransporter("gm1", null));
+        assertNull(decoded.getSummary());
+        assertNull(decoded.getSubmissionResponse());
+        
+        VirtualMachineSubmissionResponse response = new VirtualMachineSubmissionResponse();
+        ArrayList<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+        virtualMachines.add(new VirtualMachineMetaData());
+        response.setVirtualMachineMetaData(virtualMachines);
+        decoded = decodeGroupManagerData(new GroupManagerDataTransporter("gm2", "task1", response));
+        assertEquals("gm2", decoded.getId());
+        assertNull(decoded.getSummary());
+        assertEquals("task1", decoded.getTaskIdentifier());
+        assertEquals(1, decoded.getSubmissionResponse().getVirtualMachineMetaData().size());
+    }
+    
+    /**
+     * Group manager data in the layout without submission finishes.
+     * -> decoded
+     * 
+     * @throws Exception    The exception
+     */
+    public void testGroupManagerDataWithoutSubmission() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataOutputStream dataOutput = new DataOutputStream(output);
+        dataOutput.writeByte(2);
+        dataOutput.writeByte(4);
+        dataOutput.write("gm1".getBytes("UTF-8"));
+        dataOutput.writeBoolean(false);
+        dataOutput.flush();
+        
+        GroupManagerDataTransporter decoded = 
+            (GroupManagerDataTransporter) codec_.decode(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals("gm1", decoded.getId());
+        assertNull(decoded.getSummary());
+        assertNull(decoded.getSubmissionResponse());
+    }
+    
+    /**
+     * Summary in the layout without sequence number.
+     * -> decoded as a full summary
+     * 
+     * @throws Exception    The exception
+     */
+    public void testUnsequencedSummary() throws Exception
+    {
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setTimeStamp(42);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataOutputStream dataOutput = new DataOutputStream(output);
+        dataOutput.writeByte(2);
+        dataOutput.writeByte(4);
+        dataOutput.write("gm1".getBytes("UTF-8"));
+        dataOutput.writeBoolean(true);
+        dataOutput.flush();
+        new SerializationCodec().encode(summary, output);
+        
+        GroupManagerDataTransporter decoded = 
+            (GroupManagerDataTransporter) codec_.decode(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals("gm1", decoded.getId());
+        assertEquals(42, decoded.getSummary().getTimeStamp());
+        assertEquals(0, decoded.getSequenceNumber());
+        assertFalse(decoded.isDelta());
+    }
+    
+    /**
+     * Encodes and decodes group manager data.
+     * 
+     * @param data          The group manager data
+     * @return              The decoded group manager data
+     * @throws Exception    The exception
+     */
+    private GroupManagerDataTransporter decodeGroupManagerData(GroupManagerDataTransporter data) throws Exception
+    {
+        byte[] frame = MessageFraming.encode(data, codec_);
+        return (GroupManagerDataTransporter) 
+            MessageFraming.readFrame(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+}
@@ -0,0 +1,369 @@
+package org.inria.myriads.snoozenode.monitoring.datasender.api.impl;
+
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozenode.configurator.monitoring.external.ExternalNotifierSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.external.enums.OverflowPolicy;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+/**
+ *
+ * Test RabbitMQ external sender.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestRabbitMQExternalSender extends TestCase
+{
+    /** Wait timeout (s). */
+    private static final int TIMEOUT = 5;
+
+    /** Number of published messages. */
+    private AtomicInteger numberOfPublished_;
+
+    /** Number of publisher confirms rounds. */
+    private AtomicInteger numberOfConfirms_;
+
+    /** Number of unacknowledged confirm rounds left. */
+    private AtomicInteger numberOfNacks_;
+
+    /** Signals a connection attempt. */
+    private CountDownLatch connecting_;
+
+    /** Releases the connection attempts. */
+    private CountDownLatch release_;
+
+    /** Number of connection attempts. */
+    private AtomicInteger numberOfConnections_;
+
+    /** Number of failing connection attempts left. */
+    private AtomicInteger numberOfFailures_;
+
+    /** Sender under test. */
+    private RabbitMQExternalSender sender_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        numberOfPublished_ = new AtomicInteger();
+        numberOfConfirms_ = new AtomicInteger();
+        numberOfNacks_ = new AtomicInteger();
+        connecting_ = new CountDownLatch(1);
+        release_ = new CountDownLatch(0);
+        numberOfConnections_ = new AtomicInteger();
+        numberOfFailures_ = new AtomicInteger();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        if (sender_ != null)
+        {
+            sender_.close();
+        }
+    }
+
+    /**
+     * Creates the mocked channel.
+     *
+     * @return  The channel
+     * @throws Exception    The exception
+     */
+    private Channel createChannel() throws Exception
+    {
+        Channel channel = EasyMock.createNiceMock(Channel.class);
+        EasyMock.expect(channel.isOpen()).andReturn(true).anyTimes();
+        channel.basicPublish((String) EasyMock.anyObject(),
+                             (String) EasyMock.anyObject(),
+                             (AMQP.BasicProperties) EasyMock.anyObject(),
+                             (byte[]) EasyMock.anyObject());
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>()
+        {
+            @Override
+            public Object answer()
+            {
+                numberOfPublished_.incrementAndGet();
+                return null;
+            }
+        }).anyTimes();
+        EasyMock.expect(channel.waitForConfirms(EasyMock.anyLong())).andAnswer(new IAnswer<Boolean>()
+        {
+            @Override
+            public Boolean answer()
+            {
+                numberOfConfirms_.incrementAndGet();
+                return numberOfNacks_.getAndDecrement() <= 0;
+            }
+        }).anyTimes();
+        EasyMock.replay(channel);
+        return channel;
+    }
+
+    /**
+     * Creates the sender.
+     *
+     * @param overflowPolicy        The overflow policy
+     * @param queueCapacity         The backlog capacity
+     * @param confirmBatchSize      The number of notifications per confirm round
+     * @param numberOfRetries       The number of connection attempts per batch
+     * @return                      The sender
+     * @throws Exception            The exception
+     */
+    private RabbitMQExternalSender createSender(OverflowPolicy overflowPolicy,
+                                                int queueCapacity,
+                                                int confirmBatchSize,
+                                                int numberOfRetries)
+        throws Exception
+    {
+        ExternalNotifierSettings settings = new ExternalNotifierSettings();
+        settings.setAddress(new NetworkAddress());
+        settings.setOverflowPolicy(overflowPolicy);
+        settings.setQueueCapacity(queueCapacity);
+        settings.setConfirmBatchSize(confirmBatchSize);
+        settings.setConfirmTimeout(100);
+        settings.setNumberOfRetries(numberOfRetries);
+        settings.setRetryInterval(0);
+
+        final Connection connection = EasyMock.createNiceMock(Connection.class);
+        EasyMock.expect(connection.isOpen()).andReturn(true).anyTimes();
+        EasyMock.expect(connection.createChannel()).andReturn(createChannel()).anyTimes();
+        EasyMock.replay(connection);
+
+        sender_ = new RabbitMQExternalSender("test", settings);
+        sender_.setFactory(new ConnectionFactory()
+        {
+            @Override
+            public Connection newConnection() throws IOException
+            {
+                numberOfConnections_.incrementAndGet();
+                connecting_.countDown();
+                try
+                {
+                    release_.await();
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted");
+                }
+
+                if (numberOfFailures_.getAndDecrement() > 0)
+                {
+                    throw new IOException("Connection refused");
+                }
+
+                return connection;
+            }
+        });
+        return sender_;
+    }
+
+    /**
+     * Sends a notification, holding the publisher in its first connection attempt.
+     *
+     * @throws Exception    The exception
+     */
+    private void sendAndHoldPublisher() throws Exception
+    {
+        release_ = new CountDownLatch(1);
+        sender_.send("n0");
+        assertTrue(connecting_.await(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Waits until a counter reaches a value.
+     *
+     * @param counter   The counter
+     * @param expected  The expected value
+     * @throws Exception    The exception
+     */
+    private static void awaitCount(AtomicInteger counter, int expected) throws Exception
+    {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while (counter.get() < expected && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+
+        assertEquals(expected, counter.get());
+    }
+
+    /**
+     * Starts a thread sending one notification.
+     *
+     * @param data  The notification
+     * @return      The thread
+     */
+    private Thread startSender(final String data)
+    {
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                sender_.send(data);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Pending notifications are published in batches, one confirm round per batch.
+     *
+     * @throws Exception    The exception
+     */
+    public void testBatchConfirms() throws Exception
+    {
+        createSender(OverflowPolicy.BLOCK, 10, 3, 0);
+        sendAndHoldPublisher();
+        for (int i = 1; i <= 6; i++)
+        {
+            sender_.send("n" + i);
+        }
+
+        release_.countDown();
+        awaitCount(numberOfConfirms_, 3);
+        assertEquals(7, numberOfPublished_.get());
+        assertEquals(1, numberOfConnections_.get());
+        assertEquals(0, sender_.getNumberOfDroppedNotifications());
+    }
+
+    /**
+     * Unacknowledged batches are published again.
+     *
+     * @throws Exception    The exception
+     */
+    public void testUnacknowledgedBatch() throws Exception
+    {
+        numberOfNacks_.set(1);
+        createSender(OverflowPolicy.BLOCK, 10, 3, 2);
+        sender_.send("n0");
+
+        awaitCount(numberOfConfirms_, 2);
+        assertEquals(2, numberOfPublished_.get());
+        assertEquals(0, sender_.getNumberOfDroppedNotifications());
+    }
+
+    /**
+     * Full backlog with DROP policy.
+     * -> overflowing notifications are dropped and counted
+     *
+     * @throws Exception    The exception
+     */
+    public void testDropOverflow() throws Exception
+    {
+        createSender(OverflowPolicy.DROP, 2, 10, 0);
+        sendAndHoldPublisher();
+        sender_.send("n1");
+        sender_.send("n2");
+        sender_.send("n3");
+
+        assertEquals(2, sender_.getQueueDepth());
+        assertEquals(1, sender_.getNumberOfDroppedNotifications());
+
+        release_.countDown();
+        awaitCount(numberOfPublished_, 3);
+        assertEquals(1, sender_.getNumberOfDroppedNotifications());
+    }
+
+    /**
+     * Full backlog with BLOCK policy.
+     * -> senders wait for free space
+     *
+     * @throws Exception    The exception
+     */
+    public void testBlockOverflow() throws Exception
+    {
+        createSender(OverflowPolicy.BLOCK, 1, 10, 0);
+        sendAndHoldPublisher();
+        sender_.send("n1");
+        Thread blocked = startSender("n2");
+
+        blocked.join(200);
+        assertTrue(blocked.isAlive());
+
+        release_.countDown();
+        blocked.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertFalse(blocked.isAlive());
+        awaitCount(numberOfPublished_, 3);
+        assertEquals(0, sender_.getNumberOfDroppedNotifications());
+    }
+
+    /**
+     * Lost connection.
+     * -> re-opened on the next attempt
+     *
+     * @throws Exception    The exception
+     */
+    public void testReconnect() throws Exception
+    {
+        numberOfFailures_.set(1);
+        createSender(OverflowPolicy.BLOCK, 10, 10, 2);
+        sender_.send("n0");
+
+        awaitCount(numberOfPublished_, 1);
+        assertEquals(2, numberOfConnections_.get());
+        assertEquals(0, sender_.getNumberOfDroppedNotifications());
+    }
+
+    /**
+     * Broker unreachable.
+     * -> batch dropped and counted once the retries are exhausted
+     *
+     * @throws Exception    The exception
+     */
+    public void testDropAfterRetries() throws Exception
+    {
+        numberOfFailures_.set(Integer.MAX_VALUE);
+        createSender(OverflowPolicy.BLOCK, 10, 10, 2);
+        sender_.send("n0");
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while (sender_.getNumberOfDroppedNotifications() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, sender_.getNumberOfDroppedNotifications());
+        assertEquals(3, numberOfConnections_.get());
+        assertEquals(0, numberOfPublished_.get());
+    }
+
+    /**
+     * Close while the publisher hangs and a sender is blocked.
+     * -> sender released, all pending notifications counted as dropped
+     *
+     * @throws Exception    The exception
+     */
+    public void testCloseReleasesBlockedSenders() throws Exception
+    {
+        createSender(OverflowPolicy.BLOCK, 1, 10, 0);
+        sendAndHoldPublisher();
+        sender_.send("n1");
+        Thread blocked = startSender("n2");
+
+        sender_.close();
+        blocked.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertFalse(blocked.isAlive());
+        assertEquals(0, sender_.getQueueDepth());
+        assertEquals(3, sender_.getNumberOfDroppedNotifications());
+        assertEquals(0, numberOfPublished_.get());
+
+        sender_.send("n3");
+        assertEquals(4, sender_.getNumberOfDroppedNotifications());
+    }
+}
@@ -0,0 +1,144 @@
+package org.inria.myriads.snoozenode.tcpip;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozenode.monitoring.codec.BinaryCodec;
+
+/**
+ *
+ * Test selector event loop.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestSelectorEventLoop extends TestCase
+{
+    /** Wait timeout (s). */
+    private static final int TIMEOUT = 5;
+
+    /** Loopback address. */
+    private static final String LOOPBACK = "127.0.0.1";
+
+    /** Received data. */
+    private BlockingQueue<Object> data_;
+
+    /** Failed connections. */
+    private BlockingQueue<String> failures_;
+
+    /** Receiver under test. */
+    private SelectorDataReceiver receiver_;
+
+    /** Receiver port. */
+    private int port_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        data_ = new LinkedBlockingQueue<Object>();
+        failures_ = new LinkedBlockingQueue<String>();
+
+        ServerSocket socket = new ServerSocket(0);
+        port_ = socket.getLocalPort();
+        socket.close();
+
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress(LOOPBACK);
+        address.setPort(port_);
+        receiver_ = new SelectorDataReceiver(address, 0, 1);
+        receiver_.setHandler(new DataListener()
+        {
+            @Override
+            public void onFailure(String id)
+            {
+                failures_.add(id);
+            }
+
+            @Override
+            public void onDataArrival(Object data, String id)
+            {
+                data_.add(data);
+            }
+        });
+        new Thread(receiver_).start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        receiver_.terminate();
+    }
+
+    /**
+     * Opens a client connection.
+     *
+     * @return              The socket
+     * @throws Exception    The exception
+     */
+    private Socket connect() throws Exception
+    {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(LOOPBACK, port_), (int) TimeUnit.SECONDS.toMillis(TIMEOUT));
+        return socket;
+    }
+
+    /**
+     * Creates a well formed binary frame whose payload fails to decode.
+     *
+     * Local controller data with an out of range state.
+     *
+     * @return              The frame
+     * @throws Exception    The exception
+     */
+    private static byte[] createMalformedFrame() throws Exception
+    {
+        byte[] payload = {1, 0, Byte.MAX_VALUE};
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(frame);
+        output.writeShort(MessageFraming.MAGIC);
+        output.writeByte(MessageFraming.VERSION_2);
+        output.writeByte(BinaryCodec.ID);
+        output.writeInt(payload.length);
+        output.write(payload);
+        return frame.toByteArray();
+    }
+
+    /**
+     * Malformed frame on one connection.
+     * -> only that connection is failed, the event loop keeps serving the others
+     *
+     * @throws Exception    The exception
+     */
+    public void testMalformedFrame() throws Exception
+    {
+        Socket malformed = connect();
+        Socket healthy = connect();
+        try
+        {
+            malformed.getOutputStream().write(createMalformedFrame());
+            malformed.getOutputStream().flush();
+            assertNotNull(failures_.poll(TIMEOUT, TimeUnit.SECONDS));
+
+            healthy.getOutputStream().write(MessageFraming.encode("data"));
+            healthy.getOutputStream().flush();
+            assertEquals("data", data_.poll(TIMEOUT, TimeUnit.SECONDS));
+            assertTrue(data_.isEmpty());
+            assertTrue(failures_.isEmpty());
+        }
+        finally
+        {
+            malformed.close();
+            healthy.close();
+        }
+    }
+}
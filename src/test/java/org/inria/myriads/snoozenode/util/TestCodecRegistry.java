@@ -0,0 +1,92 @@
+package org.inria.myriads.snoozenode.util;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+
+/**
+ *
+ * Test codec registry.
+ *
+ * @author Eugen Feller
+ *
+ */
+public class TestCodecRegistry extends TestCase
+{
+    @Override
+    protected void tearDown() throws Exception
+    {
+        CodecRegistry.setSmile(false);
+    }
+
+    /**
+     * Creates monitoring data.
+     *
+     * @return  The monitoring data
+     */
+    private VirtualMachineMonitoringData createMonitoringData()
+    {
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setTimeStamp(1350000000000L);
+        ArrayList<Double> usedCapacity = new ArrayList<Double>();
+        usedCapacity.add(0.5);
+        usedCapacity.add(1024.0);
+        usedCapacity.add(12.25);
+        usedCapacity.add(-1.0);
+        data.setUsedCapacity(usedCapacity);
+        return data;
+    }
+
+    /**
+     * Values written in JSON and in Smile.
+     * -> both read back, Smile is smaller
+     *
+     * @throws Exception    The exception
+     */
+    public void testJsonAndSmileRoundTrip() throws Exception
+    {
+        VirtualMachineMonitoringData data = createMonitoringData();
+        byte[] json = CodecRegistry.toBytes(data);
+        CodecRegistry.setSmile(true);
+        byte[] smile = CodecRegistry.toBytes(data);
+        assertTrue(smile.length < json.length);
+
+        for (byte[] bytes : new byte[][] {json, smile})
+        {
+            VirtualMachineMonitoringData decoded = 
+                CodecRegistry.fromBytes(ByteBuffer.wrap(bytes), VirtualMachineMonitoringData.class);
+            assertEquals(data.getTimeStamp(), decoded.getTimeStamp());
+            assertEquals(data.getUsedCapacity(), decoded.getUsedCapacity());
+        }
+    }
+
+    /**
+     * JSON strings and sliced buffers.
+     * -> same content
+     *
+     * @throws Exception    The exception
+     */
+    public void testJsonStringAndSlice() throws Exception
+    {
+        VirtualMachineMonitoringData data = createMonitoringData();
+        String json = CodecRegistry.toJson(data);
+        assertEquals(json, new String(CodecRegistry.toJsonBytes(data), "UTF-8"));
+        assertEquals(data.getUsedCapacity(), 
+                     CodecRegistry.fromJson(json, VirtualMachineMonitoringData.class).getUsedCapacity());
+
+        byte[] bytes = CodecRegistry.toJsonBytes(data);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 4);
+        buffer.position(2);
+        buffer.put(bytes);
+        buffer.position(2);
+        buffer.limit(2 + bytes.length);
+        VirtualMachineMonitoringData decoded = 
+            CodecRegistry.fromBytes(buffer.slice(), VirtualMachineMonitoringData.class);
+        assertEquals(data.getTimeStamp(), decoded.getTimeStamp());
+        assertEquals(2, buffer.position());
+    }
+}